@@ -1,16 +1,15 @@
 package nw.orm.core;
 
 import java.io.Serializable;
-import java.lang.reflect.Field;
 import java.util.Date;
-import java.lang.reflect.Modifier;
 
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
-import javax.persistence.Table;
 import javax.persistence.Version;
 
 import nw.orm.core.annotations.Developer;
+import nw.orm.core.metadata.EntityAccessor;
+import nw.orm.core.metadata.EntityIndex;
 
 /**
  * NwormEntity is a shorthand for creating entities. It comes with extra properties
@@ -166,32 +165,20 @@ public abstract class NwormEntity<T> implements Serializable, Comparable<NwormEn
 	public String toString() {
 		StringBuilder result = new StringBuilder();
 		String newLine = System.getProperty("line.separator");
+		EntityAccessor accessor = EntityIndex.accessor(getClass());
 
-		result.append(getTableName());
+		result.append(accessor.getTableName());
 		result.append(" {");
 		result.append(newLine);
 
-		// determine fields declared in this class only (no fields of
-		// superclass)
-		Field[] fields = this.getClass().getDeclaredFields();
-		// print field names paired with their values
-		for (Field field : fields) {
-			if(Modifier.isStatic(field.getModifiers()))
-				continue;
+		// fields declared in this class only (no fields of superclass), paired with their values
+		String[] fields = accessor.getFieldNames();
+		for (int i = 0; i < fields.length; i++) {
 			result.append("  ");
+			result.append(fields[i]);
+			result.append(": ");
 			try {
-				result.append(field.getName());
-				result.append(": ");
-				// requires access to private field:Strin
-
-				String name = field.getName();
-				String prefix = "get";
-				if(field.getType().isAssignableFrom(Boolean.class)){
-					prefix = "is";
-				}
-				name = name.substring(0, 1).toUpperCase() + name.substring(1);
-
-				result.append(this.getClass().getMethod(prefix + name).invoke(this));
+				result.append(accessor.getValue(this, i));
 			} catch (Exception ex) {
 				System.out.println(ex);
 			}
@@ -208,16 +195,7 @@ public abstract class NwormEntity<T> implements Serializable, Comparable<NwormEn
 	 * @return the table name
 	 */
 	public String getTableName() {
-		String tableName = "";
-		try {
-			Table table = getClass().getAnnotation(Table.class);
-			tableName = table.name();
-		} catch (Exception e) {
-			e.printStackTrace();
-			tableName = getClass().getSimpleName();
-		}
-
-		return tableName;
+		return EntityIndex.accessor(getClass()).getTableName();
 	}
 
 }
@@ -1,44 +1,407 @@
 package nw.orm.core.annotations;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.RoundEnvironment;
-import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
-@SupportedAnnotationTypes({"nw.orm.core.annotations.NwormTransaction"})
-public class NwormProcessor extends AbstractProcessor{
+import nw.orm.core.metadata.EntityIndex;
 
+/**
+ * Generates an {@link nw.orm.core.metadata.EntityAccessor} for every {@code javax.persistence.Entity} compiled with
+ * it, and lists them in the {@link EntityIndex#RESOURCE} of the compilation. The accessors carry the table name,
+ * identifier and soft delete capability of the entity and read its fields through direct getter calls, so the
+ * runtime needs no reflection for them. The processor is registered as a service and runs with javac whenever nworm
+ * is on the class path; entities it could not generate for, e.g private nested classes, are reflected on at runtime.
+ * The index covers the entities of one compilation, so incremental builds should recompile all entities together.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class NwormProcessor extends AbstractProcessor {
+
+	/** The entity annotation. */
+	public static final String ENTITY = "javax.persistence.Entity";
+
+	/** Suffix of the generated accessor classes. */
+	public static final String SUFFIX = "_NwormAccessor";
+
+	/** The accessors generated so far, written to the index in the last round. */
+	private final List<String> generated = new ArrayList<String>();
+
+	/* (non-Javadoc)
+	 * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)
+	 */
 	@Override
 	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
-		Messager msgr = processingEnv.getMessager();
 		for (TypeElement te : annotations) {
-			for(Element e: env.getElementsAnnotatedWith(te)){
-				
-				msgr.printMessage(Kind.NOTE, e.getSimpleName());
-				System.out.println("Totem Nasu si");
+			for (Element e : env.getElementsAnnotatedWith(te)) {
+				if (e.getKind() == ElementKind.CLASS) {
+					generate((TypeElement) e);
+				}
 			}
 		}
-		return true;
+		if (env.processingOver() && !generated.isEmpty()) {
+			writeIndex();
+		}
+		// other processors may handle entities too
+		return false;
 	}
 
+	/* (non-Javadoc)
+	 * @see javax.annotation.processing.AbstractProcessor#getSupportedAnnotationTypes()
+	 */
 	@Override
 	public Set<String> getSupportedAnnotationTypes() {
 		Set<String> types = new HashSet<String>();
-		types.add("nw.orm.core.annotations.NwormTransaction");
+		types.add(ENTITY);
 		return types;
 	}
 
+	/* (non-Javadoc)
+	 * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+	 */
 	@Override
 	public SourceVersion getSupportedSourceVersion() {
 		return SourceVersion.latestSupported();
 	}
 
+	/**
+	 * Generates the accessor of an entity.
+	 *
+	 * @param entity the entity
+	 */
+	private void generate(TypeElement entity) {
+		Messager msgr = processingEnv.getMessager();
+		if (!isAccessible(entity)) {
+			msgr.printMessage(Kind.NOTE, "No accessor generated for " + entity.getQualifiedName() + ", it is not visible to its package", entity);
+			return;
+		}
+		Elements elements = processingEnv.getElementUtils();
+		String pkg = elements.getPackageOf(entity).getQualifiedName().toString();
+		String simpleName = accessorName(entity);
+		String accessor = pkg.length() == 0 ? simpleName : pkg + "." + simpleName;
+		String type = entity.getQualifiedName().toString();
+
+		List<String> fields = new ArrayList<String>();
+		List<String> getters = new ArrayList<String>();
+		for (VariableElement field : ElementFilter.fieldsIn(entity.getEnclosedElements())) {
+			if (field.getModifiers().contains(Modifier.STATIC)) {
+				continue;
+			}
+			fields.add(field.getSimpleName().toString());
+			getters.add(getter(entity, field.getSimpleName().toString(), field.asType()));
+		}
+		String[] id = id(entity);
+		boolean softDeletable = isSoftDeletable(entity);
+		String idGetter = softDeletable ? "getPk" : (id == null ? null : id[1]);
+
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(accessor, entity);
+			PrintWriter out = new PrintWriter(file.openWriter());
+			try {
+				if (pkg.length() > 0) {
+					out.println("package " + pkg + ";");
+					out.println();
+				}
+				out.println("/**");
+				out.println(" * Accessor of {@link " + type + "}, generated by " + NwormProcessor.class.getName() + ". Do not edit.");
+				out.println(" */");
+				out.println("@SuppressWarnings(\"rawtypes\")");
+				out.println("public final class " + simpleName + " implements nw.orm.core.metadata.EntityAccessor {");
+				out.println();
+				out.print("\tprivate static final String[] FIELDS = {");
+				for (int i = 0; i < fields.size(); i++) {
+					out.print((i == 0 ? " " : ", ") + literal(fields.get(i)));
+				}
+				out.println(fields.isEmpty() ? "};" : " };");
+				out.println();
+				out.println("\tpublic Class<?> getEntityClass() {");
+				out.println("\t\treturn " + type + ".class;");
+				out.println("\t}");
+				out.println();
+				out.println("\tpublic String getTableName() {");
+				out.println("\t\treturn " + literal(tableName(entity)) + ";");
+				out.println("\t}");
+				out.println();
+				out.println("\tpublic String getIdPropertyName() {");
+				out.println("\t\treturn " + (id == null ? "null" : literal(id[0])) + ";");
+				out.println("\t}");
+				out.println();
+				out.println("\tpublic boolean isSoftDeletable() {");
+				out.println("\t\treturn " + softDeletable + ";");
+				out.println("\t}");
+				out.println();
+				out.println("\tpublic String[] getFieldNames() {");
+				out.println("\t\treturn FIELDS;");
+				out.println("\t}");
+				out.println();
+				out.println("\tpublic Object getValue(Object entity, int field) {");
+				out.println("\t\tswitch (field) {");
+				for (int i = 0; i < fields.size(); i++) {
+					out.println("\t\tcase " + i + ":");
+					if (getters.get(i) == null) {
+						out.println("\t\t\tthrow new UnsupportedOperationException(" + literal(type + "." + fields.get(i) + " has no public getter") + ");");
+					} else {
+						out.println("\t\t\treturn ((" + type + ") entity)." + getters.get(i) + "();");
+					}
+				}
+				out.println("\t\tdefault:");
+				out.println("\t\t\tthrow new IndexOutOfBoundsException(String.valueOf(field));");
+				out.println("\t\t}");
+				out.println("\t}");
+				out.println();
+				out.println("\tpublic Object getId(Object entity) {");
+				if (idGetter == null) {
+					out.println("\t\tthrow new UnsupportedOperationException(" + literal(type + " has no public identifier getter") + ");");
+				} else {
+					out.println("\t\treturn ((" + type + ") entity)." + idGetter + "();");
+				}
+				out.println("\t}");
+				out.println();
+				out.println("}");
+			} finally {
+				out.close();
+			}
+			generated.add(accessor);
+		} catch (IOException e) {
+			msgr.printMessage(Kind.ERROR, "Could not generate " + accessor + ": " + e.getMessage(), entity);
+		}
+	}
+
+	/**
+	 * Writes the index of the generated accessors.
+	 */
+	private void writeIndex() {
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", EntityIndex.RESOURCE);
+			Writer out = file.openWriter();
+			try {
+				out.write("# generated by " + NwormProcessor.class.getName() + "\n");
+				for (String accessor : generated) {
+					out.write(accessor + "\n");
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR, "Could not write " + EntityIndex.RESOURCE + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Checks if the generated accessor, in the package of the entity, can reference it.
+	 *
+	 * @param entity the entity
+	 * @return true, if is accessible
+	 */
+	private static boolean isAccessible(TypeElement entity) {
+		Element e = entity;
+		while (e instanceof TypeElement) {
+			TypeElement t = (TypeElement) e;
+			if (t.getModifiers().contains(Modifier.PRIVATE)) {
+				return false;
+			}
+			if (t.getNestingKind() != NestingKind.TOP_LEVEL && t.getNestingKind() != NestingKind.MEMBER) {
+				return false;
+			}
+			e = t.getEnclosingElement();
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the simple name of the accessor of an entity, nested class names joined with underscores.
+	 *
+	 * @param entity the entity
+	 * @return the accessor name
+	 */
+	private static String accessorName(TypeElement entity) {
+		StringBuilder name = new StringBuilder(entity.getSimpleName());
+		for (Element e = entity.getEnclosingElement(); !(e instanceof PackageElement); e = e.getEnclosingElement()) {
+			name.insert(0, e.getSimpleName() + "_");
+		}
+		return name.append(SUFFIX).toString();
+	}
+
+	/**
+	 * Gets the table name of an entity as {@link nw.orm.core.NwormEntity#getTableName()} reports it.
+	 *
+	 * @param entity the entity
+	 * @return the table name
+	 */
+	private String tableName(TypeElement entity) {
+		AnnotationMirror table = annotation(entity, "javax.persistence.Table");
+		if (table == null) {
+			return entity.getSimpleName().toString();
+		}
+		Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils().getElementValuesWithDefaults(table);
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> v : values.entrySet()) {
+			if (v.getKey().getSimpleName().contentEquals("name")) {
+				return String.valueOf(v.getValue().getValue());
+			}
+		}
+		return entity.getSimpleName().toString();
+	}
+
+	/**
+	 * Finds the identifier of an entity, declared on a field or a getter of the entity or a superclass.
+	 *
+	 * @param entity the entity
+	 * @return the property name and its public getter, which may be null; null if there is no identifier
+	 */
+	private String[] id(TypeElement entity) {
+		for (TypeElement t = entity; t != null; t = superclass(t)) {
+			for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+				if (isId(field)) {
+					String name = field.getSimpleName().toString();
+					return new String[] { name, getter(entity, name, field.asType()) };
+				}
+			}
+			for (ExecutableElement method : ElementFilter.methodsIn(t.getEnclosedElements())) {
+				if (isId(method) && method.getParameters().isEmpty()) {
+					String getter = method.getSimpleName().toString();
+					String name = getter.substring(getter.startsWith("is") ? 2 : 3);
+					name = name.length() > 1 && Character.isUpperCase(name.charAt(1)) ? name
+							: Character.toLowerCase(name.charAt(0)) + name.substring(1);
+					return new String[] { name, method.getModifiers().contains(Modifier.PUBLIC) ? getter : null };
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if an element is annotated as an identifier.
+	 *
+	 * @param e the element
+	 * @return true, if is id
+	 */
+	private static boolean isId(Element e) {
+		return annotation(e, "javax.persistence.Id") != null || annotation(e, "javax.persistence.EmbeddedId") != null;
+	}
+
+	/**
+	 * Finds the public getter of a property the way {@link nw.orm.core.NwormEntity#toString()} always has, with the
+	 * is prefix for types a Boolean can be assigned to.
+	 *
+	 * @param entity the entity
+	 * @param name the property name
+	 * @param type the property type
+	 * @return the getter name, null if there is none
+	 */
+	private String getter(TypeElement entity, String name, TypeMirror type) {
+		Types types = processingEnv.getTypeUtils();
+		String suffix = name.substring(0, 1).toUpperCase() + name.substring(1);
+		TypeElement bool = processingEnv.getElementUtils().getTypeElement(Boolean.class.getName());
+		boolean isBoolean = type.getKind() == TypeKind.BOOLEAN || (bool != null && types.isAssignable(bool.asType(), type));
+		String[] candidates = isBoolean ? new String[] { "is" + suffix, "get" + suffix } : new String[] { "get" + suffix };
+		List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(entity));
+		for (String candidate : candidates) {
+			for (ExecutableElement m : methods) {
+				if (m.getSimpleName().contentEquals(candidate) && m.getParameters().isEmpty()
+						&& m.getModifiers().contains(Modifier.PUBLIC) && !m.getModifiers().contains(Modifier.STATIC)) {
+					return candidate;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if an entity extends {@link nw.orm.core.NwormEntity}.
+	 *
+	 * @param entity the entity
+	 * @return true, if is soft deletable
+	 */
+	private boolean isSoftDeletable(TypeElement entity) {
+		TypeElement base = processingEnv.getElementUtils().getTypeElement("nw.orm.core.NwormEntity");
+		if (base == null) {
+			return false;
+		}
+		Types types = processingEnv.getTypeUtils();
+		return types.isAssignable(types.erasure(entity.asType()), types.erasure(base.asType()));
+	}
+
+	/**
+	 * Gets the superclass of a type.
+	 *
+	 * @param t the type
+	 * @return the superclass, null for Object or interfaces
+	 */
+	private static TypeElement superclass(TypeElement t) {
+		TypeMirror s = t.getSuperclass();
+		if (s.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		TypeElement e = (TypeElement) ((DeclaredType) s).asElement();
+		return e.getQualifiedName().contentEquals(Object.class.getName()) ? null : e;
+	}
+
+	/**
+	 * Finds an annotation on an element by type name.
+	 *
+	 * @param e the element
+	 * @param annotationType the annotation type name
+	 * @return the annotation, null if absent
+	 */
+	private static AnnotationMirror annotation(Element e, String annotationType) {
+		for (AnnotationMirror am : e.getAnnotationMirrors()) {
+			TypeElement t = (TypeElement) am.getAnnotationType().asElement();
+			if (t.getQualifiedName().contentEquals(annotationType)) {
+				return am;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Quotes a string as a java literal.
+	 *
+	 * @param s the string
+	 * @return the literal
+	 */
+	private static String literal(String s) {
+		StringBuilder out = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			} else if (c < 0x20 || c > 0x7e) {
+				out.append(String.format("\\u%04x", Integer.valueOf(c)));
+			} else {
+				out.append(c);
+			}
+		}
+		return out.append('"').toString();
+	}
 
 }
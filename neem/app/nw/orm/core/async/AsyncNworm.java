@@ -0,0 +1,572 @@
+package nw.orm.core.async;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nw.orm.core.NwormEntity;
+import nw.orm.core.query.Page;
+import nw.orm.core.query.QueryModifier;
+import nw.orm.core.query.QueryParameter;
+import nw.orm.core.query.SQLModifier;
+import nw.orm.core.service.NwormImpl;
+
+import org.hibernate.criterion.Criterion;
+
+/**
+ * Runs service operations on a bounded pool of worker threads so independent lookups can run in parallel.
+ * The pool defaults to the size of the connection pool, since every running operation holds a connection, and
+ * submissions beyond the queue capacity are rejected with a {@link RejectedExecutionException}.
+ * <pre>
+ * AsyncNworm async = new AsyncNworm(Nworm.getInstance());
+ * Future&lt;Person&gt; person = async.getById(Person.class, pk);
+ * Future&lt;List&lt;City&gt;&gt; cities = async.getAll(City.class);
+ * render(person.get(), cities.get());
+ * </pre>
+ * Each operation opens and commits its own session on a worker thread, exactly as the blocking call would.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class AsyncNworm {
+
+	/** Pool size used when the connection pool size is unknown. */
+	public static final int DEFAULT_POOL_SIZE = 10;
+
+	/** Default maximum number of queued operations. */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+	/** Numbers the executors for thread names. */
+	private static final AtomicInteger EXECUTOR_COUNT = new AtomicInteger();
+
+	/** The service. */
+	private final NwormImpl service;
+
+	/** The executor. */
+	private final ThreadPoolExecutor executor;
+
+	/** The queue capacity. */
+	private final int queueCapacity;
+
+	/** The submitted operations. */
+	private final AtomicLong submitted = new AtomicLong();
+
+	/** The rejected operations. */
+	private final AtomicLong rejected = new AtomicLong();
+
+	/** The failed operations. */
+	private final AtomicLong failed = new AtomicLong();
+
+	/** The completed operations. */
+	private final AtomicLong completed = new AtomicLong();
+
+	/**
+	 * Instantiates a new async facade sized to the connection pool of the service.
+	 *
+	 * @param service the service
+	 */
+	public AsyncNworm(NwormImpl service) {
+		this(service, service.getConnectionPoolSize() > 0 ? service.getConnectionPoolSize() : DEFAULT_POOL_SIZE, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new async facade.
+	 *
+	 * @param service the service
+	 * @param poolSize the number of worker threads
+	 * @param queueCapacity the maximum number of queued operations
+	 */
+	public AsyncNworm(NwormImpl service, int poolSize, int queueCapacity) {
+		if (poolSize < 1 || queueCapacity < 1) {
+			throw new IllegalArgumentException("poolSize and queueCapacity must be positive");
+		}
+		this.service = service;
+		this.queueCapacity = queueCapacity;
+		final String prefix = "nworm-async-" + EXECUTOR_COUNT.incrementAndGet() + "-";
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, prefix + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				}, new RejectedExecutionHandler() {
+
+					@Override
+					public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+						rejected.incrementAndGet();
+						throw new RejectedExecutionException("nworm async queue is full (" + AsyncNworm.this.queueCapacity + " operations)");
+					}
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Runs an operation on the worker pool.
+	 *
+	 * @param <T> the result type
+	 * @param operation the operation
+	 * @return the pending result
+	 * @throws RejectedExecutionException when the queue is full or the facade is shut down
+	 */
+	public <T> Future<T> submit(final Callable<T> operation) {
+		submitted.incrementAndGet();
+		return executor.submit(new Callable<T>() {
+
+			@Override
+			public T call() throws Exception {
+				try {
+					T out = operation.call();
+					completed.incrementAndGet();
+					return out;
+				} catch (Exception e) {
+					failed.incrementAndGet();
+					throw e;
+				} catch (Error e) {
+					failed.incrementAndGet();
+					throw e;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getById(Class, Serializable)}.
+	 *
+	 * @param <T> the entity type
+	 * @param clazz the entity class
+	 * @param id the id
+	 * @return the pending entity
+	 */
+	public <T> Future<T> getById(final Class<T> clazz, final Serializable id) {
+		return submit(new Callable<T>() {
+
+			@Override
+			public T call() {
+				return service.getById(clazz, id);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getAll(Class)}.
+	 *
+	 * @param <T> the entity type
+	 * @param clazz the entity class
+	 * @return the pending entities
+	 */
+	public <T> Future<List<T>> getAll(final Class<T> clazz) {
+		return submit(new Callable<List<T>>() {
+
+			@Override
+			public List<T> call() {
+				return service.getAll(clazz);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getByCriteria(Class, Criterion...)}.
+	 *
+	 * @param <T> the entity type
+	 * @param clazz the entity class
+	 * @param criteria the criteria
+	 * @return the pending entity
+	 */
+	public <T> Future<T> getByCriteria(final Class<T> clazz, final Criterion ... criteria) {
+		return submit(new Callable<T>() {
+
+			@Override
+			public T call() {
+				return service.getByCriteria(clazz, criteria);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getListByCriteria(Class, Criterion...)}.
+	 *
+	 * @param <T> the entity type
+	 * @param clazz the entity class
+	 * @param criteria the criteria
+	 * @return the pending entities
+	 */
+	public <T> Future<List<T>> getListByCriteria(final Class<T> clazz, final Criterion ... criteria) {
+		return submit(new Callable<List<T>>() {
+
+			@Override
+			public List<T> call() {
+				return service.getListByCriteria(clazz, criteria);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getByCriteria(Class, QueryModifier, Criterion...)}.
+	 *
+	 * @param <T> the result type
+	 * @param returnClazz the result class
+	 * @param qm the query modifier
+	 * @param criteria the criteria
+	 * @return the pending result
+	 */
+	public <T> Future<T> getByCriteria(final Class<T> returnClazz, final QueryModifier qm, final Criterion ... criteria) {
+		return submit(new Callable<T>() {
+
+			@Override
+			public T call() {
+				return service.getByCriteria(returnClazz, qm, criteria);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getListByCriteria(Class, QueryModifier, Criterion...)}.
+	 *
+	 * @param <T> the result type
+	 * @param returnClazz the result class
+	 * @param qm the query modifier
+	 * @param criteria the criteria
+	 * @return the pending results
+	 */
+	public <T> Future<List<T>> getListByCriteria(final Class<T> returnClazz, final QueryModifier qm, final Criterion ... criteria) {
+		return submit(new Callable<List<T>>() {
+
+			@Override
+			public List<T> call() {
+				return service.getListByCriteria(returnClazz, qm, criteria);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getPageByCriteria(Class, QueryModifier, Criterion...)}.
+	 *
+	 * @param <T> the result type
+	 * @param returnClazz the result class
+	 * @param qm the query modifier
+	 * @param criteria the criteria
+	 * @return the pending page
+	 */
+	public <T> Future<Page<T>> getPageByCriteria(final Class<T> returnClazz, final QueryModifier qm, final Criterion ... criteria) {
+		return submit(new Callable<Page<T>>() {
+
+			@Override
+			public Page<T> call() {
+				return service.getPageByCriteria(returnClazz, qm, criteria);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getByHQL(Class, String, QueryParameter...)}.
+	 *
+	 * @param <T> the result type
+	 * @param resultClass the result class
+	 * @param hql the hql
+	 * @param parameters the parameters
+	 * @return the pending result
+	 */
+	public <T> Future<T> getByHQL(final Class<T> resultClass, final String hql, final QueryParameter ... parameters) {
+		return submit(new Callable<T>() {
+
+			@Override
+			public T call() {
+				return service.getByHQL(resultClass, hql, parameters);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getListByHQL(Class, String, QueryParameter...)}.
+	 *
+	 * @param <T> the result type
+	 * @param resultClass the result class
+	 * @param hql the hql
+	 * @param parameters the parameters
+	 * @return the pending results
+	 */
+	public <T> Future<List<T>> getListByHQL(final Class<T> resultClass, final String hql, final QueryParameter ... parameters) {
+		return submit(new Callable<List<T>>() {
+
+			@Override
+			public List<T> call() {
+				return service.getListByHQL(resultClass, hql, parameters);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#getBySQL(Class, String, SQLModifier, QueryParameter...)}.
+	 *
+	 * @param <T> the result type
+	 * @param returnClazz the result class
+	 * @param sql the sql
+	 * @param sqlMod the sql modifier
+	 * @param params the parameters
+	 * @return the pending results
+	 */
+	public <T> Future<List<T>> getBySQL(final Class<T> returnClazz, final String sql, final SQLModifier sqlMod, final QueryParameter ... params) {
+		return submit(new Callable<List<T>>() {
+
+			@Override
+			public List<T> call() {
+				return service.getBySQL(returnClazz, sql, sqlMod, params);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#create(Object)}.
+	 *
+	 * @param obj the entity
+	 * @return the pending id
+	 */
+	public Future<Serializable> create(final Object obj) {
+		return submit(new Callable<Serializable>() {
+
+			@Override
+			public Serializable call() {
+				return service.create(obj);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#createBulk(List)}.
+	 *
+	 * @param items the entities
+	 * @return the pending ids
+	 */
+	public Future<List<Serializable>> createBulk(final List<?> items) {
+		return submit(new Callable<List<Serializable>>() {
+
+			@Override
+			public List<Serializable> call() {
+				return service.createBulk(items);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#update(Object)}.
+	 *
+	 * @param obj the entity
+	 * @return the pending outcome
+	 */
+	public Future<Boolean> update(final Object obj) {
+		return submit(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return Boolean.valueOf(service.update(obj));
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#updateBulk(List)}.
+	 *
+	 * @param items the entities
+	 * @return the pending outcome
+	 */
+	public Future<Boolean> updateBulk(final List<?> items) {
+		return submit(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return Boolean.valueOf(service.updateBulk(items));
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#createOrUpdate(Object)}.
+	 *
+	 * @param obj the entity
+	 * @return the pending outcome
+	 */
+	public Future<Boolean> createOrUpdate(final Object obj) {
+		return submit(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return Boolean.valueOf(service.createOrUpdate(obj));
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#remove(Object)}.
+	 *
+	 * @param obj the entity
+	 * @return the pending outcome
+	 */
+	public Future<Boolean> remove(final Object obj) {
+		return submit(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return Boolean.valueOf(service.remove(obj));
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#softDelete(Class, Serializable)}.
+	 *
+	 * @param clazz the entity class
+	 * @param id the id
+	 * @return the pending outcome
+	 */
+	public Future<Boolean> softDelete(final Class<? extends NwormEntity<?>> clazz, final Serializable id) {
+		return submit(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() {
+				return Boolean.valueOf(service.softDelete(clazz, id));
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#executeHQLUpdate(String, QueryParameter...)}.
+	 *
+	 * @param hql the hql
+	 * @param params the parameters
+	 * @return the pending number of affected rows
+	 */
+	public Future<Integer> executeHQLUpdate(final String hql, final QueryParameter ... params) {
+		return submit(new Callable<Integer>() {
+
+			@Override
+			public Integer call() {
+				return Integer.valueOf(service.executeHQLUpdate(hql, params));
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous {@link NwormImpl#executeSQLUpdate(String, QueryParameter...)}.
+	 *
+	 * @param sql the sql
+	 * @param params the parameters
+	 * @return the pending number of affected rows
+	 */
+	public Future<Integer> executeSQLUpdate(final String sql, final QueryParameter ... params) {
+		return submit(new Callable<Integer>() {
+
+			@Override
+			public Integer call() {
+				return Integer.valueOf(service.executeSQLUpdate(sql, params));
+			}
+		});
+	}
+
+	/**
+	 * Stops accepting operations and waits for the queued ones to finish.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit
+	 * @return true, if all operations finished in time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		executor.shutdown();
+		return executor.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Gets the service.
+	 *
+	 * @return the service
+	 */
+	public NwormImpl getService() {
+		return service;
+	}
+
+	/**
+	 * Gets the number of worker threads.
+	 *
+	 * @return the pool size
+	 */
+	public int getPoolSize() {
+		return executor.getMaximumPoolSize();
+	}
+
+	/**
+	 * Gets the queue capacity.
+	 *
+	 * @return the queue capacity
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Gets the number of queued operations.
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Gets the number of running operations.
+	 *
+	 * @return the active count
+	 */
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * Gets the number of submitted operations, including rejected ones.
+	 *
+	 * @return the submitted count
+	 */
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	/**
+	 * Gets the number of operations rejected because the queue was full or the facade was shut down.
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * Gets the number of operations that completed normally.
+	 *
+	 * @return the completed count
+	 */
+	public long getCompletedCount() {
+		return completed.get();
+	}
+
+	/**
+	 * Gets the number of operations that failed.
+	 *
+	 * @return the failed count
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+}
@@ -0,0 +1,108 @@
+package nw.orm.core.bulk;
+
+/**
+ * Controls how a bulk insert is split up. Items are written in chunks, each chunk is flushed to the database
+ * in JDBC batches of {@link #getBatchSize()} statements and the transaction can optionally be committed after
+ * every {@link #getCommitInterval()} chunks so that very large imports do not hold a single transaction.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class BulkInsertOptions {
+
+	/** Default number of items in a chunk. */
+	public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+	/** Number of inserts sent per JDBC batch, 0 uses hibernate.jdbc.batch_size of the session factory. */
+	private int batchSize;
+
+	/** Number of items per chunk. */
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/** Number of chunks between commits, 0 commits once at the end. */
+	private int commitInterval;
+
+	/**
+	 * Instantiates options with the session factory batch size, default chunk size and a single commit.
+	 */
+	public BulkInsertOptions() {
+
+	}
+
+	/**
+	 * Instantiates new bulk insert options.
+	 *
+	 * @param batchSize number of inserts per JDBC batch, 0 to use the session factory setting
+	 * @param chunkSize number of items per chunk
+	 * @param commitInterval number of chunks between commits, 0 to commit once at the end
+	 */
+	public BulkInsertOptions(int batchSize, int chunkSize, int commitInterval) {
+		setBatchSize(batchSize);
+		setChunkSize(chunkSize);
+		setCommitInterval(commitInterval);
+	}
+
+	/**
+	 * Gets the batch size.
+	 *
+	 * @return the batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the number of inserts per JDBC batch. This should match hibernate.jdbc.batch_size
+	 * as hibernate does not allow changing the JDBC batch size per session.
+	 *
+	 * @param batchSize the new batch size
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 0) {
+			throw new IllegalArgumentException("batchSize must not be negative");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Gets the chunk size.
+	 *
+	 * @return the chunk size
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Sets the number of items per chunk.
+	 *
+	 * @param chunkSize the new chunk size
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be at least 1");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Gets the commit interval.
+	 *
+	 * @return the commit interval
+	 */
+	public int getCommitInterval() {
+		return commitInterval;
+	}
+
+	/**
+	 * Sets the number of chunks written between commits. When set, chunks committed before a failure stay committed.
+	 *
+	 * @param commitInterval the new commit interval, 0 to commit once at the end
+	 */
+	public void setCommitInterval(int commitInterval) {
+		if (commitInterval < 0) {
+			throw new IllegalArgumentException("commitInterval must not be negative");
+		}
+		this.commitInterval = commitInterval;
+	}
+
+}
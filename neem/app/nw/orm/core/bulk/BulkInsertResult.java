@@ -0,0 +1,175 @@
+package nw.orm.core.bulk;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a chunked bulk insert.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class BulkInsertResult {
+
+	/** Generated identifiers in insertion order. */
+	private final List<Serializable> ids;
+
+	/** Statistics for every chunk written. */
+	private final List<ChunkStat> chunks = new ArrayList<ChunkStat>();
+
+	/** Number of rows known to be committed. */
+	private int committedCount;
+
+	/**
+	 * Instantiates a new bulk insert result.
+	 *
+	 * @param expectedSize the number of items to be inserted
+	 */
+	public BulkInsertResult(int expectedSize) {
+		ids = new ArrayList<Serializable>(expectedSize);
+	}
+
+	/**
+	 * Adds a generated id.
+	 *
+	 * @param id the id
+	 */
+	public void addId(Serializable id) {
+		ids.add(id);
+	}
+
+	/**
+	 * Adds the statistics of a completed chunk.
+	 *
+	 * @param chunk the chunk
+	 */
+	public void addChunk(ChunkStat chunk) {
+		chunks.add(chunk);
+	}
+
+	/**
+	 * Marks every inserted row as committed.
+	 */
+	public void markCommitted() {
+		committedCount = ids.size();
+	}
+
+	/**
+	 * Gets the generated ids in insertion order.
+	 *
+	 * @return the ids
+	 */
+	public List<Serializable> getIds() {
+		return Collections.unmodifiableList(ids);
+	}
+
+	/**
+	 * Gets the chunk statistics.
+	 *
+	 * @return the chunks
+	 */
+	public List<ChunkStat> getChunks() {
+		return Collections.unmodifiableList(chunks);
+	}
+
+	/**
+	 * Gets the number of rows committed.
+	 *
+	 * @return the committed count
+	 */
+	public int getCommittedCount() {
+		return committedCount;
+	}
+
+	/**
+	 * Gets the total time spent writing chunks.
+	 *
+	 * @return the total time in milliseconds
+	 */
+	public long getTotalMillis() {
+		long total = 0;
+		for (ChunkStat c : chunks) {
+			total += c.getMillis();
+		}
+		return total;
+	}
+
+	/**
+	 * Timing of a single chunk.
+	 */
+	public static class ChunkStat {
+
+		/** The chunk index. */
+		private final int index;
+
+		/** Number of rows in the chunk. */
+		private final int rows;
+
+		/** Time spent on the chunk. */
+		private final long millis;
+
+		/** Whether the transaction was committed after the chunk. */
+		private final boolean committed;
+
+		/**
+		 * Instantiates a new chunk stat.
+		 *
+		 * @param index the index
+		 * @param rows the rows
+		 * @param millis the millis
+		 * @param committed the committed
+		 */
+		public ChunkStat(int index, int rows, long millis, boolean committed) {
+			this.index = index;
+			this.rows = rows;
+			this.millis = millis;
+			this.committed = committed;
+		}
+
+		/**
+		 * Gets the index.
+		 *
+		 * @return the index
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Gets the rows.
+		 *
+		 * @return the rows
+		 */
+		public int getRows() {
+			return rows;
+		}
+
+		/**
+		 * Gets the millis.
+		 *
+		 * @return the millis
+		 */
+		public long getMillis() {
+			return millis;
+		}
+
+		/**
+		 * Checks if is committed.
+		 *
+		 * @return true, if is committed
+		 */
+		public boolean isCommitted() {
+			return committed;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "{CHUNK: " + index + ", ROWS: " + rows + ", MILLIS: " + millis + ", COMMITTED: " + committed + " }";
+		}
+	}
+
+}
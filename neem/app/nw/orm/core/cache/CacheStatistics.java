@@ -0,0 +1,129 @@
+package nw.orm.core.cache;
+
+/**
+ * Point in time statistics of a cache or cache region.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class CacheStatistics {
+
+	/** The cache name. */
+	private final String name;
+
+	/** The number of entries. */
+	private final int size;
+
+	/** The maximum number of entries. */
+	private final int maxEntries;
+
+	/** The hits. */
+	private final long hits;
+
+	/** The misses. */
+	private final long misses;
+
+	/** The evictions. */
+	private final long evictions;
+
+	/** The expirations. */
+	private final long expirations;
+
+	/**
+	 * Takes the statistics of a cache.
+	 *
+	 * @param name the cache name
+	 * @param cache the cache
+	 */
+	public CacheStatistics(String name, LruCache<?, ?> cache) {
+		this.name = name;
+		this.size = cache.size();
+		this.maxEntries = cache.getMaxEntries();
+		this.hits = cache.getHits();
+		this.misses = cache.getMisses();
+		this.evictions = cache.getEvictions();
+		this.expirations = cache.getExpirations();
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the size.
+	 *
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the max entries.
+	 *
+	 * @return the max entries
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Gets the hits.
+	 *
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the misses.
+	 *
+	 * @return the misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the evictions.
+	 *
+	 * @return the evictions
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the expirations.
+	 *
+	 * @return the expirations
+	 */
+	public long getExpirations() {
+		return expirations;
+	}
+
+	/**
+	 * Gets the hit ratio.
+	 *
+	 * @return the hit ratio between 0 and 1
+	 */
+	public double getHitRatio() {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "{CACHE: " + name + ", SIZE: " + size + "/" + maxEntries + ", HITS: " + hits + ", MISSES: " + misses
+				+ ", EVICTIONS: " + evictions + ", EXPIRATIONS: " + expirations + " }";
+	}
+
+}
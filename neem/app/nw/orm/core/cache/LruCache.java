@@ -0,0 +1,293 @@
+package nw.orm.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size bounded, access ordered cache with per entry expiry. Once the maximum size is reached the least recently used
+ * entry is evicted. All operations are synchronized on the cache, which keeps it simple and is adequate for the small
+ * critical sections involved.
+ *
+ * @author Ogwara O. Rowland
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LruCache<K, V> {
+
+	/** The maximum number of entries. */
+	private final int maxEntries;
+
+	/** The default time to live in milliseconds, 0 or less never expires. */
+	private final long defaultTtl;
+
+	/** The entries in access order. */
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	/** The hits. */
+	private long hits;
+
+	/** The misses. */
+	private long misses;
+
+	/** The evictions due to size. */
+	private long evictions;
+
+	/** The expirations. */
+	private long expirations;
+
+	/**
+	 * Instantiates a new lru cache.
+	 *
+	 * @param maxEntries the maximum number of entries
+	 * @param defaultTtl the default time to live in milliseconds, 0 to never expire
+	 */
+	public LruCache(int maxEntries, long defaultTtl) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be at least 1");
+		}
+		this.maxEntries = maxEntries;
+		this.defaultTtl = defaultTtl;
+		this.entries = new LinkedHashMap<K, Entry<V>>(Math.min(maxEntries, 1024), 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				if (size() > LruCache.this.maxEntries) {
+					evictions += 1;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Gets a value.
+	 *
+	 * @param key the key
+	 * @return the value, null if absent or expired
+	 */
+	public synchronized V get(K key) {
+		Entry<V> e = entries.get(key);
+		if (e == null) {
+			misses += 1;
+			return null;
+		}
+		if (e.isExpired(System.currentTimeMillis())) {
+			entries.remove(key);
+			expirations += 1;
+			misses += 1;
+			return null;
+		}
+		hits += 1;
+		return e.value;
+	}
+
+	/**
+	 * Puts a value with the default time to live.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	public void put(K key, V value) {
+		put(key, value, defaultTtl);
+	}
+
+	/**
+	 * Puts a value.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @param ttl the time to live in milliseconds, 0 to never expire
+	 */
+	public synchronized void put(K key, V value, long ttl) {
+		long expires = ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE;
+		entries.put(key, new Entry<V>(value, expires));
+	}
+
+	/**
+	 * Removes a value.
+	 *
+	 * @param key the key
+	 * @return the removed value, null if absent
+	 */
+	public synchronized V remove(K key) {
+		Entry<V> e = entries.remove(key);
+		return e == null ? null : e.value;
+	}
+
+	/**
+	 * Checks if a live entry exists without counting a hit or miss.
+	 *
+	 * @param key the key
+	 * @return true, if the key is cached and not expired
+	 */
+	public synchronized boolean contains(K key) {
+		Entry<V> e = entries.get(key);
+		return e != null && !e.isExpired(System.currentTimeMillis());
+	}
+
+	/**
+	 * Gets a live value without counting a hit or miss.
+	 *
+	 * @param key the key
+	 * @return the value, null if absent or expired
+	 */
+	public synchronized V peek(K key) {
+		Entry<V> e = entries.get(key);
+		return e == null || e.isExpired(System.currentTimeMillis()) ? null : e.value;
+	}
+
+	/**
+	 * Removes all expired entries.
+	 *
+	 * @return the number of entries removed
+	 */
+	public synchronized int purgeExpired() {
+		long now = System.currentTimeMillis();
+		int removed = 0;
+		Iterator<Entry<V>> it = entries.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().isExpired(now)) {
+				it.remove();
+				removed += 1;
+			}
+		}
+		expirations += removed;
+		return removed;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Gets a copy of the live entries.
+	 *
+	 * @return the entries
+	 */
+	public synchronized Map<K, V> toMap() {
+		long now = System.currentTimeMillis();
+		Map<K, V> out = new LinkedHashMap<K, V>();
+		for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+			if (!e.getValue().isExpired(now)) {
+				out.put(e.getKey(), e.getValue().value);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Gets the number of entries, including expired entries not yet purged.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the maximum number of entries.
+	 *
+	 * @return the max entries
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Gets the default time to live.
+	 *
+	 * @return the default ttl in milliseconds
+	 */
+	public long getDefaultTtl() {
+		return defaultTtl;
+	}
+
+	/**
+	 * Gets the hits.
+	 *
+	 * @return the hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the misses.
+	 *
+	 * @return the misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of entries evicted to respect the size bound.
+	 *
+	 * @return the evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the number of entries dropped after expiring.
+	 *
+	 * @return the expirations
+	 */
+	public synchronized long getExpirations() {
+		return expirations;
+	}
+
+	/**
+	 * Gets the hit ratio.
+	 *
+	 * @return the hit ratio between 0 and 1
+	 */
+	public synchronized double getHitRatio() {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * A cached value with its expiry time.
+	 *
+	 * @param <V> the value type
+	 */
+	private static class Entry<V> {
+
+		/** The value. */
+		private final V value;
+
+		/** The expiry time. */
+		private final long expires;
+
+		/**
+		 * Instantiates a new entry.
+		 *
+		 * @param value the value
+		 * @param expires the expires
+		 */
+		Entry(V value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+
+		/**
+		 * Checks if is expired.
+		 *
+		 * @param now the now
+		 * @return true, if is expired
+		 */
+		boolean isExpired(long now) {
+			return now >= expires;
+		}
+	}
+
+}
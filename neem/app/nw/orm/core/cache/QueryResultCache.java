@@ -0,0 +1,508 @@
+package nw.orm.core.cache;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nw.orm.core.query.QueryParameter;
+
+import org.hibernate.engine.spi.TypedValue;
+import org.hibernate.type.Type;
+
+/**
+ * Caches the results of service reads by the queried class, the query and its parameters. Caching is enabled per class
+ * with its own time to live, and every write made through the owning service invalidates the cached results of the written
+ * class and of its cached super classes. Results of unmapped classes may be read from any table, they are kept in a shared
+ * region that every write invalidates.
+ * <p>
+ * Cached entities are shared detached instances and must be treated as read only. Queries joining other entities are only
+ * invalidated by writes to the queried class, such queries should use a short time to live. Writes made in a unit of work
+ * invalidate when they are flushed and again once the unit commits or rolls back, since concurrent reads in between
+ * cache the state committed before it. Reads in a unit of work bypass the cache. Reads bound to entities, or to criteria
+ * outside the hibernate criterion package, are never cached since their keys can not tell such reads apart.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class QueryResultCache {
+
+	/** Returned by {@link #get(Key)} when no result is cached. */
+	public static final Object MISS = new Object();
+
+	/** Default maximum entries per region. */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	/** Name of the region shared by unmapped result classes. */
+	public static final String UNMAPPED_REGION = "unmapped";
+
+	/** Stands in for cached null results. */
+	private static final Object NULL_RESULT = new Object();
+
+	/** Package of the hibernate criteria, orders and projections described field by field in keys. */
+	private static final String CRITERION_PACKAGE = "org.hibernate.criterion.";
+
+	/** Deepest nesting described in a key, deeper parts are not cached. */
+	private static final int MAX_DEPTH = 32;
+
+	/** Described fields of criterion classes. */
+	private static final ConcurrentHashMap<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<Class<?>, Field[]>();
+
+	/** Write counter, used to drop results read before a concurrent write. */
+	private final AtomicLong generation = new AtomicLong();
+
+	/** The settings of the cached classes. */
+	private final ConcurrentHashMap<Class<?>, long[]> settings = new ConcurrentHashMap<Class<?>, long[]>();
+
+	/** The regions of mapped classes. */
+	private final ConcurrentHashMap<Class<?>, Region> regions = new ConcurrentHashMap<Class<?>, Region>();
+
+	/** The region shared by unmapped classes. */
+	private final Region unmapped;
+
+	/**
+	 * Instantiates a new query result cache.
+	 */
+	public QueryResultCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Instantiates a new query result cache.
+	 *
+	 * @param unmappedMaxEntries the maximum entries of the region shared by unmapped classes
+	 */
+	public QueryResultCache(int unmappedMaxEntries) {
+		this.unmapped = new Region(UNMAPPED_REGION, unmappedMaxEntries);
+	}
+
+	/**
+	 * Enables caching of a class.
+	 *
+	 * @param clazz the class
+	 * @param ttl time to live of results in milliseconds
+	 */
+	public void enable(Class<?> clazz, long ttl) {
+		enable(clazz, ttl, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Enables caching of a class.
+	 *
+	 * @param clazz the class
+	 * @param ttl time to live of results in milliseconds
+	 * @param maxEntries maximum number of cached results of the class
+	 */
+	public void enable(Class<?> clazz, long ttl, int maxEntries) {
+		if (ttl <= 0 || maxEntries <= 0) {
+			throw new IllegalArgumentException("ttl and maxEntries must be positive");
+		}
+		settings.put(clazz, new long[] { ttl, maxEntries });
+		Region old = regions.remove(clazz);
+		if (old != null) {
+			old.invalidate(generation.incrementAndGet());
+		}
+	}
+
+	/**
+	 * Disables caching of a class and drops its results.
+	 *
+	 * @param clazz the class
+	 */
+	public void disable(Class<?> clazz) {
+		settings.remove(clazz);
+		Region old = regions.remove(clazz);
+		if (old != null) {
+			old.invalidate(generation.incrementAndGet());
+		}
+	}
+
+	/**
+	 * Checks if caching is enabled for a class.
+	 *
+	 * @param clazz the class
+	 * @return true, if enabled
+	 */
+	public boolean isEnabled(Class<?> clazz) {
+		return clazz != null && !settings.isEmpty() && settings.containsKey(clazz);
+	}
+
+	/**
+	 * Builds the key of a read. Keys must be built before the read executes.
+	 *
+	 * @param clazz the queried class
+	 * @param mapped whether the class is mapped
+	 * @param parts the query and parameters identifying the read
+	 * @return the key, null if caching is not enabled for the class or a part can not be described, see
+	 * {@link #describe(Object...)}
+	 */
+	public Key key(Class<?> clazz, boolean mapped, Object... parts) {
+		long[] setting = clazz == null ? null : settings.get(clazz);
+		if (setting == null) {
+			return null;
+		}
+		long current = generation.get();
+		String description = describe(parts);
+		if (description == null) {
+			return null;
+		}
+		Region region = unmapped;
+		if (mapped) {
+			region = regions.get(clazz);
+			if (region == null) {
+				Region created = new Region(clazz.getName(), (int) setting[1]);
+				region = regions.putIfAbsent(clazz, created);
+				if (region == null) {
+					region = created;
+				}
+			}
+		}
+		return new Key(region, clazz.getName() + description, setting[0], current);
+	}
+
+	/**
+	 * Describes the parts of a query for a cache key. Hibernate criteria, orders and projections are described by
+	 * their fields, since their strings leave out bound values, case insensitivity and the precision of dates.
+	 * Plain values, dates, types, arrays and collections of them are described by value, entities and any other
+	 * objects can not be described.
+	 *
+	 * @param parts the parts
+	 * @return the description, null if a part can not be described
+	 */
+	public static String describe(Object... parts) {
+		StringBuilder sb = new StringBuilder();
+		for (Object part : parts) {
+			sb.append('|');
+			if (!append(sb, part, 0)) {
+				return null;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets a cached result.
+	 *
+	 * @param key the key, may be null
+	 * @return the result, or {@link #MISS} if none is cached
+	 */
+	public Object get(Key key) {
+		if (key == null) {
+			return MISS;
+		}
+		Object value = key.region.cache.get(key.value);
+		if (value == null) {
+			return MISS;
+		}
+		if (value == NULL_RESULT) {
+			return null;
+		}
+		if (value instanceof List) {
+			return new ArrayList<Object>((List<?>) value);
+		}
+		return value;
+	}
+
+	/**
+	 * Caches a result unless a write invalidated its region since the key was built.
+	 *
+	 * @param key the key, may be null
+	 * @param value the result
+	 */
+	public void put(Key key, Object value) {
+		if (key == null) {
+			return;
+		}
+		Object stored = value == null ? NULL_RESULT : value;
+		if (value instanceof List) {
+			stored = new ArrayList<Object>((List<?>) value);
+		}
+		key.region.put(key, stored);
+	}
+
+	/**
+	 * Invalidates the results of a written class, its cached super classes and of all unmapped classes.
+	 *
+	 * @param written the written class
+	 */
+	public void invalidate(Class<?> written) {
+		if (settings.isEmpty()) {
+			return;
+		}
+		long gen = generation.incrementAndGet();
+		for (Map.Entry<Class<?>, Region> entry : regions.entrySet()) {
+			if (written == null || entry.getKey().isAssignableFrom(written)) {
+				entry.getValue().invalidate(gen);
+			}
+		}
+		unmapped.invalidate(gen);
+	}
+
+	/**
+	 * Invalidates the results of the classes of the written items.
+	 *
+	 * @param items the written items
+	 */
+	public void invalidate(Collection<?> items) {
+		if (settings.isEmpty()) {
+			return;
+		}
+		List<Class<?>> seen = new ArrayList<Class<?>>();
+		for (Object item : items) {
+			if (item != null && !seen.contains(item.getClass())) {
+				seen.add(item.getClass());
+				invalidate(item.getClass());
+			}
+		}
+	}
+
+	/**
+	 * Invalidates all cached results.
+	 */
+	public void invalidateAll() {
+		invalidate((Class<?>) null);
+	}
+
+	/**
+	 * Gets the statistics of all regions.
+	 *
+	 * @return the statistics
+	 */
+	public List<CacheStatistics> getStatistics() {
+		List<CacheStatistics> stats = new ArrayList<CacheStatistics>();
+		for (Region region : regions.values()) {
+			stats.add(new CacheStatistics(region.name, region.cache));
+		}
+		stats.add(new CacheStatistics(unmapped.name, unmapped.cache));
+		return stats;
+	}
+
+	/**
+	 * Appends a key part.
+	 *
+	 * @param sb the key builder
+	 * @param part the part
+	 * @param depth the nesting of the part
+	 * @return true, if the part was described completely
+	 */
+	private static boolean append(StringBuilder sb, Object part, int depth) {
+		if (depth > MAX_DEPTH) {
+			return false;
+		}
+		if (part == null) {
+			sb.append("null");
+		} else if (part instanceof String) {
+			// the length keeps strings holding separators apart from the structure around them
+			sb.append('"').append(((String) part).length()).append(':').append(part);
+		} else if (part instanceof Number || part instanceof Boolean || part instanceof Character || part instanceof UUID) {
+			sb.append(part.getClass().getName()).append(':').append(part);
+		} else if (part instanceof Enum) {
+			sb.append(part.getClass().getName()).append(':').append(((Enum<?>) part).name());
+		} else if (part instanceof Date) {
+			sb.append(part.getClass().getName()).append(':').append(((Date) part).getTime());
+			if (part instanceof Timestamp) {
+				sb.append('.').append(((Timestamp) part).getNanos());
+			}
+		} else if (part instanceof Class) {
+			sb.append("class:").append(((Class<?>) part).getName());
+		} else if (part instanceof Type) {
+			sb.append("type:").append(((Type) part).getName());
+		} else if (part instanceof QueryParameter) {
+			QueryParameter qp = (QueryParameter) part;
+			sb.append(qp.getName()).append('=');
+			return append(sb, qp.getValue(), depth + 1);
+		} else if (part instanceof Object[]) {
+			return appendAll(sb, Arrays.asList((Object[]) part), depth);
+		} else if (part instanceof Collection) {
+			return appendAll(sb, (Collection<?>) part, depth);
+		} else if (part.getClass().isArray()) {
+			sb.append(Arrays.deepToString(new Object[] { part }));
+		} else if (part.getClass().getName().startsWith(CRITERION_PACKAGE) || part instanceof TypedValue) {
+			return appendFields(sb, part, depth);
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Appends the items of a key part.
+	 *
+	 * @param sb the key builder
+	 * @param items the items
+	 * @param depth the nesting of the part
+	 * @return true, if every item was described completely
+	 */
+	private static boolean appendAll(StringBuilder sb, Collection<?> items, int depth) {
+		sb.append('[');
+		boolean first = true;
+		for (Object item : items) {
+			if (!first) {
+				sb.append(',');
+			}
+			first = false;
+			if (!append(sb, item, depth + 1)) {
+				return false;
+			}
+		}
+		sb.append(']');
+		return true;
+	}
+
+	/**
+	 * Appends the class and instance fields of a criterion, order or projection.
+	 *
+	 * @param sb the key builder
+	 * @param part the part
+	 * @param depth the nesting of the part
+	 * @return true, if every field was described completely
+	 */
+	private static boolean appendFields(StringBuilder sb, Object part, int depth) {
+		Field[] fields = fields(part.getClass());
+		if (fields == null) {
+			return false;
+		}
+		sb.append(part.getClass().getName()).append('{');
+		for (Field field : fields) {
+			sb.append(field.getName()).append('=');
+			try {
+				if (!append(sb, field.get(part), depth + 1)) {
+					return false;
+				}
+			} catch (IllegalAccessException e) {
+				return false;
+			}
+			sb.append(';');
+		}
+		sb.append('}');
+		return true;
+	}
+
+	/**
+	 * Gets the described fields of a class, the non static, non transient fields of it and its super classes.
+	 *
+	 * @param clazz the class
+	 * @return the fields, null if they can not be read
+	 */
+	private static Field[] fields(Class<?> clazz) {
+		Field[] fields = FIELDS.get(clazz);
+		if (fields == null) {
+			List<Field> found = new ArrayList<Field>();
+			try {
+				for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+					for (Field field : c.getDeclaredFields()) {
+						int mod = field.getModifiers();
+						if (!Modifier.isStatic(mod) && !Modifier.isTransient(mod) && !field.isSynthetic()) {
+							field.setAccessible(true);
+							found.add(field);
+						}
+					}
+				}
+			} catch (SecurityException e) {
+				return null;
+			}
+			fields = found.toArray(new Field[found.size()]);
+			FIELDS.putIfAbsent(clazz, fields);
+		}
+		return fields;
+	}
+
+	/**
+	 * Identifies a cached read.
+	 */
+	public static final class Key {
+
+		/** The region. */
+		private final Region region;
+
+		/** The key value. */
+		private final String value;
+
+		/** The time to live. */
+		private final long ttl;
+
+		/** The write counter when the key was built. */
+		private final long generation;
+
+		/**
+		 * Instantiates a new key.
+		 *
+		 * @param region the region
+		 * @param value the value
+		 * @param ttl the ttl
+		 * @param generation the generation
+		 */
+		private Key(Region region, String value, long ttl, long generation) {
+			this.region = region;
+			this.value = value;
+			this.ttl = ttl;
+			this.generation = generation;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return value;
+		}
+
+	}
+
+	/**
+	 * The results of a class, or of all unmapped classes.
+	 */
+	private static final class Region {
+
+		/** The name. */
+		private final String name;
+
+		/** The cache. */
+		private final LruCache<String, Object> cache;
+
+		/** The write counter of the last invalidation. */
+		private long invalidatedAt;
+
+		/**
+		 * Instantiates a new region.
+		 *
+		 * @param name the name
+		 * @param maxEntries the max entries
+		 */
+		private Region(String name, int maxEntries) {
+			this.name = name;
+			this.cache = new LruCache<String, Object>(maxEntries, 0);
+		}
+
+		/**
+		 * Caches a result read after the last invalidation.
+		 *
+		 * @param key the key
+		 * @param value the value
+		 */
+		private synchronized void put(Key key, Object value) {
+			if (key.generation >= invalidatedAt) {
+				cache.put(key.value, value, key.ttl);
+			}
+		}
+
+		/**
+		 * Drops all results.
+		 *
+		 * @param gen the write counter
+		 */
+		private synchronized void invalidate(long gen) {
+			invalidatedAt = gen;
+			cache.clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,416 @@
+package nw.orm.core.cache.region;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.SoftLock;
+
+/**
+ * Shared behaviour of the region access strategies. Read only data is cached on insert and load and rejected on
+ * update. Nonstrict read write data is cached on load and evicted whenever the underlying row changes.
+ * <p>
+ * Read write data is guarded by soft locks: a change replaces the entry with a lock until the transaction completes,
+ * and the released lock stays behind as a marker holding the time of the change. Loads are only cached when the
+ * loading transaction started after the last change of the entry, and entries are only served to transactions
+ * started no earlier than the one that loaded them, so a load racing a concurrent update cannot put back stale
+ * state. Locks expire after the region timeout, in case a transaction never completes.
+ *
+ * @author Ogwara O. Rowland
+ */
+abstract class NwormAccessStrategy {
+
+	/** The backing cache. */
+	protected final LruCache<Object, Object> cache;
+
+	/** The access type. */
+	protected final AccessType accessType;
+
+	/** The region, issuing timestamps. */
+	private final NwormRegion region;
+
+	/** Whether entries are guarded by soft locks, true for read write data. */
+	private final boolean locking;
+
+	/** Issues lock ids. */
+	private final AtomicLong lockIds = new AtomicLong();
+
+	/** Number of region wide locks held. */
+	private int regionLocks;
+
+	/** Time of the last region wide change, loads started earlier are not cached. */
+	private long regionChanged;
+
+	/**
+	 * Instantiates a new access strategy.
+	 *
+	 * @param region the region
+	 * @param cache the cache
+	 * @param accessType the access type
+	 */
+	protected NwormAccessStrategy(NwormRegion region, LruCache<Object, Object> cache, AccessType accessType) {
+		this.region = region;
+		this.cache = cache;
+		this.accessType = accessType;
+		this.locking = accessType == AccessType.READ_WRITE;
+	}
+
+	/**
+	 * Gets a cached item.
+	 *
+	 * @param key the key
+	 * @param txTimestamp the transaction timestamp
+	 * @return the cached item or null
+	 * @throws CacheException the cache exception
+	 */
+	public Object get(Object key, long txTimestamp) throws CacheException {
+		if (!locking) {
+			return cache.get(key);
+		}
+		Object entry = cache.get(key);
+		if (entry instanceof Item && ((Item) entry).timestamp <= txTimestamp) {
+			return ((Item) entry).value;
+		}
+		return null;
+	}
+
+	/**
+	 * Caches an item loaded from the database.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @param txTimestamp the transaction timestamp
+	 * @param version the version
+	 * @return true, if cached
+	 * @throws CacheException the cache exception
+	 */
+	public boolean putFromLoad(Object key, Object value, long txTimestamp, Object version) throws CacheException {
+		return putFromLoad(key, value, txTimestamp, version, false);
+	}
+
+	/**
+	 * Caches an item loaded from the database. Read write items are not cached while locked, or when the load
+	 * started before their last change.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @param txTimestamp the transaction timestamp
+	 * @param version the version
+	 * @param minimalPutOverride skip the put when the item is already cached
+	 * @return true, if cached
+	 * @throws CacheException the cache exception
+	 */
+	public boolean putFromLoad(Object key, Object value, long txTimestamp, Object version, boolean minimalPutOverride) throws CacheException {
+		if (!locking) {
+			if (minimalPutOverride && cache.contains(key)) {
+				return false;
+			}
+			cache.put(key, value);
+			return true;
+		}
+		synchronized (cache) {
+			if (regionLocks > 0 || txTimestamp <= regionChanged) {
+				return false;
+			}
+			Object entry = cache.peek(key);
+			if (entry instanceof Item) {
+				if (minimalPutOverride || txTimestamp < ((Item) entry).timestamp) {
+					return false;
+				}
+			} else if (entry instanceof Lock && !((Lock) entry).isWriteable(txTimestamp, region.nextTimestamp())) {
+				return false;
+			}
+			cache.put(key, new Item(value, version, txTimestamp));
+			return true;
+		}
+	}
+
+	/**
+	 * Locks a read write item for the duration of a change. Other data is not locked but evicted once the change
+	 * completes.
+	 *
+	 * @param key the key
+	 * @param version the version
+	 * @return the lock, null unless read write
+	 * @throws CacheException the cache exception
+	 */
+	public SoftLock lockItem(Object key, Object version) throws CacheException {
+		if (!locking) {
+			return null;
+		}
+		synchronized (cache) {
+			long now = region.nextTimestamp();
+			Object entry = cache.peek(key);
+			Lock lock;
+			if (entry instanceof Lock && !((Lock) entry).isExpired(now)) {
+				lock = (Lock) entry;
+				lock.multiplicity += 1;
+			} else {
+				lock = new Lock(lockIds.incrementAndGet());
+				lock.multiplicity = 1;
+			}
+			lock.timeout = now + region.getTimeout();
+			// locks expire by their own timeout, not the region's time to live
+			cache.put(key, lock, 0);
+			return lock;
+		}
+	}
+
+	/**
+	 * Locks a read write region for the duration of a change. Other regions are not locked but evicted once the
+	 * change completes.
+	 *
+	 * @return the lock, null unless read write
+	 * @throws CacheException the cache exception
+	 */
+	public SoftLock lockRegion() throws CacheException {
+		if (!locking) {
+			return null;
+		}
+		synchronized (cache) {
+			regionLocks += 1;
+			return new Lock(lockIds.incrementAndGet());
+		}
+	}
+
+	/**
+	 * Releases the lock of a read write item, leaving the time of the change behind. Other items are evicted.
+	 *
+	 * @param key the key
+	 * @param lock the lock
+	 * @throws CacheException the cache exception
+	 */
+	public void unlockItem(Object key, SoftLock lock) throws CacheException {
+		if (!locking) {
+			cache.remove(key);
+			return;
+		}
+		synchronized (cache) {
+			long now = region.nextTimestamp();
+			Object entry = cache.peek(key);
+			if (entry instanceof Lock && entry == lock && ((Lock) entry).multiplicity > 0) {
+				Lock held = (Lock) entry;
+				held.multiplicity -= 1;
+				held.unlockTimestamp = now;
+			} else {
+				// the lock expired or was evicted, a fresh marker still keeps older loads out
+				changed(key, now);
+			}
+		}
+	}
+
+	/**
+	 * Releases a region lock and evicts the region.
+	 *
+	 * @param lock the lock
+	 * @throws CacheException the cache exception
+	 */
+	public void unlockRegion(SoftLock lock) throws CacheException {
+		if (!locking) {
+			cache.clear();
+			return;
+		}
+		synchronized (cache) {
+			regionLocks = Math.max(0, regionLocks - 1);
+			regionChanged = region.nextTimestamp();
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Removes an item. Read write items keep their lock, or a marker of the change.
+	 *
+	 * @param key the key
+	 * @throws CacheException the cache exception
+	 */
+	public void remove(Object key) throws CacheException {
+		evict(key);
+	}
+
+	/**
+	 * Removes all items.
+	 *
+	 * @throws CacheException the cache exception
+	 */
+	public void removeAll() throws CacheException {
+		evictAll();
+	}
+
+	/**
+	 * Evicts an item. Read write items keep their lock, or a marker of the change.
+	 *
+	 * @param key the key
+	 * @throws CacheException the cache exception
+	 */
+	public void evict(Object key) throws CacheException {
+		if (!locking) {
+			cache.remove(key);
+			return;
+		}
+		synchronized (cache) {
+			if (!(cache.peek(key) instanceof Lock)) {
+				changed(key, region.nextTimestamp());
+			}
+		}
+	}
+
+	/**
+	 * Evicts all items, loads of read write data already running are not cached.
+	 *
+	 * @throws CacheException the cache exception
+	 */
+	public void evictAll() throws CacheException {
+		if (!locking) {
+			cache.clear();
+			return;
+		}
+		synchronized (cache) {
+			regionChanged = region.nextTimestamp();
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Caches a newly inserted item when the data is read only, otherwise leaves it to be cached on first load.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return true, if cached
+	 */
+	protected boolean cacheInserted(Object key, Object value) {
+		if (accessType == AccessType.READ_ONLY) {
+			cache.put(key, value);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Evicts an item being updated, failing for read only data. Read write items keep their lock.
+	 *
+	 * @param key the key
+	 * @return always false
+	 */
+	protected boolean evictUpdated(Object key) {
+		if (accessType == AccessType.READ_ONLY) {
+			throw new UnsupportedOperationException("Can't write to a readonly object");
+		}
+		evict(key);
+		return false;
+	}
+
+	/**
+	 * Completes the update of an item, failing for read only data. Read write items are unlocked, others evicted.
+	 *
+	 * @param key the key
+	 * @param lock the lock taken for the update
+	 * @return always false
+	 */
+	protected boolean afterUpdated(Object key, SoftLock lock) {
+		if (accessType == AccessType.READ_ONLY) {
+			throw new UnsupportedOperationException("Can't write to a readonly object");
+		}
+		unlockItem(key, lock);
+		return false;
+	}
+
+	/**
+	 * Replaces a read write item by a released lock marking a change.
+	 *
+	 * @param key the key
+	 * @param now the time of the change
+	 */
+	private void changed(Object key, long now) {
+		Lock marker = new Lock(lockIds.incrementAndGet());
+		marker.timeout = now + region.getTimeout();
+		marker.unlockTimestamp = now;
+		cache.put(key, marker, 0);
+	}
+
+	/**
+	 * A cached read write item.
+	 */
+	static final class Item implements Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = -4076517328474733870L;
+
+		/** The value. */
+		final Object value;
+
+		/** The version. */
+		final Object version;
+
+		/** Start of the transaction that loaded the item. */
+		final long timestamp;
+
+		/**
+		 * Instantiates a new item.
+		 *
+		 * @param value the value
+		 * @param version the version
+		 * @param timestamp the timestamp
+		 */
+		Item(Object value, Object version, long timestamp) {
+			this.value = value;
+			this.version = version;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/**
+	 * A soft lock on a read write item. Held while multiplicity is above zero, afterwards it marks the time of the
+	 * last change until it times out.
+	 */
+	static final class Lock implements SoftLock, Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 2203473581638318454L;
+
+		/** The lock id. */
+		final long id;
+
+		/** Number of transactions holding the lock. */
+		int multiplicity;
+
+		/** Time after which the lock is ignored. */
+		long timeout;
+
+		/** Time the lock was last released. */
+		long unlockTimestamp;
+
+		/**
+		 * Instantiates a new lock.
+		 *
+		 * @param id the id
+		 */
+		Lock(long id) {
+			this.id = id;
+		}
+
+		/**
+		 * Checks if the lock timed out.
+		 *
+		 * @param now the current timestamp
+		 * @return true, if is expired
+		 */
+		boolean isExpired(long now) {
+			return now > timeout;
+		}
+
+		/**
+		 * Checks if a load may replace the lock.
+		 *
+		 * @param txTimestamp start of the loading transaction
+		 * @param now the current timestamp
+		 * @return true, if the lock is released and the load started after the change, or the lock expired
+		 */
+		boolean isWriteable(long txTimestamp, long now) {
+			return isExpired(now) || (multiplicity == 0 && txTimestamp > unlockTimestamp);
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package nw.orm.core.cache.region;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+
+/**
+ * Collection region access strategy.
+ *
+ * @author Ogwara O. Rowland
+ */
+class NwormCollectionAccessStrategy extends NwormAccessStrategy implements CollectionRegionAccessStrategy {
+
+	/** The region. */
+	private final NwormCollectionRegion region;
+
+	/**
+	 * Instantiates a new collection access strategy.
+	 *
+	 * @param region the region
+	 * @param cache the cache
+	 * @param accessType the access type
+	 */
+	NwormCollectionAccessStrategy(NwormCollectionRegion region, LruCache<Object, Object> cache, AccessType accessType) {
+		super(region, cache, accessType);
+		this.region = region;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.CollectionRegionAccessStrategy#getRegion()
+	 */
+	@Override
+	public CollectionRegion getRegion() {
+		return region;
+	}
+
+}
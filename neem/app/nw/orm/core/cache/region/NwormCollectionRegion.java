@@ -0,0 +1,39 @@
+package nw.orm.core.cache.region;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+
+/**
+ * Collection region backed by a bounded LRU map.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class NwormCollectionRegion extends NwormTransactionalRegion implements CollectionRegion {
+
+	/**
+	 * Instantiates a new collection region.
+	 *
+	 * @param name the name
+	 * @param cache the cache
+	 * @param metadata the metadata
+	 * @param factory the factory
+	 */
+	public NwormCollectionRegion(String name, LruCache<Object, Object> cache, CacheDataDescription metadata, NwormRegionFactory factory) {
+		super(name, cache, metadata, factory);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.CollectionRegion#buildAccessStrategy(org.hibernate.cache.spi.access.AccessType)
+	 */
+	@Override
+	public CollectionRegionAccessStrategy buildAccessStrategy(AccessType accessType) throws CacheException {
+		checkAccessType(accessType);
+		return new NwormCollectionAccessStrategy(this, cache, accessType);
+	}
+
+}
@@ -0,0 +1,73 @@
+package nw.orm.core.cache.region;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+
+/**
+ * Entity region access strategy.
+ *
+ * @author Ogwara O. Rowland
+ */
+class NwormEntityAccessStrategy extends NwormAccessStrategy implements EntityRegionAccessStrategy {
+
+	/** The region. */
+	private final NwormEntityRegion region;
+
+	/**
+	 * Instantiates a new entity access strategy.
+	 *
+	 * @param region the region
+	 * @param cache the cache
+	 * @param accessType the access type
+	 */
+	NwormEntityAccessStrategy(NwormEntityRegion region, LruCache<Object, Object> cache, AccessType accessType) {
+		super(region, cache, accessType);
+		this.region = region;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.EntityRegionAccessStrategy#getRegion()
+	 */
+	@Override
+	public EntityRegion getRegion() {
+		return region;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.EntityRegionAccessStrategy#insert(java.lang.Object, java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public boolean insert(Object key, Object value, Object version) throws CacheException {
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.EntityRegionAccessStrategy#afterInsert(java.lang.Object, java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public boolean afterInsert(Object key, Object value, Object version) throws CacheException {
+		return cacheInserted(key, value);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.EntityRegionAccessStrategy#update(java.lang.Object, java.lang.Object, java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public boolean update(Object key, Object value, Object currentVersion, Object previousVersion) throws CacheException {
+		return evictUpdated(key);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.EntityRegionAccessStrategy#afterUpdate(java.lang.Object, java.lang.Object, java.lang.Object, java.lang.Object, org.hibernate.cache.spi.access.SoftLock)
+	 */
+	@Override
+	public boolean afterUpdate(Object key, Object value, Object currentVersion, Object previousVersion, SoftLock lock) throws CacheException {
+		return afterUpdated(key, lock);
+	}
+
+}
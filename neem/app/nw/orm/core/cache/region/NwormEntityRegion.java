@@ -0,0 +1,39 @@
+package nw.orm.core.cache.region;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+
+/**
+ * Entity region backed by a bounded LRU map.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class NwormEntityRegion extends NwormTransactionalRegion implements EntityRegion {
+
+	/**
+	 * Instantiates a new entity region.
+	 *
+	 * @param name the name
+	 * @param cache the cache
+	 * @param metadata the metadata
+	 * @param factory the factory
+	 */
+	public NwormEntityRegion(String name, LruCache<Object, Object> cache, CacheDataDescription metadata, NwormRegionFactory factory) {
+		super(name, cache, metadata, factory);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.EntityRegion#buildAccessStrategy(org.hibernate.cache.spi.access.AccessType)
+	 */
+	@Override
+	public EntityRegionAccessStrategy buildAccessStrategy(AccessType accessType) throws CacheException {
+		checkAccessType(accessType);
+		return new NwormEntityAccessStrategy(this, cache, accessType);
+	}
+
+}
@@ -0,0 +1,59 @@
+package nw.orm.core.cache.region;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.TimestampsRegion;
+
+/**
+ * Query results and update timestamps region.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class NwormGeneralDataRegion extends NwormRegion implements QueryResultsRegion, TimestampsRegion {
+
+	/**
+	 * Instantiates a new general data region.
+	 *
+	 * @param name the name
+	 * @param cache the cache
+	 * @param factory the factory
+	 */
+	public NwormGeneralDataRegion(String name, LruCache<Object, Object> cache, NwormRegionFactory factory) {
+		super(name, cache, factory);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.GeneralDataRegion#get(java.lang.Object)
+	 */
+	@Override
+	public Object get(Object key) throws CacheException {
+		return cache.get(key);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.GeneralDataRegion#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public void put(Object key, Object value) throws CacheException {
+		cache.put(key, value);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.GeneralDataRegion#evict(java.lang.Object)
+	 */
+	@Override
+	public void evict(Object key) throws CacheException {
+		cache.remove(key);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.GeneralDataRegion#evictAll()
+	 */
+	@Override
+	public void evictAll() throws CacheException {
+		cache.clear();
+	}
+
+}
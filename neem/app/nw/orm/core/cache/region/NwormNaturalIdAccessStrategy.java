@@ -0,0 +1,73 @@
+package nw.orm.core.cache.region;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+
+/**
+ * Natural id region access strategy.
+ *
+ * @author Ogwara O. Rowland
+ */
+class NwormNaturalIdAccessStrategy extends NwormAccessStrategy implements NaturalIdRegionAccessStrategy {
+
+	/** The region. */
+	private final NwormNaturalIdRegion region;
+
+	/**
+	 * Instantiates a new natural id access strategy.
+	 *
+	 * @param region the region
+	 * @param cache the cache
+	 * @param accessType the access type
+	 */
+	NwormNaturalIdAccessStrategy(NwormNaturalIdRegion region, LruCache<Object, Object> cache, AccessType accessType) {
+		super(region, cache, accessType);
+		this.region = region;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy#getRegion()
+	 */
+	@Override
+	public NaturalIdRegion getRegion() {
+		return region;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy#insert(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public boolean insert(Object key, Object value) throws CacheException {
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy#afterInsert(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public boolean afterInsert(Object key, Object value) throws CacheException {
+		return cacheInserted(key, value);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy#update(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public boolean update(Object key, Object value) throws CacheException {
+		return evictUpdated(key);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy#afterUpdate(java.lang.Object, java.lang.Object, org.hibernate.cache.spi.access.SoftLock)
+	 */
+	@Override
+	public boolean afterUpdate(Object key, Object value, SoftLock lock) throws CacheException {
+		return afterUpdated(key, lock);
+	}
+
+}
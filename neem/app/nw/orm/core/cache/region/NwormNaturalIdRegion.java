@@ -0,0 +1,39 @@
+package nw.orm.core.cache.region;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy;
+
+/**
+ * Natural id region backed by a bounded LRU map.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class NwormNaturalIdRegion extends NwormTransactionalRegion implements NaturalIdRegion {
+
+	/**
+	 * Instantiates a new natural id region.
+	 *
+	 * @param name the name
+	 * @param cache the cache
+	 * @param metadata the metadata
+	 * @param factory the factory
+	 */
+	public NwormNaturalIdRegion(String name, LruCache<Object, Object> cache, CacheDataDescription metadata, NwormRegionFactory factory) {
+		super(name, cache, metadata, factory);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.NaturalIdRegion#buildAccessStrategy(org.hibernate.cache.spi.access.AccessType)
+	 */
+	@Override
+	public NaturalIdRegionAccessStrategy buildAccessStrategy(AccessType accessType) throws CacheException {
+		checkAccessType(accessType);
+		return new NwormNaturalIdAccessStrategy(this, cache, accessType);
+	}
+
+}
@@ -0,0 +1,122 @@
+package nw.orm.core.cache.region;
+
+import java.util.Map;
+
+import nw.orm.core.cache.CacheStatistics;
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.Region;
+
+/**
+ * Base of all regions created by {@link NwormRegionFactory}.
+ *
+ * @author Ogwara O. Rowland
+ */
+public abstract class NwormRegion implements Region {
+
+	/** The region name. */
+	private final String name;
+
+	/** The backing cache. */
+	protected final LruCache<Object, Object> cache;
+
+	/** The factory that built the region. */
+	protected final NwormRegionFactory factory;
+
+	/**
+	 * Instantiates a new region.
+	 *
+	 * @param name the name
+	 * @param cache the cache
+	 * @param factory the factory
+	 */
+	protected NwormRegion(String name, LruCache<Object, Object> cache, NwormRegionFactory factory) {
+		this.name = name;
+		this.cache = cache;
+		this.factory = factory;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#getName()
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#destroy()
+	 */
+	@Override
+	public void destroy() throws CacheException {
+		cache.clear();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(Object key) {
+		return cache.contains(key);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#getSizeInMemory()
+	 */
+	@Override
+	public long getSizeInMemory() {
+		return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#getElementCountInMemory()
+	 */
+	@Override
+	public long getElementCountInMemory() {
+		return cache.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#getElementCountOnDisk()
+	 */
+	@Override
+	public long getElementCountOnDisk() {
+		return 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#toMap()
+	 */
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map toMap() {
+		return cache.toMap();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#nextTimestamp()
+	 */
+	@Override
+	public long nextTimestamp() {
+		return factory.nextTimestamp();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.Region#getTimeout()
+	 */
+	@Override
+	public int getTimeout() {
+		return NwormRegionFactory.TIMEOUT;
+	}
+
+	/**
+	 * Gets the statistics of the region.
+	 *
+	 * @return the statistics
+	 */
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(name, cache);
+	}
+
+}
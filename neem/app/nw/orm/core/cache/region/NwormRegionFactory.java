@@ -0,0 +1,277 @@
+package nw.orm.core.cache.region;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nw.orm.core.cache.CacheStatistics;
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cache.spi.TimestampsRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cfg.Settings;
+
+/**
+ * In process second level cache for hibernate, requiring no external cache server. Every region is a bounded LRU
+ * map with an optional time to live and hit/miss statistics. Enable it with
+ * <pre>
+ * hibernate.cache.use_second_level_cache=true
+ * hibernate.cache.region.factory_class=nw.orm.core.cache.region.NwormRegionFactory
+ * </pre>
+ * or simply nworm.cache=true. Region sizes are set with nworm.cache.max_entries and nworm.cache.ttl_seconds, and
+ * per region with nworm.cache.region.&lt;region name&gt;.max_entries and .ttl_seconds.
+ * <p>
+ * Read write access soft locks entries while they change and refuses to cache loads that started before the last
+ * change, so entries are never served after a committed change made through the same session factory. Nonstrict
+ * read write access only evicts entries on update and removal, a load racing an update may cache the state it read
+ * until the next change or the time to live. Transactional access is not supported.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class NwormRegionFactory implements RegionFactory {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 6129347215536581541L;
+
+	/** Property holding the default maximum entries per region. */
+	public static final String MAX_ENTRIES = "nworm.cache.max_entries";
+
+	/** Property holding the default time to live of entries in seconds. */
+	public static final String TTL_SECONDS = "nworm.cache.ttl_seconds";
+
+	/** Prefix of per region settings. */
+	public static final String REGION_PREFIX = "nworm.cache.region.";
+
+	/** Default maximum entries per region. */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/** Number of bits used for the counter within a millisecond. */
+	private static final int BIN_DIGITS = 12;
+
+	/** Lock timeout, one minute expressed in timestamp units. */
+	static final int TIMEOUT = 60000 << BIN_DIGITS;
+
+	/** Last issued timestamp. */
+	private static final AtomicLong TIMESTAMP = new AtomicLong();
+
+	/** The regions by name. */
+	private final ConcurrentHashMap<String, NwormRegion> regions = new ConcurrentHashMap<String, NwormRegion>();
+
+	/** The configuration properties. */
+	private Properties properties = new Properties();
+
+	/** The settings. */
+	private Settings settings;
+
+	/**
+	 * Instantiates a new region factory.
+	 */
+	public NwormRegionFactory() {
+
+	}
+
+	/**
+	 * Instantiates a new region factory.
+	 *
+	 * @param properties the configuration properties
+	 */
+	public NwormRegionFactory(Properties properties) {
+		this.properties = properties;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#start(org.hibernate.cfg.Settings, java.util.Properties)
+	 */
+	@Override
+	public void start(Settings settings, Properties properties) throws CacheException {
+		this.settings = settings;
+		if (properties != null) {
+			this.properties = properties;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#stop()
+	 */
+	@Override
+	public void stop() {
+		for (NwormRegion region : regions.values()) {
+			region.destroy();
+		}
+		regions.clear();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#isMinimalPutsEnabledByDefault()
+	 */
+	@Override
+	public boolean isMinimalPutsEnabledByDefault() {
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#getDefaultAccessType()
+	 */
+	@Override
+	public AccessType getDefaultAccessType() {
+		return AccessType.READ_WRITE;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#nextTimestamp()
+	 */
+	@Override
+	public long nextTimestamp() {
+		return next();
+	}
+
+	/**
+	 * Issues strictly increasing timestamps of milliseconds shifted left by 12 bits,
+	 * allowing 4096 distinct timestamps per millisecond.
+	 *
+	 * @return the next timestamp
+	 */
+	static long next() {
+		while (true) {
+			long base = System.currentTimeMillis() << BIN_DIGITS;
+			long current = TIMESTAMP.get();
+			long update = Math.max(base, current + 1);
+			if (TIMESTAMP.compareAndSet(current, update)) {
+				return update;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#buildEntityRegion(java.lang.String, java.util.Properties, org.hibernate.cache.spi.CacheDataDescription)
+	 */
+	@Override
+	public EntityRegion buildEntityRegion(String regionName, Properties properties, CacheDataDescription metadata) throws CacheException {
+		return register(new NwormEntityRegion(regionName, createCache(regionName, properties), metadata, this));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#buildNaturalIdRegion(java.lang.String, java.util.Properties, org.hibernate.cache.spi.CacheDataDescription)
+	 */
+	@Override
+	public NaturalIdRegion buildNaturalIdRegion(String regionName, Properties properties, CacheDataDescription metadata) throws CacheException {
+		return register(new NwormNaturalIdRegion(regionName, createCache(regionName, properties), metadata, this));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#buildCollectionRegion(java.lang.String, java.util.Properties, org.hibernate.cache.spi.CacheDataDescription)
+	 */
+	@Override
+	public CollectionRegion buildCollectionRegion(String regionName, Properties properties, CacheDataDescription metadata) throws CacheException {
+		return register(new NwormCollectionRegion(regionName, createCache(regionName, properties), metadata, this));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#buildQueryResultsRegion(java.lang.String, java.util.Properties)
+	 */
+	@Override
+	public QueryResultsRegion buildQueryResultsRegion(String regionName, Properties properties) throws CacheException {
+		return register(new NwormGeneralDataRegion(regionName, createCache(regionName, properties), this));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.RegionFactory#buildTimestampsRegion(java.lang.String, java.util.Properties)
+	 */
+	@Override
+	public TimestampsRegion buildTimestampsRegion(String regionName, Properties properties) throws CacheException {
+		// evicting update timestamps would let the query cache serve stale results, so this region is never bounded
+		return register(new NwormGeneralDataRegion(regionName, new LruCache<Object, Object>(Integer.MAX_VALUE, 0), this));
+	}
+
+	/**
+	 * Gets the statistics of all regions.
+	 *
+	 * @return the region statistics
+	 */
+	public List<CacheStatistics> getStatistics() {
+		List<CacheStatistics> stats = new ArrayList<CacheStatistics>();
+		for (NwormRegion region : regions.values()) {
+			stats.add(region.getStatistics());
+		}
+		return stats;
+	}
+
+	/**
+	 * Gets the statistics of a region.
+	 *
+	 * @param regionName the region name
+	 * @return the region statistics, null if no such region exists
+	 */
+	public CacheStatistics getStatistics(String regionName) {
+		NwormRegion region = regions.get(regionName);
+		return region == null ? null : region.getStatistics();
+	}
+
+	/**
+	 * Gets the settings.
+	 *
+	 * @return the settings
+	 */
+	public Settings getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Registers a region for statistics.
+	 *
+	 * @param <R> the region type
+	 * @param region the region
+	 * @return the region
+	 */
+	private <R extends NwormRegion> R register(R region) {
+		regions.put(region.getName(), region);
+		return region;
+	}
+
+	/**
+	 * Creates the cache backing a region from the region or default settings.
+	 *
+	 * @param regionName the region name
+	 * @param props the properties passed for the region
+	 * @return the cache
+	 */
+	private LruCache<Object, Object> createCache(String regionName, Properties props) {
+		int maxEntries = (int) setting(props, REGION_PREFIX + regionName + ".max_entries",
+				setting(props, MAX_ENTRIES, DEFAULT_MAX_ENTRIES));
+		long ttlSeconds = setting(props, REGION_PREFIX + regionName + ".ttl_seconds", setting(props, TTL_SECONDS, 0));
+		return new LruCache<Object, Object>(maxEntries, ttlSeconds * 1000);
+	}
+
+	/**
+	 * Reads a numeric setting from the region properties, falling back to the factory properties.
+	 *
+	 * @param props the region properties
+	 * @param name the setting name
+	 * @param defaultValue the default value
+	 * @return the setting value
+	 */
+	private long setting(Properties props, String name, long defaultValue) {
+		String value = props == null ? null : props.getProperty(name);
+		if (value == null) {
+			value = properties.getProperty(name);
+		}
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new CacheException("Invalid value for " + name + ": " + value);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package nw.orm.core.cache.region;
+
+import nw.orm.core.cache.LruCache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.TransactionalDataRegion;
+import org.hibernate.cache.spi.access.AccessType;
+
+/**
+ * Base of entity, collection and natural id regions.
+ *
+ * @author Ogwara O. Rowland
+ */
+public abstract class NwormTransactionalRegion extends NwormRegion implements TransactionalDataRegion {
+
+	/** The cache data description. */
+	private final CacheDataDescription metadata;
+
+	/**
+	 * Instantiates a new transactional region.
+	 *
+	 * @param name the name
+	 * @param cache the cache
+	 * @param metadata the metadata
+	 * @param factory the factory
+	 */
+	protected NwormTransactionalRegion(String name, LruCache<Object, Object> cache, CacheDataDescription metadata, NwormRegionFactory factory) {
+		super(name, cache, factory);
+		this.metadata = metadata;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.TransactionalDataRegion#isTransactionAware()
+	 */
+	@Override
+	public boolean isTransactionAware() {
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.cache.spi.TransactionalDataRegion#getCacheDataDescription()
+	 */
+	@Override
+	public CacheDataDescription getCacheDataDescription() {
+		return metadata;
+	}
+
+	/**
+	 * Fails for access types the region cannot honour.
+	 *
+	 * @param accessType the requested access type
+	 */
+	protected void checkAccessType(AccessType accessType) {
+		if (accessType == AccessType.TRANSACTIONAL) {
+			throw new CacheException("Transactional access is not supported by region " + getName());
+		}
+	}
+
+}
@@ -1,11 +1,302 @@
 package nw.orm.core.interceptor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import nw.orm.core.metrics.Operation;
+import nw.orm.core.metrics.OperationListener;
+
 import org.hibernate.EmptyInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class NwormInterceptor extends EmptyInterceptor {
+/**
+ * Times the SQL statements of nworm calls. Hibernate hands every statement to {@link #onPrepareStatement(String)}
+ * before running it, and nworm reports its calls through {@link OperationListener}. A statement is timed from its
+ * preparation to the preparation of the next statement of the same call, or to the end of the call, so the time
+ * includes reading its results; streamed calls include the row callbacks. Statements prepared outside nworm calls,
+ * such as lazy loads, are not timed.
+ * <p>
+ * Statements slower than the threshold are logged with their literals redacted, and the slowest statements are kept
+ * in memory, see {@link #getSlowestStatements()}. Settings are read from the configuration:
+ * nworm.slow_query.threshold_ms (default 1000) and nworm.slow_query.capacity (default 50).
+ *
+ * @author Ogwara O. Rowland
+ */
+public class NwormInterceptor extends EmptyInterceptor implements OperationListener {
 
 	private static final long serialVersionUID = -2057317935506050853L;
 
+	/** Property setting the slow statement threshold in milliseconds. */
+	public static final String SLOW_QUERY_THRESHOLD = "nworm.slow_query.threshold_ms";
+
+	/** Property setting the number of slowest statements kept. */
+	public static final String SLOW_QUERY_CAPACITY = "nworm.slow_query.capacity";
+
+	/** Default slow statement threshold in milliseconds. */
+	public static final long DEFAULT_THRESHOLD_MILLIS = 1000;
+
+	/** Default number of slowest statements kept. */
+	public static final int DEFAULT_CAPACITY = 50;
+
+	/** Quoted string literals. */
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+	/** Numeric literals not part of an identifier. */
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+
+	/** Orders records fastest first. */
+	private static final Comparator<StatementRecord> FASTEST_FIRST = new Comparator<StatementRecord>() {
+
+		@Override
+		public int compare(StatementRecord a, StatementRecord b) {
+			return a.getMicros() < b.getMicros() ? -1 : (a.getMicros() == b.getMicros() ? 0 : 1);
+		}
+	};
+
+	/** The logger. */
+	private static final Logger logger = LoggerFactory.getLogger(NwormInterceptor.class);
+
+	/** The nworm calls running on each thread, innermost last. */
+	private final transient ThreadLocal<LinkedList<Call>> calls = new ThreadLocal<LinkedList<Call>>() {
+
+		@Override
+		protected LinkedList<Call> initialValue() {
+			return new LinkedList<Call>();
+		}
+	};
+
+	/** The slowest statements, fastest at the head. */
+	private final transient PriorityQueue<StatementRecord> slowest = new PriorityQueue<StatementRecord>(DEFAULT_CAPACITY, FASTEST_FIRST);
+
+	/** The slow statement threshold in microseconds. */
+	private volatile long thresholdMicros = DEFAULT_THRESHOLD_MILLIS * 1000;
+
+	/** The number of slowest statements kept. */
+	private volatile int capacity = DEFAULT_CAPACITY;
+
+	/** Statements no faster than this may enter the kept slowest ones. */
+	private volatile long floorMicros;
+
+	/**
+	 * Reads the slow statement settings.
+	 *
+	 * @param props the configuration properties
+	 */
+	public void configure(Properties props) {
+		String threshold = props.getProperty(SLOW_QUERY_THRESHOLD);
+		String size = props.getProperty(SLOW_QUERY_CAPACITY);
+		try {
+			if (threshold != null) {
+				setThresholdMillis(Long.parseLong(threshold.trim()));
+			}
+			if (size != null) {
+				setCapacity(Integer.parseInt(size.trim()));
+			}
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid slow query setting: " + e.getMessage());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.EmptyInterceptor#onPrepareStatement(java.lang.String)
+	 */
+	@Override
+	public String onPrepareStatement(String sql) {
+		LinkedList<Call> running = calls.get();
+		if (!running.isEmpty()) {
+			Call call = running.getLast();
+			finish(call, -1);
+			call.sql = sql;
+			call.prepared = System.nanoTime();
+		}
+		return super.onPrepareStatement(sql);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationListener#operationStarted(nw.orm.core.metrics.Operation, java.lang.Class)
+	 */
+	@Override
+	public void operationStarted(Operation op, Class<?> entityClass) {
+		calls.get().add(new Call(op, entityClass));
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationListener#operationFinished(nw.orm.core.metrics.Operation, java.lang.Class, long, boolean)
+	 */
+	@Override
+	public void operationFinished(Operation op, Class<?> entityClass, long rows, boolean failed) {
+		LinkedList<Call> running = calls.get();
+		if (running.isEmpty()) {
+			return;
+		}
+		finish(running.removeLast(), failed ? -1 : rows);
+		if (running.isEmpty()) {
+			calls.remove();
+		}
+	}
+
+	/**
+	 * Records the pending statement of a call, if any.
+	 *
+	 * @param call the call
+	 * @param rows the rows, -1 if unknown
+	 */
+	private void finish(Call call, long rows) {
+		if (call.sql == null) {
+			return;
+		}
+		long micros = (System.nanoTime() - call.prepared) / 1000;
+		String sql = call.sql;
+		call.sql = null;
+		boolean slow = micros >= thresholdMicros;
+		if (!slow && micros < floorMicros) {
+			return;
+		}
+		StatementRecord record = new StatementRecord(redact(sql), call.toString(), micros, rows,
+				System.currentTimeMillis() - micros / 1000);
+		if (slow) {
+			logger.warn("Slow statement " + record);
+		}
+		keep(record);
+	}
+
+	/**
+	 * Keeps a record if it is among the slowest.
+	 *
+	 * @param record the record
+	 */
+	private void keep(StatementRecord record) {
+		synchronized (slowest) {
+			if (capacity <= 0) {
+				return;
+			}
+			slowest.add(record);
+			while (slowest.size() > capacity) {
+				slowest.poll();
+			}
+			floorMicros = slowest.size() < capacity ? 0 : slowest.peek().getMicros();
+		}
+	}
+
+	/**
+	 * Replaces the string and numeric literals of a statement by ?, so logged statements carry no values.
+	 *
+	 * @param sql the sql
+	 * @return the redacted sql
+	 */
+	public static String redact(String sql) {
+		String out = STRING_LITERAL.matcher(sql).replaceAll("?");
+		return NUMBER_LITERAL.matcher(out).replaceAll("?");
+	}
+
+	/**
+	 * Gets the slowest statements recorded.
+	 *
+	 * @return the statements, slowest first
+	 */
+	public List<StatementRecord> getSlowestStatements() {
+		List<StatementRecord> out;
+		synchronized (slowest) {
+			out = new ArrayList<StatementRecord>(slowest);
+		}
+		Collections.sort(out, Collections.reverseOrder(FASTEST_FIRST));
+		return out;
+	}
+
+	/**
+	 * Forgets the slowest statements recorded.
+	 */
+	public void clearSlowestStatements() {
+		synchronized (slowest) {
+			slowest.clear();
+			floorMicros = 0;
+		}
+	}
+
+	/**
+	 * Gets the slow statement threshold.
+	 *
+	 * @return the threshold in milliseconds
+	 */
+	public long getThresholdMillis() {
+		return thresholdMicros / 1000;
+	}
+
+	/**
+	 * Sets the slow statement threshold, statements taking as long are logged.
+	 *
+	 * @param thresholdMillis the threshold in milliseconds
+	 */
+	public void setThresholdMillis(long thresholdMillis) {
+		this.thresholdMicros = thresholdMillis * 1000;
+	}
+
+	/**
+	 * Gets the number of slowest statements kept.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the number of slowest statements kept, 0 keeps none.
+	 *
+	 * @param capacity the capacity
+	 */
+	public void setCapacity(int capacity) {
+		synchronized (slowest) {
+			this.capacity = capacity;
+			while (slowest.size() > Math.max(capacity, 0)) {
+				slowest.poll();
+			}
+			floorMicros = slowest.size() < capacity ? 0 : slowest.peek().getMicros();
+		}
+	}
+
+	/**
+	 * A nworm call running on a thread and its pending statement.
+	 */
+	private static final class Call {
+
+		/** The operation. */
+		private final Operation op;
+
+		/** The entity class. */
+		private final Class<?> entityClass;
+
+		/** The pending statement, null if none. */
+		private String sql;
+
+		/** When the pending statement was prepared. */
+		private long prepared;
+
+		/**
+		 * Instantiates a new call.
+		 *
+		 * @param op the operation
+		 * @param entityClass the entity class
+		 */
+		private Call(Operation op, Class<?> entityClass) {
+			this.op = op;
+			this.entityClass = entityClass;
+		}
 
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return entityClass == null ? op.name() : op + " " + entityClass.getSimpleName();
+		}
+	}
 
 }
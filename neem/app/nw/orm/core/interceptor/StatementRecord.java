@@ -0,0 +1,109 @@
+package nw.orm.core.interceptor;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A timed SQL statement kept by {@link NwormInterceptor}.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class StatementRecord implements Serializable {
+
+	private static final long serialVersionUID = 4218530950153717613L;
+
+	/** The sql, literals redacted. */
+	private final String sql;
+
+	/** The nworm call that ran the statement. */
+	private final String caller;
+
+	/** The elapsed time in microseconds. */
+	private final long micros;
+
+	/** The rows returned or affected, -1 if unknown. */
+	private final long rows;
+
+	/** When the statement was prepared. */
+	private final long timestamp;
+
+	/**
+	 * Instantiates a new statement record.
+	 *
+	 * @param sql the redacted sql
+	 * @param caller the nworm call
+	 * @param micros the elapsed time in microseconds
+	 * @param rows the rows, -1 if unknown
+	 * @param timestamp when the statement was prepared, in milliseconds since the epoch
+	 */
+	public StatementRecord(String sql, String caller, long micros, long rows, long timestamp) {
+		this.sql = sql;
+		this.caller = caller;
+		this.micros = micros;
+		this.rows = rows;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Gets the sql, with literals replaced by ?.
+	 *
+	 * @return the sql
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * Gets the nworm call that ran the statement, operation and entity class.
+	 *
+	 * @return the caller
+	 */
+	public String getCaller() {
+		return caller;
+	}
+
+	/**
+	 * Gets the elapsed time in microseconds.
+	 *
+	 * @return the micros
+	 */
+	public long getMicros() {
+		return micros;
+	}
+
+	/**
+	 * Gets the elapsed time in milliseconds.
+	 *
+	 * @return the millis
+	 */
+	public double getMillis() {
+		return micros / 1000.0;
+	}
+
+	/**
+	 * Gets the rows returned or affected by the nworm call, known for its last statement only.
+	 *
+	 * @return the rows, -1 if unknown
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 * Gets when the statement was prepared.
+	 *
+	 * @return the time
+	 */
+	public Date getTime() {
+		return new Date(timestamp);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return getMillis() + "ms in " + caller + (rows < 0 ? "" : ", " + rows + " rows") + ": " + sql;
+	}
+
+}
@@ -0,0 +1,66 @@
+package nw.orm.core.metadata;
+
+/**
+ * Compile time view of an entity class: its table name, identifier, soft delete capability and the values of its
+ * declared fields. Implementations are generated by {@link nw.orm.core.annotations.NwormProcessor} and found
+ * through {@link EntityIndex}, classes compiled without the processor are described reflectively instead.
+ *
+ * @author Ogwara O. Rowland
+ */
+public interface EntityAccessor {
+
+	/**
+	 * Gets the entity class.
+	 *
+	 * @return the entity class
+	 */
+	Class<?> getEntityClass();
+
+	/**
+	 * Gets the table name declared with {@link javax.persistence.Table}, the simple class name if there is none.
+	 *
+	 * @return the table name
+	 */
+	String getTableName();
+
+	/**
+	 * Gets the identifier property name.
+	 *
+	 * @return the identifier property name, null if the class declares no identifier
+	 */
+	String getIdPropertyName();
+
+	/**
+	 * Checks if the class supports soft delete.
+	 *
+	 * @return true, if is soft deletable
+	 */
+	boolean isSoftDeletable();
+
+	/**
+	 * Gets the names of the non static fields declared by the class itself, in declaration order.
+	 *
+	 * @return the field names, shared and not to be modified
+	 */
+	String[] getFieldNames();
+
+	/**
+	 * Reads a declared field through its public getter.
+	 *
+	 * @param entity the entity
+	 * @param field the field index in {@link #getFieldNames()}
+	 * @return the value
+	 * @throws UnsupportedOperationException if the field has no public getter
+	 */
+	Object getValue(Object entity, int field);
+
+	/**
+	 * Reads the identifier of an entity.
+	 *
+	 * @param entity the entity
+	 * @return the identifier
+	 * @throws UnsupportedOperationException if the identifier has no public getter
+	 */
+	Object getId(Object entity);
+
+}
@@ -0,0 +1,183 @@
+package nw.orm.core.metadata;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nw.commons.NeemClazz;
+
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Index of the {@link EntityAccessor}s generated at compile time by {@link nw.orm.core.annotations.NwormProcessor}.
+ * Every jar or class folder compiled with the processor carries a {@link #RESOURCE} listing its accessor classes.
+ * Indexes are loaded once per class loader, entity classes are looked up in the index of their own loader so that
+ * entities of a web application or plugin loader are found even when this library sits in a parent loader. Classes
+ * missing from the index are described by reflection, once per class, so lookups never reflect after the first.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class EntityIndex extends NeemClazz {
+
+	/** The index resource, one generated accessor class name per line. */
+	public static final String RESOURCE = "META-INF/nworm/entity.index";
+
+	/** The indexes by class loader, softly held since their accessors keep the loader reachable. */
+	private static final Map<ClassLoader, SoftReference<EntityIndex>> shared = new WeakHashMap<ClassLoader, SoftReference<EntityIndex>>();
+
+	/** Generated accessors by entity class. */
+	private final Map<Class<?>, EntityAccessor> indexed;
+
+	/** Reflective accessors of classes missing from the index. */
+	private final ConcurrentHashMap<Class<?>, EntityAccessor> reflected = new ConcurrentHashMap<Class<?>, EntityAccessor>();
+
+	/**
+	 * Loads the index resources visible to a class loader.
+	 *
+	 * @param loader the class loader
+	 */
+	public EntityIndex(ClassLoader loader) {
+		Map<Class<?>, EntityAccessor> found = new HashMap<Class<?>, EntityAccessor>();
+		try {
+			Enumeration<URL> resources = loader.getResources(RESOURCE);
+			while (resources.hasMoreElements()) {
+				load(resources.nextElement(), loader, found);
+			}
+		} catch (IOException e) {
+			logger.warn("Could not read the entity index: " + e.getMessage());
+		}
+		indexed = Collections.unmodifiableMap(found);
+		logger.debug("Indexed " + indexed.size() + " entity classes");
+	}
+
+	/**
+	 * Gets the index of the thread context class loader, or of the class loader of this class when there is none.
+	 *
+	 * @return the index
+	 */
+	public static EntityIndex getInstance() {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		return getInstance(loader == null ? EntityIndex.class.getClassLoader() : loader);
+	}
+
+	/**
+	 * Gets the shared index of a class loader, loading it on first use.
+	 *
+	 * @param loader the class loader, null for the system class loader
+	 * @return the index
+	 */
+	public static EntityIndex getInstance(ClassLoader loader) {
+		if (loader == null) {
+			loader = ClassLoader.getSystemClassLoader();
+		}
+		synchronized (shared) {
+			SoftReference<EntityIndex> ref = shared.get(loader);
+			EntityIndex index = ref == null ? null : ref.get();
+			if (index == null) {
+				index = new EntityIndex(loader);
+				shared.put(loader, new SoftReference<EntityIndex>(index));
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Gets the accessor of a class from the shared index of its class loader. Hibernate proxies are resolved to the
+	 * proxied class.
+	 *
+	 * @param clazz the class
+	 * @return the accessor, never null
+	 */
+	public static EntityAccessor accessor(Class<?> clazz) {
+		ClassLoader loader = clazz.getClassLoader();
+		return (loader == null ? getInstance() : getInstance(loader)).getAccessor(clazz);
+	}
+
+	/**
+	 * Gets the accessor of a class, the generated one if indexed, else a reflective one.
+	 * Hibernate proxies are resolved to the proxied class.
+	 *
+	 * @param clazz the class
+	 * @return the accessor, never null
+	 */
+	public EntityAccessor getAccessor(Class<?> clazz) {
+		EntityAccessor accessor = indexed.get(clazz);
+		if (accessor != null) {
+			return accessor;
+		}
+		accessor = reflected.get(clazz);
+		if (accessor != null) {
+			return accessor;
+		}
+		if (HibernateProxy.class.isAssignableFrom(clazz) && clazz.getSuperclass() != null) {
+			accessor = getAccessor(clazz.getSuperclass());
+		} else {
+			accessor = new ReflectiveEntityAccessor(clazz);
+		}
+		EntityAccessor existing = reflected.putIfAbsent(clazz, accessor);
+		return existing == null ? accessor : existing;
+	}
+
+	/**
+	 * Checks if a class has a generated accessor.
+	 *
+	 * @param clazz the class
+	 * @return true, if is indexed
+	 */
+	public boolean isIndexed(Class<?> clazz) {
+		return indexed.containsKey(clazz);
+	}
+
+	/**
+	 * Gets the classes with a generated accessor.
+	 *
+	 * @return the indexed classes
+	 */
+	public Set<Class<?>> getIndexedClasses() {
+		return indexed.keySet();
+	}
+
+	/**
+	 * Loads the accessors listed by an index resource. Entries that cannot be loaded are skipped and left to
+	 * reflection.
+	 *
+	 * @param url the index resource
+	 * @param loader the class loader
+	 * @param found the accessors found so far
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void load(URL url, ClassLoader loader, Map<Class<?>, EntityAccessor> found) throws IOException {
+		InputStream in = url.openStream();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#")) {
+					continue;
+				}
+				try {
+					EntityAccessor accessor = (EntityAccessor) Class.forName(line, true, loader).newInstance();
+					found.put(accessor.getEntityClass(), accessor);
+				} catch (Exception e) {
+					logger.warn("Skipping entity accessor " + line + " listed in " + url + ": " + e);
+				} catch (LinkageError e) {
+					logger.warn("Skipping entity accessor " + line + " listed in " + url + ": " + e);
+				}
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package nw.orm.core.metadata;
+
+import nw.orm.core.NwormEntity;
+
+/**
+ * Immutable mapping information about a class as seen by a single session factory.
+ * Instances are resolved once by {@link EntityMetadataRegistry} and reused by all queries.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class EntityMetadata {
+
+	/** The described class. */
+	private final Class<?> entityClass;
+
+	/** Whether the class is mapped by the session factory. */
+	private final boolean mapped;
+
+	/** Whether the class supports soft delete. */
+	private final boolean softDeletable;
+
+	/** The identifier type. */
+	private final Class<?> idType;
+
+	/** The identifier property name. */
+	private final String idPropertyName;
+
+	/** The hibernate entity name. */
+	private final String entityName;
+
+	/** The table name. */
+	private final String tableName;
+
+	/**
+	 * Instantiates metadata for a mapped entity.
+	 *
+	 * @param entityClass the entity class
+	 * @param idType the identifier type
+	 * @param idPropertyName the identifier property name
+	 * @param entityName the hibernate entity name
+	 * @param tableName the table name
+	 */
+	public EntityMetadata(Class<?> entityClass, Class<?> idType, String idPropertyName, String entityName, String tableName) {
+		this.entityClass = entityClass;
+		this.mapped = true;
+		this.softDeletable = NwormEntity.class.isAssignableFrom(entityClass);
+		this.idType = idType;
+		this.idPropertyName = idPropertyName;
+		this.entityName = entityName;
+		this.tableName = tableName;
+	}
+
+	/**
+	 * Instantiates metadata for a class not known to the session factory, e.g a pojo used for transforming results.
+	 *
+	 * @param unmappedClass the unmapped class
+	 */
+	public EntityMetadata(Class<?> unmappedClass) {
+		this.entityClass = unmappedClass;
+		this.mapped = false;
+		this.softDeletable = NwormEntity.class.isAssignableFrom(unmappedClass);
+		this.idType = null;
+		this.idPropertyName = null;
+		this.entityName = null;
+		this.tableName = null;
+	}
+
+	/**
+	 * Gets the entity class.
+	 *
+	 * @return the entity class
+	 */
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	/**
+	 * Checks if the class is mapped.
+	 *
+	 * @return true, if is mapped
+	 */
+	public boolean isMapped() {
+		return mapped;
+	}
+
+	/**
+	 * Checks if the class is a {@link NwormEntity} and so supports soft delete.
+	 *
+	 * @return true, if is soft deletable
+	 */
+	public boolean isSoftDeletable() {
+		return softDeletable;
+	}
+
+	/**
+	 * Gets the id type.
+	 *
+	 * @return the id type, null for unmapped classes
+	 */
+	public Class<?> getIdType() {
+		return idType;
+	}
+
+	/**
+	 * Gets the id property name.
+	 *
+	 * @return the id property name, null for unmapped classes
+	 */
+	public String getIdPropertyName() {
+		return idPropertyName;
+	}
+
+	/**
+	 * Gets the hibernate entity name.
+	 *
+	 * @return the entity name, null for unmapped classes
+	 */
+	public String getEntityName() {
+		return entityName;
+	}
+
+	/**
+	 * Gets the table name.
+	 *
+	 * @return the table name, null for unmapped classes
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "EntityMetadata [" + entityClass.getName() + ", mapped=" + mapped + ", softDeletable=" + softDeletable
+				+ ", idType=" + idType + ", tableName=" + tableName + "]";
+	}
+
+}
@@ -0,0 +1,91 @@
+package nw.orm.core.metadata;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nw.commons.NeemClazz;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Registry of {@link EntityMetadata} for a session factory. All mapped classes are registered once
+ * when the session factory is built, classes not known to the factory are resolved lazily on first lookup
+ * and remembered as unmapped, so lookups never allocate entity instances.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class EntityMetadataRegistry extends NeemClazz {
+
+	/** Resolved metadata by class. */
+	private final ConcurrentHashMap<Class<?>, EntityMetadata> metadata = new ConcurrentHashMap<Class<?>, EntityMetadata>();
+
+	/**
+	 * Builds the registry from the mapped classes of the session factory.
+	 *
+	 * @param factory the session factory
+	 */
+	public EntityMetadataRegistry(SessionFactory factory) {
+		Map<String, ClassMetadata> all = factory.getAllClassMetadata();
+		for (ClassMetadata cm : all.values()) {
+			Class<?> mappedClass = cm.getMappedClass();
+			if (mappedClass == null) {
+				// dynamic map entities have no class to register
+				continue;
+			}
+			String tableName = null;
+			if (cm instanceof AbstractEntityPersister) {
+				tableName = ((AbstractEntityPersister) cm).getTableName();
+			}
+			Class<?> idType = null;
+			if (cm.getIdentifierType() != null) {
+				idType = cm.getIdentifierType().getReturnedClass();
+			}
+			metadata.put(mappedClass, new EntityMetadata(mappedClass, idType, cm.getIdentifierPropertyName(), cm.getEntityName(), tableName));
+		}
+		logger.debug("Registered metadata for " + metadata.size() + " mapped classes");
+	}
+
+	/**
+	 * Gets the metadata for a class. Hibernate proxies are resolved to the proxied entity class.
+	 *
+	 * @param clazz the class
+	 * @return the metadata, never null
+	 */
+	public EntityMetadata getMetadata(Class<?> clazz) {
+		EntityMetadata md = metadata.get(clazz);
+		if (md != null) {
+			return md;
+		}
+		if (HibernateProxy.class.isAssignableFrom(clazz) && clazz.getSuperclass() != null) {
+			md = getMetadata(clazz.getSuperclass());
+		} else {
+			md = new EntityMetadata(clazz);
+		}
+		EntityMetadata existing = metadata.putIfAbsent(clazz, md);
+		return existing == null ? md : existing;
+	}
+
+	/**
+	 * Checks if a class is mapped.
+	 *
+	 * @param clazz the class
+	 * @return true, if is mapped
+	 */
+	public boolean isMapped(Class<?> clazz) {
+		return getMetadata(clazz).isMapped();
+	}
+
+	/**
+	 * Checks if a class supports soft delete.
+	 *
+	 * @param clazz the class
+	 * @return true, if is soft deletable
+	 */
+	public boolean isSoftDeletable(Class<?> clazz) {
+		return getMetadata(clazz).isSoftDeletable();
+	}
+
+}
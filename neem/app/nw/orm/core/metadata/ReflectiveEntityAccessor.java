@@ -0,0 +1,195 @@
+package nw.orm.core.metadata;
+
+import java.beans.Introspector;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EmbeddedId;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import nw.orm.core.NwormEntity;
+
+/**
+ * {@link EntityAccessor} of a class compiled without the processor. The class is reflected on once, when the
+ * accessor is built, following the same rules as the generated accessors.
+ *
+ * @author Ogwara O. Rowland
+ */
+class ReflectiveEntityAccessor implements EntityAccessor {
+
+	/** The entity class. */
+	private final Class<?> entityClass;
+
+	/** The table name. */
+	private final String tableName;
+
+	/** The identifier property name. */
+	private final String idPropertyName;
+
+	/** The identifier getter. */
+	private final Method idGetter;
+
+	/** The declared field names. */
+	private final String[] fieldNames;
+
+	/** The getters of the declared fields, null for fields without one. */
+	private final Method[] getters;
+
+	/**
+	 * Describes a class.
+	 *
+	 * @param entityClass the entity class
+	 */
+	ReflectiveEntityAccessor(Class<?> entityClass) {
+		this.entityClass = entityClass;
+		Table table = entityClass.getAnnotation(Table.class);
+		this.tableName = table == null ? entityClass.getSimpleName() : table.name();
+
+		List<String> names = new ArrayList<String>();
+		List<Method> methods = new ArrayList<Method>();
+		for (Field field : entityClass.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers())) {
+				continue;
+			}
+			names.add(field.getName());
+			methods.add(getter(entityClass, field.getName(), field.getType()));
+		}
+		this.fieldNames = names.toArray(new String[names.size()]);
+		this.getters = methods.toArray(new Method[methods.size()]);
+
+		String id = null;
+		Method idMethod = null;
+		for (Class<?> c = entityClass; c != null && c != Object.class && id == null; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (field.isAnnotationPresent(Id.class) || field.isAnnotationPresent(EmbeddedId.class)) {
+					id = field.getName();
+					idMethod = getter(entityClass, id, field.getType());
+					break;
+				}
+			}
+			for (Method m : c.getDeclaredMethods()) {
+				if (id == null && m.getParameterTypes().length == 0
+						&& (m.isAnnotationPresent(Id.class) || m.isAnnotationPresent(EmbeddedId.class))) {
+					id = Introspector.decapitalize(m.getName().substring(m.getName().startsWith("is") ? 2 : 3));
+					idMethod = Modifier.isPublic(m.getModifiers()) ? m : null;
+				}
+			}
+		}
+		if (NwormEntity.class.isAssignableFrom(entityClass)) {
+			idMethod = getter(entityClass, "pk", Object.class);
+		}
+		this.idPropertyName = id;
+		this.idGetter = idMethod;
+	}
+
+	/**
+	 * Finds the public getter of a property.
+	 *
+	 * @param clazz the class
+	 * @param name the property name
+	 * @param type the property type
+	 * @return the getter, null if there is none
+	 */
+	private static Method getter(Class<?> clazz, String name, Class<?> type) {
+		String suffix = name.substring(0, 1).toUpperCase() + name.substring(1);
+		boolean bool = type == boolean.class || type.isAssignableFrom(Boolean.class);
+		String[] candidates = bool ? new String[] { "is" + suffix, "get" + suffix } : new String[] { "get" + suffix };
+		for (String candidate : candidates) {
+			try {
+				return clazz.getMethod(candidate);
+			} catch (NoSuchMethodException e) {
+				// try the next prefix
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Invokes a getter.
+	 *
+	 * @param getter the getter
+	 * @param entity the entity
+	 * @return the value
+	 */
+	private static Object invoke(Method getter, Object entity) {
+		try {
+			return getter.invoke(entity);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metadata.EntityAccessor#getEntityClass()
+	 */
+	@Override
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metadata.EntityAccessor#getTableName()
+	 */
+	@Override
+	public String getTableName() {
+		return tableName;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metadata.EntityAccessor#getIdPropertyName()
+	 */
+	@Override
+	public String getIdPropertyName() {
+		return idPropertyName;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metadata.EntityAccessor#isSoftDeletable()
+	 */
+	@Override
+	public boolean isSoftDeletable() {
+		return NwormEntity.class.isAssignableFrom(entityClass);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metadata.EntityAccessor#getFieldNames()
+	 */
+	@Override
+	public String[] getFieldNames() {
+		return fieldNames;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metadata.EntityAccessor#getValue(java.lang.Object, int)
+	 */
+	@Override
+	public Object getValue(Object entity, int field) {
+		if (getters[field] == null) {
+			throw new UnsupportedOperationException(entityClass.getName() + "." + fieldNames[field] + " has no public getter");
+		}
+		return invoke(getters[field], entity);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metadata.EntityAccessor#getId(java.lang.Object)
+	 */
+	@Override
+	public Object getId(Object entity) {
+		if (idGetter == null) {
+			throw new UnsupportedOperationException(entityClass.getName() + " has no public identifier getter");
+		}
+		return invoke(idGetter, entity);
+	}
+
+}
@@ -0,0 +1,180 @@
+package nw.orm.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of non negative values, typically latencies in microseconds. Values are counted in
+ * logarithmic buckets, each power of two split into 16 linear sub buckets, so percentiles are accurate to about
+ * 6% whatever the magnitude while the histogram stays a fixed 5KB. Values above 2^40 are counted as 2^40.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class LatencyHistogram {
+
+	/** Bits of precision kept within a power of two. */
+	private static final int SUB_BITS = 4;
+
+	/** Sub buckets per power of two. */
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	/** The largest value counted exactly. */
+	public static final long MAX_VALUE = 1L << 40;
+
+	/** The bucket counts. */
+	private final AtomicLongArray buckets = new AtomicLongArray(index(MAX_VALUE) + 1);
+
+	/** The number of values. */
+	private final AtomicLong count = new AtomicLong();
+
+	/** The sum of the values. */
+	private final AtomicLong sum = new AtomicLong();
+
+	/** The largest value. */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value the value, negative values count as 0
+	 */
+	public void record(long value) {
+		long v = Math.min(Math.max(value, 0), MAX_VALUE);
+		buckets.incrementAndGet(index(v));
+		count.incrementAndGet();
+		sum.addAndGet(v);
+		long current = max.get();
+		while (v > current && !max.compareAndSet(current, v)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Adds the values of another histogram to this one.
+	 *
+	 * @param other the other histogram
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < buckets.length(); i++) {
+			long n = other.buckets.get(i);
+			if (n > 0) {
+				buckets.addAndGet(i, n);
+			}
+		}
+		count.addAndGet(other.count.get());
+		sum.addAndGet(other.sum.get());
+		long otherMax = other.max.get();
+		long current = max.get();
+		while (otherMax > current && !max.compareAndSet(current, otherMax)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Gets the value below which a fraction of the recorded values fall.
+	 *
+	 * @param quantile the quantile, 0.99 for the 99th percentile
+	 * @return the upper bound of the bucket holding the quantile, never above the largest value; 0 if empty
+	 */
+	public long getValueAt(double quantile) {
+		long total = 0;
+		long[] counts = new long[buckets.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(quantile, 0), 1) * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Gets the number of recorded values.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Gets the sum of the recorded values.
+	 *
+	 * @return the sum
+	 */
+	public long getSum() {
+		return sum.get();
+	}
+
+	/**
+	 * Gets the largest recorded value.
+	 *
+	 * @return the max, 0 if empty
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the mean of the recorded values.
+	 *
+	 * @return the mean, 0 if empty
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Forgets all recorded values. Values recorded while resetting may be partly kept.
+	 */
+	public void reset() {
+		for (int i = 0; i < buckets.length(); i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Gets the bucket of a value.
+	 *
+	 * @param value the value
+	 * @return the bucket index
+	 */
+	private static int index(long value) {
+		if (value < SUB_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BITS;
+		int sub = (int) (value >>> shift) - SUB_COUNT;
+		return SUB_COUNT + shift * SUB_COUNT + sub;
+	}
+
+	/**
+	 * Gets the largest value counted in a bucket.
+	 *
+	 * @param index the bucket index
+	 * @return the upper bound
+	 */
+	private static long upperBound(int index) {
+		if (index < SUB_COUNT) {
+			return index;
+		}
+		int shift = (index - SUB_COUNT) / SUB_COUNT;
+		int sub = (index - SUB_COUNT) % SUB_COUNT;
+		return ((long) (SUB_COUNT + sub + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,533 @@
+package nw.orm.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import nw.commons.NeemClazz;
+import nw.orm.core.bulk.BulkInsertResult;
+import nw.orm.core.pool.PoolMetrics;
+import nw.orm.core.query.KeysetPage;
+import nw.orm.core.query.Page;
+
+/**
+ * Metrics of one nworm configuration: calls, errors, rows and latency percentiles per operation and entity class,
+ * and sessions opened and closed. Once {@link #registerMBeans()} is called the metrics are published over JMX as
+ * nw.orm:type=Metrics,config=&lt;name&gt; and nw.orm:type=OperationMetrics,config=&lt;name&gt;,operation=&lt;op&gt;,entity=&lt;class&gt;,
+ * and the connection pool metrics, when the pool is metered, as nw.orm:type=PoolMetrics,config=&lt;name&gt;.
+ * <p>
+ * Operations are timed with {@link #start(Operation, Class)}:
+ * <pre>
+ * Timer timer = metrics.start(Operation.HQL, Person.class);
+ * try {
+ *     return timer.done(query.list());
+ * } finally {
+ *     timer.stop();
+ * }
+ * </pre>
+ * A timer stopped without being done counts as an error.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class NwormMetrics extends NeemClazz implements NwormMetricsMBean {
+
+	/** The JMX domain. */
+	public static final String JMX_DOMAIN = "nw.orm";
+
+	/** Entity name of operations without an entity class. */
+	private static final String NO_ENTITY = "*";
+
+	/** The timer of disabled metrics. */
+	private static final Timer DISABLED_TIMER = new Timer(null, null, null);
+
+	/** The configuration name. */
+	private final String name;
+
+	/** Whether metrics are recorded. */
+	private volatile boolean enabled = true;
+
+	/** The metrics per operation and entity class. */
+	private final Map<Operation, ConcurrentMap<Object, OperationMetrics>> operations =
+			new EnumMap<Operation, ConcurrentMap<Object, OperationMetrics>>(Operation.class);
+
+	/** The sessions opened. */
+	private final AtomicLong sessionsOpened = new AtomicLong();
+
+	/** The sessions closed. */
+	private final AtomicLong sessionsClosed = new AtomicLong();
+
+	/** Whether the metrics are published over JMX. */
+	private volatile boolean registered;
+
+	/** Notified of every operation, even while recording is disabled. */
+	private volatile OperationListener listener;
+
+	/** The connection pool metrics, null if the pool is not metered. */
+	private volatile PoolMetrics poolMetrics;
+
+	/**
+	 * Instantiates new metrics.
+	 *
+	 * @param name the configuration name
+	 */
+	public NwormMetrics(String name) {
+		this.name = name;
+		for (Operation op : Operation.values()) {
+			operations.put(op, new ConcurrentHashMap<Object, OperationMetrics>());
+		}
+	}
+
+	/**
+	 * Starts timing an operation.
+	 *
+	 * @param op the operation
+	 * @param entityClass the entity class, may be null
+	 * @return the timer
+	 */
+	public Timer start(Operation op, Class<?> entityClass) {
+		OperationListener l = listener;
+		if (!enabled && l == null) {
+			return DISABLED_TIMER;
+		}
+		if (l != null) {
+			l.operationStarted(op, entityClass);
+		}
+		return new Timer(this, op, entityClass);
+	}
+
+	/**
+	 * Records a timed operation.
+	 *
+	 * @param op the operation
+	 * @param entityClass the entity class, may be null
+	 * @param micros the latency in microseconds
+	 * @param rows the rows returned or affected
+	 * @param failed whether the operation threw
+	 */
+	public void record(Operation op, Class<?> entityClass, long micros, long rows, boolean failed) {
+		OperationListener l = listener;
+		if (l != null) {
+			l.operationFinished(op, entityClass, rows, failed);
+		}
+		if (enabled) {
+			get(op, entityClass).record(micros, rows, failed);
+		}
+	}
+
+	/**
+	 * Gets the metrics of an operation on an entity class, creating them on first use.
+	 *
+	 * @param op the operation
+	 * @param entityClass the entity class, may be null
+	 * @return the metrics
+	 */
+	public OperationMetrics get(Operation op, Class<?> entityClass) {
+		ConcurrentMap<Object, OperationMetrics> byEntity = operations.get(op);
+		Object key = entityClass == null ? NO_ENTITY : entityClass;
+		OperationMetrics metrics = byEntity.get(key);
+		if (metrics == null) {
+			OperationMetrics created = new OperationMetrics(op, entityClass == null ? NO_ENTITY : entityClass.getName());
+			metrics = byEntity.putIfAbsent(key, created);
+			if (metrics == null) {
+				metrics = created;
+				if (registered) {
+					register(objectName(created), created);
+				}
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * Gets the metrics of all operations recorded so far.
+	 *
+	 * @return the metrics
+	 */
+	public List<OperationMetrics> getOperationMetrics() {
+		List<OperationMetrics> out = new ArrayList<OperationMetrics>();
+		for (ConcurrentMap<Object, OperationMetrics> byEntity : operations.values()) {
+			out.addAll(byEntity.values());
+		}
+		return out;
+	}
+
+	/**
+	 * Counts an opened session.
+	 */
+	public void sessionOpened() {
+		if (enabled) {
+			sessionsOpened.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts a closed session.
+	 */
+	public void sessionClosed() {
+		if (enabled) {
+			sessionsClosed.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Sets the listener notified of every operation.
+	 *
+	 * @param listener the listener, null for none
+	 */
+	public void setListener(OperationListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Gets the listener notified of every operation.
+	 *
+	 * @return the listener, null if none
+	 */
+	public OperationListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Sets the connection pool metrics, published along with the other metrics.
+	 *
+	 * @param poolMetrics the pool metrics, null if the pool is not metered
+	 */
+	public void setPoolMetrics(PoolMetrics poolMetrics) {
+		this.poolMetrics = poolMetrics;
+		if (registered && poolMetrics != null) {
+			register(poolObjectName(), poolMetrics);
+		}
+	}
+
+	/**
+	 * Gets the connection pool metrics.
+	 *
+	 * @return the pool metrics, null if the pool is not metered
+	 */
+	public PoolMetrics getPoolMetrics() {
+		return poolMetrics;
+	}
+
+	/**
+	 * Publishes the metrics over JMX, replacing metrics published earlier under the same configuration name.
+	 * Failures are logged, metrics keep being recorded.
+	 */
+	public void registerMBeans() {
+		registered = true;
+		register(objectName(), this);
+		for (OperationMetrics metrics : getOperationMetrics()) {
+			register(objectName(metrics), metrics);
+		}
+		PoolMetrics pool = poolMetrics;
+		if (pool != null) {
+			register(poolObjectName(), pool);
+		}
+	}
+
+	/**
+	 * Removes the metrics of this configuration from JMX.
+	 */
+	public void unregisterMBeans() {
+		registered = false;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			for (ObjectName on : server.queryNames(new ObjectName(JMX_DOMAIN + ":config=" + ObjectName.quote(name) + ",*"), null)) {
+				server.unregisterMBean(on);
+			}
+		} catch (JMException e) {
+			logger.warn("Unable to unregister metrics of " + name, e);
+		}
+	}
+
+	/**
+	 * Registers an MBean, replacing an existing one.
+	 *
+	 * @param on the object name
+	 * @param mbean the mbean
+	 */
+	private void register(ObjectName on, Object mbean) {
+		if (on == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(on)) {
+				server.unregisterMBean(on);
+			}
+			server.registerMBean(mbean, on);
+		} catch (JMException e) {
+			logger.warn("Unable to register " + on, e);
+		}
+	}
+
+	/**
+	 * Gets the object name of the configuration metrics.
+	 *
+	 * @return the object name, null if invalid
+	 */
+	private ObjectName objectName() {
+		return objectName(JMX_DOMAIN + ":type=Metrics,config=" + ObjectName.quote(name));
+	}
+
+	/**
+	 * Gets the object name of the pool metrics.
+	 *
+	 * @return the object name, null if invalid
+	 */
+	private ObjectName poolObjectName() {
+		return objectName(JMX_DOMAIN + ":type=PoolMetrics,config=" + ObjectName.quote(name));
+	}
+
+	/**
+	 * Gets the object name of operation metrics.
+	 *
+	 * @param metrics the metrics
+	 * @return the object name, null if invalid
+	 */
+	private ObjectName objectName(OperationMetrics metrics) {
+		return objectName(JMX_DOMAIN + ":type=OperationMetrics,config=" + ObjectName.quote(name)
+				+ ",operation=" + metrics.getOperation() + ",entity=" + ObjectName.quote(metrics.getEntity()));
+	}
+
+	/**
+	 * Parses an object name.
+	 *
+	 * @param on the object name
+	 * @return the object name, null if invalid
+	 */
+	private ObjectName objectName(String on) {
+		try {
+			return new ObjectName(on);
+		} catch (JMException e) {
+			logger.warn("Invalid object name " + on, e);
+			return null;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#getName()
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#setEnabled(boolean)
+	 */
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#getSessionsOpened()
+	 */
+	@Override
+	public long getSessionsOpened() {
+		return sessionsOpened.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#getSessionsClosed()
+	 */
+	@Override
+	public long getSessionsClosed() {
+		return sessionsClosed.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#getOpenSessions()
+	 */
+	@Override
+	public long getOpenSessions() {
+		return sessionsOpened.get() - sessionsClosed.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#getCalls()
+	 */
+	@Override
+	public long getCalls() {
+		long calls = 0;
+		for (OperationMetrics metrics : getOperationMetrics()) {
+			calls += metrics.getCalls();
+		}
+		return calls;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#getErrors()
+	 */
+	@Override
+	public long getErrors() {
+		long errors = 0;
+		for (OperationMetrics metrics : getOperationMetrics()) {
+			errors += metrics.getErrors();
+		}
+		return errors;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#getOperationSummaries()
+	 */
+	@Override
+	public String[] getOperationSummaries() {
+		List<OperationMetrics> all = getOperationMetrics();
+		Collections.sort(all, new Comparator<OperationMetrics>() {
+
+			@Override
+			public int compare(OperationMetrics a, OperationMetrics b) {
+				return Double.compare(b.getTotalMillis(), a.getTotalMillis());
+			}
+		});
+		String[] out = new String[all.size()];
+		for (int i = 0; i < out.length; i++) {
+			out[i] = all.get(i).toString();
+		}
+		return out;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.NwormMetricsMBean#reset()
+	 */
+	@Override
+	public void reset() {
+		for (OperationMetrics metrics : getOperationMetrics()) {
+			metrics.reset();
+		}
+		long open = getOpenSessions();
+		sessionsClosed.set(0);
+		sessionsOpened.set(open);
+	}
+
+	/**
+	 * Counts the rows of an operation result: list and page items, ids of bulk inserts, 1 for true or any other non
+	 * null result. Numbers count as one row like any other value, update counts and generated ids are passed to
+	 * {@link Timer#done(Object, long)} instead.
+	 *
+	 * @param result the result
+	 * @return the rows
+	 */
+	static long rowsOf(Object result) {
+		if (result == null) {
+			return 0;
+		}
+		if (result instanceof Collection) {
+			return ((Collection<?>) result).size();
+		}
+		if (result instanceof Page) {
+			return ((Page<?>) result).getItems().size();
+		}
+		if (result instanceof KeysetPage) {
+			return ((KeysetPage<?>) result).getItems().size();
+		}
+		if (result instanceof BulkInsertResult) {
+			return ((BulkInsertResult) result).getIds().size();
+		}
+		if (result instanceof Boolean) {
+			return ((Boolean) result).booleanValue() ? 1 : 0;
+		}
+		return 1;
+	}
+
+	/**
+	 * Times one operation. Not thread safe, each call gets its own timer.
+	 */
+	public static final class Timer {
+
+		/** The metrics, null when disabled. */
+		private final NwormMetrics metrics;
+
+		/** The operation. */
+		private final Operation op;
+
+		/** The entity class. */
+		private final Class<?> entityClass;
+
+		/** The start time in nanoseconds. */
+		private final long started;
+
+		/** The rows. */
+		private long rows;
+
+		/** Whether the operation completed. */
+		private boolean done;
+
+		/**
+		 * Instantiates a new timer.
+		 *
+		 * @param metrics the metrics
+		 * @param op the operation
+		 * @param entityClass the entity class
+		 */
+		private Timer(NwormMetrics metrics, Operation op, Class<?> entityClass) {
+			this.metrics = metrics;
+			this.op = op;
+			this.entityClass = entityClass;
+			this.started = metrics == null ? 0 : System.nanoTime();
+		}
+
+		/**
+		 * Marks the operation as successful, counting the rows of its result.
+		 *
+		 * @param <R> the result type
+		 * @param result the result
+		 * @return the result
+		 */
+		public <R> R done(R result) {
+			if (metrics != null) {
+				this.rows = rowsOf(result);
+				this.done = true;
+			}
+			return result;
+		}
+
+		/**
+		 * Marks the operation as successful with an explicit row count, for writes returning affected counts or ids.
+		 *
+		 * @param <R> the result type
+		 * @param result the result
+		 * @param rows the rows read or written
+		 * @return the result
+		 */
+		public <R> R done(R result, long rows) {
+			if (metrics != null) {
+				this.rows = rows;
+				this.done = true;
+			}
+			return result;
+		}
+
+		/**
+		 * Records the operation, as an error unless {@link #done(Object)} was called.
+		 */
+		public void stop() {
+			if (metrics != null) {
+				metrics.record(op, entityClass, (System.nanoTime() - started) / 1000, rows, !done);
+			}
+		}
+
+	}
+
+}
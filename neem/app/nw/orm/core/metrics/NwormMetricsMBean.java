@@ -0,0 +1,79 @@
+package nw.orm.core.metrics;
+
+/**
+ * JMX view of the metrics of one nworm configuration. Per operation metrics are registered as
+ * {@link OperationMetricsMBean}s next to it.
+ *
+ * @author Ogwara O. Rowland
+ */
+public interface NwormMetricsMBean {
+
+	/**
+	 * Gets the configuration name.
+	 *
+	 * @return the name
+	 */
+	public String getName();
+
+	/**
+	 * Checks if metrics are recorded.
+	 *
+	 * @return true, if enabled
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Enables or disables recording.
+	 *
+	 * @param enabled true to record
+	 */
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * Gets the number of sessions opened.
+	 *
+	 * @return the sessions opened
+	 */
+	public long getSessionsOpened();
+
+	/**
+	 * Gets the number of sessions closed.
+	 *
+	 * @return the sessions closed
+	 */
+	public long getSessionsClosed();
+
+	/**
+	 * Gets the number of sessions open now.
+	 *
+	 * @return the open sessions
+	 */
+	public long getOpenSessions();
+
+	/**
+	 * Gets the calls of all operations.
+	 *
+	 * @return the calls
+	 */
+	public long getCalls();
+
+	/**
+	 * Gets the errors of all operations.
+	 *
+	 * @return the errors
+	 */
+	public long getErrors();
+
+	/**
+	 * Gets a summary line per operation and entity, slowest total time first.
+	 *
+	 * @return the summaries
+	 */
+	public String[] getOperationSummaries();
+
+	/**
+	 * Clears all metrics, open sessions excepted.
+	 */
+	public void reset();
+
+}
@@ -0,0 +1,58 @@
+package nw.orm.core.metrics;
+
+/**
+ * The kinds of operations timed by {@link NwormMetrics}.
+ *
+ * @author Ogwara O. Rowland
+ */
+public enum Operation {
+
+	/** Lookups by primary key. */
+	GET_BY_ID,
+
+	/** Lookups of many primary keys at once. */
+	GET_BY_IDS,
+
+	/** Criteria queries. */
+	CRITERIA,
+
+	/** Query by example. */
+	EXAMPLE,
+
+	/** HQL queries. */
+	HQL,
+
+	/** Native SQL queries. */
+	SQL,
+
+	/** Streamed queries, timed until the last row is processed. */
+	STREAM,
+
+	/** Single entity inserts. */
+	CREATE,
+
+	/** Single entity updates. */
+	UPDATE,
+
+	/** Single entity saves or updates. */
+	CREATE_OR_UPDATE,
+
+	/** Single entity deletes. */
+	DELETE,
+
+	/** Bulk inserts. */
+	BULK_CREATE,
+
+	/** Bulk updates. */
+	BULK_UPDATE,
+
+	/** Bulk deletes and soft deletes by ids. */
+	BULK_DELETE,
+
+	/** HQL and SQL update statements. */
+	EXECUTE_UPDATE,
+
+	/** Units of work, see {@link nw.orm.core.service.NwormHibernateService#executeInTransaction}. */
+	TRANSACTION
+
+}
@@ -0,0 +1,29 @@
+package nw.orm.core.metrics;
+
+/**
+ * Notified when nworm operations start and finish on the calling thread, see
+ * {@link NwormMetrics#setListener(OperationListener)}.
+ *
+ * @author Ogwara O. Rowland
+ */
+public interface OperationListener {
+
+	/**
+	 * Called before an operation runs.
+	 *
+	 * @param op the operation
+	 * @param entityClass the entity class, may be null
+	 */
+	public void operationStarted(Operation op, Class<?> entityClass);
+
+	/**
+	 * Called after an operation returned or threw. Operations may nest, each start is matched by one finish.
+	 *
+	 * @param op the operation
+	 * @param entityClass the entity class, may be null
+	 * @param rows the rows returned or affected
+	 * @param failed whether the operation threw
+	 */
+	public void operationFinished(Operation op, Class<?> entityClass, long rows, boolean failed);
+
+}
@@ -0,0 +1,178 @@
+package nw.orm.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Call counts, errors, rows and latencies of one operation on one entity class.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+
+	/** Microseconds in a millisecond. */
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	/** The operation. */
+	private final Operation operation;
+
+	/** The entity class name. */
+	private final String entity;
+
+	/** The calls. */
+	private final AtomicLong calls = new AtomicLong();
+
+	/** The errors. */
+	private final AtomicLong errors = new AtomicLong();
+
+	/** The rows. */
+	private final AtomicLong rows = new AtomicLong();
+
+	/** The latencies in microseconds. */
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	/**
+	 * Instantiates new operation metrics.
+	 *
+	 * @param operation the operation
+	 * @param entity the entity class name
+	 */
+	public OperationMetrics(Operation operation, String entity) {
+		this.operation = operation;
+		this.entity = entity;
+	}
+
+	/**
+	 * Records a call.
+	 *
+	 * @param micros the latency in microseconds
+	 * @param rowCount the rows returned or affected
+	 * @param failed whether the call threw
+	 */
+	public void record(long micros, long rowCount, boolean failed) {
+		calls.incrementAndGet();
+		latencies.record(micros);
+		if (failed) {
+			errors.incrementAndGet();
+		} else {
+			rows.addAndGet(rowCount);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getOperation()
+	 */
+	@Override
+	public String getOperation() {
+		return operation.name();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getEntity()
+	 */
+	@Override
+	public String getEntity() {
+		return entity;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getCalls()
+	 */
+	@Override
+	public long getCalls() {
+		return calls.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getErrors()
+	 */
+	@Override
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getRows()
+	 */
+	@Override
+	public long getRows() {
+		return rows.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getMeanMillis()
+	 */
+	@Override
+	public double getMeanMillis() {
+		return latencies.getMean() / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getP50Millis()
+	 */
+	@Override
+	public double getP50Millis() {
+		return latencies.getValueAt(0.50) / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getP95Millis()
+	 */
+	@Override
+	public double getP95Millis() {
+		return latencies.getValueAt(0.95) / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getP99Millis()
+	 */
+	@Override
+	public double getP99Millis() {
+		return latencies.getValueAt(0.99) / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getMaxMillis()
+	 */
+	@Override
+	public double getMaxMillis() {
+		return latencies.getMax() / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#getTotalMillis()
+	 */
+	@Override
+	public double getTotalMillis() {
+		return latencies.getSum() / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.metrics.OperationMetricsMBean#reset()
+	 */
+	@Override
+	public void reset() {
+		calls.set(0);
+		errors.set(0);
+		rows.set(0);
+		latencies.reset();
+	}
+
+	/**
+	 * Gets the latency histogram.
+	 *
+	 * @return the latencies in microseconds
+	 */
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return operation + " " + entity + " calls=" + getCalls() + " errors=" + getErrors() + " rows=" + getRows()
+				+ " p50=" + getP50Millis() + "ms p95=" + getP95Millis() + "ms p99=" + getP99Millis() + "ms";
+	}
+
+}
@@ -0,0 +1,92 @@
+package nw.orm.core.metrics;
+
+/**
+ * JMX view of the metrics of one operation on one entity class.
+ *
+ * @author Ogwara O. Rowland
+ */
+public interface OperationMetricsMBean {
+
+	/**
+	 * Gets the operation.
+	 *
+	 * @return the operation name
+	 */
+	public String getOperation();
+
+	/**
+	 * Gets the entity class.
+	 *
+	 * @return the class name, * when the operation has none
+	 */
+	public String getEntity();
+
+	/**
+	 * Gets the number of calls, failed ones included.
+	 *
+	 * @return the calls
+	 */
+	public long getCalls();
+
+	/**
+	 * Gets the number of calls that threw.
+	 *
+	 * @return the errors
+	 */
+	public long getErrors();
+
+	/**
+	 * Gets the rows returned or affected by successful calls.
+	 *
+	 * @return the rows
+	 */
+	public long getRows();
+
+	/**
+	 * Gets the mean latency.
+	 *
+	 * @return the mean in milliseconds
+	 */
+	public double getMeanMillis();
+
+	/**
+	 * Gets the median latency.
+	 *
+	 * @return the 50th percentile in milliseconds
+	 */
+	public double getP50Millis();
+
+	/**
+	 * Gets the 95th percentile latency.
+	 *
+	 * @return the 95th percentile in milliseconds
+	 */
+	public double getP95Millis();
+
+	/**
+	 * Gets the 99th percentile latency.
+	 *
+	 * @return the 99th percentile in milliseconds
+	 */
+	public double getP99Millis();
+
+	/**
+	 * Gets the largest latency.
+	 *
+	 * @return the max in milliseconds
+	 */
+	public double getMaxMillis();
+
+	/**
+	 * Gets the total time spent in calls.
+	 *
+	 * @return the total in milliseconds
+	 */
+	public double getTotalMillis();
+
+	/**
+	 * Clears the metrics.
+	 */
+	public void reset();
+
+}
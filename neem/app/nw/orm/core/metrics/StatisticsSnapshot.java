@@ -0,0 +1,685 @@
+package nw.orm.core.metrics;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * An immutable copy of the hibernate {@link Statistics} of a session factory at one moment. Two snapshots give the
+ * activity of the window between them, see {@link #since(StatisticsSnapshot)}; a jump in entity fetches after a
+ * deploy, for instance, usually points to an N+1 select.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class StatisticsSnapshot implements Serializable {
+
+	private static final long serialVersionUID = -3305917464183326042L;
+
+	/**
+	 * The session factory counters kept by a snapshot.
+	 */
+	public enum Counter {
+
+		/** Entities loaded. */
+		ENTITY_LOADS {
+			@Override
+			long read(Statistics s) {
+				return s.getEntityLoadCount();
+			}
+		},
+
+		/** Entities fetched with an extra select. */
+		ENTITY_FETCHES {
+			@Override
+			long read(Statistics s) {
+				return s.getEntityFetchCount();
+			}
+		},
+
+		/** Entities inserted. */
+		ENTITY_INSERTS {
+			@Override
+			long read(Statistics s) {
+				return s.getEntityInsertCount();
+			}
+		},
+
+		/** Entities updated. */
+		ENTITY_UPDATES {
+			@Override
+			long read(Statistics s) {
+				return s.getEntityUpdateCount();
+			}
+		},
+
+		/** Entities deleted. */
+		ENTITY_DELETES {
+			@Override
+			long read(Statistics s) {
+				return s.getEntityDeleteCount();
+			}
+		},
+
+		/** Collections loaded. */
+		COLLECTION_LOADS {
+			@Override
+			long read(Statistics s) {
+				return s.getCollectionLoadCount();
+			}
+		},
+
+		/** Collections fetched with an extra select. */
+		COLLECTION_FETCHES {
+			@Override
+			long read(Statistics s) {
+				return s.getCollectionFetchCount();
+			}
+		},
+
+		/** HQL and criteria queries executed. */
+		QUERY_EXECUTIONS {
+			@Override
+			long read(Statistics s) {
+				return s.getQueryExecutionCount();
+			}
+		},
+
+		/** Slowest query execution in milliseconds, not a counter. */
+		QUERY_EXECUTION_MAX_TIME {
+			@Override
+			long read(Statistics s) {
+				return s.getQueryExecutionMaxTime();
+			}
+		},
+
+		/** Query cache hits. */
+		QUERY_CACHE_HITS {
+			@Override
+			long read(Statistics s) {
+				return s.getQueryCacheHitCount();
+			}
+		},
+
+		/** Query cache misses. */
+		QUERY_CACHE_MISSES {
+			@Override
+			long read(Statistics s) {
+				return s.getQueryCacheMissCount();
+			}
+		},
+
+		/** Second level cache hits. */
+		SECOND_LEVEL_CACHE_HITS {
+			@Override
+			long read(Statistics s) {
+				return s.getSecondLevelCacheHitCount();
+			}
+		},
+
+		/** Second level cache misses. */
+		SECOND_LEVEL_CACHE_MISSES {
+			@Override
+			long read(Statistics s) {
+				return s.getSecondLevelCacheMissCount();
+			}
+		},
+
+		/** Second level cache puts. */
+		SECOND_LEVEL_CACHE_PUTS {
+			@Override
+			long read(Statistics s) {
+				return s.getSecondLevelCachePutCount();
+			}
+		},
+
+		/** Connections obtained. */
+		CONNECTIONS {
+			@Override
+			long read(Statistics s) {
+				return s.getConnectCount();
+			}
+		},
+
+		/** Statements prepared. */
+		STATEMENTS_PREPARED {
+			@Override
+			long read(Statistics s) {
+				return s.getPrepareStatementCount();
+			}
+		},
+
+		/** Transactions completed. */
+		TRANSACTIONS {
+			@Override
+			long read(Statistics s) {
+				return s.getTransactionCount();
+			}
+		},
+
+		/** Transactions committed. */
+		SUCCESSFUL_TRANSACTIONS {
+			@Override
+			long read(Statistics s) {
+				return s.getSuccessfulTransactionCount();
+			}
+		},
+
+		/** Optimistic lock failures. */
+		OPTIMISTIC_FAILURES {
+			@Override
+			long read(Statistics s) {
+				return s.getOptimisticFailureCount();
+			}
+		},
+
+		/** Sessions opened. */
+		SESSIONS_OPENED {
+			@Override
+			long read(Statistics s) {
+				return s.getSessionOpenCount();
+			}
+		},
+
+		/** Sessions closed. */
+		SESSIONS_CLOSED {
+			@Override
+			long read(Statistics s) {
+				return s.getSessionCloseCount();
+			}
+		},
+
+		/** Session flushes. */
+		FLUSHES {
+			@Override
+			long read(Statistics s) {
+				return s.getFlushCount();
+			}
+		};
+
+		/**
+		 * Reads the counter.
+		 *
+		 * @param s the statistics
+		 * @return the value
+		 */
+		abstract long read(Statistics s);
+	}
+
+	/** When the snapshot was taken. */
+	private final long takenAt;
+
+	/** Start of the window covered, when statistics were started or the earlier snapshot was taken. */
+	private final long windowStart;
+
+	/** The slowest query, may be null. */
+	private final String slowestQuery;
+
+	/** The counters. */
+	private final EnumMap<Counter, Long> counters;
+
+	/** Counts per entity name. */
+	private final Map<String, EntityCounts> entities;
+
+	/** Counts per second level cache region. */
+	private final Map<String, RegionCounts> regions;
+
+	/**
+	 * Instantiates a new snapshot.
+	 *
+	 * @param takenAt when taken
+	 * @param windowStart start of the window
+	 * @param slowestQuery the slowest query
+	 * @param counters the counters
+	 * @param entities the entity counts
+	 * @param regions the region counts
+	 */
+	private StatisticsSnapshot(long takenAt, long windowStart, String slowestQuery, EnumMap<Counter, Long> counters,
+			Map<String, EntityCounts> entities, Map<String, RegionCounts> regions) {
+		this.takenAt = takenAt;
+		this.windowStart = windowStart;
+		this.slowestQuery = slowestQuery;
+		this.counters = counters;
+		this.entities = Collections.unmodifiableMap(entities);
+		this.regions = Collections.unmodifiableMap(regions);
+	}
+
+	/**
+	 * Takes a snapshot of session factory statistics. Only activity while statistics were enabled is counted.
+	 *
+	 * @param statistics the statistics
+	 * @return the snapshot
+	 */
+	public static StatisticsSnapshot of(Statistics statistics) {
+		EnumMap<Counter, Long> counters = new EnumMap<Counter, Long>(Counter.class);
+		for (Counter c : Counter.values()) {
+			counters.put(c, Long.valueOf(c.read(statistics)));
+		}
+		Map<String, EntityCounts> entities = new TreeMap<String, EntityCounts>();
+		for (String name : statistics.getEntityNames()) {
+			EntityStatistics es = statistics.getEntityStatistics(name);
+			entities.put(name, new EntityCounts(es.getLoadCount(), es.getFetchCount(), es.getInsertCount(),
+					es.getUpdateCount(), es.getDeleteCount()));
+		}
+		Map<String, RegionCounts> regions = new TreeMap<String, RegionCounts>();
+		for (String name : statistics.getSecondLevelCacheRegionNames()) {
+			SecondLevelCacheStatistics cs = statistics.getSecondLevelCacheStatistics(name);
+			if (cs != null) {
+				regions.put(name, new RegionCounts(cs.getHitCount(), cs.getMissCount(), cs.getPutCount()));
+			}
+		}
+		return new StatisticsSnapshot(System.currentTimeMillis(), statistics.getStartTime(),
+				statistics.getQueryExecutionMaxTimeQueryString(), counters, entities, regions);
+	}
+
+	/**
+	 * Gets the activity between an earlier snapshot and this one. Counters are subtracted; the slowest query
+	 * execution time is kept if it was reached within the window and is 0 otherwise. Entities and regions unseen
+	 * by the earlier snapshot count from 0.
+	 *
+	 * @param earlier the earlier snapshot of the same session factory
+	 * @return the activity of the window
+	 */
+	public StatisticsSnapshot since(StatisticsSnapshot earlier) {
+		EnumMap<Counter, Long> diff = new EnumMap<Counter, Long>(Counter.class);
+		for (Counter c : Counter.values()) {
+			long value = get(c) - earlier.get(c);
+			if (c == Counter.QUERY_EXECUTION_MAX_TIME) {
+				value = get(c) > earlier.get(c) ? get(c) : 0;
+			}
+			diff.put(c, Long.valueOf(value));
+		}
+		Map<String, EntityCounts> entityDiff = new TreeMap<String, EntityCounts>();
+		for (Map.Entry<String, EntityCounts> e : entities.entrySet()) {
+			entityDiff.put(e.getKey(), e.getValue().minus(earlier.entities.get(e.getKey())));
+		}
+		Map<String, RegionCounts> regionDiff = new TreeMap<String, RegionCounts>();
+		for (Map.Entry<String, RegionCounts> e : regions.entrySet()) {
+			regionDiff.put(e.getKey(), e.getValue().minus(earlier.regions.get(e.getKey())));
+		}
+		String slowest = diff.get(Counter.QUERY_EXECUTION_MAX_TIME).longValue() > 0 ? slowestQuery : null;
+		return new StatisticsSnapshot(takenAt, earlier.takenAt, slowest, diff, entityDiff, regionDiff);
+	}
+
+	/**
+	 * Gets a counter.
+	 *
+	 * @param counter the counter
+	 * @return the value
+	 */
+	public long get(Counter counter) {
+		return counters.get(counter).longValue();
+	}
+
+	/**
+	 * Gets the counters.
+	 *
+	 * @return the counters
+	 */
+	public Map<Counter, Long> getCounters() {
+		return Collections.unmodifiableMap(counters);
+	}
+
+	/**
+	 * Gets the entities loaded.
+	 *
+	 * @return the entity load count
+	 */
+	public long getEntityLoadCount() {
+		return get(Counter.ENTITY_LOADS);
+	}
+
+	/**
+	 * Gets the entities fetched with an extra select.
+	 *
+	 * @return the entity fetch count
+	 */
+	public long getEntityFetchCount() {
+		return get(Counter.ENTITY_FETCHES);
+	}
+
+	/**
+	 * Gets the entities inserted.
+	 *
+	 * @return the entity insert count
+	 */
+	public long getEntityInsertCount() {
+		return get(Counter.ENTITY_INSERTS);
+	}
+
+	/**
+	 * Gets the queries executed.
+	 *
+	 * @return the query execution count
+	 */
+	public long getQueryExecutionCount() {
+		return get(Counter.QUERY_EXECUTIONS);
+	}
+
+	/**
+	 * Gets the slowest query execution time.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public long getQueryExecutionMaxTime() {
+		return get(Counter.QUERY_EXECUTION_MAX_TIME);
+	}
+
+	/**
+	 * Gets the slowest query.
+	 *
+	 * @return the query, null if unknown
+	 */
+	public String getSlowestQuery() {
+		return slowestQuery;
+	}
+
+	/**
+	 * Gets the connections obtained.
+	 *
+	 * @return the connection count
+	 */
+	public long getConnectCount() {
+		return get(Counter.CONNECTIONS);
+	}
+
+	/**
+	 * Gets the transactions completed.
+	 *
+	 * @return the transaction count
+	 */
+	public long getTransactionCount() {
+		return get(Counter.TRANSACTIONS);
+	}
+
+	/**
+	 * Gets the transactions committed.
+	 *
+	 * @return the successful transaction count
+	 */
+	public long getSuccessfulTransactionCount() {
+		return get(Counter.SUCCESSFUL_TRANSACTIONS);
+	}
+
+	/**
+	 * Gets the second level cache hit ratio.
+	 *
+	 * @return hits over lookups, 0 without lookups
+	 */
+	public double getSecondLevelCacheHitRatio() {
+		return ratio(get(Counter.SECOND_LEVEL_CACHE_HITS), get(Counter.SECOND_LEVEL_CACHE_MISSES));
+	}
+
+	/**
+	 * Gets the query cache hit ratio.
+	 *
+	 * @return hits over lookups, 0 without lookups
+	 */
+	public double getQueryCacheHitRatio() {
+		return ratio(get(Counter.QUERY_CACHE_HITS), get(Counter.QUERY_CACHE_MISSES));
+	}
+
+	/**
+	 * Gets the counts per entity name.
+	 *
+	 * @return the entity counts
+	 */
+	public Map<String, EntityCounts> getEntities() {
+		return entities;
+	}
+
+	/**
+	 * Gets the counts per second level cache region.
+	 *
+	 * @return the region counts
+	 */
+	public Map<String, RegionCounts> getRegions() {
+		return regions;
+	}
+
+	/**
+	 * Gets when the snapshot was taken.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getTakenAt() {
+		return takenAt;
+	}
+
+	/**
+	 * Gets the start of the window covered.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getWindowStart() {
+		return windowStart;
+	}
+
+	/**
+	 * Gets the length of the window covered.
+	 *
+	 * @return the window in milliseconds
+	 */
+	public long getWindowMillis() {
+		return takenAt - windowStart;
+	}
+
+	/**
+	 * Computes a hit ratio.
+	 *
+	 * @param hits the hits
+	 * @param misses the misses
+	 * @return the ratio
+	 */
+	private static double ratio(long hits, long misses) {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StatisticsSnapshot" + counters + " over " + getWindowMillis() + "ms";
+	}
+
+	/**
+	 * Counts of one entity.
+	 */
+	public static final class EntityCounts implements Serializable {
+
+		private static final long serialVersionUID = 7712300957386475713L;
+
+		/** The loads. */
+		private final long loads;
+
+		/** The fetches. */
+		private final long fetches;
+
+		/** The inserts. */
+		private final long inserts;
+
+		/** The updates. */
+		private final long updates;
+
+		/** The deletes. */
+		private final long deletes;
+
+		/**
+		 * Instantiates new entity counts.
+		 *
+		 * @param loads the loads
+		 * @param fetches the fetches
+		 * @param inserts the inserts
+		 * @param updates the updates
+		 * @param deletes the deletes
+		 */
+		private EntityCounts(long loads, long fetches, long inserts, long updates, long deletes) {
+			this.loads = loads;
+			this.fetches = fetches;
+			this.inserts = inserts;
+			this.updates = updates;
+			this.deletes = deletes;
+		}
+
+		/**
+		 * Subtracts earlier counts.
+		 *
+		 * @param earlier the earlier counts, may be null
+		 * @return the difference
+		 */
+		private EntityCounts minus(EntityCounts earlier) {
+			if (earlier == null) {
+				return this;
+			}
+			return new EntityCounts(loads - earlier.loads, fetches - earlier.fetches, inserts - earlier.inserts,
+					updates - earlier.updates, deletes - earlier.deletes);
+		}
+
+		/**
+		 * Gets the loads.
+		 *
+		 * @return the loads
+		 */
+		public long getLoads() {
+			return loads;
+		}
+
+		/**
+		 * Gets the fetches.
+		 *
+		 * @return the fetches
+		 */
+		public long getFetches() {
+			return fetches;
+		}
+
+		/**
+		 * Gets the inserts.
+		 *
+		 * @return the inserts
+		 */
+		public long getInserts() {
+			return inserts;
+		}
+
+		/**
+		 * Gets the updates.
+		 *
+		 * @return the updates
+		 */
+		public long getUpdates() {
+			return updates;
+		}
+
+		/**
+		 * Gets the deletes.
+		 *
+		 * @return the deletes
+		 */
+		public long getDeletes() {
+			return deletes;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "loads=" + loads + " fetches=" + fetches + " inserts=" + inserts + " updates=" + updates + " deletes=" + deletes;
+		}
+	}
+
+	/**
+	 * Counts of one second level cache region.
+	 */
+	public static final class RegionCounts implements Serializable {
+
+		private static final long serialVersionUID = -1530917355806934022L;
+
+		/** The hits. */
+		private final long hits;
+
+		/** The misses. */
+		private final long misses;
+
+		/** The puts. */
+		private final long puts;
+
+		/**
+		 * Instantiates new region counts.
+		 *
+		 * @param hits the hits
+		 * @param misses the misses
+		 * @param puts the puts
+		 */
+		private RegionCounts(long hits, long misses, long puts) {
+			this.hits = hits;
+			this.misses = misses;
+			this.puts = puts;
+		}
+
+		/**
+		 * Subtracts earlier counts.
+		 *
+		 * @param earlier the earlier counts, may be null
+		 * @return the difference
+		 */
+		private RegionCounts minus(RegionCounts earlier) {
+			if (earlier == null) {
+				return this;
+			}
+			return new RegionCounts(hits - earlier.hits, misses - earlier.misses, puts - earlier.puts);
+		}
+
+		/**
+		 * Gets the hits.
+		 *
+		 * @return the hits
+		 */
+		public long getHits() {
+			return hits;
+		}
+
+		/**
+		 * Gets the misses.
+		 *
+		 * @return the misses
+		 */
+		public long getMisses() {
+			return misses;
+		}
+
+		/**
+		 * Gets the puts.
+		 *
+		 * @return the puts
+		 */
+		public long getPuts() {
+			return puts;
+		}
+
+		/**
+		 * Gets the hit ratio.
+		 *
+		 * @return hits over lookups, 0 without lookups
+		 */
+		public double getHitRatio() {
+			return ratio(hits, misses);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "hits=" + hits + " misses=" + misses + " puts=" + puts;
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package nw.orm.core.pool;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.Environment;
+
+/**
+ * Reads the connection counts of a c3p0 PooledDataSource by reflection, so nworm does not depend on c3p0.
+ *
+ * @author Ogwara O. Rowland
+ */
+class C3p0PoolGauge implements PoolGauge {
+
+	/** The c3p0 default of the maximum pool size. */
+	private static final int C3P0_DEFAULT_MAX_SIZE = 15;
+
+	/** The pooled data source. */
+	private final DataSource dataSource;
+
+	/** Reads the idle connections. */
+	private final Method idle;
+
+	/** Reads the connections in the pool. */
+	private final Method total;
+
+	/** The maximum pool size. */
+	private final int max;
+
+	/**
+	 * Instantiates a new gauge.
+	 *
+	 * @param dataSource the pooled data source
+	 * @param idle reads the idle connections
+	 * @param total reads the connections in the pool
+	 * @param max the maximum pool size
+	 */
+	private C3p0PoolGauge(DataSource dataSource, Method idle, Method total, int max) {
+		this.dataSource = dataSource;
+		this.idle = idle;
+		this.total = total;
+		this.max = max;
+	}
+
+	/**
+	 * Creates a gauge of a data source.
+	 *
+	 * @param dataSource the data source
+	 * @param configurationValues the settings, for the maximum pool size
+	 * @return the gauge, null if the data source is not a c3p0 pool
+	 */
+	@SuppressWarnings("rawtypes")
+	static PoolGauge of(DataSource dataSource, Map configurationValues) {
+		if (dataSource == null) {
+			return null;
+		}
+		try {
+			Method idle = dataSource.getClass().getMethod("getNumIdleConnectionsDefaultUser");
+			Method total = dataSource.getClass().getMethod("getNumConnectionsDefaultUser");
+			Object size = configurationValues.get(Environment.C3P0_MAX_SIZE);
+			int max = C3P0_DEFAULT_MAX_SIZE;
+			if (size != null) {
+				try {
+					max = Integer.parseInt(size.toString().trim());
+				} catch (NumberFormatException e) {
+					max = -1;
+				}
+			}
+			return new C3p0PoolGauge(dataSource, idle, total, max);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a count.
+	 *
+	 * @param method the method reading the count
+	 * @return the count, -1 if it can not be read
+	 */
+	private int read(Method method) {
+		try {
+			return ((Number) method.invoke(dataSource)).intValue();
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolGauge#getIdleConnections()
+	 */
+	@Override
+	public int getIdleConnections() {
+		return read(idle);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolGauge#getTotalConnections()
+	 */
+	@Override
+	public int getTotalConnections() {
+		return read(total);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolGauge#getMaxConnections()
+	 */
+	@Override
+	public int getMaxConnections() {
+		return max;
+	}
+
+}
@@ -0,0 +1,212 @@
+package nw.orm.core.pool;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.JMX;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+import org.hibernate.HibernateException;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPoolMBean;
+
+import nw.commons.NeemClazz;
+
+/**
+ * A HikariCP connection provider, chosen with nworm.pool=hikari. Connection settings are read from the usual
+ * hibernate.connection.* properties, any hibernate.hikari.&lt;property&gt; is passed on to {@link HikariConfig}, for
+ * instance hibernate.hikari.maximumPoolSize or hibernate.hikari.connectionTimeout. HikariCP (HikariCP-java6) is an
+ * optional dependency of nworm and must be on the class path.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class HikariConnectionProvider extends NeemClazz implements ConnectionProvider, Configurable, Stoppable, PoolGauge {
+
+	/** The serial version UID. */
+	private static final long serialVersionUID = 4460761590522646108L;
+
+	/** Prefix of the properties passed on to HikariCP. */
+	public static final String HIKARI_PREFIX = "hibernate.hikari.";
+
+	/** Numbers the pools without a name. */
+	private static final AtomicInteger POOLS = new AtomicInteger();
+
+	/** The pool. */
+	private HikariDataSource dataSource;
+
+	/** The pool MBean, null if HikariCP could not register it. */
+	private HikariPoolMBean pool;
+
+	/** The maximum pool size. */
+	private int maxSize;
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.Configurable#configure(java.util.Map)
+	 */
+	@SuppressWarnings("rawtypes")
+	@Override
+	public void configure(Map configurationValues) {
+		Properties props = new Properties();
+		for (Object o : configurationValues.entrySet()) {
+			Map.Entry e = (Map.Entry) o;
+			String key = e.getKey().toString();
+			if (key.startsWith(HIKARI_PREFIX) && e.getValue() != null) {
+				props.setProperty(key.substring(HIKARI_PREFIX.length()), e.getValue().toString());
+			}
+		}
+		HikariConfig config = new HikariConfig(props);
+		if (config.getJdbcUrl() == null && config.getDataSourceClassName() == null) {
+			config.setJdbcUrl(value(configurationValues, Environment.URL));
+		}
+		String driver = value(configurationValues, Environment.DRIVER);
+		if (driver != null && config.getDriverClassName() == null && config.getDataSourceClassName() == null) {
+			config.setDriverClassName(driver);
+		}
+		String user = value(configurationValues, Environment.USER);
+		if (user != null && config.getUsername() == null) {
+			config.setUsername(user);
+		}
+		String password = value(configurationValues, Environment.PASS);
+		if (password != null && config.getPassword() == null) {
+			config.setPassword(password);
+		}
+		String poolSize = value(configurationValues, Environment.POOL_SIZE);
+		if (poolSize != null && !props.containsKey("maximumPoolSize")) {
+			config.setMaximumPoolSize(Integer.parseInt(poolSize.trim()));
+		}
+		if (!props.containsKey("autoCommit")) {
+			config.setAutoCommit(Boolean.parseBoolean(value(configurationValues, Environment.AUTOCOMMIT)));
+		}
+		if (config.getPoolName() == null) {
+			config.setPoolName("nworm-hikari-" + POOLS.incrementAndGet());
+		}
+		config.setRegisterMbeans(true);
+		try {
+			dataSource = new HikariDataSource(config);
+		} catch (RuntimeException e) {
+			throw new HibernateException("Unable to start the HikariCP pool", e);
+		}
+		maxSize = config.getMaximumPoolSize();
+		try {
+			ObjectName on = new ObjectName("com.zaxxer.hikari:type=Pool (" + config.getPoolName() + ")");
+			if (ManagementFactory.getPlatformMBeanServer().isRegistered(on)) {
+				// HikariCP 2.3 registers a standard MBean, HikariPoolMXBean only exists from 2.4 on
+				pool = JMX.newMBeanProxy(ManagementFactory.getPlatformMBeanServer(), on, HikariPoolMBean.class);
+			}
+		} catch (JMException e) {
+			logger.warn("HikariCP pool MBean unavailable, idle and total connections are not reported", e);
+		}
+	}
+
+	/**
+	 * Reads a setting.
+	 *
+	 * @param configurationValues the settings
+	 * @param key the key
+	 * @return the value, null if not set
+	 */
+	@SuppressWarnings("rawtypes")
+	private static String value(Map configurationValues, String key) {
+		Object value = configurationValues.get(key);
+		return value == null ? null : value.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.engine.jdbc.connections.spi.ConnectionProvider#getConnection()
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		return dataSource.getConnection();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.engine.jdbc.connections.spi.ConnectionProvider#closeConnection(java.sql.Connection)
+	 */
+	@Override
+	public void closeConnection(Connection conn) throws SQLException {
+		conn.close();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.engine.jdbc.connections.spi.ConnectionProvider#supportsAggressiveRelease()
+	 */
+	@Override
+	public boolean supportsAggressiveRelease() {
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.Wrapped#isUnwrappableAs(java.lang.Class)
+	 */
+	@SuppressWarnings("rawtypes")
+	@Override
+	public boolean isUnwrappableAs(Class unwrapType) {
+		return ConnectionProvider.class.equals(unwrapType) || HikariConnectionProvider.class.isAssignableFrom(unwrapType)
+				|| DataSource.class.isAssignableFrom(unwrapType) && unwrapType.isAssignableFrom(HikariDataSource.class);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.Wrapped#unwrap(java.lang.Class)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T unwrap(Class<T> unwrapType) {
+		if (ConnectionProvider.class.equals(unwrapType) || HikariConnectionProvider.class.isAssignableFrom(unwrapType)) {
+			return (T) this;
+		}
+		if (isUnwrappableAs(unwrapType)) {
+			return (T) dataSource;
+		}
+		throw new HibernateException("Unable to unwrap HikariConnectionProvider as " + unwrapType.getName());
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.Stoppable#stop()
+	 */
+	@Override
+	public void stop() {
+		pool = null;
+		if (dataSource != null) {
+			dataSource.close();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolGauge#getIdleConnections()
+	 */
+	@Override
+	public int getIdleConnections() {
+		HikariPoolMBean p = pool;
+		return p == null ? -1 : p.getIdleConnections();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolGauge#getTotalConnections()
+	 */
+	@Override
+	public int getTotalConnections() {
+		HikariPoolMBean p = pool;
+		return p == null ? -1 : p.getTotalConnections();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolGauge#getMaxConnections()
+	 */
+	@Override
+	public int getMaxConnections() {
+		return maxSize;
+	}
+
+}
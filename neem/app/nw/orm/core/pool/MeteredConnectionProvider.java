@@ -0,0 +1,188 @@
+package nw.orm.core.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.HibernateException;
+import org.hibernate.boot.registry.classloading.spi.ClassLoaderService;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.ServiceRegistryAwareService;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hibernate.service.spi.Startable;
+import org.hibernate.service.spi.Stoppable;
+
+/**
+ * A connection provider recording {@link PoolMetrics} around another provider, named by the
+ * {@value #DELEGATE} property. The session factory puts it in front of the pool chosen with nworm.pool, see
+ * {@link nw.orm.core.session.HibernateSessionFactory#NWORM_POOL}.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class MeteredConnectionProvider implements ConnectionProvider, Configurable, ServiceRegistryAwareService, Stoppable {
+
+	/** The serial version UID. */
+	private static final long serialVersionUID = -3630522853458140425L;
+
+	/** Property naming the class of the provider doing the pooling. */
+	public static final String DELEGATE = "nworm.pool.provider";
+
+	/** The metrics. */
+	private final PoolMetrics metrics = new PoolMetrics();
+
+	/** The provider doing the pooling. */
+	private ConnectionProvider delegate;
+
+	/** The service registry, injected before configuration. */
+	private ServiceRegistryImplementor serviceRegistry;
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.ServiceRegistryAwareService#injectServices(org.hibernate.service.spi.ServiceRegistryImplementor)
+	 */
+	@Override
+	public void injectServices(ServiceRegistryImplementor serviceRegistry) {
+		this.serviceRegistry = serviceRegistry;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.Configurable#configure(java.util.Map)
+	 */
+	@SuppressWarnings("rawtypes")
+	@Override
+	public void configure(Map configurationValues) {
+		Object name = configurationValues.get(DELEGATE);
+		if (name == null) {
+			throw new HibernateException(DELEGATE + " is not set");
+		}
+		try {
+			Class<?> clazz = serviceRegistry == null ? Class.forName(name.toString())
+					: serviceRegistry.getService(ClassLoaderService.class).classForName(name.toString());
+			delegate = (ConnectionProvider) clazz.newInstance();
+		} catch (Exception e) {
+			throw new HibernateException("Unable to instantiate connection provider " + name, e);
+		}
+		if (delegate instanceof ServiceRegistryAwareService) {
+			((ServiceRegistryAwareService) delegate).injectServices(serviceRegistry);
+		}
+		if (delegate instanceof Configurable) {
+			((Configurable) delegate).configure(configurationValues);
+		}
+		if (delegate instanceof Startable) {
+			((Startable) delegate).start();
+		}
+		metrics.setProvider(delegate.getClass().getName());
+		metrics.setGauge(gauge(configurationValues));
+	}
+
+	/**
+	 * Finds a gauge of the delegate pool.
+	 *
+	 * @param configurationValues the settings
+	 * @return the gauge, null if the pool offers none
+	 */
+	@SuppressWarnings("rawtypes")
+	private PoolGauge gauge(Map configurationValues) {
+		if (delegate instanceof PoolGauge) {
+			return (PoolGauge) delegate;
+		}
+		if (delegate.isUnwrappableAs(DataSource.class)) {
+			return C3p0PoolGauge.of(delegate.unwrap(DataSource.class), configurationValues);
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.engine.jdbc.connections.spi.ConnectionProvider#getConnection()
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		long start = metrics.acquireStarted();
+		Connection connection;
+		try {
+			connection = delegate.getConnection();
+		} catch (SQLException e) {
+			metrics.acquireFailed(start, e);
+			throw e;
+		} catch (RuntimeException e) {
+			metrics.acquireFailed(start, e);
+			throw e;
+		}
+		metrics.acquired(start);
+		return connection;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.engine.jdbc.connections.spi.ConnectionProvider#closeConnection(java.sql.Connection)
+	 */
+	@Override
+	public void closeConnection(Connection conn) throws SQLException {
+		try {
+			delegate.closeConnection(conn);
+		} finally {
+			metrics.released();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.engine.jdbc.connections.spi.ConnectionProvider#supportsAggressiveRelease()
+	 */
+	@Override
+	public boolean supportsAggressiveRelease() {
+		return delegate.supportsAggressiveRelease();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.Wrapped#isUnwrappableAs(java.lang.Class)
+	 */
+	@SuppressWarnings("rawtypes")
+	@Override
+	public boolean isUnwrappableAs(Class unwrapType) {
+		return ConnectionProvider.class.equals(unwrapType) || MeteredConnectionProvider.class.isAssignableFrom(unwrapType)
+				|| delegate.isUnwrappableAs(unwrapType);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.Wrapped#unwrap(java.lang.Class)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T unwrap(Class<T> unwrapType) {
+		if (ConnectionProvider.class.equals(unwrapType) || MeteredConnectionProvider.class.isAssignableFrom(unwrapType)) {
+			return (T) this;
+		}
+		return delegate.unwrap(unwrapType);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.service.spi.Stoppable#stop()
+	 */
+	@Override
+	public void stop() {
+		metrics.setGauge(null);
+		if (delegate instanceof Stoppable) {
+			((Stoppable) delegate).stop();
+		}
+	}
+
+	/**
+	 * Gets the metrics.
+	 *
+	 * @return the metrics
+	 */
+	public PoolMetrics getPoolMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the provider doing the pooling.
+	 *
+	 * @return the provider, null until configured
+	 */
+	public ConnectionProvider getDelegate() {
+		return delegate;
+	}
+
+}
@@ -0,0 +1,31 @@
+package nw.orm.core.pool;
+
+/**
+ * Live connection counts read from a connection pool.
+ *
+ * @author Ogwara O. Rowland
+ */
+public interface PoolGauge {
+
+	/**
+	 * Gets the connections sitting idle in the pool.
+	 *
+	 * @return the connections, -1 if unknown
+	 */
+	public int getIdleConnections();
+
+	/**
+	 * Gets the connections held by the pool, in use or idle.
+	 *
+	 * @return the connections, -1 if unknown
+	 */
+	public int getTotalConnections();
+
+	/**
+	 * Gets the most connections the pool may hold.
+	 *
+	 * @return the connections, -1 if unknown
+	 */
+	public int getMaxConnections();
+
+}
@@ -0,0 +1,271 @@
+package nw.orm.core.pool;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nw.orm.core.metrics.LatencyHistogram;
+
+/**
+ * Saturation metrics of a connection pool: connections in use, idle and waited for, acquisition times and failures.
+ * Counts are kept by {@link MeteredConnectionProvider} around every acquisition, so they hold whatever the pool,
+ * idle and total connections are read from the pool through a {@link PoolGauge} when it offers one.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class PoolMetrics implements PoolMetricsMBean {
+
+	/** Microseconds in a millisecond. */
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	/** The connection provider behind the pool. */
+	private volatile String provider = "";
+
+	/** Reads the live connection counts of the pool, null if it offers none. */
+	private volatile PoolGauge gauge;
+
+	/** The connections handed out and not yet returned. */
+	private final AtomicInteger active = new AtomicInteger();
+
+	/** The threads waiting for a connection. */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/** The connections acquired. */
+	private final AtomicLong acquired = new AtomicLong();
+
+	/** The acquisitions that timed out. */
+	private final AtomicLong timeouts = new AtomicLong();
+
+	/** The acquisitions that failed. */
+	private final AtomicLong failures = new AtomicLong();
+
+	/** The acquisition times in microseconds, of failed acquisitions too. */
+	private final LatencyHistogram acquireTimes = new LatencyHistogram();
+
+	/**
+	 * Counts a thread starting to wait for a connection.
+	 *
+	 * @return the start time to pass to {@link #acquired(long)} or {@link #acquireFailed(long, Throwable)}
+	 */
+	public long acquireStarted() {
+		pending.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Counts an acquired connection.
+	 *
+	 * @param start the time returned by {@link #acquireStarted()}
+	 */
+	public void acquired(long start) {
+		acquireTimes.record((System.nanoTime() - start) / 1000L);
+		pending.decrementAndGet();
+		active.incrementAndGet();
+		acquired.incrementAndGet();
+	}
+
+	/**
+	 * Counts a failed acquisition.
+	 *
+	 * @param start the time returned by {@link #acquireStarted()}
+	 * @param failure the failure
+	 */
+	public void acquireFailed(long start, Throwable failure) {
+		acquireTimes.record((System.nanoTime() - start) / 1000L);
+		pending.decrementAndGet();
+		failures.incrementAndGet();
+		if (isTimeout(failure)) {
+			timeouts.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts a returned connection.
+	 */
+	public void released() {
+		active.decrementAndGet();
+	}
+
+	/**
+	 * Tells whether a failure is a pool timeout. Pools report timeouts differently: HikariCP throws an
+	 * {@link SQLTimeoutException}, c3p0 wraps its own TimeoutException.
+	 *
+	 * @param failure the failure
+	 * @return true if the failure or one of its causes is a timeout
+	 */
+	static boolean isTimeout(Throwable failure) {
+		for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+			if (t instanceof SQLTimeoutException || t.getClass().getSimpleName().endsWith("TimeoutException")) {
+				return true;
+			}
+			String message = t.getMessage();
+			if (message != null && (message.contains("timed out") || message.contains("Timeout after"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the connection provider behind the pool.
+	 *
+	 * @param provider the provider class name
+	 */
+	public void setProvider(String provider) {
+		this.provider = provider;
+	}
+
+	/**
+	 * Sets the gauge reading the live connection counts of the pool.
+	 *
+	 * @param gauge the gauge, null if the pool offers none
+	 */
+	public void setGauge(PoolGauge gauge) {
+		this.gauge = gauge;
+	}
+
+	/**
+	 * Gets the gauge reading the live connection counts of the pool.
+	 *
+	 * @return the gauge, null if the pool offers none
+	 */
+	public PoolGauge getGauge() {
+		return gauge;
+	}
+
+	/**
+	 * Gets the acquisition times.
+	 *
+	 * @return the histogram, in microseconds
+	 */
+	public LatencyHistogram getAcquireTimes() {
+		return acquireTimes;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getProvider()
+	 */
+	@Override
+	public String getProvider() {
+		return provider;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getActiveConnections()
+	 */
+	@Override
+	public int getActiveConnections() {
+		return active.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getIdleConnections()
+	 */
+	@Override
+	public int getIdleConnections() {
+		PoolGauge g = gauge;
+		return g == null ? -1 : g.getIdleConnections();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getTotalConnections()
+	 */
+	@Override
+	public int getTotalConnections() {
+		PoolGauge g = gauge;
+		return g == null ? -1 : g.getTotalConnections();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getMaxConnections()
+	 */
+	@Override
+	public int getMaxConnections() {
+		PoolGauge g = gauge;
+		return g == null ? -1 : g.getMaxConnections();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getPendingConnections()
+	 */
+	@Override
+	public int getPendingConnections() {
+		return pending.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getAcquired()
+	 */
+	@Override
+	public long getAcquired() {
+		return acquired.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getTimeouts()
+	 */
+	@Override
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getFailures()
+	 */
+	@Override
+	public long getFailures() {
+		return failures.get();
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getAcquireMeanMillis()
+	 */
+	@Override
+	public double getAcquireMeanMillis() {
+		return acquireTimes.getMean() / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getAcquireP50Millis()
+	 */
+	@Override
+	public double getAcquireP50Millis() {
+		return acquireTimes.getValueAt(0.50) / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getAcquireP95Millis()
+	 */
+	@Override
+	public double getAcquireP95Millis() {
+		return acquireTimes.getValueAt(0.95) / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getAcquireP99Millis()
+	 */
+	@Override
+	public double getAcquireP99Millis() {
+		return acquireTimes.getValueAt(0.99) / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#getAcquireMaxMillis()
+	 */
+	@Override
+	public double getAcquireMaxMillis() {
+		return acquireTimes.getMax() / MICROS_PER_MILLI;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.pool.PoolMetricsMBean#reset()
+	 */
+	@Override
+	public void reset() {
+		acquired.set(0);
+		timeouts.set(0);
+		failures.set(0);
+		acquireTimes.reset();
+	}
+
+}
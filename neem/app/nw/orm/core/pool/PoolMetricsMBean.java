@@ -0,0 +1,113 @@
+package nw.orm.core.pool;
+
+/**
+ * JMX view of the connection pool of one nworm configuration.
+ *
+ * @author Ogwara O. Rowland
+ */
+public interface PoolMetricsMBean {
+
+	/**
+	 * Gets the connection provider behind the pool.
+	 *
+	 * @return the provider class name
+	 */
+	public String getProvider();
+
+	/**
+	 * Gets the connections handed out and not yet returned.
+	 *
+	 * @return the connections
+	 */
+	public int getActiveConnections();
+
+	/**
+	 * Gets the connections sitting idle in the pool.
+	 *
+	 * @return the connections, -1 if the pool does not tell
+	 */
+	public int getIdleConnections();
+
+	/**
+	 * Gets the connections held by the pool, in use or idle.
+	 *
+	 * @return the connections, -1 if the pool does not tell
+	 */
+	public int getTotalConnections();
+
+	/**
+	 * Gets the most connections the pool may hold.
+	 *
+	 * @return the connections, -1 if the pool does not tell
+	 */
+	public int getMaxConnections();
+
+	/**
+	 * Gets the threads waiting for a connection.
+	 *
+	 * @return the threads
+	 */
+	public int getPendingConnections();
+
+	/**
+	 * Gets the connections acquired.
+	 *
+	 * @return the count
+	 */
+	public long getAcquired();
+
+	/**
+	 * Gets the acquisitions that timed out waiting for a connection.
+	 *
+	 * @return the count
+	 */
+	public long getTimeouts();
+
+	/**
+	 * Gets the acquisitions that failed, timeouts included.
+	 *
+	 * @return the count
+	 */
+	public long getFailures();
+
+	/**
+	 * Gets the mean time spent acquiring a connection.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public double getAcquireMeanMillis();
+
+	/**
+	 * Gets the 50th percentile of the time spent acquiring a connection.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public double getAcquireP50Millis();
+
+	/**
+	 * Gets the 95th percentile of the time spent acquiring a connection.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public double getAcquireP95Millis();
+
+	/**
+	 * Gets the 99th percentile of the time spent acquiring a connection.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public double getAcquireP99Millis();
+
+	/**
+	 * Gets the longest time spent acquiring a connection.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public double getAcquireMaxMillis();
+
+	/**
+	 * Resets the counters and the acquisition times, the live connection counts are kept.
+	 */
+	public void reset();
+
+}
@@ -0,0 +1,588 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hibernate.HibernateException;
+import org.hibernate.PropertyNotFoundException;
+import org.hibernate.transform.ResultTransformer;
+
+/**
+ * Transforms aliased tuples into instances of a result class, the nworm replacement for
+ * {@link org.hibernate.transform.Transformers#aliasToBean(Class)}. Instead of resolving setters for every query,
+ * each transformer resolves a binding once per alias set and keeps it for the life of the class, so large result
+ * sets only pay for the constructor and setter calls.<br>
+ * Aliases are bound to setters, or fields when there is no setter, matching the property name exactly first,
+ * then ignoring case and underscores so upper cased SQL columns such as FULL_NAME reach fullName. Classes without
+ * a no argument constructor, or whose properties do not cover the aliases, are built through a constructor taking
+ * one argument per alias, in alias order.<br>
+ * Values are coerced to the property type: any number to any numeric type, numbers to boolean, strings or ordinals
+ * to enums and characters to strings. Nulls leave primitive properties at their default.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class BeanResultTransformer implements ResultTransformer {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 4310526618833707349L;
+
+	/** Transformers by result class. */
+	private static final ConcurrentMap<Class<?>, BeanResultTransformer> TRANSFORMERS = new ConcurrentHashMap<Class<?>, BeanResultTransformer>();
+
+	/** The result class. */
+	private final Class<?> resultClass;
+
+	/** Bindings by alias set. */
+	private transient ConcurrentMap<List<String>, Binding> bindings = new ConcurrentHashMap<List<String>, Binding>();
+
+	/** The last binding used, queries hand over the same alias array for every row. */
+	private transient volatile Binding last;
+
+	/**
+	 * Instantiates a new bean result transformer.
+	 *
+	 * @param resultClass the result class
+	 */
+	private BeanResultTransformer(Class<?> resultClass) {
+		if (resultClass == null) {
+			throw new IllegalArgumentException("Result class is required");
+		}
+		this.resultClass = resultClass;
+	}
+
+	/**
+	 * Gets the shared transformer of a result class.
+	 *
+	 * @param resultClass the result class
+	 * @return the transformer
+	 */
+	public static BeanResultTransformer of(Class<?> resultClass) {
+		BeanResultTransformer transformer = TRANSFORMERS.get(resultClass);
+		if (transformer == null) {
+			transformer = new BeanResultTransformer(resultClass);
+			BeanResultTransformer raced = TRANSFORMERS.putIfAbsent(resultClass, transformer);
+			if (raced != null) {
+				transformer = raced;
+			}
+		}
+		return transformer;
+	}
+
+	/**
+	 * Gets the result class.
+	 *
+	 * @return the result class
+	 */
+	public Class<?> getResultClass() {
+		return resultClass;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.transform.ResultTransformer#transformTuple(java.lang.Object[], java.lang.String[])
+	 */
+	@Override
+	public Object transformTuple(Object[] tuple, String[] aliases) {
+		Binding binding = last;
+		if (binding == null || !binding.matches(aliases)) {
+			binding = binding(tuple, aliases);
+			last = binding;
+		}
+		return binding.create(tuple);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.hibernate.transform.ResultTransformer#transformList(java.util.List)
+	 */
+	@Override
+	@SuppressWarnings("rawtypes")
+	public List transformList(List collection) {
+		return collection;
+	}
+
+	/**
+	 * Gets the binding of an alias set, resolving it on first use.
+	 *
+	 * @param tuple the first tuple, used to pick between constructors of the same arity
+	 * @param aliases the aliases
+	 * @return the binding
+	 */
+	private Binding binding(Object[] tuple, String[] aliases) {
+		List<String> key = Arrays.asList(aliases.clone());
+		Binding binding = bindings.get(key);
+		if (binding == null) {
+			binding = resolve(tuple, key.toArray(new String[key.size()]));
+			Binding raced = bindings.putIfAbsent(key, binding);
+			if (raced != null) {
+				binding = raced;
+			}
+		}
+		return binding;
+	}
+
+	/**
+	 * Resolves the binding of an alias set.
+	 *
+	 * @param tuple the first tuple
+	 * @param aliases the aliases
+	 * @return the binding
+	 */
+	private Binding resolve(Object[] tuple, String[] aliases) {
+		Constructor<?> noArg = null;
+		try {
+			noArg = resultClass.getDeclaredConstructor();
+		} catch (NoSuchMethodException e) {
+			// constructor binding only
+		}
+		String unbound = null;
+		if (noArg != null) {
+			Property[] properties = new Property[aliases.length];
+			for (int i = 0; i < aliases.length && unbound == null; i++) {
+				if (aliases[i] != null) {
+					properties[i] = property(aliases[i]);
+					if (properties[i] == null) {
+						unbound = aliases[i];
+					}
+				}
+			}
+			if (unbound == null) {
+				return new SetterBinding(aliases, accessible(noArg), properties);
+			}
+		}
+		Constructor<?> ctor = constructor(tuple);
+		if (ctor != null) {
+			return new ConstructorBinding(aliases, accessible(ctor));
+		}
+		if (unbound != null) {
+			throw new PropertyNotFoundException("Could not find a setter or field for " + unbound + " on " + resultClass.getName());
+		}
+		throw new HibernateException("No constructor of " + resultClass.getName() + " takes " + aliases.length + " arguments");
+	}
+
+	/**
+	 * Finds the setter, else the field, of a property.
+	 *
+	 * @param alias the alias
+	 * @return the property, null if none matches
+	 */
+	private Property property(String alias) {
+		String exact = "set" + Character.toUpperCase(alias.charAt(0)) + alias.substring(1);
+		String loose = normalize(alias);
+		Method looseSetter = null;
+		for (Class<?> c = resultClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Method m : c.getDeclaredMethods()) {
+				if (m.getParameterTypes().length != 1 || Modifier.isStatic(m.getModifiers()) || !m.getName().startsWith("set")) {
+					continue;
+				}
+				if (m.getName().equals(exact)) {
+					return new Property(accessible(m), null, m.getParameterTypes()[0]);
+				}
+				if (looseSetter == null && normalize(m.getName().substring(3)).equals(loose)) {
+					looseSetter = m;
+				}
+			}
+		}
+		if (looseSetter != null) {
+			return new Property(accessible(looseSetter), null, looseSetter.getParameterTypes()[0]);
+		}
+		Field looseField = null;
+		for (Class<?> c = resultClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field f : c.getDeclaredFields()) {
+				if (Modifier.isStatic(f.getModifiers()) || Modifier.isFinal(f.getModifiers())) {
+					continue;
+				}
+				if (f.getName().equals(alias)) {
+					return new Property(null, accessible(f), f.getType());
+				}
+				if (looseField == null && normalize(f.getName()).equals(loose)) {
+					looseField = f;
+				}
+			}
+		}
+		return looseField == null ? null : new Property(null, accessible(looseField), looseField.getType());
+	}
+
+	/**
+	 * Finds a constructor taking the values of a tuple in order.
+	 *
+	 * @param tuple the tuple
+	 * @return the constructor, null if none fits
+	 */
+	private Constructor<?> constructor(Object[] tuple) {
+		Constructor<?> fallback = null;
+		for (Constructor<?> c : resultClass.getDeclaredConstructors()) {
+			Class<?>[] types = c.getParameterTypes();
+			if (types.length != tuple.length) {
+				continue;
+			}
+			boolean exact = true;
+			boolean coercible = true;
+			for (int i = 0; i < types.length && coercible; i++) {
+				Object value = tuple[i];
+				if (value != null && !wrap(types[i]).isInstance(value)) {
+					exact = false;
+					coercible = isCoercible(value.getClass(), wrap(types[i]));
+				}
+			}
+			if (exact) {
+				return c;
+			}
+			if (coercible && fallback == null) {
+				fallback = c;
+			}
+		}
+		return fallback;
+	}
+
+	/**
+	 * Coerces a value to a type.
+	 *
+	 * @param value the value
+	 * @param type the type
+	 * @return the coerced value, null stays null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static Object coerce(Object value, Class<?> type) {
+		Class<?> target = wrap(type);
+		if (value == null || target.isInstance(value)) {
+			return value;
+		}
+		if (value instanceof Number) {
+			Number n = (Number) value;
+			if (target == Long.class) {
+				return Long.valueOf(n.longValue());
+			} else if (target == Integer.class) {
+				return Integer.valueOf(n.intValue());
+			} else if (target == Double.class) {
+				return Double.valueOf(n.doubleValue());
+			} else if (target == Float.class) {
+				return Float.valueOf(n.floatValue());
+			} else if (target == Short.class) {
+				return Short.valueOf(n.shortValue());
+			} else if (target == Byte.class) {
+				return Byte.valueOf(n.byteValue());
+			} else if (target == BigDecimal.class) {
+				return n instanceof BigInteger ? new BigDecimal((BigInteger) n) : new BigDecimal(n.toString());
+			} else if (target == BigInteger.class) {
+				return n instanceof BigDecimal ? ((BigDecimal) n).toBigInteger() : BigInteger.valueOf(n.longValue());
+			} else if (target == Boolean.class) {
+				return Boolean.valueOf(n.intValue() != 0);
+			} else if (target.isEnum()) {
+				return target.getEnumConstants()[n.intValue()];
+			}
+		} else if (value instanceof String && target.isEnum()) {
+			return Enum.valueOf((Class<Enum>) target, (String) value);
+		} else if (value instanceof Character && target == String.class) {
+			return value.toString();
+		} else if (value instanceof String && target == Character.class && ((String) value).length() == 1) {
+			return Character.valueOf(((String) value).charAt(0));
+		}
+		throw new HibernateException("Cannot convert " + value.getClass().getName() + " to " + type.getName());
+	}
+
+	/**
+	 * Checks if values of a type can be coerced to another.
+	 *
+	 * @param from the value type
+	 * @param to the wrapped target type
+	 * @return true, if coercible
+	 */
+	private static boolean isCoercible(Class<?> from, Class<?> to) {
+		if (Number.class.isAssignableFrom(from)) {
+			return Number.class.isAssignableFrom(to) || to == Boolean.class || to.isEnum();
+		}
+		return (from == String.class && (to.isEnum() || to == Character.class)) || (from == Character.class && to == String.class);
+	}
+
+	/**
+	 * Gets the wrapper of a primitive type.
+	 *
+	 * @param type the type
+	 * @return the wrapper, or the type itself
+	 */
+	private static Class<?> wrap(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		if (type == int.class) {
+			return Integer.class;
+		} else if (type == long.class) {
+			return Long.class;
+		} else if (type == double.class) {
+			return Double.class;
+		} else if (type == boolean.class) {
+			return Boolean.class;
+		} else if (type == float.class) {
+			return Float.class;
+		} else if (type == short.class) {
+			return Short.class;
+		} else if (type == byte.class) {
+			return Byte.class;
+		}
+		return Character.class;
+	}
+
+	/**
+	 * Gets the default of a type, zero for primitives.
+	 *
+	 * @param type the type
+	 * @return the default value
+	 */
+	private static Object defaultValue(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return null;
+		}
+		if (type == boolean.class) {
+			return Boolean.FALSE;
+		} else if (type == char.class) {
+			return Character.valueOf('\0');
+		}
+		return coerce(Integer.valueOf(0), type);
+	}
+
+	/**
+	 * Normalizes a name for loose matching, dropping underscores and case.
+	 *
+	 * @param name the name
+	 * @return the normalized name
+	 */
+	private static String normalize(String name) {
+		return name.replace("_", "").toLowerCase();
+	}
+
+	/**
+	 * Makes a member accessible.
+	 *
+	 * @param <A> the member type
+	 * @param member the member
+	 * @return the member
+	 */
+	private static <A extends AccessibleObject> A accessible(A member) {
+		member.setAccessible(true);
+		return member;
+	}
+
+	/**
+	 * Replaces a deserialized transformer with the shared one.
+	 *
+	 * @return the shared transformer
+	 */
+	private Object readResolve() {
+		return of(resultClass);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return resultClass.hashCode();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof BeanResultTransformer && ((BeanResultTransformer) obj).resultClass == resultClass;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "BeanResultTransformer[" + resultClass.getName() + "]";
+	}
+
+	/**
+	 * A resolved way of building results for one alias set.
+	 */
+	private abstract static class Binding {
+
+		/** The aliases. */
+		private final String[] aliases;
+
+		/**
+		 * Instantiates a new binding.
+		 *
+		 * @param aliases the aliases
+		 */
+		Binding(String[] aliases) {
+			this.aliases = aliases;
+		}
+
+		/**
+		 * Checks if the binding was resolved for the specified aliases.
+		 *
+		 * @param other the aliases
+		 * @return true, if they match
+		 */
+		boolean matches(String[] other) {
+			return other == aliases || Arrays.equals(other, aliases);
+		}
+
+		/**
+		 * Builds the result of a tuple.
+		 *
+		 * @param tuple the tuple
+		 * @return the result
+		 */
+		abstract Object create(Object[] tuple);
+
+	}
+
+	/**
+	 * Builds results with the no argument constructor, then sets one property per alias.
+	 */
+	private static class SetterBinding extends Binding {
+
+		/** The constructor. */
+		private final Constructor<?> constructor;
+
+		/** The properties, in alias order, null for unaliased values. */
+		private final Property[] properties;
+
+		/**
+		 * Instantiates a new setter binding.
+		 *
+		 * @param aliases the aliases
+		 * @param constructor the constructor
+		 * @param properties the properties
+		 */
+		SetterBinding(String[] aliases, Constructor<?> constructor, Property[] properties) {
+			super(aliases);
+			this.constructor = constructor;
+			this.properties = properties;
+		}
+
+		/* (non-Javadoc)
+		 * @see nw.orm.core.query.BeanResultTransformer.Binding#create(java.lang.Object[])
+		 */
+		@Override
+		Object create(Object[] tuple) {
+			try {
+				Object out = constructor.newInstance();
+				for (int i = 0; i < properties.length; i++) {
+					Property p = properties[i];
+					if (p != null && !(tuple[i] == null && p.type.isPrimitive())) {
+						p.set(out, tuple[i]);
+					}
+				}
+				return out;
+			} catch (InstantiationException e) {
+				throw new HibernateException("Could not instantiate " + constructor.getDeclaringClass().getName(), e);
+			} catch (IllegalAccessException e) {
+				throw new HibernateException("Could not instantiate " + constructor.getDeclaringClass().getName(), e);
+			} catch (InvocationTargetException e) {
+				throw new HibernateException("Could not populate " + constructor.getDeclaringClass().getName(), e.getCause());
+			}
+		}
+
+	}
+
+	/**
+	 * Builds results with a constructor taking the tuple values in order.
+	 */
+	private static class ConstructorBinding extends Binding {
+
+		/** The constructor. */
+		private final Constructor<?> constructor;
+
+		/** The parameter types. */
+		private final Class<?>[] types;
+
+		/**
+		 * Instantiates a new constructor binding.
+		 *
+		 * @param aliases the aliases
+		 * @param constructor the constructor
+		 */
+		ConstructorBinding(String[] aliases, Constructor<?> constructor) {
+			super(aliases);
+			this.constructor = constructor;
+			this.types = constructor.getParameterTypes();
+		}
+
+		/* (non-Javadoc)
+		 * @see nw.orm.core.query.BeanResultTransformer.Binding#create(java.lang.Object[])
+		 */
+		@Override
+		Object create(Object[] tuple) {
+			Object[] args = new Object[types.length];
+			for (int i = 0; i < args.length; i++) {
+				args[i] = tuple[i] == null ? defaultValue(types[i]) : coerce(tuple[i], types[i]);
+			}
+			try {
+				return constructor.newInstance(args);
+			} catch (InstantiationException e) {
+				throw new HibernateException("Could not instantiate " + constructor.getDeclaringClass().getName(), e);
+			} catch (IllegalAccessException e) {
+				throw new HibernateException("Could not instantiate " + constructor.getDeclaringClass().getName(), e);
+			} catch (InvocationTargetException e) {
+				throw new HibernateException("Could not instantiate " + constructor.getDeclaringClass().getName(), e.getCause());
+			}
+		}
+
+	}
+
+	/**
+	 * A property written through its setter, or its field when there is no setter.
+	 */
+	private static class Property {
+
+		/** The setter. */
+		private final Method setter;
+
+		/** The field. */
+		private final Field field;
+
+		/** The property type. */
+		private final Class<?> type;
+
+		/**
+		 * Instantiates a new property.
+		 *
+		 * @param setter the setter
+		 * @param field the field
+		 * @param type the type
+		 */
+		Property(Method setter, Field field, Class<?> type) {
+			this.setter = setter;
+			this.field = field;
+			this.type = type;
+		}
+
+		/**
+		 * Sets the property.
+		 *
+		 * @param target the target
+		 * @param value the value
+		 * @throws IllegalAccessException the illegal access exception
+		 * @throws InvocationTargetException the invocation target exception
+		 */
+		void set(Object target, Object value) throws IllegalAccessException, InvocationTargetException {
+			Object v = coerce(value, type);
+			if (setter != null) {
+				setter.invoke(target, v);
+			} else {
+				field.set(target, v);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.type.Type;
+
+/**
+ * A hql query resolved once for repeated execution. The soft delete rewrite, parameter names and types and the
+ * mapped status of the result class are worked out when the query is compiled, executions only bind values.
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author Ogwara O. Rowland
+ * @param <T> the result type
+ * @see nw.orm.core.service.NwormHibernateService#compileHQL(Class, String)
+ */
+public class CompiledQuery<T> {
+
+	/** The result class. */
+	private final Class<T> resultClass;
+
+	/** The hql as registered. */
+	private final String sourceHql;
+
+	/** The hql to execute, including the soft delete restriction. */
+	private final String hql;
+
+	/** Whether the result class is mapped. */
+	private final boolean mapped;
+
+	/** Whether the soft delete parameter must be bound. */
+	private final boolean softDeletable;
+
+	/** Named parameters in order of first appearance, without the soft delete parameter. */
+	private final String[] parameterNames;
+
+	/** Expected parameter types, null where hibernate could not tell. */
+	private final Type[] parameterTypes;
+
+	/**
+	 * Instantiates a new compiled query.
+	 *
+	 * @param resultClass the result class
+	 * @param sourceHql the hql as registered
+	 * @param hql the hql to execute
+	 * @param mapped whether the result class is mapped
+	 * @param softDeletable whether the soft delete parameter must be bound
+	 * @param parameterNames the parameter names in order of appearance
+	 * @param parameterTypes the expected parameter types
+	 */
+	public CompiledQuery(Class<T> resultClass, String sourceHql, String hql, boolean mapped, boolean softDeletable,
+			String[] parameterNames, Type[] parameterTypes) {
+		this.resultClass = resultClass;
+		this.sourceHql = sourceHql;
+		this.hql = hql;
+		this.mapped = mapped;
+		this.softDeletable = softDeletable;
+		this.parameterNames = parameterNames.clone();
+		this.parameterTypes = parameterTypes.clone();
+	}
+
+	/**
+	 * Lists the named parameters of a hql string in order of first appearance, ignoring quoted literals.
+	 *
+	 * @param hql the hql
+	 * @return the parameter names
+	 */
+	public static List<String> scanParameterNames(String hql) {
+		Set<String> names = new LinkedHashSet<String>();
+		boolean quoted = false;
+		for (int i = 0; i < hql.length(); i++) {
+			char c = hql.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			} else if (!quoted && c == ':' && i + 1 < hql.length() && Character.isJavaIdentifierStart(hql.charAt(i + 1))) {
+				int end = i + 1;
+				while (end < hql.length() && Character.isJavaIdentifierPart(hql.charAt(end))) {
+					end += 1;
+				}
+				names.add(hql.substring(i + 1, end));
+				i = end - 1;
+			}
+		}
+		return new ArrayList<String>(names);
+	}
+
+	/**
+	 * Gets the result class.
+	 *
+	 * @return the result class
+	 */
+	public Class<T> getResultClass() {
+		return resultClass;
+	}
+
+	/**
+	 * Gets the hql as registered.
+	 *
+	 * @return the source hql
+	 */
+	public String getSourceHql() {
+		return sourceHql;
+	}
+
+	/**
+	 * Gets the hql to execute.
+	 *
+	 * @return the hql
+	 */
+	public String getHql() {
+		return hql;
+	}
+
+	/**
+	 * Checks if the result class is mapped.
+	 *
+	 * @return true, if is mapped
+	 */
+	public boolean isMapped() {
+		return mapped;
+	}
+
+	/**
+	 * Checks if the soft delete parameter must be bound.
+	 *
+	 * @return true, if is soft deletable
+	 */
+	public boolean isSoftDeletable() {
+		return softDeletable;
+	}
+
+	/**
+	 * Gets the number of parameters to bind.
+	 *
+	 * @return the parameter count
+	 */
+	public int getParameterCount() {
+		return parameterNames.length;
+	}
+
+	/**
+	 * Gets the parameter names in binding order.
+	 *
+	 * @return the parameter names
+	 */
+	public List<String> getParameterNames() {
+		return Collections.unmodifiableList(Arrays.asList(parameterNames));
+	}
+
+	/**
+	 * Gets the name of a parameter.
+	 *
+	 * @param index the binding position
+	 * @return the parameter name
+	 */
+	public String getParameterName(int index) {
+		return parameterNames[index];
+	}
+
+	/**
+	 * Gets the expected type of a parameter.
+	 *
+	 * @param index the binding position
+	 * @return the parameter type, null if unknown
+	 */
+	public Type getParameterType(int index) {
+		return parameterTypes[index];
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "{HQL: " + hql + ", PARAMS: " + Arrays.toString(parameterNames) + " }";
+	}
+
+}
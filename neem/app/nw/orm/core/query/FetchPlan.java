@@ -0,0 +1,238 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A named graph of associations loaded along with the entities of a criteria query, so they can be used once the
+ * session is closed without one query per entity. Plans are declared once per entity class and selected per query:
+ * <pre>
+ * FetchPlan.define(Country.class, "withCities").batch("regions.cities");
+ *
+ * QueryModifier qm = new QueryModifier(Country.class);
+ * qm.setFetchPlan("withCities");
+ * List&lt;Country&gt; countries = db.getListByCriteria(Country.class, qm);
+ * </pre>
+ * Each path is a dotted chain of association properties, its intermediate associations are loaded too. Every level of
+ * a path costs one IN list query per IN list chunk of owners, see {@link FetchPlanLoader}, so loading countries with
+ * their regions and cities takes three queries whatever the number of countries. Many-to-one and one-to-one chains
+ * marked {@link Strategy#JOIN} are joined into the query itself instead. Collections are never joined into the query
+ * as that would break pagination and repeat the owning rows.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class FetchPlan {
+
+	/**
+	 * How an association path is loaded.
+	 */
+	public enum Strategy {
+
+		/** Joined into the query when the path only has single valued associations, batch loaded otherwise. */
+		JOIN,
+
+		/** Loaded after the query with IN list queries over the loaded owners. */
+		BATCH
+	}
+
+	/** The declared plans, by entity class name and plan name. */
+	private static final ConcurrentMap<String, FetchPlan> PLANS = new ConcurrentHashMap<String, FetchPlan>();
+
+	/** The entity class. */
+	private final Class<?> entityClass;
+
+	/** The plan name. */
+	private final String name;
+
+	/** The association paths. */
+	private final List<FetchPath> paths = new ArrayList<FetchPath>();
+
+	/**
+	 * Instantiates a plan that is not declared, to be set on a single query.
+	 *
+	 * @param entityClass the entity class
+	 * @param name the plan name
+	 */
+	public FetchPlan(Class<?> entityClass, String name) {
+		this.entityClass = entityClass;
+		this.name = name;
+	}
+
+	/**
+	 * Declares a plan, replacing any plan of the same name on the same class. Paths are added to the returned plan.
+	 *
+	 * @param entityClass the entity class
+	 * @param name the plan name
+	 * @return the plan
+	 */
+	public static FetchPlan define(Class<?> entityClass, String name) {
+		FetchPlan plan = new FetchPlan(entityClass, name);
+		PLANS.put(key(entityClass, name), plan);
+		return plan;
+	}
+
+	/**
+	 * Gets a declared plan, looking up the superclasses of the entity class too.
+	 *
+	 * @param entityClass the entity class
+	 * @param name the plan name
+	 * @return the plan, null if none is declared
+	 */
+	public static FetchPlan get(Class<?> entityClass, String name) {
+		for (Class<?> c = entityClass; c != null; c = c.getSuperclass()) {
+			FetchPlan plan = PLANS.get(key(c, name));
+			if (plan != null) {
+				return plan;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes a declared plan.
+	 *
+	 * @param entityClass the entity class
+	 * @param name the plan name
+	 */
+	public static void undefine(Class<?> entityClass, String name) {
+		PLANS.remove(key(entityClass, name));
+	}
+
+	/**
+	 * Builds the registry key of a plan.
+	 *
+	 * @param entityClass the entity class
+	 * @param name the plan name
+	 * @return the key
+	 */
+	private static String key(Class<?> entityClass, String name) {
+		return entityClass.getName() + '#' + name;
+	}
+
+	/**
+	 * Adds a path joined into the query where possible.
+	 *
+	 * @param path the dotted association path
+	 * @return this plan
+	 */
+	public FetchPlan join(String path) {
+		return add(path, Strategy.JOIN);
+	}
+
+	/**
+	 * Adds a path loaded with IN list queries.
+	 *
+	 * @param path the dotted association path
+	 * @return this plan
+	 */
+	public FetchPlan batch(String path) {
+		return add(path, Strategy.BATCH);
+	}
+
+	/**
+	 * Adds a path.
+	 *
+	 * @param path the dotted association path
+	 * @param strategy how the path is loaded
+	 * @return this plan
+	 */
+	public synchronized FetchPlan add(String path, Strategy strategy) {
+		if (path == null || path.isEmpty() || path.startsWith(".") || path.endsWith(".")) {
+			throw new IllegalArgumentException("invalid fetch path " + path);
+		}
+		paths.add(new FetchPath(path, strategy));
+		return this;
+	}
+
+	/**
+	 * Gets the entity class.
+	 *
+	 * @return the entity class
+	 */
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	/**
+	 * Gets the plan name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the association paths.
+	 *
+	 * @return the paths, in the order they were added
+	 */
+	public synchronized List<FetchPath> getPaths() {
+		return Collections.unmodifiableList(new ArrayList<FetchPath>(paths));
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return entityClass.getName() + '#' + name + getPaths();
+	}
+
+	/**
+	 * An association path of a plan.
+	 */
+	public static class FetchPath {
+
+		/** The dotted association path. */
+		private final String path;
+
+		/** How the path is loaded. */
+		private final Strategy strategy;
+
+		/**
+		 * Instantiates a new path.
+		 *
+		 * @param path the dotted association path
+		 * @param strategy how the path is loaded
+		 */
+		public FetchPath(String path, Strategy strategy) {
+			this.path = path;
+			this.strategy = strategy;
+		}
+
+		/**
+		 * Gets the dotted association path.
+		 *
+		 * @return the path
+		 */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * Gets how the path is loaded.
+		 *
+		 * @return the strategy
+		 */
+		public Strategy getStrategy() {
+			return strategy;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return path + ' ' + strategy;
+		}
+	}
+
+}
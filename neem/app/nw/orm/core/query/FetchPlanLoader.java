@@ -0,0 +1,268 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nw.orm.core.query.FetchPlan.FetchPath;
+import nw.orm.core.query.FetchPlan.Strategy;
+
+import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+
+/**
+ * Loads the association paths of a {@link FetchPlan} for entities loaded in an open session. The owners of each
+ * level of a path are loaded in chunks of IN list queries: collections by querying their owners again with the
+ * collection fetched, single valued associations by querying the uninitialized targets by id.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class FetchPlanLoader {
+
+	/** The session factory. */
+	private final SessionFactory factory;
+
+	/** Maximum number of ids bound to a single IN list. */
+	private final int chunkSize;
+
+	/**
+	 * Instantiates a new loader.
+	 *
+	 * @param factory the session factory
+	 * @param chunkSize maximum number of ids bound to a single IN list
+	 */
+	public FetchPlanLoader(SessionFactory factory, int chunkSize) {
+		this.factory = factory;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Joins the {@link Strategy#JOIN} paths made only of single valued associations into a criteria.
+	 *
+	 * @param te the criteria on the plan entity
+	 * @param plan the plan
+	 */
+	public void applyJoins(Criteria te, FetchPlan plan) {
+		for (FetchPath path : plan.getPaths()) {
+			if (path.getStrategy() == Strategy.JOIN && isSingleValued(plan.getEntityClass(), path.getPath())) {
+				te.setFetchMode(path.getPath(), FetchMode.JOIN);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a path only has single valued associations.
+	 *
+	 * @param entityClass the entity class
+	 * @param path the dotted association path
+	 * @return true if no association of the path is a collection
+	 */
+	private boolean isSingleValued(Class<?> entityClass, String path) {
+		ClassMetadata md = metadata(entityClass.getName());
+		for (String segment : path.split("\\.")) {
+			Type type = md.getPropertyType(segment);
+			if (!type.isEntityType()) {
+				return false;
+			}
+			md = metadata(((EntityType) type).getAssociatedEntityName());
+		}
+		return true;
+	}
+
+	/**
+	 * Loads every path of a plan.
+	 *
+	 * @param session the session the roots were loaded in, still open
+	 * @param plan the plan
+	 * @param roots the loaded entities of the plan entity class
+	 */
+	public void load(Session session, FetchPlan plan, Collection<?> roots) {
+		List<Object> owners = distinct(roots);
+		if (owners.isEmpty()) {
+			return;
+		}
+		String entityName = metadata(plan.getEntityClass().getName()).getEntityName();
+		for (FetchPath path : plan.getPaths()) {
+			load(session, entityName, owners, path.getPath().split("\\."), 0);
+		}
+	}
+
+	/**
+	 * Loads one level of a path, then the levels below it.
+	 *
+	 * @param session the session
+	 * @param entityName the entity name of the owners
+	 * @param owners the owners, initialized and distinct
+	 * @param segments the path segments
+	 * @param index the segment of this level
+	 */
+	private void load(Session session, String entityName, List<Object> owners, String[] segments, int index) {
+		if (owners.isEmpty() || index == segments.length) {
+			return;
+		}
+		ClassMetadata md = metadata(entityName);
+		String property = segments[index];
+		Type type = md.getPropertyType(property);
+		List<Object> targets = new ArrayList<Object>();
+		String targetName;
+		if (type.isCollectionType()) {
+			Type element = ((CollectionType) type).getElementType((SessionFactoryImplementor) factory);
+			targetName = element.isEntityType() ? ((EntityType) element).getAssociatedEntityName() : null;
+			loadCollections(session, md, property, owners);
+			for (Object owner : owners) {
+				Object value = md.getPropertyValue(owner, property);
+				if (value instanceof Map) {
+					targets.addAll(((Map<?, ?>) value).values());
+				} else if (value instanceof Collection) {
+					targets.addAll((Collection<?>) value);
+				}
+			}
+		} else if (type.isEntityType()) {
+			targetName = ((EntityType) type).getAssociatedEntityName();
+			for (Object owner : owners) {
+				Object value = md.getPropertyValue(owner, property);
+				if (value != null) {
+					targets.add(value);
+				}
+			}
+			loadProxies(session, targetName, targets);
+		} else {
+			throw new HibernateException(property + " of " + entityName + " is not an association");
+		}
+		if (targetName != null) {
+			load(session, targetName, distinct(targets), segments, index + 1);
+		}
+	}
+
+	/**
+	 * Initializes a collection of many owners, querying the owners whose collection is not loaded yet again with
+	 * the collection fetched.
+	 *
+	 * @param session the session
+	 * @param md the owner metadata
+	 * @param property the collection property
+	 * @param owners the owners
+	 */
+	private void loadCollections(Session session, ClassMetadata md, String property, List<Object> owners) {
+		List<Serializable> ids = new ArrayList<Serializable>();
+		for (Object owner : owners) {
+			Object value = md.getPropertyValue(owner, property);
+			if (value != null && !Hibernate.isInitialized(value)) {
+				ids.add(session.getIdentifier(owner));
+			}
+		}
+		String hql = "select distinct o from " + md.getEntityName() + " o left join fetch o." + property
+				+ " where o." + md.getIdentifierPropertyName() + " in (:ids)";
+		for (List<Serializable> chunk : chunk(ids)) {
+			Query query = session.createQuery(hql);
+			query.setParameterList("ids", chunk);
+			query.list();
+		}
+		for (Object owner : owners) {
+			Object value = md.getPropertyValue(owner, property);
+			if (value != null && !Hibernate.isInitialized(value)) {
+				// owners of a subclass mapping the property differently, rare enough to load one by one
+				Hibernate.initialize(value);
+			}
+		}
+	}
+
+	/**
+	 * Initializes the proxies among single valued targets, querying their entities by id.
+	 *
+	 * @param session the session
+	 * @param entityName the entity name of the targets
+	 * @param targets the targets, proxies are replaced by their entities
+	 */
+	private void loadProxies(Session session, String entityName, List<Object> targets) {
+		List<Serializable> ids = new ArrayList<Serializable>();
+		for (Object target : targets) {
+			if (!Hibernate.isInitialized(target)) {
+				ids.add(((HibernateProxy) target).getHibernateLazyInitializer().getIdentifier());
+			}
+		}
+		ClassMetadata md = metadata(entityName);
+		String hql = "from " + md.getEntityName() + " t where t." + md.getIdentifierPropertyName() + " in (:ids)";
+		for (List<Serializable> chunk : chunk(ids)) {
+			Query query = session.createQuery(hql);
+			query.setParameterList("ids", chunk);
+			query.list();
+		}
+		for (int i = 0; i < targets.size(); i++) {
+			Object target = targets.get(i);
+			if (target instanceof HibernateProxy) {
+				// already in the session, initializing does not query again
+				Hibernate.initialize(target);
+				targets.set(i, ((HibernateProxy) target).getHibernateLazyInitializer().getImplementation());
+			}
+		}
+	}
+
+	/**
+	 * Gets the metadata of an entity.
+	 *
+	 * @param entityName the entity name or class name
+	 * @return the metadata
+	 */
+	private ClassMetadata metadata(String entityName) {
+		ClassMetadata md = factory.getClassMetadata(entityName);
+		if (md == null) {
+			throw new HibernateException(entityName + " is not a mapped entity");
+		}
+		return md;
+	}
+
+	/**
+	 * Removes duplicates, by identity, and unwraps initialized proxies.
+	 *
+	 * @param items the items
+	 * @return the distinct items, in order
+	 */
+	private static List<Object> distinct(Collection<?> items) {
+		Map<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+		List<Object> out = new ArrayList<Object>();
+		for (Object item : items) {
+			Object entity = item;
+			if (entity instanceof HibernateProxy && Hibernate.isInitialized(entity)) {
+				entity = ((HibernateProxy) entity).getHibernateLazyInitializer().getImplementation();
+			}
+			if (entity != null && seen.put(entity, Boolean.TRUE) == null) {
+				out.add(entity);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Splits ids into IN lists.
+	 *
+	 * @param ids the ids
+	 * @return the chunks
+	 */
+	private List<List<Serializable>> chunk(List<Serializable> ids) {
+		List<List<Serializable>> chunks = new ArrayList<List<Serializable>>();
+		for (int i = 0; i < ids.size(); i += chunkSize) {
+			chunks.add(ids.subList(i, Math.min(ids.size(), i + chunkSize)));
+		}
+		return chunks;
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Position in a keyset (seek) paginated query. The cursor names the ordered key properties, e.g the primary key
+ * or createDate followed by the primary key, and holds the key values of the last row already seen.
+ * The next page is read with a predicate on those values instead of skipping rows with an offset.
+ * Key properties must together be unique, otherwise rows sharing a key may be skipped.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class KeysetCursor implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = -2468117447359210513L;
+
+	/** The ordered key properties. */
+	private final String[] properties;
+
+	/** Sort direction shared by all key properties. */
+	private final boolean ascending;
+
+	/** Key values of the last row seen, null for the first page. */
+	private final Object[] lastSeen;
+
+	/**
+	 * Instantiates a new keyset cursor.
+	 *
+	 * @param ascending the ascending
+	 * @param lastSeen the last seen
+	 * @param properties the properties
+	 */
+	private KeysetCursor(boolean ascending, Object[] lastSeen, String[] properties) {
+		if (properties == null || properties.length == 0) {
+			throw new IllegalArgumentException("At least one key property is required");
+		}
+		if (lastSeen != null && lastSeen.length != properties.length) {
+			throw new IllegalArgumentException("Expected " + properties.length + " key values but got " + lastSeen.length);
+		}
+		this.ascending = ascending;
+		this.lastSeen = lastSeen;
+		this.properties = properties;
+	}
+
+	/**
+	 * Creates a cursor positioned before the first row.
+	 *
+	 * @param ascending true to page in ascending key order
+	 * @param properties the ordered key properties
+	 * @return the keyset cursor
+	 */
+	public static KeysetCursor first(boolean ascending, String ... properties) {
+		return new KeysetCursor(ascending, null, properties.clone());
+	}
+
+	/**
+	 * Creates a cursor positioned after the row with the specified key values.
+	 *
+	 * @param values the key values of the last row seen, in key property order
+	 * @return the keyset cursor
+	 */
+	public KeysetCursor after(Object ... values) {
+		return new KeysetCursor(ascending, values.clone(), properties);
+	}
+
+	/**
+	 * Checks if the cursor points at the first page.
+	 *
+	 * @return true, if is first page
+	 */
+	public boolean isFirstPage() {
+		return lastSeen == null;
+	}
+
+	/**
+	 * Gets the ordered key properties.
+	 *
+	 * @return the properties
+	 */
+	public String[] getProperties() {
+		return properties.clone();
+	}
+
+	/**
+	 * Checks if is ascending.
+	 *
+	 * @return true, if is ascending
+	 */
+	public boolean isAscending() {
+		return ascending;
+	}
+
+	/**
+	 * Gets the key values of the last row seen.
+	 *
+	 * @return the last seen values, null for the first page
+	 */
+	public Object[] getLastSeen() {
+		return lastSeen == null ? null : lastSeen.clone();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "{KEYS: " + Arrays.toString(properties) + ", ASC: " + ascending + ", AFTER: " + Arrays.toString(lastSeen) + " }";
+	}
+
+}
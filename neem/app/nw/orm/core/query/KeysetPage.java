@@ -0,0 +1,62 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page read with keyset pagination together with the cursor for the following page.
+ *
+ * @author Ogwara O. Rowland
+ * @param <T> the item type
+ */
+public class KeysetPage<T> {
+
+	/** The items. */
+	private final List<T> items;
+
+	/** The cursor for the next page. */
+	private final KeysetCursor next;
+
+	/**
+	 * Instantiates a new keyset page.
+	 *
+	 * @param items the items
+	 * @param next the cursor for the next page, null if this is the last page
+	 */
+	public KeysetPage(List<T> items, KeysetCursor next) {
+		this.items = Collections.unmodifiableList(items);
+		this.next = next;
+	}
+
+	/**
+	 * Gets the items.
+	 *
+	 * @return the items
+	 */
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * Gets the cursor for the next page.
+	 *
+	 * @return the next cursor, null if this is the last page
+	 */
+	public KeysetCursor getNext() {
+		return next;
+	}
+
+	/**
+	 * Checks for more pages.
+	 *
+	 * @return true, if there is a next page
+	 */
+	public boolean hasNext() {
+		return next != null;
+	}
+
+}
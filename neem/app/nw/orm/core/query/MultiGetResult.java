@@ -0,0 +1,105 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entities loaded for a list of primary keys, keyed by primary key in the order the keys were asked for,
+ * together with the keys that matched nothing.
+ *
+ * @author Ogwara O. Rowland
+ * @param <T> the entity type
+ */
+public class MultiGetResult<T> {
+
+	/** The entities by primary key, in request order. */
+	private final Map<Serializable, T> found;
+
+	/** The primary keys that matched nothing, in request order. */
+	private final List<Serializable> missing;
+
+	/**
+	 * Instantiates a new result.
+	 *
+	 * @param requested the distinct primary keys asked for, in request order
+	 * @param loaded the entities loaded, by primary key in any order
+	 */
+	public MultiGetResult(Collection<? extends Serializable> requested, Map<? extends Serializable, ? extends T> loaded) {
+		Map<Serializable, T> inOrder = new LinkedHashMap<Serializable, T>();
+		List<Serializable> notFound = new ArrayList<Serializable>();
+		for (Serializable id : requested) {
+			T item = loaded.get(id);
+			if (item == null) {
+				notFound.add(id);
+			} else {
+				inOrder.put(id, item);
+			}
+		}
+		this.found = Collections.unmodifiableMap(inOrder);
+		this.missing = Collections.unmodifiableList(notFound);
+	}
+
+	/**
+	 * Gets the entity with a primary key.
+	 *
+	 * @param id the primary key
+	 * @return the entity, null if missing
+	 */
+	public T get(Serializable id) {
+		return found.get(id);
+	}
+
+	/**
+	 * Gets the entities by primary key.
+	 *
+	 * @return the entities, in request order
+	 */
+	public Map<Serializable, T> getFound() {
+		return found;
+	}
+
+	/**
+	 * Gets the entities.
+	 *
+	 * @return the entities, in request order
+	 */
+	public List<T> getList() {
+		return new ArrayList<T>(found.values());
+	}
+
+	/**
+	 * Gets the primary keys that matched nothing, or only soft deleted entries.
+	 *
+	 * @return the primary keys, in request order
+	 */
+	public List<Serializable> getMissing() {
+		return missing;
+	}
+
+	/**
+	 * Checks whether every primary key matched an entity.
+	 *
+	 * @return true if nothing is missing
+	 */
+	public boolean isComplete() {
+		return missing.isEmpty();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MultiGetResult [found=" + found.size() + ", missing=" + missing + "]";
+	}
+
+}
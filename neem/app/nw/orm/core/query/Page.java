@@ -0,0 +1,102 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of results together with the total number of matching entries.
+ *
+ * @author Ogwara O. Rowland
+ * @param <T> the item type
+ */
+public class Page<T> {
+
+	/** The items. */
+	private final List<T> items;
+
+	/** The total number of matching entries. */
+	private final long total;
+
+	/** Index of the first item of the page within all matching entries. */
+	private final int pageIndex;
+
+	/** The maximum number of items per page. */
+	private final int maxResult;
+
+	/**
+	 * Instantiates a new page.
+	 *
+	 * @param items the items
+	 * @param total the total number of matching entries
+	 * @param pageIndex index of the first item of the page
+	 * @param maxResult the maximum number of items per page
+	 */
+	public Page(List<T> items, long total, int pageIndex, int maxResult) {
+		this.items = Collections.unmodifiableList(items);
+		this.total = total;
+		this.pageIndex = pageIndex;
+		this.maxResult = maxResult;
+	}
+
+	/**
+	 * Gets the items.
+	 *
+	 * @return the items
+	 */
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * Gets the total number of matching entries.
+	 *
+	 * @return the total
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets the index of the first item of the page.
+	 *
+	 * @return the page index
+	 */
+	public int getPageIndex() {
+		return pageIndex;
+	}
+
+	/**
+	 * Gets the maximum number of items per page.
+	 *
+	 * @return the max result
+	 */
+	public int getMaxResult() {
+		return maxResult;
+	}
+
+	/**
+	 * Gets the number of pages.
+	 *
+	 * @return the page count
+	 */
+	public long getPageCount() {
+		if (maxResult <= 0) {
+			return total == 0 ? 0 : 1;
+		}
+		return (total + maxResult - 1) / maxResult;
+	}
+
+	/**
+	 * Checks for a following page.
+	 *
+	 * @return true, if entries exist after this page
+	 */
+	public boolean hasNext() {
+		return pageIndex + items.size() < total;
+	}
+
+}
@@ -36,6 +36,15 @@ public class QueryModifier extends SQLModifier{
 	/** The transform class. */
 	private Class<?> transformClass;
 
+	/** The keyset cursor, set when keyset pagination is used. */
+	private KeysetCursor keysetCursor;
+
+	/** How long total counts of paged queries may be reused, in milliseconds. */
+	private long totalCountCacheTtl;
+
+	/** The associations loaded along with the results. */
+	private FetchPlan fetchPlan;
+
 	/**
 	 * Instantiates a new query modifier.
 	 *
@@ -126,6 +135,57 @@ public class QueryModifier extends SQLModifier{
 		return transformClass;
 	}
 
+	/**
+	 * Enables keyset (seek) pagination. Rows are ordered by the cursor key properties and only rows after the cursor
+	 * position are returned, so deep pages cost the same as the first one. Order bys added to this modifier are ignored
+	 * and offset pagination set through {@link #setPaginated(int, int)} is replaced.
+	 *
+	 * @param cursor the cursor, {@link KeysetCursor#first(boolean, String...)} for the first page
+	 * @param maxResult the maximum number of items to return
+	 */
+	public void setKeysetPaginated(KeysetCursor cursor, int maxResult) {
+		this.keysetCursor = cursor;
+		setMaxResult(maxResult);
+		clearPagination();
+	}
+
+	/**
+	 * Checks if keyset pagination is enabled.
+	 *
+	 * @return true, if is keyset paginated
+	 */
+	public boolean isKeysetPaginated() {
+		return keysetCursor != null;
+	}
+
+	/**
+	 * Gets the keyset cursor.
+	 *
+	 * @return the keyset cursor
+	 */
+	public KeysetCursor getKeysetCursor() {
+		return keysetCursor;
+	}
+
+	/**
+	 * Allows the total count computed for a paged query to be reused by identical queries for a while,
+	 * so turning pages does not recount large tables. Counts may be stale for up to the specified time.
+	 *
+	 * @param ttlMillis how long a count may be reused in milliseconds, 0 to always count
+	 */
+	public void setTotalCountCacheTtl(long ttlMillis) {
+		this.totalCountCacheTtl = ttlMillis;
+	}
+
+	/**
+	 * Gets the total count cache ttl.
+	 *
+	 * @return the total count cache ttl in milliseconds
+	 */
+	public long getTotalCountCacheTtl() {
+		return totalCountCacheTtl;
+	}
+
 	/**
 	 * Gets the fetch modes.
 	 *
@@ -144,4 +204,57 @@ public class QueryModifier extends SQLModifier{
 		this.fetchMode.add(fetchMode);
 	}
 
+	/**
+	 * Selects a fetch plan declared on the query class, see {@link FetchPlan#define(Class, String)}. Plans apply to
+	 * entity results, they are ignored when results are projected or transformed.
+	 *
+	 * @param name the plan name
+	 * @throws IllegalArgumentException if no such plan is declared
+	 */
+	public void setFetchPlan(String name) {
+		FetchPlan plan = FetchPlan.get(getQueryClazz(), name);
+		if (plan == null) {
+			throw new IllegalArgumentException("No fetch plan " + name + " declared on " + getQueryClazz().getName());
+		}
+		this.fetchPlan = plan;
+	}
+
+	/**
+	 * Sets the fetch plan.
+	 *
+	 * @param fetchPlan the plan, null for none
+	 */
+	public void setFetchPlan(FetchPlan fetchPlan) {
+		this.fetchPlan = fetchPlan;
+	}
+
+	/**
+	 * Gets the fetch plan.
+	 *
+	 * @return the plan, null if none
+	 */
+	public FetchPlan getFetchPlan() {
+		return fetchPlan;
+	}
+
+	/**
+	 * Creates an independent copy of this modifier, changes to the copy do not affect this modifier.
+	 *
+	 * @return the copy
+	 */
+	public QueryModifier copy() {
+		QueryModifier qm = new QueryModifier(getQueryClazz());
+		copyTo(qm);
+		qm.transformResult = transformResult;
+		qm.transformClass = transformClass;
+		qm.fetchMode.addAll(fetchMode);
+		qm.orderBys.addAll(orderBys);
+		qm.aliases.addAll(aliases);
+		qm.projections.addAll(projections);
+		qm.keysetCursor = keysetCursor;
+		qm.totalCountCacheTtl = totalCountCacheTtl;
+		qm.fetchPlan = fetchPlan;
+		return qm;
+	}
+
 }
@@ -0,0 +1,23 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+/**
+ * Receives rows one at a time from a streaming query.
+ *
+ * @author Ogwara O. Rowland
+ * @param <T> the row type
+ */
+public interface RowCallback<T> {
+
+	/**
+	 * Processes a single row. The row is detached once the session is cleared and should not be used to load lazy associations.
+	 *
+	 * @param row the row
+	 * @return true to continue with the next row, false to stop streaming
+	 */
+	public boolean processRow(T row);
+
+}
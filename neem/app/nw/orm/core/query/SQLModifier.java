@@ -4,9 +4,11 @@
  */
 package nw.orm.core.query;
 
+import org.hibernate.CacheMode;
+
 /**
- * Adds paging and return class attributes to simple sql queries. A call to @see {@link #setPaginated(int, int)}
- * is used to enable pagination
+ * Adds paging, caching and return class attributes to simple sql queries. A call to @see {@link #setPaginated(int, int)}
+ * is used to enable pagination, and {@link #setCacheable(boolean)} stores results in the query cache
  * @author kulgan
  *
  */
@@ -24,6 +26,15 @@ public class SQLModifier {
 	/** The query class. */
 	private Class<?> queryClass;
 
+	/** The cacheable. */
+	private boolean cacheable;
+
+	/** The cache region. */
+	private String cacheRegion;
+
+	/** The cache mode. */
+	private CacheMode cacheMode;
+
 	/**
 	 * Instantiates a new SQL modifier.
 	 */
@@ -61,6 +72,29 @@ public class SQLModifier {
 		this.paginated = true;
 	}
 
+	/**
+	 * Disables offset pagination.
+	 */
+	protected void clearPagination() {
+		this.paginated = false;
+		this.pageIndex = 0;
+	}
+
+	/**
+	 * Copies the paging, caching and query class settings to another modifier.
+	 *
+	 * @param target the target modifier
+	 */
+	protected void copyTo(SQLModifier target) {
+		target.paginated = paginated;
+		target.pageIndex = pageIndex;
+		target.maxResult = maxResult;
+		target.queryClass = queryClass;
+		target.cacheable = cacheable;
+		target.cacheRegion = cacheRegion;
+		target.cacheMode = cacheMode;
+	}
+
 	/**
 	 * Gets the page index.
 	 *
@@ -115,4 +149,61 @@ public class SQLModifier {
 		this.queryClass = returnClazz;
 	}
 
+	/**
+	 * Checks if results are cached.
+	 *
+	 * @return true, if is cacheable
+	 */
+	public boolean isCacheable() {
+		return cacheable;
+	}
+
+	/**
+	 * Stores the query results in the query cache, requires hibernate.cache.use_query_cache to be enabled.
+	 *
+	 * @param cacheable true to cache the results
+	 */
+	public void setCacheable(boolean cacheable) {
+		this.cacheable = cacheable;
+	}
+
+	/**
+	 * Gets the cache region.
+	 *
+	 * @return the cache region, null for the default query cache region
+	 */
+	public String getCacheRegion() {
+		return cacheRegion;
+	}
+
+	/**
+	 * Stores the query results in a named query cache region, implies {@link #setCacheable(boolean)}.
+	 *
+	 * @param cacheRegion the cache region
+	 */
+	public void setCacheRegion(String cacheRegion) {
+		this.cacheRegion = cacheRegion;
+		if (cacheRegion != null) {
+			this.cacheable = true;
+		}
+	}
+
+	/**
+	 * Gets the cache mode.
+	 *
+	 * @return the cache mode, null to keep the session cache mode
+	 */
+	public CacheMode getCacheMode() {
+		return cacheMode;
+	}
+
+	/**
+	 * Sets how the query interacts with the second level cache.
+	 *
+	 * @param cacheMode the new cache mode
+	 */
+	public void setCacheMode(CacheMode cacheMode) {
+		this.cacheMode = cacheMode;
+	}
+
 }
@@ -0,0 +1,218 @@
+/*
+ * Property of Neemworks Nigeria
+ * Copyright 2013 - 2015, all rights reserved
+ */
+package nw.orm.core.query;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import nw.orm.core.exception.NwormQueryException;
+import nw.orm.core.session.HibernateSessionService;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+/**
+ * Forward only iterator over a scrollable result. The owning session stays open until the iterator
+ * is exhausted or {@link #close()} is called, and is cleared every clear interval rows so memory use stays flat.
+ * The session is cleared when advancing past a row, so every row is still attached when the caller receives it.
+ * A session bound to a unit of work is never cleared, so pending changes of the unit are kept.
+ * Always close the iterator in a finally block when not reading it to the end.
+ *
+ * @author Ogwara O. Rowland
+ * @param <T> the row type
+ */
+public class ScrollIterator<T> implements Iterator<T>, Closeable {
+
+	/** The results. */
+	private final ScrollableResults results;
+
+	/** The session owning the results. */
+	private final Session session;
+
+	/** The session manager. */
+	private final HibernateSessionService sxnManager;
+
+	/** Number of rows between session clears. */
+	private final int clearInterval;
+
+	/** Whether the session is cleared, false for a session bound to a unit of work. */
+	private final boolean clearing;
+
+	/** Number of rows returned so far. */
+	private long rowCount;
+
+	/** Result of advancing the cursor, null when not yet advanced for the next row. */
+	private Boolean advanced;
+
+	/** Whether the session is cleared before advancing to the next row. */
+	private boolean clearPending;
+
+	/** The closed. */
+	private boolean closed;
+
+	/** Run once the iterator is closed. */
+	private final List<Runnable> closeHooks = new ArrayList<Runnable>();
+
+	/**
+	 * Instantiates a new scroll iterator.
+	 *
+	 * @param results the results
+	 * @param session the session
+	 * @param sxnManager the session manager
+	 * @param clearInterval number of rows between session clears
+	 */
+	public ScrollIterator(ScrollableResults results, Session session, HibernateSessionService sxnManager, int clearInterval) {
+		this.results = results;
+		this.session = session;
+		this.sxnManager = sxnManager;
+		this.clearInterval = Math.max(1, clearInterval);
+		this.clearing = !sxnManager.isBound(session);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		if (advanced == null) {
+			try {
+				if (clearPending) {
+					clearPending = false;
+					session.clear();
+				}
+				advanced = Boolean.valueOf(results.next());
+			} catch (HibernateException e) {
+				abort();
+				throw new NwormQueryException("", e);
+			}
+			if (!advanced.booleanValue()) {
+				close();
+			}
+		}
+		return advanced.booleanValue();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		advanced = null;
+		T out;
+		try {
+			Object[] row = results.get();
+			out = (T) (row.length == 1 ? row[0] : row);
+		} catch (HibernateException e) {
+			abort();
+			throw new NwormQueryException("", e);
+		}
+		rowCount += 1;
+		// the row returned must stay attached until the caller moves on
+		clearPending = clearing && rowCount % clearInterval == 0;
+		return out;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#remove()
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Scroll iterators are read only");
+	}
+
+	/**
+	 * Gets the number of rows returned so far.
+	 *
+	 * @return the row count
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Checks if is closed.
+	 *
+	 * @return true, if is closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Registers work to run once the iterator is closed, such as releasing a resource held for the open cursor.
+	 * Runs the work at once when the iterator is already closed.
+	 *
+	 * @param hook the work
+	 */
+	public void onClose(Runnable hook) {
+		if (closed) {
+			hook.run();
+		} else {
+			closeHooks.add(hook);
+		}
+	}
+
+	/**
+	 * Releases the cursor and ends the transaction and session backing this iterator.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			results.close();
+			sxnManager.commit(session);
+		} catch (HibernateException e) {
+			sxnManager.rollback(session);
+			throw new NwormQueryException("", e);
+		} finally {
+			sxnManager.closeSession(session);
+			runCloseHooks();
+		}
+	}
+
+	/**
+	 * Rolls back and closes after a failure.
+	 */
+	private void abort() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			results.close();
+			sxnManager.rollback(session);
+		} catch (HibernateException e) {
+			// the original failure is reported to the caller
+		} finally {
+			sxnManager.closeSession(session);
+			runCloseHooks();
+		}
+	}
+
+	/**
+	 * Runs the close hooks.
+	 */
+	private void runCloseHooks() {
+		for (Runnable hook : closeHooks) {
+			hook.run();
+		}
+		closeHooks.clear();
+	}
+
+}
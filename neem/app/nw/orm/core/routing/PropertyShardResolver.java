@@ -0,0 +1,83 @@
+package nw.orm.core.routing;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import nw.orm.core.exception.NwormQueryException;
+
+/**
+ * Shards entities by the hash of a bean property, such as a tenant id. Ids do not reveal the shard, so lookups by id
+ * search every shard and ids must be unique across shards.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class PropertyShardResolver implements ShardResolver {
+
+	/** The shard key property. */
+	private final String property;
+
+	/**
+	 * Instantiates a new property shard resolver.
+	 *
+	 * @param property the shard key property
+	 */
+	public PropertyShardResolver(String property) {
+		this.property = property;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.routing.ShardResolver#shardKeyOf(java.lang.Object)
+	 */
+	@Override
+	public Object shardKeyOf(Object entity) {
+		try {
+			for (PropertyDescriptor pd : Introspector.getBeanInfo(entity.getClass()).getPropertyDescriptors()) {
+				Method getter = pd.getReadMethod();
+				if (pd.getName().equals(property) && getter != null) {
+					Object key = getter.invoke(entity);
+					if (key == null) {
+						throw new NwormQueryException("shard key " + property + " of " + entity.getClass().getName() + " is null", null);
+					}
+					return key;
+				}
+			}
+		} catch (IntrospectionException e) {
+			throw new NwormQueryException("", e);
+		} catch (IllegalAccessException e) {
+			throw new NwormQueryException("", e);
+		} catch (InvocationTargetException e) {
+			throw new NwormQueryException("", e);
+		}
+		throw new NwormQueryException(entity.getClass().getName() + " has no shard key property " + property, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.routing.ShardResolver#shardKeyOf(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public Object shardKeyOf(Class<?> entityClass, Serializable id) {
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.routing.ShardResolver#shardOf(java.lang.Object, int)
+	 */
+	@Override
+	public int shardOf(Object shardKey, int shardCount) {
+		return (shardKey.hashCode() & Integer.MAX_VALUE) % shardCount;
+	}
+
+	/**
+	 * Gets the shard key property.
+	 *
+	 * @return the property
+	 */
+	public String getProperty() {
+		return property;
+	}
+
+}
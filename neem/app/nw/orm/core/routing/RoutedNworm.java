@@ -0,0 +1,868 @@
+package nw.orm.core.routing;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nw.orm.core.NwormEntity;
+import nw.orm.core.bulk.BulkInsertOptions;
+import nw.orm.core.bulk.BulkInsertResult;
+import nw.orm.core.query.CompiledQuery;
+import nw.orm.core.query.KeysetPage;
+import nw.orm.core.query.MultiGetResult;
+import nw.orm.core.query.Page;
+import nw.orm.core.query.QueryModifier;
+import nw.orm.core.query.QueryParameter;
+import nw.orm.core.query.RowCallback;
+import nw.orm.core.query.SQLModifier;
+import nw.orm.core.query.ScrollIterator;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.service.NwormHibernateService;
+import nw.orm.core.service.NwormImpl;
+import nw.orm.core.service.TransactionCallback;
+import nw.orm.core.session.HibernateSessionService;
+
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Example;
+
+/**
+ * Splits reads and writes between a primary database and its read replicas, each with its own session factory.
+ * Writes, locking reads, query compilation and units of work go to the primary, all other reads to a replica
+ * picked by the {@link ReplicaPolicy}.
+ * <p>
+ * Replicas lag behind the primary, so a thread that wrote recently can be made to read from the primary for a
+ * while, see {@link #setStickyMillis(long)}. Reads within {@link #executeInTransaction(TransactionCallback)} always
+ * go to the primary. Scroll iterators keep their replica busy until they are closed.
+ * <pre>
+ * RoutedNworm db = RoutedNworm.create("primary.cfg.xml", "replica1.cfg.xml", "replica2.cfg.xml");
+ * </pre>
+ *
+ * @author Ogwara O. Rowland
+ */
+public class RoutedNworm implements NwormHibernateService {
+
+	/**
+	 * How replicas are picked for reads.
+	 */
+	public enum ReplicaPolicy {
+
+		/** Replicas take turns. */
+		ROUND_ROBIN,
+
+		/** The replica with the fewest reads in progress. */
+		LEAST_BUSY
+	}
+
+	/** The primary. */
+	private final NwormImpl primary;
+
+	/** The replicas. */
+	private final List<NwormImpl> replicas;
+
+	/** Reads in progress per replica. */
+	private final AtomicInteger[] inFlight;
+
+	/** Reads served per replica. */
+	private final AtomicLong[] served;
+
+	/** Reads served by the primary. */
+	private final AtomicLong primaryReads = new AtomicLong();
+
+	/** Next replica for round robin. */
+	private final AtomicInteger next = new AtomicInteger();
+
+	/** Time of the last write of the current thread. */
+	private final ThreadLocal<Long> lastWrite = new ThreadLocal<Long>();
+
+	/** The replica policy. */
+	private volatile ReplicaPolicy policy = ReplicaPolicy.ROUND_ROBIN;
+
+	/** How long a thread reads from the primary after a write, 0 to disable. */
+	private volatile long stickyMillis;
+
+	/**
+	 * Instantiates a new routed service.
+	 *
+	 * @param primary the primary
+	 * @param replicas the replicas, reads go to the primary when empty
+	 */
+	public RoutedNworm(NwormImpl primary, List<? extends NwormImpl> replicas) {
+		this.primary = primary;
+		this.replicas = new ArrayList<NwormImpl>(replicas);
+		this.inFlight = new AtomicInteger[this.replicas.size()];
+		this.served = new AtomicLong[this.replicas.size()];
+		for (int i = 0; i < this.replicas.size(); i++) {
+			inFlight[i] = new AtomicInteger();
+			served[i] = new AtomicLong();
+		}
+	}
+
+	/**
+	 * Creates a routed service from hibernate configuration files.
+	 *
+	 * @param primaryConfig the primary configuration
+	 * @param replicaConfigs the replica configurations
+	 * @return the routed service
+	 */
+	public static RoutedNworm create(String primaryConfig, String ... replicaConfigs) {
+		List<NwormImpl> replicas = new ArrayList<NwormImpl>();
+		for (String config : replicaConfigs) {
+			replicas.add(Nworm.getInstance(config));
+		}
+		return new RoutedNworm(Nworm.getInstance(primaryConfig), replicas);
+	}
+
+	/**
+	 * Picks the service for a read.
+	 *
+	 * @return the lease on the service
+	 */
+	private Lease read() {
+		if (replicas.isEmpty() || isPinned()) {
+			primaryReads.incrementAndGet();
+			return new Lease(primary, -1);
+		}
+		int index;
+		if (policy == ReplicaPolicy.LEAST_BUSY) {
+			index = 0;
+			int start = (next.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+			int least = Integer.MAX_VALUE;
+			for (int i = 0; i < replicas.size(); i++) {
+				int candidate = (start + i) % replicas.size();
+				int busy = inFlight[candidate].get();
+				if (busy < least) {
+					least = busy;
+					index = candidate;
+				}
+			}
+		} else {
+			index = (next.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+		}
+		inFlight[index].incrementAndGet();
+		served[index].incrementAndGet();
+		return new Lease(replicas.get(index), index);
+	}
+
+	/**
+	 * Keeps a read lease until a scroll iterator closes, its open cursor holds a connection on the replica.
+	 *
+	 * @param <T> the row type
+	 * @param lease the lease
+	 * @param it the iterator
+	 * @return the iterator
+	 */
+	private <T> ScrollIterator<T> holdUntilClosed(final Lease lease, ScrollIterator<T> it) {
+		it.onClose(new Runnable() {
+
+			@Override
+			public void run() {
+				lease.release();
+			}
+		});
+		return it;
+	}
+
+	/**
+	 * Picks the service for a write and starts the read your writes window of the thread.
+	 *
+	 * @return the primary
+	 */
+	private NwormImpl write() {
+		if (stickyMillis > 0) {
+			lastWrite.set(Long.valueOf(System.currentTimeMillis()));
+		}
+		return primary;
+	}
+
+	/**
+	 * Checks if the current thread must read from the primary.
+	 *
+	 * @return true, if in a unit of work or within the read your writes window
+	 */
+	private boolean isPinned() {
+		if (primary.getSessionService().isSessionBound()) {
+			return true;
+		}
+		Long written = lastWrite.get();
+		if (written == null) {
+			return false;
+		}
+		if (System.currentTimeMillis() - written.longValue() < stickyMillis) {
+			return true;
+		}
+		lastWrite.remove();
+		return false;
+	}
+
+	/**
+	 * Locking reads go to the primary.
+	 *
+	 * @param <T> the entity type
+	 * @param clazz the entity class
+	 * @param id the id
+	 * @param lock true to lock the row
+	 * @return the entity
+	 */
+	@Override
+	public <T> T getById(Class<T> clazz, Serializable id, boolean lock) {
+		if (lock) {
+			return primary.getById(clazz, id, true);
+		}
+		return getById(clazz, id);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#compileHQL(java.lang.Class, java.lang.String)
+	 */
+	@Override
+	public <T> CompiledQuery<T> compileHQL(Class<T> entityClass, String hql) {
+		return primary.compileHQL(entityClass, hql);
+	}
+
+	/**
+	 * Gets the session service of the primary.
+	 *
+	 * @return the session service
+	 */
+	@Override
+	public HibernateSessionService getSessionService() {
+		return primary.getSessionService();
+	}
+
+	/**
+	 * Runs the work on the primary, all its reads included.
+	 *
+	 * @param <T> the result type
+	 * @param work the work
+	 * @return the result
+	 */
+	@Override
+	public <T> T executeInTransaction(final TransactionCallback<T> work) {
+		return write().executeInTransaction(new TransactionCallback<T>() {
+
+			@Override
+			public T execute(NwormHibernateService service) throws Exception {
+				return work.execute(RoutedNworm.this);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getById(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public <T> T getById(Class<T> clazz, Serializable id) {
+		Lease lease = read();
+		try {
+			return lease.service.getById(clazz, id);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	public <T> MultiGetResult<T> getByIds(Class<T> clazz, Collection<? extends Serializable> ids) {
+		Lease lease = read();
+		try {
+			return lease.service.getByIds(clazz, ids);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getAll(java.lang.Class)
+	 */
+	@Override
+	public <T> List<T> getAll(Class<T> clazz) {
+		Lease lease = read();
+		try {
+			return lease.service.getAll(clazz);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getBySQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> List<T> getBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, QueryParameter ... params) {
+		Lease lease = read();
+		try {
+			return lease.service.getBySQL(returnClazz, sql, sqlMod, params);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByCriteria(java.lang.Class, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> T getByCriteria(Class<T> entityClass, Criterion ... criteria) {
+		Lease lease = read();
+		try {
+			return lease.service.getByCriteria(entityClass, criteria);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByCriteria(java.lang.Class, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> List<T> getListByCriteria(Class<T> entityClass, Criterion ... criteria) {
+		Lease lease = read();
+		try {
+			return lease.service.getListByCriteria(entityClass, criteria);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(java.lang.String, java.util.Map, java.lang.Class)
+	 */
+	@Override
+	public <T> T getByHQL(String hql, Map<String, Object> parameters, Class<T> resultClass) {
+		Lease lease = read();
+		try {
+			return lease.service.getByHQL(hql, parameters, resultClass);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> T getByHQL(Class<T> resultClass, String hql, QueryParameter ... parameters) {
+		Lease lease = read();
+		try {
+			return lease.service.getByHQL(resultClass, hql, parameters);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(java.lang.String, java.util.Map, java.lang.Class)
+	 */
+	@Override
+	public <T> List<T> getListByHQL(String hql, Map<String, Object> parameters, Class<T> resultClass) {
+		Lease lease = read();
+		try {
+			return lease.service.getListByHQL(hql, parameters, resultClass);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> List<T> getListByHQL(Class<T> resultClass, String hql, QueryParameter ... parameters) {
+		Lease lease = read();
+		try {
+			return lease.service.getListByHQL(resultClass, hql, parameters);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> T getByHQL(Class<T> resultClass, String hql, SQLModifier modifier, QueryParameter ... parameters) {
+		Lease lease = read();
+		try {
+			return lease.service.getByHQL(resultClass, hql, modifier, parameters);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> List<T> getListByHQL(Class<T> resultClass, String hql, SQLModifier modifier, QueryParameter ... parameters) {
+		Lease lease = read();
+		try {
+			return lease.service.getListByHQL(resultClass, hql, modifier, parameters);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(nw.orm.core.query.CompiledQuery, java.lang.Object[])
+	 */
+	@Override
+	public <T> T getByHQL(CompiledQuery<T> query, Object ... values) {
+		Lease lease = read();
+		try {
+			return lease.service.getByHQL(query, values);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(nw.orm.core.query.CompiledQuery, java.lang.Object[])
+	 */
+	@Override
+	public <T> List<T> getListByHQL(CompiledQuery<T> query, Object ... values) {
+		Lease lease = read();
+		try {
+			return lease.service.getListByHQL(query, values);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> T getByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria) {
+		Lease lease = read();
+		try {
+			return lease.service.getByCriteria(returnClazz, qm, criteria);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> List<T> getListByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria) {
+		Lease lease = read();
+		try {
+			return lease.service.getListByCriteria(returnClazz, qm, criteria);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getPageByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> Page<T> getPageByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria) {
+		Lease lease = read();
+		try {
+			return lease.service.getPageByCriteria(returnClazz, qm, criteria);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getKeysetPageByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> KeysetPage<T> getKeysetPageByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria) {
+		Lease lease = read();
+		try {
+			return lease.service.getKeysetPageByCriteria(returnClazz, qm, criteria);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getKeysetPageByHQL(java.lang.Class, java.lang.String, java.lang.String, nw.orm.core.query.QueryModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> KeysetPage<T> getKeysetPageByHQL(Class<T> resultClass, String hql, String alias, QueryModifier qm, QueryParameter ... parameters) {
+		Lease lease = read();
+		try {
+			return lease.service.getKeysetPageByHQL(resultClass, hql, alias, qm, parameters);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByExample(java.lang.Class, org.hibernate.criterion.Example)
+	 */
+	@Override
+	public <T> T getByExample(Class<T> clazz, Example example) {
+		Lease lease = read();
+		try {
+			return lease.service.getByExample(clazz, example);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByExample(nw.orm.core.query.QueryModifier, org.hibernate.criterion.Example)
+	 */
+	@Override
+	public <T> List<T> getListByExample(QueryModifier qm, Example example) {
+		Lease lease = read();
+		try {
+			return lease.service.getListByExample(qm, example);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#scrollAll(java.lang.Class, int)
+	 */
+	@Override
+	public <T> ScrollIterator<T> scrollAll(Class<T> clazz, int fetchSize) {
+		Lease lease = read();
+		ScrollIterator<T> it = null;
+		try {
+			it = lease.service.scrollAll(clazz, fetchSize);
+		} finally {
+			if (it == null) {
+				lease.release();
+			}
+		}
+		return holdUntilClosed(lease, it);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#scrollByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, int, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> ScrollIterator<T> scrollByCriteria(Class<T> returnClazz, QueryModifier qm, int fetchSize, Criterion ... criteria) {
+		Lease lease = read();
+		ScrollIterator<T> it = null;
+		try {
+			it = lease.service.scrollByCriteria(returnClazz, qm, fetchSize, criteria);
+		} finally {
+			if (it == null) {
+				lease.release();
+			}
+		}
+		return holdUntilClosed(lease, it);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#scrollByHQL(java.lang.Class, java.lang.String, int, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> ScrollIterator<T> scrollByHQL(Class<T> resultClass, String hql, int fetchSize, QueryParameter ... parameters) {
+		Lease lease = read();
+		ScrollIterator<T> it = null;
+		try {
+			it = lease.service.scrollByHQL(resultClass, hql, fetchSize, parameters);
+		} finally {
+			if (it == null) {
+				lease.release();
+			}
+		}
+		return holdUntilClosed(lease, it);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#scrollBySQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, int, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> ScrollIterator<T> scrollBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, int fetchSize, QueryParameter ... params) {
+		Lease lease = read();
+		ScrollIterator<T> it = null;
+		try {
+			it = lease.service.scrollBySQL(returnClazz, sql, sqlMod, fetchSize, params);
+		} finally {
+			if (it == null) {
+				lease.release();
+			}
+		}
+		return holdUntilClosed(lease, it);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#streamByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, int, nw.orm.core.query.RowCallback, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> long streamByCriteria(Class<T> returnClazz, QueryModifier qm, int fetchSize, RowCallback<? super T> callback, Criterion ... criteria) {
+		Lease lease = read();
+		try {
+			return lease.service.streamByCriteria(returnClazz, qm, fetchSize, callback, criteria);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#streamByHQL(java.lang.Class, java.lang.String, int, nw.orm.core.query.RowCallback, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> long streamByHQL(Class<T> resultClass, String hql, int fetchSize, RowCallback<? super T> callback, QueryParameter ... parameters) {
+		Lease lease = read();
+		try {
+			return lease.service.streamByHQL(resultClass, hql, fetchSize, callback, parameters);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#streamBySQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, int, nw.orm.core.query.RowCallback, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> long streamBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, int fetchSize, RowCallback<? super T> callback, QueryParameter ... params) {
+		Lease lease = read();
+		try {
+			return lease.service.streamBySQL(returnClazz, sql, sqlMod, fetchSize, callback, params);
+		} finally {
+			lease.release();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#executeSQLUpdate(java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public int executeSQLUpdate(String sql, QueryParameter ... params) {
+		return write().executeSQLUpdate(sql, params);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#executeHQLUpdate(java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public int executeHQLUpdate(String hql, QueryParameter ... params) {
+		return write().executeHQLUpdate(hql, params);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#softDelete(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public boolean softDelete(Class<? extends NwormEntity<?>> clazz, Serializable id) {
+		return write().softDelete(clazz, id);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#bulkSoftDelete(java.lang.Class, java.util.List)
+	 */
+	@Override
+	public boolean bulkSoftDelete(Class<? extends NwormEntity<?>> clazz, List<Serializable> ids) {
+		return write().bulkSoftDelete(clazz, ids);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#softDeleteByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	public int softDeleteByIds(Class<? extends NwormEntity<?>> clazz, Collection<? extends Serializable> ids) {
+		return write().softDeleteByIds(clazz, ids);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#remove(java.lang.Object)
+	 */
+	@Override
+	public boolean remove(Object obj) {
+		return write().remove(obj);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#remove(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public boolean remove(Class<?> clazz, Serializable pk) {
+		return write().remove(clazz, pk);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#bulkRemove(java.lang.Class, java.util.List)
+	 */
+	@Override
+	public boolean bulkRemove(Class<?> clazz, List<Serializable> pks) {
+		return write().bulkRemove(clazz, pks);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#removeByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	public int removeByIds(Class<?> clazz, Collection<? extends Serializable> pks) {
+		return write().removeByIds(clazz, pks);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#create(java.lang.Object)
+	 */
+	@Override
+	public Serializable create(Object obj) {
+		return write().create(obj);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#createBulk(java.util.List)
+	 */
+	@Override
+	public List<Serializable> createBulk(List<?> items) {
+		return write().createBulk(items);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#createBulk(java.util.List, nw.orm.core.bulk.BulkInsertOptions)
+	 */
+	@Override
+	public BulkInsertResult createBulk(List<?> items, BulkInsertOptions options) {
+		return write().createBulk(items, options);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#update(java.lang.Object)
+	 */
+	@Override
+	public boolean update(Object obj) {
+		return write().update(obj);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#updateBulk(java.util.List)
+	 */
+	@Override
+	public boolean updateBulk(List<?> items) {
+		return write().updateBulk(items);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#toggleActive(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public boolean toggleActive(Class<? extends NwormEntity<?>> clazz, Serializable id) {
+		return write().toggleActive(clazz, id);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#createOrUpdate(java.lang.Object)
+	 */
+	@Override
+	public boolean createOrUpdate(Object obj) {
+		return write().createOrUpdate(obj);
+	}
+
+	/**
+	 * Gets the primary.
+	 *
+	 * @return the primary
+	 */
+	public NwormImpl getPrimary() {
+		return primary;
+	}
+
+	/**
+	 * Gets the replicas.
+	 *
+	 * @return the replicas
+	 */
+	public List<NwormImpl> getReplicas() {
+		return new ArrayList<NwormImpl>(replicas);
+	}
+
+	/**
+	 * Gets the replica policy.
+	 *
+	 * @return the replica policy
+	 */
+	public ReplicaPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Sets the replica policy.
+	 *
+	 * @param policy the new replica policy
+	 */
+	public void setPolicy(ReplicaPolicy policy) {
+		this.policy = policy;
+	}
+
+	/**
+	 * Gets the read your writes window.
+	 *
+	 * @return the window in milliseconds
+	 */
+	public long getStickyMillis() {
+		return stickyMillis;
+	}
+
+	/**
+	 * Makes a thread read from the primary for a while after each of its writes, covering the replication lag.
+	 *
+	 * @param stickyMillis the window in milliseconds, 0 to disable
+	 */
+	public void setStickyMillis(long stickyMillis) {
+		this.stickyMillis = stickyMillis;
+	}
+
+	/**
+	 * Gets the number of reads served by a replica.
+	 *
+	 * @param replica the replica index
+	 * @return the read count
+	 */
+	public long getReplicaReadCount(int replica) {
+		return served[replica].get();
+	}
+
+	/**
+	 * Gets the number of reads served by the primary.
+	 *
+	 * @return the read count
+	 */
+	public long getPrimaryReadCount() {
+		return primaryReads.get();
+	}
+
+	/**
+	 * A service picked for one read.
+	 */
+	private final class Lease {
+
+		/** The service. */
+		private final NwormImpl service;
+
+		/** The replica index, -1 for the primary. */
+		private final int replica;
+
+		/**
+		 * Instantiates a new lease.
+		 *
+		 * @param service the service
+		 * @param replica the replica
+		 */
+		private Lease(NwormImpl service, int replica) {
+			this.service = service;
+			this.replica = replica;
+		}
+
+		/**
+		 * Ends the read.
+		 */
+		private void release() {
+			if (replica >= 0) {
+				inFlight[replica].decrementAndGet();
+			}
+		}
+
+	}
+
+}
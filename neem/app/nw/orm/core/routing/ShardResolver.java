@@ -0,0 +1,38 @@
+package nw.orm.core.routing;
+
+import java.io.Serializable;
+
+/**
+ * Decides which shard of a {@link ShardedNworm} holds an entity.
+ *
+ * @author Ogwara O. Rowland
+ */
+public interface ShardResolver {
+
+	/**
+	 * Gets the shard key of an entity about to be written.
+	 *
+	 * @param entity the entity
+	 * @return the shard key, never null
+	 */
+	Object shardKeyOf(Object entity);
+
+	/**
+	 * Gets the shard key of an entity from its id, if the id carries it.
+	 *
+	 * @param entityClass the entity class
+	 * @param id the id
+	 * @return the shard key, null when every shard must be searched
+	 */
+	Object shardKeyOf(Class<?> entityClass, Serializable id);
+
+	/**
+	 * Maps a shard key to a shard.
+	 *
+	 * @param shardKey the shard key
+	 * @param shardCount the number of shards
+	 * @return the shard index, from 0 to shardCount - 1
+	 */
+	int shardOf(Object shardKey, int shardCount);
+
+}
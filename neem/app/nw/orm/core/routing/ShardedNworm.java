@@ -0,0 +1,1374 @@
+package nw.orm.core.routing;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nw.commons.NeemClazz;
+import nw.orm.core.NwormEntity;
+import nw.orm.core.bulk.BulkInsertOptions;
+import nw.orm.core.bulk.BulkInsertResult;
+import nw.orm.core.bulk.BulkInsertResult.ChunkStat;
+import nw.orm.core.exception.NwormQueryException;
+import nw.orm.core.query.CompiledQuery;
+import nw.orm.core.query.KeysetCursor;
+import nw.orm.core.query.KeysetPage;
+import nw.orm.core.query.MultiGetResult;
+import nw.orm.core.query.Page;
+import nw.orm.core.query.QueryAlias;
+import nw.orm.core.query.QueryModifier;
+import nw.orm.core.query.QueryParameter;
+import nw.orm.core.query.RowCallback;
+import nw.orm.core.query.SQLModifier;
+import nw.orm.core.query.ScrollIterator;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.service.NwormHibernateService;
+import nw.orm.core.service.NwormImpl;
+import nw.orm.core.service.TransactionCallback;
+import nw.orm.core.session.HibernateSessionService;
+
+import org.hibernate.Criteria;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Example;
+import org.hibernate.criterion.Order;
+
+/**
+ * Spreads entities over several databases, each configured as its own {@link Nworm} service. Writes and lookups by
+ * id go to the shard picked by the {@link ShardResolver}, lookups by an id that does not reveal its shard and all other
+ * queries run on every shard in parallel and their results are merged.
+ * <p>
+ * Merged lists follow the order bys, or the keyset cursor keys, of the {@link QueryModifier}, comparing the ordered
+ * bean properties of the results, with criteria aliases resolved to their association paths; nulls sort last in
+ * ascending order. Lists that can not be ordered that way, for example by a property of a collection, fail. Each shard
+ * returns the rows up to the end of the requested page, which is then cut from the merged rows. Sql and hql lists
+ * keep the rows in shard order, their pages are cut the same way. Streams run shard by shard in shard order and
+ * reject paginated or ordered modifiers. Unique queries fail if more than one shard returns a result.
+ * <p>
+ * Transactions never span shards: units of work run on one shard, see {@link #executeInTransaction(Object, TransactionCallback)},
+ * and bulk writes grouped by shard commit shard by shard.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class ShardedNworm extends NeemClazz implements NwormHibernateService {
+
+	/** Numbers the executors for thread names. */
+	private static final AtomicInteger EXECUTOR_COUNT = new AtomicInteger();
+
+	/** The shards. */
+	private final List<NwormImpl> shards;
+
+	/** The shard resolver. */
+	private final ShardResolver resolver;
+
+	/** Runs queries on all shards. */
+	private final ExecutorService executor;
+
+	/**
+	 * Instantiates a new sharded service.
+	 *
+	 * @param shards the shards, their order must never change
+	 * @param resolver the shard resolver
+	 */
+	public ShardedNworm(List<? extends NwormImpl> shards, ShardResolver resolver) {
+		if (shards.isEmpty()) {
+			throw new IllegalArgumentException("at least one shard is required");
+		}
+		this.shards = new ArrayList<NwormImpl>(shards);
+		this.resolver = resolver;
+		final String prefix = "nworm-shard-" + EXECUTOR_COUNT.incrementAndGet() + "-";
+		this.executor = Executors.newFixedThreadPool(this.shards.size() * 2, new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, prefix + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Creates a sharded service over hibernate configuration files.
+	 *
+	 * @param resolver the shard resolver
+	 * @param configs the shard configurations, in shard order
+	 * @return the sharded service
+	 */
+	public static ShardedNworm create(ShardResolver resolver, String ... configs) {
+		List<NwormImpl> shards = new ArrayList<NwormImpl>();
+		for (String config : configs) {
+			shards.add(Nworm.getInstance(config));
+		}
+		return new ShardedNworm(shards, resolver);
+	}
+
+	/**
+	 * Gets the shard of a shard key.
+	 *
+	 * @param shardKey the shard key
+	 * @return the shard
+	 */
+	public NwormImpl shard(Object shardKey) {
+		int index = resolver.shardOf(shardKey, shards.size());
+		if (index < 0 || index >= shards.size()) {
+			throw new NwormQueryException("shard key " + shardKey + " resolved to missing shard " + index, null);
+		}
+		return shards.get(index);
+	}
+
+	/**
+	 * Gets the shard of an entity about to be written.
+	 *
+	 * @param entity the entity
+	 * @return the shard
+	 */
+	private NwormImpl shardOf(Object entity) {
+		return shard(resolver.shardKeyOf(entity));
+	}
+
+	/**
+	 * Finds the shard holding an entity.
+	 *
+	 * @param clazz the entity class
+	 * @param id the id
+	 * @return the shard, null if no shard holds the entity
+	 */
+	private NwormImpl locate(final Class<?> clazz, final Serializable id) {
+		Object key = resolver.shardKeyOf(clazz, id);
+		if (key != null) {
+			return shard(key);
+		}
+		List<Object> found = fanOut(new ShardCall<Object>() {
+
+			@Override
+			public Object call(NwormImpl shard) {
+				return shard.getById(clazz, id);
+			}
+		});
+		for (int i = 0; i < found.size(); i++) {
+			if (found.get(i) != null) {
+				return shards.get(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Runs a call on every shard in parallel.
+	 *
+	 * @param <R> the result type
+	 * @param call the call
+	 * @return the results in shard order
+	 */
+	private <R> List<R> fanOut(final ShardCall<R> call) {
+		List<Future<R>> futures = new ArrayList<Future<R>>();
+		for (final NwormImpl shard : shards) {
+			futures.add(executor.submit(new Callable<R>() {
+
+				@Override
+				public R call() {
+					return call.call(shard);
+				}
+			}));
+		}
+		List<R> out = new ArrayList<R>();
+		try {
+			for (Future<R> future : futures) {
+				out.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new NwormQueryException("interrupted while querying shards", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new NwormQueryException("", cause);
+		} finally {
+			for (Future<R> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Concatenates the lists returned by the shards.
+	 *
+	 * @param <T> the item type
+	 * @param call the call
+	 * @return the concatenated list
+	 */
+	private <T> List<T> concat(ShardCall<List<T>> call) {
+		List<T> out = new ArrayList<T>();
+		for (List<T> items : fanOut(call)) {
+			out.addAll(items);
+		}
+		return out;
+	}
+
+	/**
+	 * Gets the single result returned by the shards.
+	 *
+	 * @param <T> the result type
+	 * @param call the call
+	 * @return the result, null if no shard returned one
+	 */
+	private <T> T unique(ShardCall<T> call) {
+		T out = null;
+		for (T item : fanOut(call)) {
+			if (item != null) {
+				if (out != null) {
+					throw new NwormQueryException("unique query returned results from several shards", null);
+				}
+				out = item;
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Sums the counts returned by the shards.
+	 *
+	 * @param call the call
+	 * @return the sum
+	 */
+	private int sum(ShardCall<Integer> call) {
+		int out = 0;
+		for (Integer count : fanOut(call)) {
+			out += count.intValue();
+		}
+		return out;
+	}
+
+	/**
+	 * Creates the modifier each shard runs, fetching every row up to the end of the requested page.
+	 *
+	 * @param qm the requested modifier
+	 * @return the shard modifier
+	 */
+	private QueryModifier shardModifier(QueryModifier qm) {
+		QueryModifier shardQm = qm.copy();
+		if (qm.isPaginated()) {
+			shardQm.setPaginated(0, qm.getPageIndex() + qm.getMaxResult());
+		}
+		return shardQm;
+	}
+
+	/**
+	 * Merges the rows of the shards in the order of a modifier and cuts the requested page.
+	 *
+	 * @param <T> the row type
+	 * @param qm the requested modifier
+	 * @param rows the rows of all shards
+	 * @return the merged rows
+	 */
+	private <T> List<T> mergePage(QueryModifier qm, List<T> rows) {
+		sort(qm, rows);
+		if (!qm.isPaginated() && !qm.isKeysetPaginated()) {
+			return rows;
+		}
+		int from = qm.isPaginated() ? Math.min(qm.getPageIndex(), rows.size()) : 0;
+		int to = Math.min(from + qm.getMaxResult(), rows.size());
+		return new ArrayList<T>(rows.subList(from, to));
+	}
+
+	/**
+	 * Creates the sql modifier each shard runs, fetching every row up to the end of the requested page.
+	 *
+	 * @param sqlMod the requested modifier, may be null
+	 * @return the shard modifier
+	 */
+	private static SQLModifier shardModifier(SQLModifier sqlMod) {
+		if (sqlMod == null || !sqlMod.isPaginated()) {
+			return sqlMod;
+		}
+		SQLModifier shardMod = new SQLModifier(sqlMod.getQueryClazz());
+		shardMod.setPaginated(0, sqlMod.getPageIndex() + sqlMod.getMaxResult());
+		shardMod.setCacheable(sqlMod.isCacheable());
+		shardMod.setCacheRegion(sqlMod.getCacheRegion());
+		shardMod.setCacheMode(sqlMod.getCacheMode());
+		return shardMod;
+	}
+
+	/**
+	 * Cuts the requested page from the rows of the shards. Sql and hql rows can not be reordered by their query, the
+	 * page is cut from the rows in shard order.
+	 *
+	 * @param <T> the row type
+	 * @param sqlMod the requested modifier, may be null
+	 * @param rows the rows of all shards
+	 * @return the rows of the page
+	 */
+	private static <T> List<T> cutPage(SQLModifier sqlMod, List<T> rows) {
+		if (sqlMod == null || !sqlMod.isPaginated()) {
+			return rows;
+		}
+		int from = Math.min(sqlMod.getPageIndex(), rows.size());
+		int to = Math.min(from + sqlMod.getMaxResult(), rows.size());
+		return new ArrayList<T>(rows.subList(from, to));
+	}
+
+	/**
+	 * Sorts merged rows by the keyset keys or order bys of a modifier.
+	 *
+	 * @param qm the modifier
+	 * @param rows the rows
+	 * @throws NwormQueryException when the rows can not be ordered by these properties
+	 */
+	private void sort(QueryModifier qm, List<?> rows) {
+		final List<String> properties = new ArrayList<String>();
+		final List<Boolean> ascending = new ArrayList<Boolean>();
+		if (qm.isKeysetPaginated()) {
+			for (String property : qm.getKeysetCursor().getProperties()) {
+				properties.add(beanPath(qm, property));
+				ascending.add(Boolean.valueOf(qm.getKeysetCursor().isAscending()));
+			}
+		} else {
+			for (Order order : qm.getOrderBys()) {
+				properties.add(beanPath(qm, order.getPropertyName()));
+				ascending.add(Boolean.valueOf(order.isAscending()));
+			}
+		}
+		if (properties.isEmpty() || rows.size() < 2) {
+			return;
+		}
+		try {
+			Collections.sort(rows, new Comparator<Object>() {
+
+				@Override
+				public int compare(Object a, Object b) {
+					for (int i = 0; i < properties.size(); i++) {
+						int c = compareValues(readProperty(a, properties.get(i)), readProperty(b, properties.get(i)));
+						if (c != 0) {
+							return ascending.get(i).booleanValue() ? c : -c;
+						}
+					}
+					return 0;
+				}
+			});
+		} catch (IllegalArgumentException e) {
+			throw new NwormQueryException("Rows of " + qm.getQueryClazz().getName() + " can not be ordered across shards", e);
+		}
+	}
+
+	/**
+	 * Resolves the aliases of a criteria property to a bean path from the queried class, so that "r.name" on the
+	 * alias r of "regions" reads "regions.name".
+	 *
+	 * @param qm the modifier declaring the aliases
+	 * @param property the criteria property
+	 * @return the bean path
+	 */
+	private static String beanPath(QueryModifier qm, String property) {
+		String path = property;
+		// aliases may be declared on aliased paths, every pass resolves one of them
+		for (int pass = 0; pass <= qm.getAliases().size(); pass++) {
+			int dot = path.indexOf('.');
+			if (dot < 0) {
+				return path;
+			}
+			String head = path.substring(0, dot);
+			if (Criteria.ROOT_ALIAS.equals(head)) {
+				path = path.substring(dot + 1);
+				continue;
+			}
+			QueryAlias alias = null;
+			for (QueryAlias candidate : qm.getAliases()) {
+				if (head.equals(candidate.getAlias())) {
+					alias = candidate;
+					break;
+				}
+			}
+			if (alias == null) {
+				return path;
+			}
+			path = alias.getAssociationPath() + path.substring(dot);
+		}
+		return path;
+	}
+
+	/**
+	 * Compares two property values, nulls last.
+	 *
+	 * @param a the first value
+	 * @param b the second value
+	 * @return the comparison
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compareValues(Object a, Object b) {
+		if (a == null || b == null) {
+			return a == b ? 0 : (a == null ? 1 : -1);
+		}
+		if (!(a instanceof Comparable)) {
+			throw new IllegalArgumentException(a.getClass().getName() + " is not comparable");
+		}
+		return ((Comparable) a).compareTo(b);
+	}
+
+	/**
+	 * Reads a bean property, following dotted paths.
+	 *
+	 * @param bean the bean
+	 * @param path the property path
+	 * @return the property value
+	 */
+	private static Object readProperty(Object bean, String path) {
+		Object value = bean;
+		for (String name : path.split("\\.")) {
+			if (value == null) {
+				return null;
+			}
+			if (value instanceof Collection) {
+				throw new IllegalArgumentException(path + " passes through a collection");
+			}
+			value = readBeanProperty(value, name);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a bean property.
+	 *
+	 * @param bean the bean
+	 * @param name the property name
+	 * @return the property value
+	 */
+	private static Object readBeanProperty(Object bean, String name) {
+		try {
+			for (PropertyDescriptor pd : Introspector.getBeanInfo(bean.getClass()).getPropertyDescriptors()) {
+				Method getter = pd.getReadMethod();
+				if (pd.getName().equals(name) && getter != null) {
+					return getter.invoke(bean);
+				}
+			}
+		} catch (IntrospectionException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		} catch (InvocationTargetException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		throw new IllegalArgumentException(bean.getClass().getName() + " has no property " + name);
+	}
+
+	/**
+	 * Merges the keyset pages of the shards.
+	 *
+	 * @param <T> the row type
+	 * @param qm the requested modifier
+	 * @param pages the pages of all shards
+	 * @return the merged page
+	 */
+	private <T> KeysetPage<T> mergeKeysetPages(QueryModifier qm, List<KeysetPage<T>> pages) {
+		List<T> rows = new ArrayList<T>();
+		boolean more = false;
+		for (KeysetPage<T> page : pages) {
+			rows.addAll(page.getItems());
+			more |= page.hasNext();
+		}
+		List<T> out = mergePage(qm, rows);
+		KeysetCursor next = null;
+		if ((more || rows.size() > out.size()) && !out.isEmpty()) {
+			KeysetCursor cursor = qm.getKeysetCursor();
+			String[] keys = cursor.getProperties();
+			Object[] values = new Object[keys.length];
+			T last = out.get(out.size() - 1);
+			try {
+				for (int i = 0; i < keys.length; i++) {
+					values[i] = readProperty(last, beanPath(qm, keys[i]));
+				}
+			} catch (IllegalArgumentException e) {
+				throw new NwormQueryException("the next cursor of " + qm.getQueryClazz().getName() + " can not be read across shards", e);
+			}
+			next = cursor.after(values);
+		}
+		return new KeysetPage<T>(out, next);
+	}
+
+	/**
+	 * Splits items by shard, keeping their positions.
+	 *
+	 * @param items the items
+	 * @return the positions of the items of each shard, in shard order
+	 */
+	private List<List<Integer>> groupByShard(List<?> items) {
+		List<List<Integer>> groups = new ArrayList<List<Integer>>();
+		for (int i = 0; i < shards.size(); i++) {
+			groups.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < items.size(); i++) {
+			groups.get(shards.indexOf(shardOf(items.get(i)))).add(Integer.valueOf(i));
+		}
+		return groups;
+	}
+
+	/**
+	 * Picks items by position.
+	 *
+	 * @param items the items
+	 * @param positions the positions
+	 * @return the picked items
+	 */
+	private static List<Object> pick(List<?> items, List<Integer> positions) {
+		List<Object> out = new ArrayList<Object>();
+		for (Integer position : positions) {
+			out.add(items.get(position.intValue()));
+		}
+		return out;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getById(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public <T> T getById(final Class<T> clazz, final Serializable id) {
+		Object key = resolver.shardKeyOf(clazz, id);
+		if (key != null) {
+			return shard(key).getById(clazz, id);
+		}
+		for (T item : fanOut(new ShardCall<T>() {
+
+			@Override
+			public T call(NwormImpl shard) {
+				return shard.getById(clazz, id);
+			}
+		})) {
+			if (item != null) {
+				return item;
+			}
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	public <T> MultiGetResult<T> getByIds(final Class<T> clazz, Collection<? extends Serializable> ids) {
+		// ids carrying their shard key go to their shard, the others to every shard
+		final Map<NwormImpl, List<Serializable>> routed = new IdentityHashMap<NwormImpl, List<Serializable>>();
+		Set<Serializable> distinct = new LinkedHashSet<Serializable>();
+		for (Serializable id : ids) {
+			if (id == null || !distinct.add(id)) {
+				continue;
+			}
+			Object key = resolver.shardKeyOf(clazz, id);
+			for (NwormImpl shard : key == null ? shards : Collections.singletonList(shard(key))) {
+				List<Serializable> shardIds = routed.get(shard);
+				if (shardIds == null) {
+					shardIds = new ArrayList<Serializable>();
+					routed.put(shard, shardIds);
+				}
+				shardIds.add(id);
+			}
+		}
+		Map<Serializable, T> loaded = new HashMap<Serializable, T>();
+		for (MultiGetResult<T> part : fanOut(new ShardCall<MultiGetResult<T>>() {
+
+			@Override
+			public MultiGetResult<T> call(NwormImpl shard) {
+				List<Serializable> shardIds = routed.get(shard);
+				return shard.getByIds(clazz, shardIds == null ? Collections.<Serializable>emptyList() : shardIds);
+			}
+		})) {
+			loaded.putAll(part.getFound());
+		}
+		return new MultiGetResult<T>(distinct, loaded);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getById(java.lang.Class, java.io.Serializable, boolean)
+	 */
+	@Override
+	public <T> T getById(Class<T> clazz, Serializable id, boolean lock) {
+		if (!lock) {
+			return getById(clazz, id);
+		}
+		NwormImpl shard = locate(clazz, id);
+		return shard == null ? null : shard.getById(clazz, id, true);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getAll(java.lang.Class)
+	 */
+	@Override
+	public <T> List<T> getAll(final Class<T> clazz) {
+		return concat(new ShardCall<List<T>>() {
+
+			@Override
+			public List<T> call(NwormImpl shard) {
+				return shard.getAll(clazz);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getBySQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> List<T> getBySQL(final Class<T> returnClazz, final String sql, SQLModifier sqlMod, final QueryParameter ... params) {
+		final SQLModifier shardMod = shardModifier(sqlMod);
+		return cutPage(sqlMod, concat(new ShardCall<List<T>>() {
+
+			@Override
+			public List<T> call(NwormImpl shard) {
+				return shard.getBySQL(returnClazz, sql, shardMod, params);
+			}
+		}));
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByCriteria(java.lang.Class, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> T getByCriteria(final Class<T> entityClass, final Criterion ... criteria) {
+		return unique(new ShardCall<T>() {
+
+			@Override
+			public T call(NwormImpl shard) {
+				return shard.getByCriteria(entityClass, criteria);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByCriteria(java.lang.Class, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> List<T> getListByCriteria(final Class<T> entityClass, final Criterion ... criteria) {
+		return concat(new ShardCall<List<T>>() {
+
+			@Override
+			public List<T> call(NwormImpl shard) {
+				return shard.getListByCriteria(entityClass, criteria);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(java.lang.String, java.util.Map, java.lang.Class)
+	 */
+	@Override
+	public <T> T getByHQL(String hql, Map<String, Object> parameters, Class<T> resultClass) {
+		return getByHQL(resultClass, hql, QueryParameter.fromMap(parameters));
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> T getByHQL(Class<T> resultClass, String hql, QueryParameter ... parameters) {
+		return getByHQL(resultClass, hql, null, parameters);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> T getByHQL(final Class<T> resultClass, final String hql, final SQLModifier modifier, final QueryParameter ... parameters) {
+		return unique(new ShardCall<T>() {
+
+			@Override
+			public T call(NwormImpl shard) {
+				return shard.getByHQL(resultClass, hql, modifier, parameters);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(java.lang.String, java.util.Map, java.lang.Class)
+	 */
+	@Override
+	public <T> List<T> getListByHQL(String hql, Map<String, Object> parameters, Class<T> resultClass) {
+		return getListByHQL(resultClass, hql, QueryParameter.fromMap(parameters));
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> List<T> getListByHQL(Class<T> resultClass, String hql, QueryParameter ... parameters) {
+		return getListByHQL(resultClass, hql, null, parameters);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> List<T> getListByHQL(final Class<T> resultClass, final String hql, SQLModifier modifier, final QueryParameter ... parameters) {
+		final SQLModifier shardMod = shardModifier(modifier);
+		return cutPage(modifier, concat(new ShardCall<List<T>>() {
+
+			@Override
+			public List<T> call(NwormImpl shard) {
+				return shard.getListByHQL(resultClass, hql, shardMod, parameters);
+			}
+		}));
+	}
+
+	/**
+	 * Compiles the hql on the first shard, compiled queries run on any shard.
+	 *
+	 * @param <T> the result type
+	 * @param entityClass the result class
+	 * @param hql the hql
+	 * @return the compiled query
+	 */
+	@Override
+	public <T> CompiledQuery<T> compileHQL(Class<T> entityClass, String hql) {
+		return shards.get(0).compileHQL(entityClass, hql);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(nw.orm.core.query.CompiledQuery, java.lang.Object[])
+	 */
+	@Override
+	public <T> T getByHQL(final CompiledQuery<T> query, final Object ... values) {
+		return unique(new ShardCall<T>() {
+
+			@Override
+			public T call(NwormImpl shard) {
+				return shard.getByHQL(query, values);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(nw.orm.core.query.CompiledQuery, java.lang.Object[])
+	 */
+	@Override
+	public <T> List<T> getListByHQL(final CompiledQuery<T> query, final Object ... values) {
+		return concat(new ShardCall<List<T>>() {
+
+			@Override
+			public List<T> call(NwormImpl shard) {
+				return shard.getListByHQL(query, values);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> T getByCriteria(final Class<T> returnClazz, final QueryModifier qm, final Criterion ... criteria) {
+		return unique(new ShardCall<T>() {
+
+			@Override
+			public T call(NwormImpl shard) {
+				return shard.getByCriteria(returnClazz, qm, criteria);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> List<T> getListByCriteria(final Class<T> returnClazz, QueryModifier qm, final Criterion ... criteria) {
+		final QueryModifier shardQm = shardModifier(qm);
+		return mergePage(qm, concat(new ShardCall<List<T>>() {
+
+			@Override
+			public List<T> call(NwormImpl shard) {
+				return shard.getListByCriteria(returnClazz, shardQm, criteria);
+			}
+		}));
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getPageByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> Page<T> getPageByCriteria(final Class<T> returnClazz, QueryModifier qm, final Criterion ... criteria) {
+		final QueryModifier shardQm = shardModifier(qm);
+		long total = 0;
+		List<T> rows = new ArrayList<T>();
+		for (Page<T> page : fanOut(new ShardCall<Page<T>>() {
+
+			@Override
+			public Page<T> call(NwormImpl shard) {
+				return shard.getPageByCriteria(returnClazz, shardQm, criteria);
+			}
+		})) {
+			total += page.getTotal();
+			rows.addAll(page.getItems());
+		}
+		return new Page<T>(mergePage(qm, rows), total, qm.getPageIndex(), qm.getMaxResult());
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getKeysetPageByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	public <T> KeysetPage<T> getKeysetPageByCriteria(final Class<T> returnClazz, final QueryModifier qm, final Criterion ... criteria) {
+		return mergeKeysetPages(qm, fanOut(new ShardCall<KeysetPage<T>>() {
+
+			@Override
+			public KeysetPage<T> call(NwormImpl shard) {
+				return shard.getKeysetPageByCriteria(returnClazz, qm, criteria);
+			}
+		}));
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getKeysetPageByHQL(java.lang.Class, java.lang.String, java.lang.String, nw.orm.core.query.QueryModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public <T> KeysetPage<T> getKeysetPageByHQL(final Class<T> entityClass, final String hql, final String alias, final QueryModifier qm,
+			final QueryParameter ... parameters) {
+		return mergeKeysetPages(qm, fanOut(new ShardCall<KeysetPage<T>>() {
+
+			@Override
+			public KeysetPage<T> call(NwormImpl shard) {
+				return shard.getKeysetPageByHQL(entityClass, hql, alias, qm, parameters);
+			}
+		}));
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByExample(java.lang.Class, org.hibernate.criterion.Example)
+	 */
+	@Override
+	public <T> T getByExample(final Class<T> clazz, final Example example) {
+		return unique(new ShardCall<T>() {
+
+			@Override
+			public T call(NwormImpl shard) {
+				return shard.getByExample(clazz, example);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByExample(nw.orm.core.query.QueryModifier, org.hibernate.criterion.Example)
+	 */
+	@Override
+	public <T> List<T> getListByExample(QueryModifier qm, final Example example) {
+		final QueryModifier shardQm = shardModifier(qm);
+		return mergePage(qm, concat(new ShardCall<List<T>>() {
+
+			@Override
+			public List<T> call(NwormImpl shard) {
+				return shard.getListByExample(shardQm, example);
+			}
+		}));
+	}
+
+	/**
+	 * Not supported across shards, scroll a single shard through {@link #shard(Object)}.
+	 *
+	 * @param <T> the entity type
+	 * @param entityClass the entity class
+	 * @param fetchSize the fetch size
+	 * @return never
+	 */
+	@Override
+	public <T> ScrollIterator<T> scrollAll(Class<T> entityClass, int fetchSize) {
+		throw new UnsupportedOperationException("scrolling spans a single shard, use shard(key) or streamByCriteria");
+	}
+
+	/**
+	 * Not supported across shards, scroll a single shard through {@link #shard(Object)}.
+	 *
+	 * @param <T> the result type
+	 * @param returnClazz the result class
+	 * @param qm the query modifier
+	 * @param fetchSize the fetch size
+	 * @param criteria the criteria
+	 * @return never
+	 */
+	@Override
+	public <T> ScrollIterator<T> scrollByCriteria(Class<T> returnClazz, QueryModifier qm, int fetchSize, Criterion ... criteria) {
+		throw new UnsupportedOperationException("scrolling spans a single shard, use shard(key) or streamByCriteria");
+	}
+
+	/**
+	 * Not supported across shards, scroll a single shard through {@link #shard(Object)}.
+	 *
+	 * @param <T> the result type
+	 * @param entityClass the result class
+	 * @param hql the hql
+	 * @param fetchSize the fetch size
+	 * @param queryParameters the query parameters
+	 * @return never
+	 */
+	@Override
+	public <T> ScrollIterator<T> scrollByHQL(Class<T> entityClass, String hql, int fetchSize, QueryParameter ... queryParameters) {
+		throw new UnsupportedOperationException("scrolling spans a single shard, use shard(key) or streamByHQL");
+	}
+
+	/**
+	 * Not supported across shards, scroll a single shard through {@link #shard(Object)}.
+	 *
+	 * @param <T> the result type
+	 * @param returnClazz the result class
+	 * @param sql the sql
+	 * @param sqlMod the sql modifier
+	 * @param fetchSize the fetch size
+	 * @param params the params
+	 * @return never
+	 */
+	@Override
+	public <T> ScrollIterator<T> scrollBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, int fetchSize, QueryParameter ... params) {
+		throw new UnsupportedOperationException("scrolling spans a single shard, use shard(key) or streamBySQL");
+	}
+
+	/**
+	 * Streams the rows of each shard in turn, in shard order. The rows can not be paged or ordered across shards,
+	 * paginated or ordered modifiers are rejected.
+	 *
+	 * @param <T> the result type
+	 * @param returnClazz the result class
+	 * @param qm the query modifier
+	 * @param fetchSize the fetch size
+	 * @param callback the callback
+	 * @param criteria the criteria
+	 * @return the number of rows processed
+	 * @throws UnsupportedOperationException if the modifier is paginated or ordered
+	 */
+	@Override
+	public <T> long streamByCriteria(Class<T> returnClazz, QueryModifier qm, int fetchSize, RowCallback<? super T> callback, Criterion ... criteria) {
+		checkStreamable(qm);
+		StopWatchingCallback<T> rows = new StopWatchingCallback<T>(callback);
+		long count = 0;
+		for (NwormImpl shard : shards) {
+			count += shard.streamByCriteria(returnClazz, qm, fetchSize, rows, criteria);
+			if (rows.stopped) {
+				break;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Streams the rows of each shard in turn, in shard order. An order by of the hql orders the rows of each shard
+	 * only.
+	 *
+	 * @param <T> the result type
+	 * @param entityClass the result class
+	 * @param hql the hql
+	 * @param fetchSize the fetch size
+	 * @param callback the callback
+	 * @param queryParameters the query parameters
+	 * @return the number of rows processed
+	 */
+	@Override
+	public <T> long streamByHQL(Class<T> entityClass, String hql, int fetchSize, RowCallback<? super T> callback, QueryParameter ... queryParameters) {
+		StopWatchingCallback<T> rows = new StopWatchingCallback<T>(callback);
+		long count = 0;
+		for (NwormImpl shard : shards) {
+			count += shard.streamByHQL(entityClass, hql, fetchSize, rows, queryParameters);
+			if (rows.stopped) {
+				break;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Streams the rows of each shard in turn, in shard order. The rows can not be paged across shards, paginated
+	 * modifiers are rejected.
+	 *
+	 * @param <T> the result type
+	 * @param returnClazz the result class
+	 * @param sql the sql
+	 * @param sqlMod the sql modifier
+	 * @param fetchSize the fetch size
+	 * @param callback the callback
+	 * @param params the params
+	 * @return the number of rows processed
+	 * @throws UnsupportedOperationException if the modifier is paginated
+	 */
+	@Override
+	public <T> long streamBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, int fetchSize, RowCallback<? super T> callback, QueryParameter ... params) {
+		checkStreamable(sqlMod);
+		StopWatchingCallback<T> rows = new StopWatchingCallback<T>(callback);
+		long count = 0;
+		for (NwormImpl shard : shards) {
+			count += shard.streamBySQL(returnClazz, sql, sqlMod, fetchSize, rows, params);
+			if (rows.stopped) {
+				break;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Rejects the modifiers of streams that would need merging across shards.
+	 *
+	 * @param mod the modifier, may be null
+	 */
+	private static void checkStreamable(SQLModifier mod) {
+		if (mod == null) {
+			return;
+		}
+		boolean ordered = false;
+		if (mod instanceof QueryModifier) {
+			QueryModifier qm = (QueryModifier) mod;
+			ordered = qm.isKeysetPaginated() || !qm.getOrderBys().isEmpty();
+		}
+		if (mod.isPaginated() || ordered) {
+			throw new UnsupportedOperationException("streams run shard by shard and can not be paged or ordered across shards, "
+					+ "use the list or page reads or stream a single shard through shard(key)");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#executeSQLUpdate(java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public int executeSQLUpdate(final String sql, final QueryParameter ... params) {
+		return sum(new ShardCall<Integer>() {
+
+			@Override
+			public Integer call(NwormImpl shard) {
+				return Integer.valueOf(shard.executeSQLUpdate(sql, params));
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#executeHQLUpdate(java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public int executeHQLUpdate(final String hql, final QueryParameter ... params) {
+		return sum(new ShardCall<Integer>() {
+
+			@Override
+			public Integer call(NwormImpl shard) {
+				return Integer.valueOf(shard.executeHQLUpdate(hql, params));
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#softDelete(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public boolean softDelete(Class<? extends NwormEntity<?>> clazz, Serializable id) {
+		NwormImpl shard = locate(clazz, id);
+		return shard != null && shard.softDelete(clazz, id);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#bulkSoftDelete(java.lang.Class, java.util.List)
+	 */
+	@Override
+	public boolean bulkSoftDelete(final Class<? extends NwormEntity<?>> clazz, final List<Serializable> ids) {
+		boolean outcome = true;
+		for (Boolean done : fanOut(new ShardCall<Boolean>() {
+
+			@Override
+			public Boolean call(NwormImpl shard) {
+				return Boolean.valueOf(shard.bulkSoftDelete(clazz, ids));
+			}
+		})) {
+			outcome &= done.booleanValue();
+		}
+		return outcome;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#softDeleteByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	public int softDeleteByIds(final Class<? extends NwormEntity<?>> clazz, final Collection<? extends Serializable> ids) {
+		return sum(new ShardCall<Integer>() {
+
+			@Override
+			public Integer call(NwormImpl shard) {
+				return Integer.valueOf(shard.softDeleteByIds(clazz, ids));
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#remove(java.lang.Object)
+	 */
+	@Override
+	public boolean remove(Object obj) {
+		return shardOf(obj).remove(obj);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#remove(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public boolean remove(Class<?> clazz, Serializable pk) {
+		NwormImpl shard = locate(clazz, pk);
+		return shard != null && shard.remove(clazz, pk);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#bulkRemove(java.lang.Class, java.util.List)
+	 */
+	@Override
+	public boolean bulkRemove(Class<?> clazz, List<Serializable> pks) {
+		removeByIds(clazz, pks);
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#removeByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	public int removeByIds(final Class<?> clazz, final Collection<? extends Serializable> pks) {
+		return sum(new ShardCall<Integer>() {
+
+			@Override
+			public Integer call(NwormImpl shard) {
+				return Integer.valueOf(shard.removeByIds(clazz, pks));
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#create(java.lang.Object)
+	 */
+	@Override
+	public Serializable create(Object obj) {
+		return shardOf(obj).create(obj);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#createBulk(java.util.List)
+	 */
+	@Override
+	public List<Serializable> createBulk(List<?> items) {
+		Serializable[] ids = new Serializable[items.size()];
+		List<List<Integer>> groups = groupByShard(items);
+		for (int s = 0; s < shards.size(); s++) {
+			List<Integer> positions = groups.get(s);
+			if (positions.isEmpty()) {
+				continue;
+			}
+			List<Serializable> created = shards.get(s).createBulk(pick(items, positions));
+			for (int i = 0; i < positions.size(); i++) {
+				ids[positions.get(i).intValue()] = created.get(i);
+			}
+		}
+		List<Serializable> out = new ArrayList<Serializable>();
+		Collections.addAll(out, ids);
+		return out;
+	}
+
+	/**
+	 * Inserts the items of each shard in turn. A failure leaves the items of the previous shards committed.
+	 *
+	 * @param items the items
+	 * @param options the options
+	 * @return the combined result, ids in item order
+	 */
+	@Override
+	public BulkInsertResult createBulk(List<?> items, BulkInsertOptions options) {
+		Serializable[] ids = new Serializable[items.size()];
+		List<ChunkStat> chunks = new ArrayList<ChunkStat>();
+		List<List<Integer>> groups = groupByShard(items);
+		for (int s = 0; s < shards.size(); s++) {
+			List<Integer> positions = groups.get(s);
+			if (positions.isEmpty()) {
+				continue;
+			}
+			BulkInsertResult created = shards.get(s).createBulk(pick(items, positions), options);
+			for (int i = 0; i < positions.size(); i++) {
+				ids[positions.get(i).intValue()] = created.getIds().get(i);
+			}
+			chunks.addAll(created.getChunks());
+		}
+		BulkInsertResult result = new BulkInsertResult(items.size());
+		for (Serializable id : ids) {
+			result.addId(id);
+		}
+		for (ChunkStat chunk : chunks) {
+			result.addChunk(chunk);
+		}
+		result.markCommitted();
+		return result;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#update(java.lang.Object)
+	 */
+	@Override
+	public boolean update(Object obj) {
+		return shardOf(obj).update(obj);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#updateBulk(java.util.List)
+	 */
+	@Override
+	public boolean updateBulk(List<?> items) {
+		boolean outcome = true;
+		List<List<Integer>> groups = groupByShard(items);
+		for (int s = 0; s < shards.size(); s++) {
+			if (!groups.get(s).isEmpty()) {
+				outcome &= shards.get(s).updateBulk(pick(items, groups.get(s)));
+			}
+		}
+		return outcome;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#toggleActive(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public boolean toggleActive(Class<? extends NwormEntity<?>> clazz, Serializable id) {
+		NwormImpl shard = locate(clazz, id);
+		return shard != null && shard.toggleActive(clazz, id);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#createOrUpdate(java.lang.Object)
+	 */
+	@Override
+	public boolean createOrUpdate(Object obj) {
+		return shardOf(obj).createOrUpdate(obj);
+	}
+
+	/**
+	 * Not supported, shards have no common session service.
+	 *
+	 * @return never
+	 */
+	@Override
+	public HibernateSessionService getSessionService() {
+		throw new UnsupportedOperationException("each shard has its own session service, use shard(key).getSessionService()");
+	}
+
+	/**
+	 * Not supported, transactions never span shards.
+	 *
+	 * @param <T> the result type
+	 * @param work the work
+	 * @return never
+	 */
+	@Override
+	public <T> T executeInTransaction(TransactionCallback<T> work) {
+		throw new UnsupportedOperationException("transactions never span shards, use executeInTransaction(shardKey, work)");
+	}
+
+	/**
+	 * Executes a unit of work on the shard of a shard key.
+	 *
+	 * @param <T> the result type
+	 * @param shardKey the shard key
+	 * @param work the work
+	 * @return the result of the work
+	 */
+	public <T> T executeInTransaction(Object shardKey, TransactionCallback<T> work) {
+		return shard(shardKey).executeInTransaction(work);
+	}
+
+	/**
+	 * Stops the threads querying the shards.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the time unit
+	 * @return true, if all queries finished in time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		executor.shutdown();
+		return executor.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Gets the shards.
+	 *
+	 * @return the shards
+	 */
+	public List<NwormImpl> getShards() {
+		return new ArrayList<NwormImpl>(shards);
+	}
+
+	/**
+	 * Gets the shard resolver.
+	 *
+	 * @return the resolver
+	 */
+	public ShardResolver getResolver() {
+		return resolver;
+	}
+
+	/**
+	 * A call made on one shard.
+	 *
+	 * @param <R> the result type
+	 */
+	private interface ShardCall<R> {
+
+		/**
+		 * Calls the shard.
+		 *
+		 * @param shard the shard
+		 * @return the result
+		 */
+		R call(NwormImpl shard);
+	}
+
+	/**
+	 * Remembers when a row callback asks to stop, so the next shards are not streamed.
+	 *
+	 * @param <T> the row type
+	 */
+	private static final class StopWatchingCallback<T> implements RowCallback<T> {
+
+		/** The callback. */
+		private final RowCallback<? super T> callback;
+
+		/** Whether the callback asked to stop. */
+		private boolean stopped;
+
+		/**
+		 * Instantiates a new stop watching callback.
+		 *
+		 * @param callback the callback
+		 */
+		private StopWatchingCallback(RowCallback<? super T> callback) {
+			this.callback = callback;
+		}
+
+		/* (non-Javadoc)
+		 * @see nw.orm.core.query.RowCallback#processRow(java.lang.Object)
+		 */
+		@Override
+		public boolean processRow(T row) {
+			if (!callback.processRow(row)) {
+				stopped = true;
+				return false;
+			}
+			return true;
+		}
+	}
+
+}
@@ -4,6 +4,8 @@ import java.util.Properties;
 
 import javax.naming.OperationNotSupportedException;
 
+import nw.orm.core.interceptor.NwormInterceptor;
+import nw.orm.core.session.EmbeddedDatabase;
 import nw.orm.core.session.HibernateSessionFactory;
 import nw.orm.core.session.HibernateSessionService;
 
@@ -139,6 +141,44 @@ public class Nworm extends NwormImpl {
 		return service;
 	}
 
+	/**
+	 * Gets the single instance of Nworm for an embedded database, building its session factory without any XML
+	 * on first use.
+	 *
+	 * @param database the embedded database
+	 * @return a single database service instance
+	 */
+	public static Nworm getInstance(EmbeddedDatabase database) {
+		return getInstance(database, false);
+	}
+
+	/**
+	 * Gets the single instance of Nworm for an embedded database, building its session factory without any XML
+	 * on first use.
+	 *
+	 * @param database the embedded database
+	 * @param reInitialize if true, closes the previous database session factory instance if it exists and returns a new instance
+	 * @return a single database service instance
+	 * @throws IllegalStateException if the session factory can not be built
+	 */
+	public static Nworm getInstance(EmbeddedDatabase database, boolean reInitialize) {
+		Nworm service = (Nworm) getManager(database.getConfigName());
+		if(reInitialize && service != null){
+			service.closeFactory();
+			service = null;
+		}
+		if (service == null) {
+			synchronized (Nworm.class) {
+				service = new Nworm();
+				service.init(database);
+				if(!service.isInitializedSuccessfully()){
+					throw new IllegalStateException("Initialization of the embedded database " + database.getName() + " was unsuccessful.");
+				}
+			}
+		}
+		return service;
+	}
+
 	/**
 	 * Instantiates a new nworm.
 	 */
@@ -155,8 +195,9 @@ public class Nworm extends NwormImpl {
 	private void init(String configFile, Properties props){
 		conf = new HibernateSessionFactory();
 		try {
-			conf.init(props, configFile);
+			conf.init(props, configFile, new NwormInterceptor());
 			sxnManager = new HibernateSessionService(conf);
+			initMetrics(props == null ? configFile : configFile + "_" + props.getProperty("config.name"));
 			setInitializedSuccessfully(true);
 		} catch (Exception e) {
 			logger.error("Exception ", e);
@@ -169,6 +210,25 @@ public class Nworm extends NwormImpl {
 		}
 	}
 
+	/**
+	 * Inits the service for an embedded database.
+	 *
+	 * @param database the embedded database
+	 */
+	private void init(EmbeddedDatabase database){
+		conf = new HibernateSessionFactory();
+		try {
+			conf.init(database, new NwormInterceptor());
+			sxnManager = new HibernateSessionService(conf);
+			initMetrics(database.getConfigName());
+			setInitializedSuccessfully(true);
+		} catch (Exception e) {
+			logger.error("Exception ", e);
+			setInitializedSuccessfully(false);
+		}
+		putManager(database.getConfigName(), this);
+	}
+
 	/**
 	 * Log.
 	 *
@@ -185,6 +245,7 @@ public class Nworm extends NwormImpl {
 		if(sxnManager.getFactory() != null){
 			sxnManager.getFactory().close();
 		}
+		getMetrics().unregisterMBeans();
 	}
 
 }
@@ -1,11 +1,22 @@
 package nw.orm.core.service;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import nw.orm.core.NwormEntity;
+import nw.orm.core.bulk.BulkInsertOptions;
+import nw.orm.core.bulk.BulkInsertResult;
 import nw.orm.core.exception.NwormQueryException;
+import nw.orm.core.query.CompiledQuery;
+import nw.orm.core.query.KeysetPage;
+import nw.orm.core.query.Page;
 import nw.orm.core.query.QueryModifier;
 import nw.orm.core.query.QueryParameter;
+import nw.orm.core.query.RowCallback;
+import nw.orm.core.query.SQLModifier;
+import nw.orm.core.query.ScrollIterator;
 import nw.orm.core.session.HibernateSessionService;
 
 import org.hibernate.criterion.Criterion;
@@ -85,6 +96,66 @@ public interface NwormHibernateService extends NwormService {
 	 */
 	public abstract <T> List<T> getListByHQL(Class<T> entityClass, String hql, QueryParameter... queryParameters);
 
+	/**
+	 * Retrieves a unique entry using the specified hql, applying the cache settings of the modifier.
+	 *
+	 * @param <T> The target entity type
+	 * @param entityClass The target entity class reference
+	 * @param hql target hql with specified restraictions to retrieve data set
+	 * @param modifier cache settings, may be null
+	 * @param queryParameters array of query parameters defined in the hql
+	 * @return A unique entry representing the filtered entity
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> T getByHQL(Class<T> entityClass, String hql, SQLModifier modifier, QueryParameter... queryParameters);
+
+	/**
+	 * Retrieves a list using the specified hql, applying the paging and cache settings of the modifier.
+	 *
+	 * @param <T> The target entity type
+	 * @param entityClass The target entity class reference
+	 * @param hql target hql with specified restraictions to retrieve data set
+	 * @param modifier paging and cache settings, may be null
+	 * @param queryParameters array of query parameters defined in the hql
+	 * @return list of entities matching hql restrictions
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> List<T> getListByHQL(Class<T> entityClass, String hql, SQLModifier modifier, QueryParameter... queryParameters);
+
+	/**
+	 * Compiles a hql query for repeated execution. The hql is validated and its soft delete rewrite, parameter metadata
+	 * and result handling are resolved once; compiling the same hql and result class again returns the same handle.
+	 *
+	 * @param <T> The target entity type
+	 * @param entityClass The target entity class reference
+	 * @param hql target hql with specified restraictions to retrieve data set
+	 * @return a reusable query handle
+	 * @throws NwormQueryException when the hql is invalid
+	 */
+	public abstract <T> CompiledQuery<T> compileHQL(Class<T> entityClass, String hql);
+
+	/**
+	 * Executes a compiled query expected to return at most one entry.
+	 *
+	 * @param <T> The target entity type
+	 * @param query the compiled query
+	 * @param values parameter values in the order of {@link CompiledQuery#getParameterNames()}
+	 * @return A unique entry representing the filtered entity
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> T getByHQL(CompiledQuery<T> query, Object... values);
+
+	/**
+	 * Executes a compiled query.
+	 *
+	 * @param <T> The target entity type
+	 * @param query the compiled query
+	 * @param values parameter values in the order of {@link CompiledQuery#getParameterNames()}
+	 * @return list of entities matching hql restrictions
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> List<T> getListByHQL(CompiledQuery<T> query, Object... values);
+
 	/**
 	 * Retrieves a unique entry using the specified criteria.
 	 *
@@ -110,6 +181,49 @@ public interface NwormHibernateService extends NwormService {
 	 */
 	public abstract <T> List<T> getListByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion... criteria);
 
+	/**
+	 * Reads a page and the total number of matching entries in a single session. The total is counted with the same
+	 * criteria, aliases and soft delete filter, leaving out projections, ordering and paging. Use
+	 * {@link QueryModifier#setTotalCountCacheTtl(long)} to reuse the count across page turns.
+	 *
+	 * @param <T> The target entity type
+	 * @param returnClazz the return class reference
+	 * @param qm the query modifier used to garnish the search, usually paginated
+	 * @param criteria query filter criteria
+	 * @return the page with the total count
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> Page<T> getPageByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion... criteria);
+
+	/**
+	 * Reads a page using keyset (seek) pagination. The query modifier must have been set up with
+	 * {@link QueryModifier#setKeysetPaginated(nw.orm.core.query.KeysetCursor, int)}; the returned page carries the cursor
+	 * to pass in for the following page.
+	 *
+	 * @param <T> The target entity type
+	 * @param returnClazz the return class reference
+	 * @param qm the keyset paginated query modifier
+	 * @param criteria query filter criteria
+	 * @return the page and the cursor of the next page
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> KeysetPage<T> getKeysetPageByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion... criteria);
+
+	/**
+	 * Reads a page of a hql query using keyset (seek) pagination. The seek predicate and ordering are appended to the hql,
+	 * which must therefore not contain an order by clause.
+	 *
+	 * @param <T> The target entity type
+	 * @param entityClass The target entity class reference
+	 * @param hql target hql with specified restraictions to retrieve data set
+	 * @param alias the alias of the queried entity in the hql, null if the hql declares none
+	 * @param qm the keyset paginated query modifier
+	 * @param queryParameters array of query parameters defined in the hql
+	 * @return the page and the cursor of the next page
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> KeysetPage<T> getKeysetPageByHQL(Class<T> entityClass, String hql, String alias, QueryModifier qm, QueryParameter... queryParameters);
+
 	/**
 	 * Gets the by example.
 	 *
@@ -131,6 +245,140 @@ public interface NwormHibernateService extends NwormService {
 	public abstract <T> List<T> getListByExample(QueryModifier qm,
 			Example example);
 
+	/**
+	 * Inserts a large list of items in chunks using JDBC batching. Each chunk is flushed in batches and the
+	 * session is cleared in between so memory use does not grow with the list. Depending on the options the
+	 * transaction is committed every few chunks, in which case chunks committed before a failure remain in the database.
+	 *
+	 * @param items the items to insert
+	 * @param options chunk, batch and commit settings
+	 * @return generated ids and per chunk timings
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract BulkInsertResult createBulk(List<?> items, BulkInsertOptions options);
+
+	/**
+	 * Streams all entries of an entity without loading them into a list.
+	 *
+	 * @param <T> The target entity type
+	 * @param entityClass The target entity class reference
+	 * @param fetchSize the JDBC fetch size, also the number of rows between session clears
+	 * @return a forward only iterator that must be closed when not read to the end
+	 * @throws NwormQueryException when an error occurs
+	 * @see #getAll(Class)
+	 */
+	public abstract <T> ScrollIterator<T> scrollAll(Class<T> entityClass, int fetchSize);
+
+	/**
+	 * Streams the result of a criteria query using a forward only cursor. Soft deleted entries are filtered out as with
+	 * {@link #getListByCriteria(Class, QueryModifier, Criterion...)}.
+	 *
+	 * @param <T> The target entity type
+	 * @param returnClazz the return class reference
+	 * @param qm the query modifier used to garnish the search
+	 * @param fetchSize the JDBC fetch size, also the number of rows between session clears
+	 * @param criteria query filter criteria
+	 * @return a forward only iterator that must be closed when not read to the end
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> ScrollIterator<T> scrollByCriteria(Class<T> returnClazz, QueryModifier qm, int fetchSize, Criterion... criteria);
+
+	/**
+	 * Streams the result of a hql query using a forward only cursor. Soft deleted entries are filtered out as with
+	 * {@link #getListByHQL(Class, String, QueryParameter...)}.
+	 *
+	 * @param <T> The target entity type
+	 * @param entityClass The target entity class reference
+	 * @param hql target hql with specified restraictions to retrieve data set
+	 * @param fetchSize the JDBC fetch size, also the number of rows between session clears
+	 * @param queryParameters array of query parameters defined in the hql
+	 * @return a forward only iterator that must be closed when not read to the end
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> ScrollIterator<T> scrollByHQL(Class<T> entityClass, String hql, int fetchSize, QueryParameter... queryParameters);
+
+	/**
+	 * Streams the result of a sql query using a forward only cursor.
+	 *
+	 * @param <T> The target entity type
+	 * @param returnClazz return type for the entity
+	 * @param sql the sql to be executed
+	 * @param sqlMod see {@link SQLModifier}, may be null
+	 * @param fetchSize the JDBC fetch size, also the number of rows between session clears
+	 * @param params see {@link QueryParameter}
+	 * @return a forward only iterator that must be closed when not read to the end
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract <T> ScrollIterator<T> scrollBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, int fetchSize, QueryParameter... params);
+
+	/**
+	 * Passes every row of a criteria query to a callback.
+	 *
+	 * @param <T> The target entity type
+	 * @param returnClazz the return class reference
+	 * @param qm the query modifier used to garnish the search
+	 * @param fetchSize the JDBC fetch size, also the number of rows between session clears
+	 * @param callback receives the rows
+	 * @param criteria query filter criteria
+	 * @return the number of rows processed
+	 * @throws NwormQueryException when an error occurs
+	 * @see #scrollByCriteria(Class, QueryModifier, int, Criterion...)
+	 */
+	public abstract <T> long streamByCriteria(Class<T> returnClazz, QueryModifier qm, int fetchSize, RowCallback<? super T> callback, Criterion... criteria);
+
+	/**
+	 * Passes every row of a hql query to a callback.
+	 *
+	 * @param <T> The target entity type
+	 * @param entityClass The target entity class reference
+	 * @param hql target hql with specified restraictions to retrieve data set
+	 * @param fetchSize the JDBC fetch size, also the number of rows between session clears
+	 * @param callback receives the rows
+	 * @param queryParameters array of query parameters defined in the hql
+	 * @return the number of rows processed
+	 * @throws NwormQueryException when an error occurs
+	 * @see #scrollByHQL(Class, String, int, QueryParameter...)
+	 */
+	public abstract <T> long streamByHQL(Class<T> entityClass, String hql, int fetchSize, RowCallback<? super T> callback, QueryParameter... queryParameters);
+
+	/**
+	 * Passes every row of a sql query to a callback.
+	 *
+	 * @param <T> The target entity type
+	 * @param returnClazz return type for the entity
+	 * @param sql the sql to be executed
+	 * @param sqlMod see {@link SQLModifier}, may be null
+	 * @param fetchSize the JDBC fetch size, also the number of rows between session clears
+	 * @param callback receives the rows
+	 * @param params see {@link QueryParameter}
+	 * @return the number of rows processed
+	 * @throws NwormQueryException when an error occurs
+	 * @see #scrollBySQL(Class, String, SQLModifier, int, QueryParameter...)
+	 */
+	public abstract <T> long streamBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, int fetchSize, RowCallback<? super T> callback, QueryParameter... params);
+
+	/**
+	 * Soft deletes all entries with the specified primary keys using set based update statements.
+	 * Large id lists are split into several IN lists, all executed in one transaction.
+	 *
+	 * @param entityClass the entity class
+	 * @param ids primary keys of entries to soft delete
+	 * @return the number of entries newly marked as deleted
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract int softDeleteByIds(Class<? extends NwormEntity<?>> entityClass, Collection<? extends Serializable> ids);
+
+	/**
+	 * Deletes all entries with the specified primary keys using set based delete statements.
+	 * Large id lists are split into several IN lists, all executed in one transaction. Like all bulk deletes, cascades are not applied.
+	 *
+	 * @param entityClass the entity class
+	 * @param ids primary keys of entries to delete
+	 * @return the number of entries deleted
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public abstract int removeByIds(Class<?> entityClass, Collection<? extends Serializable> ids);
+
 	/**
 	 * Gets the session service.
 	 *
@@ -138,4 +386,14 @@ public interface NwormHibernateService extends NwormService {
 	 */
 	public abstract HibernateSessionService getSessionService();
 
-}
\ No newline at end of file
+	/**
+	 * Executes a unit of work in a single session and transaction, committed once when the work returns.
+	 *
+	 * @param <T> the result type
+	 * @param work the work
+	 * @return the result of the work
+	 * @throws NwormQueryException when the work fails or the transaction can not be committed
+	 */
+	public abstract <T> T executeInTransaction(TransactionCallback<T> work);
+
+}
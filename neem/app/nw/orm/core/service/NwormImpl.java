@@ -1,38 +1,82 @@
 package nw.orm.core.service;
 
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import nw.commons.NeemClazz;
 import nw.orm.core.NwormEntity;
+import nw.orm.core.bulk.BulkInsertOptions;
+import nw.orm.core.bulk.BulkInsertResult;
+import nw.orm.core.bulk.BulkInsertResult.ChunkStat;
+import nw.orm.core.cache.LruCache;
+import nw.orm.core.cache.QueryResultCache;
 import nw.orm.core.exception.NwormQueryException;
+import nw.orm.core.interceptor.NwormInterceptor;
+import nw.orm.core.metadata.EntityMetadata;
+import nw.orm.core.metadata.EntityMetadataRegistry;
+import nw.orm.core.metrics.NwormMetrics;
+import nw.orm.core.metrics.NwormMetrics.Timer;
+import nw.orm.core.metrics.Operation;
+import nw.orm.core.metrics.StatisticsSnapshot;
+import nw.orm.core.query.BeanResultTransformer;
+import nw.orm.core.query.CompiledQuery;
+import nw.orm.core.query.FetchPlanLoader;
+import nw.orm.core.query.KeysetCursor;
+import nw.orm.core.query.KeysetPage;
+import nw.orm.core.query.MultiGetResult;
+import nw.orm.core.query.Page;
 import nw.orm.core.query.QueryAlias;
 import nw.orm.core.query.QueryFetchMode;
 import nw.orm.core.query.QueryModifier;
 import nw.orm.core.query.QueryParameter;
+import nw.orm.core.query.RowCallback;
 import nw.orm.core.query.SQLModifier;
+import nw.orm.core.query.ScrollIterator;
 import nw.orm.core.session.HibernateSessionFactory;
 import nw.orm.core.session.HibernateSessionService;
 
+import org.hibernate.CacheMode;
 import org.hibernate.Criteria;
+import org.hibernate.Filter;
 import org.hibernate.HibernateException;
+import org.hibernate.Interceptor;
 import org.hibernate.LockOptions;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 import org.hibernate.StatelessSession;
+import org.hibernate.criterion.Conjunction;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.Example;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projection;
 import org.hibernate.criterion.ProjectionList;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.query.spi.ParameterMetadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.proxy.HibernateProxyHelper;
-import org.hibernate.transform.Transformers;
+import org.hibernate.type.Type;
 
 /**
  * Reference implementation for {@link NwormService} for Hibernate Session Management.
@@ -42,6 +86,24 @@ import org.hibernate.transform.Transformers;
  */
 public abstract class NwormImpl extends NeemClazz implements NwormHibernateService {
 
+	/** Default maximum number of values bound to a single IN list. */
+	public static final int DEFAULT_IN_LIST_CHUNK_SIZE = 1000;
+
+	/** Maximum number of cached total counts of paged queries. */
+	private static final int TOTAL_COUNT_CACHE_SIZE = 1024;
+
+	/** Configuration property that disables metrics when set to false. */
+	public static final String NWORM_METRICS = "nworm.metrics";
+
+	/** The where keyword of a hql statement. */
+	private static final Pattern HQL_WHERE = Pattern.compile("(?i)(?<![\\w.:])where(?![\\w.:])");
+
+	/** The clauses following the where clause of a hql statement. */
+	private static final Pattern HQL_AFTER_WHERE = Pattern.compile("(?i)(?<![\\w.:])(group\\s+by|having|order\\s+by)(?![\\w.:])");
+
+	/** The order by clause of a hql statement. */
+	private static final Pattern HQL_ORDER_BY = Pattern.compile("(?i)(?<![\\w.:])order\\s+by(?![\\w.:])");
+
 	/** Hibernate Session Factory instance. */
 	protected HibernateSessionFactory conf;
 
@@ -53,6 +115,21 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 
 	private String classId = UUID.randomUUID().toString();
 
+	/** Maximum number of values bound to a single IN list. */
+	private int inListChunkSize = DEFAULT_IN_LIST_CHUNK_SIZE;
+
+	/** Compiled hql handles by result class and hql. */
+	private final ConcurrentHashMap<String, CompiledQuery<?>> compiledQueries = new ConcurrentHashMap<String, CompiledQuery<?>>();
+
+	/** Total counts of paged queries, see {@link QueryModifier#setTotalCountCacheTtl(long)}. */
+	private final LruCache<String, Long> totalCounts = new LruCache<String, Long>(TOTAL_COUNT_CACHE_SIZE, 0);
+
+	/** Results of reads, invalidated by writes made through this service. */
+	private final QueryResultCache resultCache = new QueryResultCache();
+
+	/** Call, latency and session metrics, named and published over JMX by {@link #initMetrics(String)}. */
+	private NwormMetrics metrics = new NwormMetrics(classId);
+
 	/**
 	 * Gets the manager.
 	 *
@@ -100,15 +177,26 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 * @return true, if is class mapped
 	 */
 	public boolean isClassMapped(Class<?> clazz) {
-		try {
-			return sxnManager.getFactory().getClassMetadata(
-					HibernateProxyHelper.getClassWithoutInitializingProxy(clazz.newInstance())) != null;
-		} catch (InstantiationException e) {
-			this.logger.error("Exception: ", e);
-		} catch (IllegalAccessException e) {
-			this.logger.error("Exception: ", e);
-		}
-		return false;
+		return getMetadata(clazz).isMapped();
+	}
+
+	/**
+	 * Gets the mapping metadata of a class from the registry built with the session factory.
+	 *
+	 * @param clazz the clazz
+	 * @return the metadata
+	 */
+	protected EntityMetadata getMetadata(Class<?> clazz) {
+		return conf.getMetadataRegistry().getMetadata(clazz);
+	}
+
+	/**
+	 * Gets the entity metadata registry of the underlying session factory.
+	 *
+	 * @return the metadata registry
+	 */
+	public EntityMetadataRegistry getMetadataRegistry() {
+		return conf.getMetadataRegistry();
 	}
 
 	/* (non-Javadoc)
@@ -125,22 +213,83 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T getById(Class<T> clazz, Serializable id, boolean lock) {
-		T out = null;
-		Session session = sxnManager.getManagedSession();
+		Timer timer = metrics.start(Operation.GET_BY_ID, clazz);
 		try {
-			if (!lock){
-				out = (T) session.get(clazz, id, LockOptions.READ);
-			}else{
-				out = (T) session.get(clazz, id, LockOptions.UPGRADE);
+			QueryResultCache.Key key = lock ? null : resultKey(clazz, "id", id);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((T) hit);
+			}
+			T out = null;
+			Session session = sxnManager.getManagedSession();
+			try {
+				if (!lock){
+					out = (T) session.get(clazz, id, LockOptions.READ);
+				}else{
+					out = (T) session.get(clazz, id, LockOptions.UPGRADE);
+				}
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-			sxnManager.commit(session);
-		} catch (HibernateException e) {
-			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> MultiGetResult<T> getByIds(Class<T> clazz, Collection<? extends Serializable> ids) {
+		Timer timer = metrics.start(Operation.GET_BY_IDS, clazz);
+		try {
+			EntityMetadata md = getMetadata(clazz);
+			if (!md.isMapped()) {
+				throw new NwormQueryException("unmapped class " + clazz.getName(), null);
+			}
+			Set<Serializable> distinct = new LinkedHashSet<Serializable>();
+			for (Serializable id : ids) {
+				if (id != null) {
+					distinct.add(id);
+				}
+			}
+			String hql = "from " + md.getEntityName() + " where " + md.getIdPropertyName() + " in (:ids)"
+					+ (md.isSoftDeletable() ? " and deleted = :notDeleted" : "");
+			Map<Serializable, T> loaded = new HashMap<Serializable, T>();
+			if (!distinct.isEmpty()) {
+				Session session = sxnManager.getManagedSession();
+				try {
+					for (List<Serializable> chunk : chunk(distinct, inListChunkSize)) {
+						Query query = session.createQuery(hql);
+						query.setParameterList("ids", chunk);
+						if (md.isSoftDeletable()) {
+							query.setBoolean("notDeleted", false);
+						}
+						for (Object item : query.list()) {
+							loaded.put(session.getIdentifier(item), (T) item);
+						}
+					}
+					sxnManager.commit(session);
+				} catch (HibernateException e) {
+					sxnManager.rollback(session);
+					sxnManager.closeSession(session);
+					throw new NwormQueryException("", e);
+				}
+				sxnManager.closeSession(session);
+			}
+			MultiGetResult<T> out = new MultiGetResult<T>(distinct, loaded);
+			timer.done(out.getList());
+			return out;
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return out;
 	}
 
 	/* (non-Javadoc)
@@ -158,7 +307,7 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 * @param clazz the clazz
 	 */
 	public void addSoftRestrictions(Criteria te, Class<?> clazz) {
-		if (NwormEntity.class.isAssignableFrom(clazz)){
+		if (getMetadata(clazz).isSoftDeletable()){
 			te.add(Restrictions.eq("deleted", Boolean.valueOf(false)));
 		}
 	}
@@ -169,28 +318,39 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T getByCriteria(Class<T> entityClass, Criterion ... criteria) {
-		T out = null;
-		boolean isMapped = isClassMapped(entityClass);
-		Session session = sxnManager.getManagedSession();
+		Timer timer = metrics.start(Operation.CRITERIA, entityClass);
 		try {
-			Criteria te = session.createCriteria(entityClass);
-			for (Criterion c : criteria) {
-				te.add(c);
+			QueryResultCache.Key key = resultKey(entityClass, "unique", criteria);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((T) hit);
 			}
-			addSoftRestrictions(te, entityClass);
-			if (isMapped){
-				out = (T) te.uniqueResult();
-			}else{
-				out = (T) te.setResultTransformer(Transformers.aliasToBean(entityClass)).uniqueResult();
+			T out = null;
+			boolean isMapped = getMetadata(entityClass).isMapped();
+			Session session = sxnManager.getManagedSession();
+			try {
+				Criteria te = session.createCriteria(entityClass);
+				for (Criterion c : criteria) {
+					te.add(c);
+				}
+				addSoftRestrictions(te, entityClass);
+				if (isMapped){
+					out = (T) te.uniqueResult();
+				}else{
+					out = (T) te.setResultTransformer(BeanResultTransformer.of(entityClass)).uniqueResult();
+				}
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-			sxnManager.commit(session);
-		} catch (HibernateException e) {
-			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return out;
 	}
 
 	/* (non-Javadoc)
@@ -199,28 +359,39 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> List<T> getListByCriteria(Class<T> clz, Criterion ... criteria) {
-		List<T> out = new ArrayList<T>();
-		boolean isMapped = isClassMapped(clz);
-		Session session = sxnManager.getManagedSession();
+		Timer timer = metrics.start(Operation.CRITERIA, clz);
 		try {
-			Criteria te = session.createCriteria(clz);
-			for (Criterion c : criteria) {
-				te.add(c);
+			QueryResultCache.Key key = resultKey(clz, "list", criteria);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((List<T>) hit);
 			}
-			addSoftRestrictions(te, clz);
-			if (isMapped){
-				out = te.list();
-			}else{
-				out = te.setResultTransformer(Transformers.aliasToBean(clz)).list();
+			List<T> out = new ArrayList<T>();
+			boolean isMapped = getMetadata(clz).isMapped();
+			Session session = sxnManager.getManagedSession();
+			try {
+				Criteria te = session.createCriteria(clz);
+				for (Criterion c : criteria) {
+					te.add(c);
+				}
+				addSoftRestrictions(te, clz);
+				if (isMapped){
+					out = te.list();
+				}else{
+					out = te.setResultTransformer(BeanResultTransformer.of(clz)).list();
+				}
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-			sxnManager.commit(session);
-		} catch (HibernateException e) {
-			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return out;
 	}
 
 	/* (non-Javadoc)
@@ -238,36 +409,60 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T getByHQL(Class<T> resultClass, String hql, QueryParameter ... parameters) {
-		T out = null;
-		boolean isMapped = isClassMapped(resultClass);
-		Session session = sxnManager.getManagedSession();
-		try {
-
-			if (NwormEntity.class.isAssignableFrom(resultClass)) {
-				hql = modifyHQL(hql, resultClass);
-			}
-
-			Query query = session.createQuery(hql);
-			for (QueryParameter rp : parameters) {
-				query.setParameter(rp.getName(), rp.getValue());
-			}
+		return getByHQL(resultClass, hql, null, parameters);
+	}
 
-			if (NwormEntity.class.isAssignableFrom(resultClass)) {
-				query.setParameter("deleted", Boolean.valueOf(false));
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T getByHQL(Class<T> resultClass, String hql, SQLModifier mod, QueryParameter ... parameters) {
+		Timer timer = metrics.start(Operation.HQL, resultClass);
+		try {
+			QueryResultCache.Key key = resultKey(resultClass, "unique", hql, modifierKey(mod), parameters);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((T) hit);
 			}
-			if (isMapped){
-				out = (T) query.uniqueResult();
-			}else {
-				out = (T) query.setResultTransformer(Transformers.aliasToBean(resultClass)).uniqueResult();
+			T out = null;
+			EntityMetadata md = getMetadata(resultClass);
+			boolean isMapped = md.isMapped();
+			Session session = sxnManager.getManagedSession();
+			try {
+
+				if (md.isSoftDeletable()) {
+					hql = modifyHQL(hql, resultClass);
+				}
+
+				Query query = session.createQuery(hql);
+				for (QueryParameter rp : parameters) {
+					query.setParameter(rp.getName(), rp.getValue());
+				}
+
+				if (md.isSoftDeletable()) {
+					query.setParameter("deleted", Boolean.valueOf(false));
+				}
+				if (mod != null) {
+					applyCacheSettings(query, mod);
+				}
+				if (isMapped){
+					out = (T) query.uniqueResult();
+				}else {
+					out = (T) query.setResultTransformer(BeanResultTransformer.of(resultClass)).uniqueResult();
+				}
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-			sxnManager.commit(session);
-		} catch (HibernateException e) {
-			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return out;
 	}
 
 	/* (non-Javadoc)
@@ -285,342 +480,994 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> List<T> getListByHQL(Class<T> resultClass, String hql, QueryParameter ... parameters) {
-		List<T> out = new ArrayList<T>();
-		boolean isMapped = isClassMapped(resultClass);
-		Session session = sxnManager.getManagedSession();
+		return getListByHQL(resultClass, hql, null, parameters);
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getListByHQL(Class<T> resultClass, String hql, SQLModifier mod, QueryParameter ... parameters) {
+		Timer timer = metrics.start(Operation.HQL, resultClass);
 		try {
-			if (NwormEntity.class.isAssignableFrom(resultClass)) {
-				hql = modifyHQL(hql, resultClass);
-			}
-			Query query = session.createQuery(hql);
-			for (QueryParameter rp : parameters) {
-				query.setParameter(rp.getName(), rp.getValue());
-			}
-			if (NwormEntity.class.isAssignableFrom(resultClass)) {
-				query.setBoolean("deleted", false);
+			QueryResultCache.Key key = resultKey(resultClass, "list", hql, modifierKey(mod), parameters);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((List<T>) hit);
 			}
-			if (isMapped){
-				out = query.list();
-			}else{
-				out = query.setResultTransformer(Transformers.aliasToBean(resultClass)).list();
+			List<T> out = new ArrayList<T>();
+			EntityMetadata md = getMetadata(resultClass);
+			boolean isMapped = md.isMapped();
+			Session session = sxnManager.getManagedSession();
+			try {
+				if (md.isSoftDeletable()) {
+					hql = modifyHQL(hql, resultClass);
+				}
+				Query query = session.createQuery(hql);
+				for (QueryParameter rp : parameters) {
+					query.setParameter(rp.getName(), rp.getValue());
+				}
+				if (md.isSoftDeletable()) {
+					query.setBoolean("deleted", false);
+				}
+				if (mod != null) {
+					if (mod.isPaginated()) {
+						query.setFirstResult(mod.getPageIndex());
+						query.setMaxResults(mod.getMaxResult());
+					}
+					applyCacheSettings(query, mod);
+				}
+				if (isMapped){
+					out = query.list();
+				}else{
+					out = query.setResultTransformer(BeanResultTransformer.of(resultClass)).list();
+				}
+
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-
-			sxnManager.commit(session);
-		} catch (HibernateException e) {
-			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return out;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#getBySQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
+	 * @see nw.orm.core.service.NwormHibernateService#compileHQL(java.lang.Class, java.lang.String)
 	 */
 	@Override
 	@SuppressWarnings("unchecked")
-	public <T> List<T> getBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, QueryParameter ... params){
-		List<T> out = new ArrayList<T>();
-		Session session = sxnManager.getManagedSession();
-		SQLQuery te = session.createSQLQuery(sql);
-
-		if (params != null) {
-			for (QueryParameter param : params) {
-				te.setParameter(param.getName(), param.getValue());
-			}
+	public <T> CompiledQuery<T> compileHQL(Class<T> resultClass, String hql) {
+		String key = resultClass.getName() + "|" + hql;
+		CompiledQuery<T> cq = (CompiledQuery<T>) compiledQueries.get(key);
+		if (cq != null) {
+			return cq;
 		}
-
-		if(sqlMod != null){
-			if(returnClazz != null && isClassMapped(returnClazz)){
-				te.addEntity(returnClazz);
-			}
-
-			if(returnClazz != null && !isClassMapped(returnClazz)){
-				te.setResultTransformer(Transformers.aliasToBean(returnClazz));
-			}
-			if(NwormEntity.class.isAssignableFrom(returnClazz)){
-				te.setParameter("deleted", false);
-			}
-			if(sqlMod.isPaginated()){
-				te.setFirstResult(sqlMod.getPageIndex());
-				te.setMaxResults(sqlMod.getMaxResult());
-			}
+		EntityMetadata md = getMetadata(resultClass);
+		String executable = md.isSoftDeletable() ? modifyHQL(hql, resultClass) : hql;
+		ParameterMetadata pm;
+		try {
+			// parses and validates the hql, leaving the plan in hibernate's query plan cache
+			HQLQueryPlan plan = ((SessionFactoryImplementor) sxnManager.getFactory()).getQueryPlanCache()
+					.getHQLQueryPlan(executable, false, Collections.<String, Filter>emptyMap());
+			pm = plan.getParameterMetadata();
+		} catch (HibernateException e) {
+			throw new NwormQueryException("invalid hql " + hql, e);
+		}
+		List<String> names = CompiledQuery.scanParameterNames(hql);
+		names.retainAll(pm.getNamedParameterNames());
+		Type[] types = new Type[names.size()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = pm.getNamedParameterExpectedType(names.get(i));
 		}
+		cq = new CompiledQuery<T>(resultClass, hql, executable, md.isMapped(), md.isSoftDeletable(),
+				names.toArray(new String[names.size()]), types);
+		CompiledQuery<T> existing = (CompiledQuery<T>) compiledQueries.putIfAbsent(key, cq);
+		return existing == null ? cq : existing;
+	}
 
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getByHQL(nw.orm.core.query.CompiledQuery, java.lang.Object[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T getByHQL(CompiledQuery<T> cq, Object ... values) {
+		Timer timer = metrics.start(Operation.HQL, cq.getResultClass());
 		try {
-			out = te.list();
-		} catch (Exception e) {
-			sxnManager.rollback(session);
+			QueryResultCache.Key key = resultKey(cq.getResultClass(), "unique", cq.getHql(), values);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((T) hit);
+			}
+			T out = null;
+			Session session = sxnManager.getManagedSession();
+			try {
+				Query query = createQuery(session, cq, values);
+				out = (T) query.uniqueResult();
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return out;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#getByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 * @see nw.orm.core.service.NwormHibernateService#getListByHQL(nw.orm.core.query.CompiledQuery, java.lang.Object[])
 	 */
 	@Override
 	@SuppressWarnings("unchecked")
-	public <T> T getByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria){
-		T out = null;
-		Session session = sxnManager.getManagedSession();
+	public <T> List<T> getListByHQL(CompiledQuery<T> cq, Object ... values) {
+		Timer timer = metrics.start(Operation.HQL, cq.getResultClass());
 		try {
-			Criteria te = session.createCriteria(qm.getQueryClazz());
-			for (Criterion c : criteria) {
-				te.add(c);
+			QueryResultCache.Key key = resultKey(cq.getResultClass(), "list", cq.getHql(), values);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((List<T>) hit);
 			}
-			modifyCriteria(te, qm);
-			if(!qm.isTransformResult()){
-				out = (T) te.uniqueResult();
-			}else{
-				out = (T) te.setResultTransformer(Transformers.aliasToBean(returnClazz)).uniqueResult();
+			List<T> out = new ArrayList<T>();
+			Session session = sxnManager.getManagedSession();
+			try {
+				Query query = createQuery(session, cq, values);
+				out = query.list();
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-			sxnManager.commit(session);
-		} catch (Exception e) {
-			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return out;
+	}
+
+	/**
+	 * Creates a query from a compiled query and binds the values in parameter order.
+	 *
+	 * @param session the session
+	 * @param cq the compiled query
+	 * @param values the parameter values
+	 * @return the query
+	 */
+	private Query createQuery(Session session, CompiledQuery<?> cq, Object ... values) {
+		if (values.length != cq.getParameterCount()) {
+			throw new NwormQueryException("expected " + cq.getParameterCount() + " parameters " + cq.getParameterNames()
+					+ " but got " + values.length, null);
+		}
+		Query query = session.createQuery(cq.getHql());
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			if (value instanceof Collection) {
+				query.setParameterList(cq.getParameterName(i), (Collection<?>) value);
+			} else if (value != null && cq.getParameterType(i) != null) {
+				query.setParameter(cq.getParameterName(i), value, cq.getParameterType(i));
+			} else {
+				query.setParameter(cq.getParameterName(i), value);
+			}
+		}
+		if (cq.isSoftDeletable()) {
+			query.setBoolean("deleted", false);
+		}
+		if (!cq.isMapped()) {
+			query.setResultTransformer(BeanResultTransformer.of(cq.getResultClass()));
+		}
+		return query;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#getListByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 * @see nw.orm.core.service.NwormService#getBySQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, nw.orm.core.query.QueryParameter[])
 	 */
 	@Override
 	@SuppressWarnings("unchecked")
-	public <T> List<T> getListByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria){
-		List<T> out = new ArrayList<T>();
-		Session session = sxnManager.getManagedSession();
+	public <T> List<T> getBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, QueryParameter ... params){
+		Timer timer = metrics.start(Operation.SQL, returnClazz);
 		try {
-			Criteria te = session.createCriteria(qm.getQueryClazz());
-			for (Criterion c : criteria) {
-				te.add(c);
+			QueryResultCache.Key key = resultKey(returnClazz, "sql", sql, modifierKey(sqlMod), params);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((List<T>) hit);
 			}
-			modifyCriteria(te, qm);
-			if(!qm.isTransformResult()){
+			List<T> out = new ArrayList<T>();
+			Session session = sxnManager.getManagedSession();
+			SQLQuery te = session.createSQLQuery(sql);
+
+			if (params != null) {
+				for (QueryParameter param : params) {
+					te.setParameter(param.getName(), param.getValue());
+				}
+			}
+
+			if(sqlMod != null){
+				EntityMetadata md = returnClazz == null ? null : getMetadata(returnClazz);
+				if(md != null && md.isMapped()){
+					te.addEntity(returnClazz);
+				}
+
+				if(md != null && !md.isMapped()){
+					te.setResultTransformer(BeanResultTransformer.of(returnClazz));
+				}
+				if(md != null && md.isSoftDeletable()){
+					te.setParameter("deleted", false);
+				}
+				if(sqlMod.isPaginated()){
+					te.setFirstResult(sqlMod.getPageIndex());
+					te.setMaxResults(sqlMod.getMaxResult());
+				}
+				applyCacheSettings(te, sqlMod);
+			}
+
+			try {
 				out = te.list();
-			}else{
-				out = te.setResultTransformer(Transformers.aliasToBean(returnClazz)).list();
+			} catch (Exception e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-			sxnManager.commit(session);
-		} catch (Exception e) {
-			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return out;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#getByExample(java.lang.Class, org.hibernate.criterion.Example)
+	 * @see nw.orm.core.service.NwormHibernateService#scrollAll(java.lang.Class, int)
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
-	public <T> T getByExample(Class<T> clazz, Example example){
-		T out = null;
-		Session sxn = sxnManager.getManagedSession();
-		Criteria te = sxn.createCriteria(clazz).add(example);
-		try {
-			logger.debug(te.list() + "");
-			out = (T) te.list().get(0);
-			System.out.println(out);
-			sxnManager.commit(sxn);
-		} catch (HibernateException e) {
-			sxnManager.rollback(sxn);
-			sxnManager.closeSession(sxn);
-			throw new NwormQueryException("", e);
-		}
-		sxnManager.closeSession(sxn);
-		return out;
+	public <T> ScrollIterator<T> scrollAll(Class<T> clazz, int fetchSize) {
+		return scrollByCriteria(clazz, new QueryModifier(clazz), fetchSize);
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#getListByExample(nw.orm.core.query.QueryModifier, org.hibernate.criterion.Example)
+	 * @see nw.orm.core.service.NwormHibernateService#scrollByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, int, org.hibernate.criterion.Criterion[])
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
-	public <T> List<T> getListByExample(QueryModifier qm, Example example){
-		List<T> items = new ArrayList<T>();
-		Session sxn = sxnManager.getManagedSession();
-		Criteria te = sxn.createCriteria(qm.getQueryClazz()).add(example);
+	public <T> ScrollIterator<T> scrollByCriteria(Class<T> returnClazz, QueryModifier qm, int fetchSize, Criterion ... criteria) {
+		Session session = openStreamingSession();
 		try {
+			Criteria te = session.createCriteria(qm.getQueryClazz());
+			for (Criterion c : criteria) {
+				te.add(c);
+			}
 			modifyCriteria(te, qm);
-			items = te.list();
-			sxnManager.commit(sxn);
+			if(qm.isTransformResult()){
+				te.setResultTransformer(BeanResultTransformer.of(returnClazz));
+			}
+			te.setFetchSize(fetchSize);
+			te.setReadOnly(!sxnManager.isBound(session));
+			te.setCacheMode(CacheMode.IGNORE);
+			return new ScrollIterator<T>(te.scroll(ScrollMode.FORWARD_ONLY), session, sxnManager, fetchSize);
 		} catch (HibernateException e) {
-			sxnManager.closeSession(sxn);
+			sxnManager.rollback(session);
+			sxnManager.closeSession(session);
 			throw new NwormQueryException("", e);
 		}
-		sxnManager.closeSession(sxn);
-		return items;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#executeSQLUpdate(java.lang.String, nw.orm.core.query.QueryParameter[])
+	 * @see nw.orm.core.service.NwormHibernateService#scrollByHQL(java.lang.Class, java.lang.String, int, nw.orm.core.query.QueryParameter[])
 	 */
 	@Override
-	public int executeSQLUpdate(String sql, QueryParameter ... params){
-		Session session = sxnManager.getManagedSession();
-		SQLQuery query = session.createSQLQuery(sql);
-		if (params != null) {
-			for (QueryParameter param : params) {
-				query.setParameter(param.getName(), param.getValue());
-			}
-		}
-		int o = -1;
+	public <T> ScrollIterator<T> scrollByHQL(Class<T> resultClass, String hql, int fetchSize, QueryParameter ... parameters) {
+		EntityMetadata md = getMetadata(resultClass);
+		Session session = openStreamingSession();
 		try {
-			o = query.executeUpdate();
-		} catch (Exception e) {
+			if (md.isSoftDeletable()) {
+				hql = modifyHQL(hql, resultClass);
+			}
+			Query query = session.createQuery(hql);
+			for (QueryParameter rp : parameters) {
+				query.setParameter(rp.getName(), rp.getValue());
+			}
+			if (md.isSoftDeletable()) {
+				query.setBoolean("deleted", false);
+			}
+			if (!md.isMapped()){
+				query.setResultTransformer(BeanResultTransformer.of(resultClass));
+			}
+			query.setFetchSize(fetchSize);
+			query.setReadOnly(!sxnManager.isBound(session));
+			query.setCacheMode(CacheMode.IGNORE);
+			return new ScrollIterator<T>(query.scroll(ScrollMode.FORWARD_ONLY), session, sxnManager, fetchSize);
+		} catch (HibernateException e) {
 			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
 			throw new NwormQueryException("", e);
 		}
-		sxnManager.commit(session);
-		sxnManager.closeSession(session);
-		return o;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#executeHQLUpdate(java.lang.String, nw.orm.core.query.QueryParameter[])
+	 * @see nw.orm.core.service.NwormHibernateService#scrollBySQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, int, nw.orm.core.query.QueryParameter[])
 	 */
 	@Override
-	public int executeHQLUpdate(String hql, QueryParameter ... params){
-		Session session = sxnManager.getManagedSession();
-		org.hibernate.Query query = session.createQuery(hql);
-		if (params != null) {
-			for (QueryParameter param : params) {
-				query.setParameter(param.getName(), param.getValue());
-			}
-		}
-		int o = -1;
+	public <T> ScrollIterator<T> scrollBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, int fetchSize, QueryParameter ... params) {
+		Session session = openStreamingSession();
 		try {
-			o = query.executeUpdate();
-		} catch (Exception e) {
+			SQLQuery te = session.createSQLQuery(sql);
+			if (params != null) {
+				for (QueryParameter param : params) {
+					te.setParameter(param.getName(), param.getValue());
+				}
+			}
+			EntityMetadata md = returnClazz == null ? null : getMetadata(returnClazz);
+			if(md != null && md.isMapped()){
+				te.addEntity(returnClazz);
+			}
+			if(md != null && !md.isMapped()){
+				te.setResultTransformer(BeanResultTransformer.of(returnClazz));
+			}
+			if(md != null && md.isSoftDeletable()){
+				te.setParameter("deleted", false);
+			}
+			if(sqlMod != null && sqlMod.isPaginated()){
+				te.setFirstResult(sqlMod.getPageIndex());
+				te.setMaxResults(sqlMod.getMaxResult());
+			}
+			te.setFetchSize(fetchSize);
+			te.setReadOnly(!sxnManager.isBound(session));
+			te.setCacheMode(CacheMode.IGNORE);
+			return new ScrollIterator<T>(te.scroll(ScrollMode.FORWARD_ONLY), session, sxnManager, fetchSize);
+		} catch (HibernateException e) {
 			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
 			throw new NwormQueryException("", e);
 		}
-		sxnManager.commit(session);
-		sxnManager.closeSession(session);
-		return o;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#softDelete(java.lang.Class, java.io.Serializable)
+	 * @see nw.orm.core.service.NwormHibernateService#streamByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, int, nw.orm.core.query.RowCallback, org.hibernate.criterion.Criterion[])
 	 */
 	@Override
-	public boolean softDelete(Class<? extends NwormEntity<?>> clazz, Serializable id) {
-		if (!NwormEntity.class.isAssignableFrom(clazz)) {
-			logger.debug("Unsupported class specified.");
-			return false;
-		}
-		Object bc = getByCriteria(clazz, Restrictions.idEq(id));
-		if ((bc instanceof NwormEntity)) {
-			NwormEntity<?> e = (NwormEntity<?>) bc;
-			e.setDeleted(true);
+	public <T> long streamByCriteria(Class<T> returnClazz, QueryModifier qm, int fetchSize, RowCallback<? super T> callback, Criterion ... criteria) {
+		Timer timer = metrics.start(Operation.STREAM, qm.getQueryClazz());
+		try {
+			long streamed = stream(scrollByCriteria(returnClazz, qm, fetchSize, criteria), callback);
+			return timer.done(streamed, streamed);
+		} finally {
+			timer.stop();
 		}
-		return update(bc);
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#bulkSoftDelete(java.lang.Class, java.util.List)
+	 * @see nw.orm.core.service.NwormHibernateService#streamByHQL(java.lang.Class, java.lang.String, int, nw.orm.core.query.RowCallback, nw.orm.core.query.QueryParameter[])
 	 */
 	@Override
-	public boolean bulkSoftDelete(Class<? extends NwormEntity<?>> clazz, List<Serializable> ids) {
-		StatelessSession session = sxnManager.getStatelessSession();
-		if (!NwormEntity.class.isAssignableFrom(clazz)) {
-			logger.debug("Unsupported class specified.");
-			return false;
-		}
-
+	public <T> long streamByHQL(Class<T> resultClass, String hql, int fetchSize, RowCallback<? super T> callback, QueryParameter ... parameters) {
+		Timer timer = metrics.start(Operation.STREAM, resultClass);
 		try {
-			for (Serializable s : ids) {
-				Object entity = session.get(clazz, s);
-				NwormEntity<?> e = (NwormEntity<?>) entity;
-				e.setDeleted(true);
-				session.update(entity);
-			}
-			if(sxnManager.useTransactions()){
-				session.getTransaction().commit();
-			}
-			session.close();
-			return true;
-		} catch (HibernateException e) {
-			if(sxnManager.useTransactions()){
-				session.getTransaction().rollback();
-			}
-			session.close();
-			throw new NwormQueryException("", e);
+			long streamed = stream(scrollByHQL(resultClass, hql, fetchSize, parameters), callback);
+			return timer.done(streamed, streamed);
+		} finally {
+			timer.stop();
 		}
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#remove(java.lang.Object)
+	 * @see nw.orm.core.service.NwormHibernateService#streamBySQL(java.lang.Class, java.lang.String, nw.orm.core.query.SQLModifier, int, nw.orm.core.query.RowCallback, nw.orm.core.query.QueryParameter[])
 	 */
 	@Override
-	public boolean remove(Object obj) {
-		boolean outcome = false;
-		Session session = sxnManager.getManagedSession();
+	public <T> long streamBySQL(Class<T> returnClazz, String sql, SQLModifier sqlMod, int fetchSize, RowCallback<? super T> callback, QueryParameter ... params) {
+		Timer timer = metrics.start(Operation.STREAM, returnClazz);
 		try {
-			session.delete(obj);
+			long streamed = stream(scrollBySQL(returnClazz, sql, sqlMod, fetchSize, params), callback);
+			return timer.done(streamed, streamed);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/**
+	 * Feeds every row of a scroll iterator to a callback and closes the iterator.
+	 *
+	 * @param <T> the row type
+	 * @param rows the rows
+	 * @param callback the callback
+	 * @return the number of rows passed to the callback
+	 */
+	private <T> long stream(ScrollIterator<T> rows, RowCallback<? super T> callback) {
+		try {
+			while (rows.hasNext()) {
+				if (!callback.processRow(rows.next())) {
+					break;
+				}
+			}
+		} finally {
+			rows.close();
+		}
+		return rows.getRowCount();
+	}
+
+	/**
+	 * Opens a read only session for scrolling through results. Within a unit of work its session is used as is,
+	 * flushed so the query sees pending changes, and neither made read only nor cleared while scrolling.
+	 *
+	 * @return the session
+	 */
+	private Session openStreamingSession() {
+		Session session = sxnManager.getManagedSession();
+		if (sxnManager.isBound(session)) {
+			session.flush();
+			return session;
+		}
+		session.setDefaultReadOnly(true);
+		session.setCacheMode(CacheMode.IGNORE);
+		return session;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T getByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria){
+		Timer timer = metrics.start(Operation.CRITERIA, qm.getQueryClazz());
+		try {
+			QueryResultCache.Key key = resultKey(qm.getQueryClazz(), "unique", returnClazz, modifierKey(qm), criteria);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((T) hit);
+			}
+			T out = null;
+			Session session = sxnManager.getManagedSession();
+			try {
+				Criteria te = session.createCriteria(qm.getQueryClazz());
+				for (Criterion c : criteria) {
+					te.add(c);
+				}
+				modifyCriteria(te, qm);
+				if(!qm.isTransformResult()){
+					out = (T) te.uniqueResult();
+					if (out != null) {
+						loadFetchPlan(session, qm, Collections.singletonList(out));
+					}
+				}else{
+					out = (T) te.setResultTransformer(BeanResultTransformer.of(returnClazz)).uniqueResult();
+				}
+				sxnManager.commit(session);
+			} catch (Exception e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			sxnManager.closeSession(session);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getListByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getListByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria){
+		Timer timer = metrics.start(Operation.CRITERIA, qm.getQueryClazz());
+		try {
+			QueryResultCache.Key key = resultKey(qm.getQueryClazz(), "list", returnClazz, modifierKey(qm), criteria);
+			Object hit = resultCache.get(key);
+			if (hit != QueryResultCache.MISS) {
+				return timer.done((List<T>) hit);
+			}
+			List<T> out = new ArrayList<T>();
+			Session session = sxnManager.getManagedSession();
+			try {
+				Criteria te = session.createCriteria(qm.getQueryClazz());
+				for (Criterion c : criteria) {
+					te.add(c);
+				}
+				modifyCriteria(te, qm);
+				if(!qm.isTransformResult()){
+					out = te.list();
+					loadFetchPlan(session, qm, out);
+				}else{
+					out = te.setResultTransformer(BeanResultTransformer.of(returnClazz)).list();
+				}
+				sxnManager.commit(session);
+			} catch (Exception e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			sxnManager.closeSession(session);
+			resultCache.put(key, out);
+			return timer.done(out);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getPageByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> Page<T> getPageByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria) {
+		Timer timer = metrics.start(Operation.CRITERIA, qm.getQueryClazz());
+		try {
+			List<T> out = new ArrayList<T>();
+			long total = 0;
+			String countKey = qm.getTotalCountCacheTtl() > 0 ? totalCountKey(qm, criteria) : null;
+			Long cachedTotal = countKey == null ? null : totalCounts.get(countKey);
+			Session session = sxnManager.getManagedSession();
+			try {
+				if (cachedTotal == null) {
+					// same restrictions and joins, without projections, ordering or paging
+					Criteria ce = session.createCriteria(qm.getQueryClazz());
+					for (Criterion c : criteria) {
+						ce.add(c);
+					}
+					applyAliases(ce, qm);
+					addSoftRestrictions(ce, qm.getQueryClazz());
+					String idProperty = getMetadata(qm.getQueryClazz()).getIdPropertyName();
+					if (!qm.getAliases().isEmpty() && idProperty != null) {
+						// aliases joining collections repeat the root once per joined row
+						ce.setProjection(Projections.countDistinct(idProperty));
+					} else {
+						ce.setProjection(Projections.rowCount());
+					}
+					Number count = (Number) ce.uniqueResult();
+					total = count == null ? 0 : count.longValue();
+					if (countKey != null) {
+						totalCounts.put(countKey, Long.valueOf(total), qm.getTotalCountCacheTtl());
+					}
+				} else {
+					total = cachedTotal.longValue();
+				}
+
+				if (total > 0 || cachedTotal != null) {
+					Criteria te = session.createCriteria(qm.getQueryClazz());
+					for (Criterion c : criteria) {
+						te.add(c);
+					}
+					modifyCriteria(te, qm);
+					if(!qm.isTransformResult()){
+						out = te.list();
+						loadFetchPlan(session, qm, out);
+					}else{
+						out = te.setResultTransformer(BeanResultTransformer.of(returnClazz)).list();
+					}
+				}
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			sxnManager.closeSession(session);
+			return timer.done(new Page<T>(out, total, qm.getPageIndex(), qm.getMaxResult()));
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getKeysetPageByCriteria(java.lang.Class, nw.orm.core.query.QueryModifier, org.hibernate.criterion.Criterion[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> KeysetPage<T> getKeysetPageByCriteria(Class<T> returnClazz, QueryModifier qm, Criterion ... criteria) {
+		Timer timer = metrics.start(Operation.CRITERIA, qm.getQueryClazz());
+		try {
+			if (!qm.isKeysetPaginated()) {
+				throw new NwormQueryException("keyset pagination is not enabled on the query modifier", null);
+			}
+			List<T> out = new ArrayList<T>();
+			KeysetCursor next = null;
+			Session session = sxnManager.getManagedSession();
+			try {
+				Criteria te = session.createCriteria(qm.getQueryClazz());
+				for (Criterion c : criteria) {
+					te.add(c);
+				}
+				modifyCriteria(te, qm);
+				// one extra row tells whether a next page exists
+				te.setMaxResults(qm.getMaxResult() + 1);
+				if(!qm.isTransformResult()){
+					out = te.list();
+				}else{
+					out = te.setResultTransformer(BeanResultTransformer.of(returnClazz)).list();
+				}
+				if (out.size() > qm.getMaxResult()) {
+					out = new ArrayList<T>(out.subList(0, qm.getMaxResult()));
+					next = nextCursor(session, qm.getKeysetCursor(), out.get(out.size() - 1));
+				}
+				loadFetchPlan(session, qm, out);
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			sxnManager.closeSession(session);
+			return timer.done(new KeysetPage<T>(out, next));
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#getKeysetPageByHQL(java.lang.Class, java.lang.String, java.lang.String, nw.orm.core.query.QueryModifier, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> KeysetPage<T> getKeysetPageByHQL(Class<T> resultClass, String hql, String alias, QueryModifier qm, QueryParameter ... parameters) {
+		Timer timer = metrics.start(Operation.HQL, resultClass);
+		try {
+			if (!qm.isKeysetPaginated()) {
+				throw new NwormQueryException("keyset pagination is not enabled on the query modifier", null);
+			}
+			if (HQL_ORDER_BY.matcher(maskNested(hql)).find()) {
+				throw new NwormQueryException("keyset paginated hql must not declare an order by, ordering follows the cursor keys", null);
+			}
+			KeysetCursor cursor = qm.getKeysetCursor();
+			EntityMetadata md = getMetadata(resultClass);
+			List<T> out = new ArrayList<T>();
+			KeysetCursor next = null;
+			Session session = sxnManager.getManagedSession();
+			try {
+				if (md.isSoftDeletable()) {
+					hql = addHQLCondition(hql, "deleted = :deleted");
+				}
+				Query query = session.createQuery(applyKeyset(hql, alias, cursor));
+				for (QueryParameter rp : parameters) {
+					query.setParameter(rp.getName(), rp.getValue());
+				}
+				if (md.isSoftDeletable()) {
+					query.setBoolean("deleted", false);
+				}
+				Object[] lastSeen = cursor.getLastSeen();
+				if (lastSeen != null) {
+					for (int i = 0; i < lastSeen.length; i++) {
+						query.setParameter("nwormKey" + i, lastSeen[i]);
+					}
+				}
+				query.setMaxResults(qm.getMaxResult() + 1);
+				applyCacheSettings(query, qm);
+				if (md.isMapped()){
+					out = query.list();
+				}else{
+					out = query.setResultTransformer(BeanResultTransformer.of(resultClass)).list();
+				}
+				if (out.size() > qm.getMaxResult()) {
+					out = new ArrayList<T>(out.subList(0, qm.getMaxResult()));
+					next = nextCursor(session, cursor, out.get(out.size() - 1));
+				}
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			sxnManager.closeSession(session);
+			return timer.done(new KeysetPage<T>(out, next));
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getByExample(java.lang.Class, org.hibernate.criterion.Example)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T getByExample(Class<T> clazz, Example example){
+		Timer timer = metrics.start(Operation.EXAMPLE, clazz);
+		try {
+			T out = null;
+			Session sxn = sxnManager.getManagedSession();
+			Criteria te = sxn.createCriteria(clazz).add(example);
+			try {
+				logger.debug(te.list() + "");
+				out = (T) te.list().get(0);
+				System.out.println(out);
+				sxnManager.commit(sxn);
+			} catch (HibernateException e) {
+				sxnManager.rollback(sxn);
+				sxnManager.closeSession(sxn);
+				throw new NwormQueryException("", e);
+			}
+			sxnManager.closeSession(sxn);
+			return timer.done(out);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#getListByExample(nw.orm.core.query.QueryModifier, org.hibernate.criterion.Example)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getListByExample(QueryModifier qm, Example example){
+		Timer timer = metrics.start(Operation.EXAMPLE, qm.getQueryClazz());
+		try {
+			List<T> items = new ArrayList<T>();
+			Session sxn = sxnManager.getManagedSession();
+			Criteria te = sxn.createCriteria(qm.getQueryClazz()).add(example);
+			try {
+				modifyCriteria(te, qm);
+				items = te.list();
+				loadFetchPlan(sxn, qm, items);
+				sxnManager.commit(sxn);
+			} catch (HibernateException e) {
+				sxnManager.closeSession(sxn);
+				throw new NwormQueryException("", e);
+			}
+			sxnManager.closeSession(sxn);
+			return timer.done(items);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#executeSQLUpdate(java.lang.String, nw.orm.core.query.QueryParameter[])
+	 */
+	@Override
+	public int executeSQLUpdate(String sql, QueryParameter ... params){
+		Timer timer = metrics.start(Operation.EXECUTE_UPDATE, null);
+		try {
+			Session session = sxnManager.getManagedSession();
+			SQLQuery query = session.createSQLQuery(sql);
+			if (params != null) {
+				for (QueryParameter param : params) {
+					query.setParameter(param.getName(), param.getValue());
+				}
+			}
+			int o = -1;
+			try {
+				o = query.executeUpdate();
+			} catch (Exception e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
 			sxnManager.commit(session);
-			outcome = true;
-		} catch (HibernateException e) {
-			sxnManager.rollback(session);
+			invalidateResults((Class<?>) null);
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			return timer.done(o, o);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return outcome;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#remove(java.lang.Class, java.io.Serializable)
+	 * @see nw.orm.core.service.NwormService#executeHQLUpdate(java.lang.String, nw.orm.core.query.QueryParameter[])
 	 */
 	@Override
-	public boolean remove(Class<?> clazz, Serializable pk) {
-		boolean outcome = false;
+	public int executeHQLUpdate(String hql, QueryParameter ... params){
+		Timer timer = metrics.start(Operation.EXECUTE_UPDATE, null);
+		try {
+			Session session = sxnManager.getManagedSession();
+			org.hibernate.Query query = session.createQuery(hql);
+			if (params != null) {
+				for (QueryParameter param : params) {
+					query.setParameter(param.getName(), param.getValue());
+				}
+			}
+			int o = -1;
+			try {
+				o = query.executeUpdate();
+			} catch (Exception e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			sxnManager.commit(session);
+			invalidateResults((Class<?>) null);
+			sxnManager.closeSession(session);
+			return timer.done(o, o);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#softDelete(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public boolean softDelete(Class<? extends NwormEntity<?>> clazz, Serializable id) {
+		if (!NwormEntity.class.isAssignableFrom(clazz)) {
+			logger.debug("Unsupported class specified.");
+			return false;
+		}
+		Object bc = loadForWrite(clazz, id);
+		if ((bc instanceof NwormEntity)) {
+			NwormEntity<?> e = (NwormEntity<?>) bc;
+			e.setDeleted(true);
+		}
+		return update(bc);
+	}
+
+	/**
+	 * Loads an entity to be modified, bypassing the result cache so a cached instance is never changed in place.
+	 * The result cache is invalidated by the update that follows.
+	 *
+	 * @param clazz the clazz
+	 * @param id the id
+	 * @return the entity, null if absent or soft deleted
+	 */
+	private Object loadForWrite(Class<?> clazz, Serializable id) {
+		Object out = null;
 		Session session = sxnManager.getManagedSession();
 		try {
-			session.delete(session.get(clazz, pk));
+			Criteria te = session.createCriteria(clazz);
+			te.add(Restrictions.idEq(id));
+			addSoftRestrictions(te, clazz);
+			out = te.uniqueResult();
 			sxnManager.commit(session);
-			outcome = true;
 		} catch (HibernateException e) {
 			sxnManager.rollback(session);
 			sxnManager.closeSession(session);
 			throw new NwormQueryException("", e);
 		}
 		sxnManager.closeSession(session);
-		return outcome;
+		return out;
 	}
 
 	/* (non-Javadoc)
-	 * @see nw.orm.core.service.NwormService#bulkRemove(java.lang.Class, java.util.List)
+	 * @see nw.orm.core.service.NwormService#bulkSoftDelete(java.lang.Class, java.util.List)
 	 */
 	@Override
-	public boolean bulkRemove(Class<?> clazz, List<Serializable> pks) {
-		StatelessSession session = sxnManager.getStatelessSession();
+	public boolean bulkSoftDelete(Class<? extends NwormEntity<?>> clazz, List<Serializable> ids) {
+		if (!getMetadata(clazz).isSoftDeletable()) {
+			logger.debug("Unsupported class specified.");
+			return false;
+		}
+		softDeleteByIds(clazz, ids);
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#softDeleteByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	public int softDeleteByIds(Class<? extends NwormEntity<?>> clazz, Collection<? extends Serializable> ids) {
+		Timer timer = metrics.start(Operation.BULK_DELETE, clazz);
+		try {
+			EntityMetadata md = getMetadata(clazz);
+			if (!md.isSoftDeletable() || !md.isMapped()) {
+				logger.debug("Unsupported class specified.");
+				return timer.done(0, 0);
+			}
+			String hql = "update " + md.getEntityName() + " set deleted = :deleted, lastModified = :modified where "
+					+ md.getIdPropertyName() + " in (:ids) and deleted = :notDeleted";
+			Date modified = new Date();
+			int affected = 0;
+			Session session = sxnManager.getManagedSession();
+			try {
+				for (List<? extends Serializable> chunk : chunk(ids, inListChunkSize)) {
+					Query query = session.createQuery(hql);
+					query.setBoolean("deleted", true);
+					query.setTimestamp("modified", modified);
+					query.setBoolean("notDeleted", false);
+					query.setParameterList("ids", chunk);
+					affected += query.executeUpdate();
+				}
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			invalidateResults(md.getEntityClass());
+			sxnManager.closeSession(session);
+			return timer.done(affected, affected);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#remove(java.lang.Object)
+	 */
+	@Override
+	public boolean remove(Object obj) {
+		Timer timer = metrics.start(Operation.DELETE, classOf(obj));
+		try {
+			boolean outcome = false;
+			Session session = sxnManager.getManagedSession();
+			try {
+				session.delete(obj);
+				sxnManager.commit(session);
+				outcome = true;
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			invalidateResults(getMetadata(obj.getClass()).getEntityClass());
+			sxnManager.closeSession(session);
+			return timer.done(outcome);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#remove(java.lang.Class, java.io.Serializable)
+	 */
+	@Override
+	public boolean remove(Class<?> clazz, Serializable pk) {
+		Timer timer = metrics.start(Operation.DELETE, clazz);
 		try {
-			for (Serializable pk : pks) {
+			boolean outcome = false;
+			Session session = sxnManager.getManagedSession();
+			try {
 				session.delete(session.get(clazz, pk));
+				sxnManager.commit(session);
+				outcome = true;
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-			if(sxnManager.useTransactions()){
-				session.getTransaction().commit();
+			invalidateResults(clazz);
+			sxnManager.closeSession(session);
+			return timer.done(outcome);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormService#bulkRemove(java.lang.Class, java.util.List)
+	 */
+	@Override
+	public boolean bulkRemove(Class<?> clazz, List<Serializable> pks) {
+		removeByIds(clazz, pks);
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#removeByIds(java.lang.Class, java.util.Collection)
+	 */
+	@Override
+	public int removeByIds(Class<?> clazz, Collection<? extends Serializable> pks) {
+		Timer timer = metrics.start(Operation.BULK_DELETE, clazz);
+		try {
+			EntityMetadata md = getMetadata(clazz);
+			if (!md.isMapped()) {
+				throw new NwormQueryException("unmapped class " + clazz.getName(), null);
 			}
-			session.close();
-			return true;
-		} catch (HibernateException e) {
-			if(sxnManager.useTransactions()){
-				session.getTransaction().rollback();
+			String hql = "delete from " + md.getEntityName() + " where " + md.getIdPropertyName() + " in (:ids)";
+			int affected = 0;
+			Session session = sxnManager.getManagedSession();
+			try {
+				for (List<? extends Serializable> chunk : chunk(pks, inListChunkSize)) {
+					Query query = session.createQuery(hql);
+					query.setParameterList("ids", chunk);
+					affected += query.executeUpdate();
+				}
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
 			}
-			session.close();
-			throw new NwormQueryException("", e);
+			invalidateResults(md.getEntityClass());
+			sxnManager.closeSession(session);
+			return timer.done(affected, affected);
+		} finally {
+			timer.stop();
 		}
 	}
 
@@ -629,18 +1476,24 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 */
 	@Override
 	public Serializable create(Object obj) {
-		Serializable pk = null;
-		Session session = sxnManager.getManagedSession();
+		Timer timer = metrics.start(Operation.CREATE, classOf(obj));
 		try {
-			pk = session.save(obj);
-			sxnManager.commit(session);
-		} catch (HibernateException e) {
-			sxnManager.rollback(session);
+			Serializable pk = null;
+			Session session = sxnManager.getManagedSession();
+			try {
+				pk = session.save(obj);
+				sxnManager.commit(session);
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			invalidateResults(getMetadata(obj.getClass()).getEntityClass());
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			return timer.done(pk, 1);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return pk;
 	}
 
 	/* (non-Javadoc)
@@ -648,24 +1501,121 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 */
 	@Override
 	public List<Serializable> createBulk(List<?> items) {
-		List<Serializable> ids = new ArrayList<Serializable>();
-		StatelessSession session = sxnManager.getStatelessSession();
+		Timer timer = metrics.start(Operation.BULK_CREATE, classOf(items));
 		try {
-			for (Object item: items) {
-				ids.add(session.insert(item));
+			if (sxnManager.isSessionBound()) {
+				// a stateless session would run outside the unit of work
+				return timer.done(createBulk(items, new BulkInsertOptions()).getIds());
 			}
-			if(sxnManager.useTransactions()){
-				session.getTransaction().commit();
+			List<Serializable> ids = new ArrayList<Serializable>();
+			StatelessSession session = sxnManager.getStatelessSession();
+			try {
+				for (Object item: items) {
+					ids.add(session.insert(item));
+				}
+				if(sxnManager.useTransactions()){
+					session.getTransaction().commit();
+				}
+			} catch (HibernateException e) {
+				if(sxnManager.useTransactions()){
+					session.getTransaction().rollback();
+				}
+				sxnManager.closeStatelessSession(session);
+				throw new NwormQueryException("", e);
 			}
-		} catch (HibernateException e) {
-			if(sxnManager.useTransactions()){
-				session.getTransaction().rollback();
+			invalidateResults(items);
+			sxnManager.closeStatelessSession(session);
+			return timer.done(ids);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see nw.orm.core.service.NwormHibernateService#createBulk(java.util.List, nw.orm.core.bulk.BulkInsertOptions)
+	 */
+	@Override
+	public BulkInsertResult createBulk(List<?> items, BulkInsertOptions options) {
+		Timer timer = metrics.start(Operation.BULK_CREATE, classOf(items));
+		try {
+			BulkInsertResult result = new BulkInsertResult(items.size());
+			int batchSize = options.getBatchSize() > 0 ? options.getBatchSize() : Math.max(1, conf.getJdbcBatchSize());
+			// within a unit of work rows are only flushed, never cleared or committed early
+			boolean bound = sxnManager.isSessionBound();
+			Session session = bound ? sxnManager.getManagedSession() : sxnManager.getRawSession();
+			CacheMode cacheMode = session.getCacheMode();
+			session.setCacheMode(CacheMode.IGNORE);
+			try {
+				int chunkIndex = 0;
+				int uncommittedChunks = 0;
+				int lastRows = 0;
+				long lastMillis = 0;
+				for (int from = 0; from < items.size(); from += options.getChunkSize()) {
+					long start = System.currentTimeMillis();
+					int to = Math.min(from + options.getChunkSize(), items.size());
+					for (int i = from; i < to; i++) {
+						result.addId(session.save(items.get(i)));
+						if ((i - from + 1) % batchSize == 0) {
+							session.flush();
+							if (!bound) {
+								session.clear();
+							}
+						}
+					}
+					session.flush();
+					if (!bound) {
+						session.clear();
+					}
+					uncommittedChunks += 1;
+
+					boolean committed = false;
+					if (!bound && options.getCommitInterval() > 0 && uncommittedChunks >= options.getCommitInterval()
+							&& to < items.size() && sxnManager.useTransactions()) {
+						session.getTransaction().commit();
+						result.markCommitted();
+						session.beginTransaction();
+						uncommittedChunks = 0;
+						committed = true;
+					}
+					if (to < items.size()) {
+						result.addChunk(new ChunkStat(chunkIndex++, to - from, System.currentTimeMillis() - start, committed));
+					} else {
+						// the last chunk is only committed by the final commit
+						lastRows = to - from;
+						lastMillis = System.currentTimeMillis() - start;
+					}
+				}
+				session.setCacheMode(cacheMode);
+				sxnManager.commit(session);
+				if (!bound) {
+					result.markCommitted();
+				}
+				if (lastRows > 0) {
+					result.addChunk(new ChunkStat(chunkIndex, lastRows, lastMillis, !bound));
+				}
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				if (!bound) {
+					sxnManager.closeRawSession(session);
+				}
+				if (result.getCommittedCount() > 0) {
+					invalidateResults(items);
+				}
+				throw new NwormQueryException("bulk insert failed, " + result.getCommittedCount() + " rows committed", e);
+			} finally {
+				if (bound) {
+					// the session of a unit of work outlives the insert, failed or not
+					session.setCacheMode(cacheMode);
+				}
 			}
-			session.close();
-			throw new NwormQueryException("", e);
+			invalidateResults(items);
+			if (!bound) {
+				sxnManager.closeRawSession(session);
+			}
+			return timer.done(result);
+		} finally {
+			timer.stop();
 		}
-		session.close();
-		return ids;
 	}
 
 	/**
@@ -676,19 +1626,25 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 */
 	@Override
 	public boolean update(Object obj) {
-		boolean outcome = false;
-		Session session = sxnManager.getManagedSession();
+		Timer timer = metrics.start(Operation.UPDATE, classOf(obj));
 		try {
-			session.update(obj);
-			sxnManager.commit(session);
-			outcome = true;
-		} catch (HibernateException e) {
-			sxnManager.rollback(session);
+			boolean outcome = false;
+			Session session = sxnManager.getManagedSession();
+			try {
+				session.update(obj);
+				sxnManager.commit(session);
+				outcome = true;
+			} catch (HibernateException e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			invalidateResults(getMetadata(obj.getClass()).getEntityClass());
 			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			return timer.done(outcome);
+		} finally {
+			timer.stop();
 		}
-		sxnManager.closeSession(session);
-		return outcome;
 	}
 
 	/**
@@ -700,25 +1656,46 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 */
 	@Override
 	public boolean updateBulk(List<?> items) {
-		boolean outcome = false;
-		StatelessSession session = sxnManager.getStatelessSession();
+		Timer timer = metrics.start(Operation.BULK_UPDATE, classOf(items));
 		try {
-			for (Object item: items) {
-				session.update(item);
+			if (sxnManager.isSessionBound()) {
+				// a stateless session would run outside the unit of work
+				Session session = sxnManager.getManagedSession();
+				try {
+					for (Object item: items) {
+						session.update(item);
+					}
+					sxnManager.commit(session);
+				} catch (HibernateException e) {
+					sxnManager.rollback(session);
+					throw new NwormQueryException("", e);
+				}
+				invalidateResults(items);
+				return timer.done(true);
 			}
-			if(sxnManager.useTransactions()){
-				session.getTransaction().commit();
+			boolean outcome = false;
+			StatelessSession session = sxnManager.getStatelessSession();
+			try {
+				for (Object item: items) {
+					session.update(item);
+				}
+				if(sxnManager.useTransactions()){
+					session.getTransaction().commit();
+				}
+				outcome = true;
+			} catch (HibernateException e) {
+				if(sxnManager.useTransactions()){
+					session.getTransaction().rollback();
+				}
+				sxnManager.closeStatelessSession(session);
+				throw new NwormQueryException("", e);
 			}
-			outcome = true;
-		} catch (HibernateException e) {
-			if(sxnManager.useTransactions()){
-				session.getTransaction().rollback();
-			}
-			session.close();
-			throw new NwormQueryException("", e);
+			invalidateResults(items);
+			sxnManager.closeStatelessSession(session);
+			return timer.done(outcome);
+		} finally {
+			timer.stop();
 		}
-		session.close();
-		return outcome;
 	}
 
 	/* (non-Javadoc)
@@ -726,7 +1703,7 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 */
 	@Override
 	public boolean toggleActive(Class<? extends NwormEntity<?>> clazz, Serializable id) {
-		Object bc = getByCriteria(clazz, new Criterion[] { Restrictions.idEq(id) });
+		Object bc = loadForWrite(clazz, id);
 		if ((bc instanceof NwormEntity)) {
 			NwormEntity<?> e = (NwormEntity<?>) bc;
 			e.setActive(!e.isActive());
@@ -739,18 +1716,124 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 */
 	@Override
 	public boolean createOrUpdate(Object obj) {
-		boolean outcome = false;
-		Session session = sxnManager.getManagedSession();
+		Timer timer = metrics.start(Operation.CREATE_OR_UPDATE, classOf(obj));
 		try {
-			session.saveOrUpdate(obj);
-			sxnManager.commit(session);
-			outcome = true;
-		} catch (Exception e) {
-			sxnManager.rollback(session);
-			sxnManager.closeSession(session);
-			throw new NwormQueryException("", e);
+			boolean outcome = false;
+			Session session = sxnManager.getManagedSession();
+			try {
+				session.saveOrUpdate(obj);
+				sxnManager.commit(session);
+				outcome = true;
+			} catch (Exception e) {
+				sxnManager.rollback(session);
+				sxnManager.closeSession(session);
+				throw new NwormQueryException("", e);
+			}
+			invalidateResults(getMetadata(obj.getClass()).getEntityClass());
+			return timer.done(outcome);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/**
+	 * Executes a unit of work in a single session and transaction. All service calls made by the work on the current
+	 * thread share the session and are committed once, when the work returns. The transaction is rolled back if the work
+	 * throws or any call in it fails, even if the failure was caught. A unit of work started within another one joins it.
+	 * Scrolling and streaming queries in a unit of work flush it and read through its session, rows they load stay
+	 * writable and are kept in the session until the work returns.
+	 *
+	 * @param <T> the result type
+	 * @param work the work
+	 * @return the result of the work
+	 * @throws NwormQueryException when the work fails or the transaction can not be committed
+	 */
+	@Override
+	public <T> T executeInTransaction(TransactionCallback<T> work) {
+		Timer timer = metrics.start(Operation.TRANSACTION, null);
+		try {
+			boolean owner = sxnManager.bindSession();
+			boolean success = false;
+			T out = null;
+			try {
+				out = work.execute(this);
+				success = true;
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new NwormQueryException("unit of work failed", e);
+			} finally {
+				if (!success) {
+					sxnManager.setRollbackOnly();
+					if (owner) {
+						Set<Class<?>> written = sxnManager.getWrittenClasses();
+						try {
+							sxnManager.unbindSession();
+						} catch (HibernateException e) {
+							logger.error("Rollback of unit of work failed", e);
+						} finally {
+							invalidateWritten(written);
+						}
+					}
+				}
+			}
+			if (owner) {
+				Set<Class<?>> written = sxnManager.getWrittenClasses();
+				boolean committed;
+				try {
+					committed = sxnManager.unbindSession();
+				} catch (HibernateException e) {
+					throw new NwormQueryException("unit of work commit failed", e);
+				} finally {
+					invalidateWritten(written);
+				}
+				if (!committed) {
+					throw new NwormQueryException("unit of work was rolled back after a failed operation", null);
+				}
+			}
+			return timer.done(out);
+		} finally {
+			timer.stop();
+		}
+	}
+
+	/**
+	 * Invalidates the cached results of a written class, null for all classes. Writes of a unit of work are recorded
+	 * to be invalidated again once it completes.
+	 *
+	 * @param clazz the written class
+	 */
+	private void invalidateResults(Class<?> clazz) {
+		resultCache.invalidate(clazz);
+		sxnManager.recordWrite(clazz);
+	}
+
+	/**
+	 * Invalidates the cached results of the classes of written items.
+	 *
+	 * @param items the written items
+	 */
+	private void invalidateResults(Collection<?> items) {
+		resultCache.invalidate(items);
+		if (sxnManager.isSessionBound()) {
+			for (Object item : items) {
+				if (item != null) {
+					sxnManager.recordWrite(item.getClass());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Invalidates the results of the classes written by a completed unit of work. Its writes already invalidated
+	 * when flushed, but a concurrent read between the flush and the commit may have cached the committed state again.
+	 *
+	 * @param written the written classes
+	 */
+	private void invalidateWritten(Set<Class<?>> written) {
+		for (Class<?> clazz : written) {
+			resultCache.invalidate(clazz);
 		}
-		return outcome;
 	}
 
 	/**
@@ -800,6 +1883,455 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 		configureSessionManager(true, false);
 	}
 
+	/**
+	 * Adds the aliases of a query modifier to a criteria.
+	 *
+	 * @param te the criteria
+	 * @param qm {@link QueryModifier} reference
+	 */
+	protected void applyAliases(Criteria te, QueryModifier qm) {
+		List<QueryAlias> aliases = qm.getAliases();
+		for (QueryAlias qa : aliases) {
+			if ((qa.getJoinType() == null) && (qa.getWithClause() == null))
+				te.createAlias(qa.getAssociationPath(), qa.getAlias());
+			else if ((qa.getWithClause() == null) && (qa.getJoinType() != null))
+				te.createAlias(qa.getAssociationPath(), qa.getAlias(), qa.getJoinType());
+			else {
+				te.createAlias(qa.getAssociationPath(), qa.getAlias(), qa.getJoinType(), qa.getWithClause());
+			}
+		}
+	}
+
+	/**
+	 * Builds the key under which the total count of a paged query is cached.
+	 *
+	 * @param qm the query modifier
+	 * @param criteria the criteria
+	 * @return the count key, null if the criteria can not be described completely
+	 */
+	private String totalCountKey(QueryModifier qm, Criterion ... criteria) {
+		String description = QueryResultCache.describe(criteria, aliasKey(qm));
+		return description == null ? null : qm.getQueryClazz().getName() + description;
+	}
+
+	/**
+	 * Describes the aliases of a modifier for cache keys.
+	 *
+	 * @param qm the query modifier
+	 * @return the alias paths, names, join types and with clauses
+	 */
+	private Object[] aliasKey(QueryModifier qm) {
+		List<Object> out = new ArrayList<Object>();
+		for (QueryAlias qa : qm.getAliases()) {
+			out.add(new Object[] { qa.getAssociationPath(), qa.getAlias(), qa.getJoinType(), qa.getWithClause() });
+		}
+		return out.toArray();
+	}
+
+	/**
+	 * Drops all cached total counts of paged queries.
+	 */
+	public void clearTotalCountCache() {
+		totalCounts.clear();
+	}
+
+	/**
+	 * Gets the maximum size of the connection pool behind this service.
+	 *
+	 * @return the maximum number of pooled connections, 0 if unknown
+	 */
+	public int getConnectionPoolSize() {
+		return conf.getConnectionPoolSize();
+	}
+
+	/**
+	 * Names the metrics of this service after its configuration and publishes them over JMX, unless the
+	 * configuration sets nworm.metrics to false. Sessions opened by the session manager are counted from here on,
+	 * statements are timed if the session factory uses a {@link NwormInterceptor} and the connection pool metrics
+	 * are published if the pool is metered.
+	 *
+	 * @param name the configuration name
+	 */
+	protected void initMetrics(String name) {
+		metrics = new NwormMetrics(name);
+		metrics.setPoolMetrics(conf.getPoolMetrics());
+		if (!"false".equalsIgnoreCase(conf.getActiveConfiguration().getProperty(NWORM_METRICS))) {
+			metrics.registerMBeans();
+		} else {
+			metrics.setEnabled(false);
+		}
+		NwormInterceptor interceptor = getInterceptor();
+		if (interceptor != null) {
+			interceptor.configure(conf.getActiveConfiguration().getProperties());
+			metrics.setListener(interceptor);
+		}
+		sxnManager.setMetrics(metrics);
+	}
+
+	/**
+	 * Takes a snapshot of the hibernate statistics of this service, statistics must be enabled through
+	 * {@link HibernateSessionService#setStatisticsEnabled(boolean)} or hibernate.generate_statistics.
+	 * Compare two snapshots with {@link StatisticsSnapshot#since(StatisticsSnapshot)}.
+	 *
+	 * @return the snapshot
+	 */
+	public StatisticsSnapshot getStatisticsSnapshot() {
+		return sxnManager.getStatisticsSnapshot();
+	}
+
+	/**
+	 * Gets the interceptor timing the statements of this service, see {@link NwormInterceptor#getSlowestStatements()}.
+	 *
+	 * @return the interceptor, null if the session factory was built without one
+	 */
+	public NwormInterceptor getInterceptor() {
+		Interceptor interceptor = conf.getInterceptor();
+		return interceptor instanceof NwormInterceptor ? (NwormInterceptor) interceptor : null;
+	}
+
+	/**
+	 * Gets the call, latency and session metrics of this service.
+	 *
+	 * @return the metrics
+	 */
+	public NwormMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the class of an entity for metrics.
+	 *
+	 * @param entity the entity
+	 * @return the class, null for null
+	 */
+	private static Class<?> classOf(Object entity) {
+		return entity == null ? null : entity.getClass();
+	}
+
+	/**
+	 * Gets the class of the first of a list of entities for metrics.
+	 *
+	 * @param items the entities
+	 * @return the class, null for an empty list
+	 */
+	private static Class<?> classOf(List<?> items) {
+		return items == null || items.isEmpty() ? null : classOf(items.get(0));
+	}
+
+	/**
+	 * Gets the cache of read results. Reads are only cached for classes enabled on it.
+	 *
+	 * @return the result cache
+	 */
+	public QueryResultCache getResultCache() {
+		return resultCache;
+	}
+
+	/**
+	 * Builds the result cache key of a read.
+	 *
+	 * @param clazz the queried class
+	 * @param parts the query and parameters identifying the read
+	 * @return the key, null if results of the class are not cached
+	 */
+	private QueryResultCache.Key resultKey(Class<?> clazz, Object ... parts) {
+		// a unit of work must see its own uncommitted writes
+		if (!resultCache.isEnabled(clazz) || sxnManager.isSessionBound()) {
+			return null;
+		}
+		return resultCache.key(clazz, getMetadata(clazz).isMapped(), parts);
+	}
+
+	/**
+	 * Describes the paging, ordering and projections of a modifier for result cache keys.
+	 *
+	 * @param mod the modifier, may be null
+	 * @return the modifier parts
+	 */
+	private Object[] modifierKey(SQLModifier mod) {
+		List<Object> out = new ArrayList<Object>();
+		if (mod == null) {
+			return out.toArray();
+		}
+		if (mod.isPaginated()) {
+			out.add(mod.getPageIndex() + ":" + mod.getMaxResult());
+		}
+		if (mod instanceof QueryModifier) {
+			QueryModifier qm = (QueryModifier) mod;
+			out.add(qm.getQueryClazz());
+			out.add(aliasKey(qm));
+			out.add(Boolean.valueOf(qm.isTransformResult()));
+			out.add(qm.getOrderBys());
+			out.add(qm.getProjections());
+			for (QueryFetchMode fm : qm.getFetchModes()) {
+				out.add(new Object[] { fm.getAlias(), String.valueOf(fm.getFetchMode()) });
+			}
+			if (qm.getFetchPlan() != null) {
+				out.add(qm.getFetchPlan().toString());
+			}
+			if (qm.isKeysetPaginated()) {
+				// keyset pages clear the offset pagination, the cursor and page size tell them apart
+				KeysetCursor cursor = qm.getKeysetCursor();
+				out.add(new Object[] { cursor.getProperties(), Boolean.valueOf(cursor.isAscending()), cursor.getLastSeen(),
+						Integer.valueOf(qm.getMaxResult()) });
+			}
+		}
+		return out.toArray();
+	}
+
+	/**
+	 * Adds the seek predicate and key ordering of a keyset cursor to a criteria.
+	 *
+	 * @param te the criteria
+	 * @param cursor the keyset cursor
+	 */
+	protected void applyKeyset(Criteria te, KeysetCursor cursor) {
+		String[] keys = cursor.getProperties();
+		Object[] values = cursor.getLastSeen();
+		if (values != null) {
+			// (k0 > v0) or (k0 = v0 and k1 > v1) or ...
+			Disjunction seek = Restrictions.disjunction();
+			for (int i = 0; i < keys.length; i++) {
+				Conjunction step = Restrictions.conjunction();
+				for (int j = 0; j < i; j++) {
+					step.add(Restrictions.eq(keys[j], values[j]));
+				}
+				step.add(cursor.isAscending() ? Restrictions.gt(keys[i], values[i]) : Restrictions.lt(keys[i], values[i]));
+				seek.add(step);
+			}
+			te.add(seek);
+		}
+		for (String key : keys) {
+			te.addOrder(cursor.isAscending() ? Order.asc(key) : Order.desc(key));
+		}
+	}
+
+	/**
+	 * Appends the seek predicate and key ordering of a keyset cursor to a hql string.
+	 * Key values are bound as nwormKey0, nwormKey1 ...
+	 *
+	 * @param hql the hql, without an order by
+	 * @param alias the root alias of the hql, may be null
+	 * @param cursor the keyset cursor
+	 * @return the modified hql
+	 */
+	protected String applyKeyset(String hql, String alias, KeysetCursor cursor) {
+		String[] keys = cursor.getProperties();
+		String prefix = alias == null ? "" : alias + ".";
+		String op = cursor.isAscending() ? " > " : " < ";
+		StringBuilder sb = new StringBuilder();
+		if (cursor.isFirstPage()) {
+			sb.append(hql);
+		} else {
+			StringBuilder seek = new StringBuilder();
+			for (int i = 0; i < keys.length; i++) {
+				if (i > 0) {
+					seek.append(" or ");
+				}
+				seek.append("(");
+				for (int j = 0; j < i; j++) {
+					seek.append(prefix).append(keys[j]).append(" = :nwormKey").append(j).append(" and ");
+				}
+				seek.append(prefix).append(keys[i]).append(op).append(":nwormKey").append(i).append(")");
+			}
+			sb.append(addHQLCondition(hql, seek.toString()));
+		}
+		sb.append(" order by ");
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(prefix).append(keys[i]).append(cursor.isAscending() ? " asc" : " desc");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Adds a condition to the where clause of a hql statement as where (original) and (condition), so that the
+	 * condition applies to every branch of the original one. Where clauses of subqueries are left alone.
+	 *
+	 * @param hql the hql
+	 * @param condition the condition
+	 * @return the modified hql
+	 */
+	protected String addHQLCondition(String hql, String condition) {
+		String masked = maskNested(hql);
+		Matcher where = HQL_WHERE.matcher(masked);
+		boolean hasWhere = where.find();
+		Matcher after = HQL_AFTER_WHERE.matcher(masked);
+		int end = after.find(hasWhere ? where.end() : 0) ? after.start() : hql.length();
+		String tail = hql.substring(end).trim();
+		StringBuilder sb = new StringBuilder();
+		if (hasWhere) {
+			sb.append(hql.substring(0, where.end())).append(" (").append(hql.substring(where.end(), end).trim()).append(")");
+			sb.append(" and (").append(condition).append(")");
+		} else {
+			sb.append(hql.substring(0, end).trim()).append(" where (").append(condition).append(")");
+		}
+		if (tail.length() > 0) {
+			sb.append(' ').append(tail);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Blanks out the string literals and bracketed parts of a hql statement, such as subqueries, keeping its length
+	 * so that clauses found in the result are at the same positions in the statement.
+	 *
+	 * @param hql the hql
+	 * @return the masked hql
+	 */
+	private static String maskNested(String hql) {
+		StringBuilder sb = new StringBuilder(hql.length());
+		int depth = 0;
+		boolean quoted = false;
+		for (int i = 0; i < hql.length(); i++) {
+			char c = hql.charAt(i);
+			if (quoted) {
+				// a doubled quote is an escaped quote and toggles twice
+				quoted = c != '\'';
+				sb.append(' ');
+			} else if (c == '\'') {
+				quoted = true;
+				sb.append(' ');
+			} else if (c == '(') {
+				depth += 1;
+				sb.append(' ');
+			} else if (c == ')') {
+				depth = Math.max(0, depth - 1);
+				sb.append(' ');
+			} else {
+				sb.append(depth > 0 ? ' ' : c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Builds the cursor positioned after a row.
+	 *
+	 * @param session the session the row was loaded with
+	 * @param cursor the current cursor
+	 * @param row the last row of the page
+	 * @return the next cursor
+	 */
+	protected KeysetCursor nextCursor(Session session, KeysetCursor cursor, Object row) {
+		String[] keys = cursor.getProperties();
+		Object[] values = new Object[keys.length];
+		ClassMetadata cm = sxnManager.getFactory().getClassMetadata(HibernateProxyHelper.getClassWithoutInitializingProxy(row));
+		for (int i = 0; i < keys.length; i++) {
+			if (cm == null) {
+				values[i] = readBeanProperty(row, keys[i]);
+			} else if (keys[i].equals(cm.getIdentifierPropertyName())) {
+				values[i] = session.getIdentifier(row);
+			} else {
+				values[i] = cm.getPropertyValue(row, keys[i]);
+			}
+		}
+		return cursor.after(values);
+	}
+
+	/**
+	 * Reads a property of a transformed result bean.
+	 *
+	 * @param bean the bean
+	 * @param property the property
+	 * @return the property value
+	 */
+	private Object readBeanProperty(Object bean, String property) {
+		try {
+			for (PropertyDescriptor pd : Introspector.getBeanInfo(bean.getClass()).getPropertyDescriptors()) {
+				if (pd.getName().equals(property) && pd.getReadMethod() != null) {
+					return pd.getReadMethod().invoke(bean);
+				}
+			}
+		} catch (IntrospectionException e) {
+			throw new NwormQueryException("unable to read key " + property, e);
+		} catch (IllegalAccessException e) {
+			throw new NwormQueryException("unable to read key " + property, e);
+		} catch (InvocationTargetException e) {
+			throw new NwormQueryException("unable to read key " + property, e);
+		}
+		throw new NwormQueryException("key " + property + " is not readable on " + bean.getClass().getName(), null);
+	}
+
+	/**
+	 * Splits a collection into lists of at most size items, used to keep IN lists within database limits.
+	 *
+	 * @param <X> the element type
+	 * @param items the items
+	 * @param size the maximum chunk size
+	 * @return the chunks
+	 */
+	protected static <X> List<List<X>> chunk(Collection<X> items, int size) {
+		List<List<X>> chunks = new ArrayList<List<X>>();
+		List<X> current = new ArrayList<X>(Math.min(size, items.size()));
+		for (X item : items) {
+			current.add(item);
+			if (current.size() == size) {
+				chunks.add(current);
+				current = new ArrayList<X>(size);
+			}
+		}
+		if (!current.isEmpty()) {
+			chunks.add(current);
+		}
+		return chunks;
+	}
+
+	/**
+	 * Gets the maximum number of values bound to a single IN list.
+	 *
+	 * @return the IN list chunk size
+	 */
+	public int getInListChunkSize() {
+		return inListChunkSize;
+	}
+
+	/**
+	 * Sets the maximum number of values bound to a single IN list. Larger id lists are split into several statements.
+	 *
+	 * @param inListChunkSize the new IN list chunk size
+	 */
+	public void setInListChunkSize(int inListChunkSize) {
+		if (inListChunkSize < 1) {
+			throw new IllegalArgumentException("inListChunkSize must be at least 1");
+		}
+		this.inListChunkSize = inListChunkSize;
+	}
+
+	/**
+	 * Checks whether the results of a query get the associations of its fetch plan.
+	 *
+	 * @param qm the query modifier
+	 * @return true if the modifier has a plan and the results are entities
+	 */
+	private static boolean usesFetchPlan(QueryModifier qm) {
+		return qm.getFetchPlan() != null && !qm.isTransformResult() && qm.getProjections().isEmpty();
+	}
+
+	/**
+	 * Creates a loader of fetch plans.
+	 *
+	 * @return the loader
+	 */
+	private FetchPlanLoader fetchPlanLoader() {
+		return new FetchPlanLoader(conf.getSessionFactory(), inListChunkSize);
+	}
+
+	/**
+	 * Loads the associations of the fetch plan of a query, in the session the results were loaded in.
+	 *
+	 * @param session the session
+	 * @param qm the query modifier
+	 * @param items the results
+	 */
+	protected void loadFetchPlan(Session session, QueryModifier qm, Collection<?> items) {
+		if (usesFetchPlan(qm) && !items.isEmpty()) {
+			fetchPlanLoader().load(session, qm.getFetchPlan(), items);
+		}
+	}
+
 	/**
 	 * Modify hql.
 	 *
@@ -808,7 +2340,7 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 * @return the string
 	 */
 	protected String modifyHQL(String hql, Class<?> clazz) {
-		if (NwormEntity.class.isAssignableFrom(clazz)) {
+		if (getMetadata(clazz).isSoftDeletable()) {
 			if (hql.toLowerCase().contains(" where ")) {
 				return hql + " and deleted = :deleted";
 			}
@@ -824,29 +2356,28 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 	 * @param qm {@link QueryModifier} reference
 	 */
 	protected void modifyCriteria(Criteria te, QueryModifier qm) {
-		List<QueryAlias> aliases = qm.getAliases();
-		for (QueryAlias qa : aliases) {
-			if ((qa.getJoinType() == null) && (qa.getWithClause() == null))
-				te.createAlias(qa.getAssociationPath(), qa.getAlias());
-			else if ((qa.getWithClause() == null) && (qa.getJoinType() != null))
-				te.createAlias(qa.getAssociationPath(), qa.getAlias(), qa.getJoinType());
-			else {
-				te.createAlias(qa.getAssociationPath(), qa.getAlias(), qa.getJoinType(), qa.getWithClause());
-			}
-		}
+		applyAliases(te, qm);
 		List<QueryFetchMode> fms = qm.getFetchModes();
 		for(QueryFetchMode fm: fms){
 			te.setFetchMode(fm.getAlias(), fm.getFetchMode());
 		}
+		if (usesFetchPlan(qm)) {
+			fetchPlanLoader().applyJoins(te, qm.getFetchPlan());
+		}
 
-		if (qm.isPaginated()) {
-			te.setFirstResult(qm.getPageIndex());
+		if (qm.isKeysetPaginated()) {
+			applyKeyset(te, qm.getKeysetCursor());
 			te.setMaxResults(qm.getMaxResult());
-		}
+		} else {
+			if (qm.isPaginated()) {
+				te.setFirstResult(qm.getPageIndex());
+				te.setMaxResults(qm.getMaxResult());
+			}
 
-		List<Order> orderBys = qm.getOrderBys();
-		for (Order order : orderBys) {
-			te.addOrder(order);
+			List<Order> orderBys = qm.getOrderBys();
+			for (Order order : orderBys) {
+				te.addOrder(order);
+			}
 		}
 
 		List<Projection> projections = qm.getProjections();
@@ -858,6 +2389,43 @@ public abstract class NwormImpl extends NeemClazz implements NwormHibernateServi
 		}
 
 		addSoftRestrictions(te, qm.getQueryClazz());
+		applyCacheSettings(te, qm);
+	}
+
+	/**
+	 * Applies the cache settings of a modifier to a criteria.
+	 *
+	 * @param te the criteria
+	 * @param mod the modifier
+	 */
+	protected void applyCacheSettings(Criteria te, SQLModifier mod) {
+		if (mod.isCacheable()) {
+			te.setCacheable(true);
+			if (mod.getCacheRegion() != null) {
+				te.setCacheRegion(mod.getCacheRegion());
+			}
+		}
+		if (mod.getCacheMode() != null) {
+			te.setCacheMode(mod.getCacheMode());
+		}
+	}
+
+	/**
+	 * Applies the cache settings of a modifier to a hql or sql query.
+	 *
+	 * @param query the query
+	 * @param mod the modifier
+	 */
+	protected void applyCacheSettings(Query query, SQLModifier mod) {
+		if (mod.isCacheable()) {
+			query.setCacheable(true);
+			if (mod.getCacheRegion() != null) {
+				query.setCacheRegion(mod.getCacheRegion());
+			}
+		}
+		if (mod.getCacheMode() != null) {
+			query.setCacheMode(mod.getCacheMode());
+		}
 	}
 
 	/**
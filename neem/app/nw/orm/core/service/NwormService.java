@@ -1,10 +1,12 @@
 package nw.orm.core.service;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 import nw.orm.core.NwormEntity;
 import nw.orm.core.exception.NwormQueryException;
+import nw.orm.core.query.MultiGetResult;
 import nw.orm.core.query.QueryParameter;
 import nw.orm.core.query.SQLModifier;
 
@@ -37,6 +39,18 @@ public interface NwormService {
 	 */
 	public <T> T getById(Class<T> entityClass, Serializable primaryKey, boolean lockOption);
 
+	/**
+	 * Retrieves the entities with the specified primary keys in one session, using as few IN queries as the IN list
+	 * chunk size allows. Soft deleted entries of {@link NwormEntity} subclasses are left out and reported missing.
+	 *
+	 * @param <T> The target entity type
+	 * @param entityClass target entity class
+	 * @param primaryKeys primary keys, duplicates and nulls are ignored
+	 * @return the entities by primary key in request order, and the primary keys that matched nothing
+	 * @throws NwormQueryException when an error occurs
+	 */
+	public <T> MultiGetResult<T> getByIds(Class<T> entityClass, Collection<? extends Serializable> primaryKeys);
+
 	/**
 	 * Retrieves a none paginated list of tables represented by the entity class spscified.
 	 * This method should be used cautiously, as loading the entire entries might be resource intensive.
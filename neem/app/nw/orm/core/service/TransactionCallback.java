@@ -0,0 +1,20 @@
+package nw.orm.core.service;
+
+/**
+ * Work executed in a single session and transaction, see {@link NwormImpl#executeInTransaction(TransactionCallback)}.
+ *
+ * @param <T> the result type
+ * @author Ogwara O. Rowland
+ */
+public interface TransactionCallback<T> {
+
+	/**
+	 * Executes the work. Every call made on the service, on this thread, joins the transaction.
+	 *
+	 * @param service the service
+	 * @return the result
+	 * @throws Exception to roll back the transaction
+	 */
+	T execute(NwormHibernateService service) throws Exception;
+
+}
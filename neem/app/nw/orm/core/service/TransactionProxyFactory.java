@@ -0,0 +1,170 @@
+package nw.orm.core.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nw.orm.core.annotations.NwormTransaction;
+import nw.orm.core.exception.NwormQueryException;
+
+/**
+ * Wraps services behind their interfaces so that methods annotated with {@link NwormTransaction} run as a single
+ * unit of work, see {@link NwormImpl#executeInTransaction(TransactionCallback)}. The annotation is read from the
+ * interface method or from the implementing method of the target.
+ * <pre>
+ * AccountService accounts = TransactionProxyFactory.create(AccountService.class, new AccountServiceImpl());
+ * accounts.transfer(from, to, amount); // one session, one commit
+ * </pre>
+ * Annotated methods called from within another one join its transaction when they use the same configuration. Any
+ * exception thrown by an annotated method rolls the transaction back and reaches the caller unchanged.
+ *
+ * @author Ogwara O. Rowland
+ */
+public final class TransactionProxyFactory {
+
+	/**
+	 * Instantiates a new transaction proxy factory.
+	 */
+	private TransactionProxyFactory() {
+
+	}
+
+	/**
+	 * Wraps a target, annotated methods run in transactions of the service named by their config.
+	 *
+	 * @param <T> the interface type
+	 * @param iface the interface
+	 * @param target the target
+	 * @return the transactional proxy
+	 */
+	public static <T> T create(Class<T> iface, T target) {
+		return create(iface, target, null);
+	}
+
+	/**
+	 * Wraps a target, annotated methods run in transactions of the given service regardless of their config.
+	 *
+	 * @param <T> the interface type
+	 * @param iface the interface
+	 * @param target the target
+	 * @param service the service, null to resolve it from the config of each annotation
+	 * @return the transactional proxy
+	 */
+	public static <T> T create(Class<T> iface, T target, NwormImpl service) {
+		if (!iface.isInterface()) {
+			throw new IllegalArgumentException(iface.getName() + " is not an interface");
+		}
+		Object proxy = Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[] { iface },
+				new TransactionHandler(target, service));
+		return iface.cast(proxy);
+	}
+
+	/**
+	 * Runs annotated methods in units of work.
+	 */
+	private static final class TransactionHandler implements InvocationHandler {
+
+		/** Marks methods without the annotation. */
+		private static final Object NONE = new Object();
+
+		/** The target. */
+		private final Object target;
+
+		/** The fixed service, may be null. */
+		private final NwormImpl service;
+
+		/** Resolved annotations by interface method. */
+		private final ConcurrentHashMap<Method, Object> annotations = new ConcurrentHashMap<Method, Object>();
+
+		/**
+		 * Instantiates a new transaction handler.
+		 *
+		 * @param target the target
+		 * @param service the service
+		 */
+		private TransactionHandler(Object target, NwormImpl service) {
+			this.target = target;
+			this.service = service;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+		 */
+		@Override
+		public Object invoke(Object proxy, final Method method, final Object[] args) throws Throwable {
+			NwormTransaction tx = getAnnotation(method);
+			if (tx == null) {
+				return call(method, args);
+			}
+			NwormImpl nworm = service != null ? service : Nworm.getInstance(tx.config());
+			final Throwable[] thrown = new Throwable[1];
+			try {
+				return nworm.executeInTransaction(new TransactionCallback<Object>() {
+
+					@Override
+					public Object execute(NwormHibernateService s) throws Exception {
+						try {
+							return call(method, args);
+						} catch (Exception e) {
+							thrown[0] = e;
+							throw e;
+						} catch (Throwable e) {
+							thrown[0] = e;
+							throw new InvocationTargetException(e);
+						}
+					}
+				});
+			} catch (NwormQueryException e) {
+				// checked exceptions of the method are wrapped by the unit of work
+				if (thrown[0] != null && e.getCause() != null
+						&& (e.getCause() == thrown[0] || e.getCause().getCause() == thrown[0])) {
+					throw thrown[0];
+				}
+				throw e;
+			}
+		}
+
+		/**
+		 * Calls the target, unwrapping exceptions thrown by the method.
+		 *
+		 * @param method the method
+		 * @param args the arguments
+		 * @return the result
+		 * @throws Throwable the exception thrown by the method
+		 */
+		private Object call(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		/**
+		 * Gets the annotation of an interface method or of its implementation.
+		 *
+		 * @param method the interface method
+		 * @return the annotation, null if neither is annotated
+		 */
+		private NwormTransaction getAnnotation(Method method) {
+			Object found = annotations.get(method);
+			if (found == null) {
+				NwormTransaction tx = method.getAnnotation(NwormTransaction.class);
+				if (tx == null) {
+					try {
+						tx = target.getClass().getMethod(method.getName(), method.getParameterTypes()).getAnnotation(NwormTransaction.class);
+					} catch (NoSuchMethodException e) {
+						tx = null;
+					}
+				}
+				found = tx == null ? NONE : tx;
+				annotations.put(method, found);
+			}
+			return found == NONE ? null : (NwormTransaction) found;
+		}
+
+	}
+
+}
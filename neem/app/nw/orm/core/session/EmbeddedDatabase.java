@@ -0,0 +1,308 @@
+package nw.orm.core.session;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+
+/**
+ * An embedded H2 or HSQLDB database configured in code, for tests and benchmarks on machines without a database
+ * server. The schema is created from the annotated classes when the session factory is built:
+ * <pre>
+ * Nworm db = Nworm.getInstance(EmbeddedDatabase.h2("orders")
+ *         .addAnnotatedClasses(Order.class, OrderLine.class)
+ *         .setPoolSize(16)
+ *         .setBatchSize(100));
+ * </pre>
+ * In memory databases live until the JVM exits, file databases are kept between runs. The database driver must be
+ * on the class path.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class EmbeddedDatabase {
+
+	/** Prefix of the configuration names of embedded databases, see {@link #getConfigName()}. */
+	public static final String CONFIG_PREFIX = "embedded:";
+
+	/** Default number of pooled connections. */
+	public static final int DEFAULT_POOL_SIZE = 10;
+
+	/**
+	 * The supported database engines.
+	 */
+	public enum Engine {
+
+		/** H2. */
+		H2("org.h2.Driver", "org.hibernate.dialect.H2Dialect", "jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", "jdbc:h2:file:%s"),
+
+		/** HSQLDB. */
+		HSQLDB("org.hsqldb.jdbc.JDBCDriver", "org.hibernate.dialect.HSQLDialect", "jdbc:hsqldb:mem:%s", "jdbc:hsqldb:file:%s");
+
+		/** The JDBC driver class. */
+		private final String driver;
+
+		/** The hibernate dialect class. */
+		private final String dialect;
+
+		/** The URL of an in memory database, formatted with the database name. */
+		private final String memoryUrl;
+
+		/** The URL of a file database, formatted with the file path. */
+		private final String fileUrl;
+
+		/**
+		 * Instantiates a new engine.
+		 *
+		 * @param driver the JDBC driver class
+		 * @param dialect the hibernate dialect class
+		 * @param memoryUrl the URL of an in memory database
+		 * @param fileUrl the URL of a file database
+		 */
+		private Engine(String driver, String dialect, String memoryUrl, String fileUrl) {
+			this.driver = driver;
+			this.dialect = dialect;
+			this.memoryUrl = memoryUrl;
+			this.fileUrl = fileUrl;
+		}
+	}
+
+	/** The engine. */
+	private final Engine engine;
+
+	/** The database name. */
+	private final String name;
+
+	/** The database file, null for an in memory database. */
+	private File file;
+
+	/** The mapped classes. */
+	private final List<Class<?>> annotatedClasses = new ArrayList<Class<?>>();
+
+	/** The number of pooled connections. */
+	private int poolSize = DEFAULT_POOL_SIZE;
+
+	/** The JDBC batch size, 0 for the nworm default. */
+	private int batchSize;
+
+	/** The connection pool, see {@link HibernateSessionFactory#NWORM_POOL}. */
+	private String pool = "hibernate";
+
+	/** What hibernate does to the schema on start up. */
+	private String schemaAction = "create";
+
+	/** Further hibernate and nworm properties. */
+	private final Properties properties = new Properties();
+
+	/**
+	 * Instantiates a new embedded database.
+	 *
+	 * @param engine the engine
+	 * @param name the database name, also naming the nworm configuration
+	 */
+	public EmbeddedDatabase(Engine engine, String name) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("name must not be empty");
+		}
+		this.engine = engine;
+		this.name = name;
+	}
+
+	/**
+	 * Creates an in memory H2 database.
+	 *
+	 * @param name the database name
+	 * @return the database
+	 */
+	public static EmbeddedDatabase h2(String name) {
+		return new EmbeddedDatabase(Engine.H2, name);
+	}
+
+	/**
+	 * Creates an in memory HSQLDB database.
+	 *
+	 * @param name the database name
+	 * @return the database
+	 */
+	public static EmbeddedDatabase hsqldb(String name) {
+		return new EmbeddedDatabase(Engine.HSQLDB, name);
+	}
+
+	/**
+	 * Keeps the database in files instead of memory. The schema is then updated rather than recreated unless
+	 * {@link #setSchemaAction(String)} says otherwise.
+	 *
+	 * @param file the database file, without the extension the engine adds
+	 * @return this database
+	 */
+	public EmbeddedDatabase inFile(File file) {
+		this.file = file;
+		this.schemaAction = "update";
+		return this;
+	}
+
+	/**
+	 * Adds mapped classes.
+	 *
+	 * @param classes the annotated entity classes
+	 * @return this database
+	 */
+	public EmbeddedDatabase addAnnotatedClasses(Class<?>... classes) {
+		annotatedClasses.addAll(Arrays.asList(classes));
+		return this;
+	}
+
+	/**
+	 * Sets the number of pooled connections.
+	 *
+	 * @param poolSize the pool size
+	 * @return this database
+	 */
+	public EmbeddedDatabase setPoolSize(int poolSize) {
+		if (poolSize <= 0) {
+			throw new IllegalArgumentException("poolSize must be positive");
+		}
+		this.poolSize = poolSize;
+		return this;
+	}
+
+	/**
+	 * Sets the JDBC batch size.
+	 *
+	 * @param batchSize the batch size, 0 for {@link HibernateSessionFactory#DEFAULT_JDBC_BATCH_SIZE}
+	 * @return this database
+	 */
+	public EmbeddedDatabase setBatchSize(int batchSize) {
+		if (batchSize < 0) {
+			throw new IllegalArgumentException("batchSize must not be negative");
+		}
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Sets the connection pool, hibernate for the built in pool of hibernate (the default), hikari or c3p0 if on the
+	 * class path. Every pool is metered, see {@link HibernateSessionFactory#NWORM_POOL}.
+	 *
+	 * @param pool the pool
+	 * @return this database
+	 */
+	public EmbeddedDatabase setPool(String pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * Sets what hibernate does to the schema on start up, as hbm2ddl.auto: create (the default for in memory
+	 * databases), update (the default for file databases), create-drop or validate.
+	 *
+	 * @param schemaAction the action
+	 * @return this database
+	 */
+	public EmbeddedDatabase setSchemaAction(String schemaAction) {
+		this.schemaAction = schemaAction;
+		return this;
+	}
+
+	/**
+	 * Sets any other hibernate or nworm property, overriding the settings above.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return this database
+	 */
+	public EmbeddedDatabase setProperty(String key, String value) {
+		properties.setProperty(key, value);
+		return this;
+	}
+
+	/**
+	 * Gets the engine.
+	 *
+	 * @return the engine
+	 */
+	public Engine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Gets the database name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the name the nworm service of this database is registered under.
+	 *
+	 * @return embedded:&lt;name&gt;
+	 */
+	public String getConfigName() {
+		return CONFIG_PREFIX + name;
+	}
+
+	/**
+	 * Gets the JDBC URL.
+	 *
+	 * @return the URL
+	 */
+	public String getUrl() {
+		return file == null ? String.format(engine.memoryUrl, name) : String.format(engine.fileUrl, file.getAbsolutePath());
+	}
+
+	/**
+	 * Gets the mapped classes.
+	 *
+	 * @return the classes
+	 */
+	public List<Class<?>> getAnnotatedClasses() {
+		return Collections.unmodifiableList(annotatedClasses);
+	}
+
+	/**
+	 * Gets the hibernate properties of this database.
+	 *
+	 * @return a new properties object
+	 */
+	public Properties getProperties() {
+		Properties props = new Properties();
+		props.setProperty(Environment.DRIVER, engine.driver);
+		props.setProperty(Environment.DIALECT, engine.dialect);
+		props.setProperty(Environment.URL, getUrl());
+		props.setProperty(Environment.USER, "sa");
+		props.setProperty(Environment.PASS, "");
+		props.setProperty(Environment.HBM2DDL_AUTO, schemaAction);
+		props.setProperty(Environment.POOL_SIZE, String.valueOf(poolSize));
+		props.setProperty(HibernateSessionFactory.NWORM_POOL, pool);
+		if ("hikari".equalsIgnoreCase(pool)) {
+			props.setProperty("hibernate.hikari.maximumPoolSize", String.valueOf(poolSize));
+		} else if ("c3p0".equalsIgnoreCase(pool)) {
+			props.setProperty(Environment.C3P0_MAX_SIZE, String.valueOf(poolSize));
+		}
+		if (batchSize > 0) {
+			props.setProperty(Environment.STATEMENT_BATCH_SIZE, String.valueOf(batchSize));
+		}
+		props.setProperty(Environment.CURRENT_SESSION_CONTEXT_CLASS, "thread");
+		props.putAll(properties);
+		return props;
+	}
+
+	/**
+	 * Applies this database to a hibernate configuration in place of a cfg XML file.
+	 *
+	 * @param configuration the configuration
+	 */
+	void configure(Configuration configuration) {
+		configuration.addProperties(getProperties());
+		for (Class<?> clazz : annotatedClasses) {
+			configuration.addAnnotatedClass(clazz);
+		}
+	}
+
+}
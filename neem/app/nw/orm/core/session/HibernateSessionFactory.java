@@ -1,14 +1,26 @@
 package nw.orm.core.session;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 
 import org.hibernate.Interceptor;
 import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.service.ServiceRegistry;
 import org.hibernate.service.ServiceRegistryBuilder;
 
 import nw.commons.NeemClazz;
+import nw.orm.core.cache.CacheStatistics;
+import nw.orm.core.cache.region.NwormRegionFactory;
+import nw.orm.core.metadata.EntityMetadataRegistry;
+import nw.orm.core.pool.HikariConnectionProvider;
+import nw.orm.core.pool.MeteredConnectionProvider;
+import nw.orm.core.pool.PoolMetrics;
 
 /**
  * Hibernate SessionFactory builder.
@@ -18,6 +30,31 @@ import nw.commons.NeemClazz;
 @SuppressWarnings("deprecation")
 public class HibernateSessionFactory extends NeemClazz{
 
+	/** JDBC batch size applied when the configuration does not specify hibernate.jdbc.batch_size. */
+	public static final int DEFAULT_JDBC_BATCH_SIZE = 50;
+
+	/** Shorthand property enabling the second level and query caches backed by {@link NwormRegionFactory}. */
+	public static final String NWORM_CACHE = "nworm.cache";
+
+	/**
+	 * Chooses the connection pool: c3p0, hikari, hibernate for the built in pool of hibernate, or the class name of
+	 * a hibernate connection provider. Without it
+	 * the provider hibernate would choose is kept, c3p0 when hibernate.c3p0 properties are set.
+	 */
+	public static final String NWORM_POOL = "nworm.pool";
+
+	/** Set to false to leave the connection provider alone and not record {@link PoolMetrics}. */
+	public static final String NWORM_POOL_METRICS = "nworm.pool.metrics";
+
+	/** The hibernate c3p0 connection provider, from the optional hibernate-c3p0 module. */
+	private static final String C3P0_PROVIDER = "org.hibernate.c3p0.internal.C3P0ConnectionProvider";
+
+	/** The HikariCP connection provider, named rather than referenced since HikariCP is optional. */
+	private static final String HIKARI_PROVIDER = "nw.orm.core.pool.HikariConnectionProvider";
+
+	/** The hibernate provider used when no pool is available. */
+	private static final String DRIVER_MANAGER_PROVIDER = "org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl";
+
 	/** The hibernate props. */
 	private Properties hibernateProps;
 
@@ -33,6 +70,12 @@ public class HibernateSessionFactory extends NeemClazz{
 	/** A Basic hibernate interceptor. */
 	private Interceptor interceptor;
 
+	/** Mapping metadata resolved once the session factory is built. */
+	private EntityMetadataRegistry metadataRegistry;
+
+	/** The embedded database configured in place of the config file, null if configured from the file. */
+	private EmbeddedDatabase embeddedDatabase;
+
 	/**
 	 * Inits the class with specified properties.
 	 *
@@ -55,6 +98,18 @@ public class HibernateSessionFactory extends NeemClazz{
 		this.configFilename = configFile;
 		this.interceptor = interceptor;
 		sessionFactory = buildSessionFactory();
+		metadataRegistry = new EntityMetadataRegistry(sessionFactory);
+	}
+
+	/**
+	 * Inits the class with an embedded database instead of a config file.
+	 *
+	 * @param database the embedded database
+	 * @param interceptor the interceptor
+	 */
+	public void init(EmbeddedDatabase database, Interceptor interceptor) {
+		this.embeddedDatabase = database;
+		init(null, database.getConfigName(), interceptor);
 	}
 
 	/**
@@ -69,11 +124,14 @@ public class HibernateSessionFactory extends NeemClazz{
 			if(interceptor != null){
 				activeConfiguration.setInterceptor(interceptor);
 			}
-			activeConfiguration.configure(configFilename);
+			configure();
 			if (hibernateProps != null) {
 				hibernateProps.remove("config.name");
 				activeConfiguration.addProperties(hibernateProps);
 			}
+			applyBatchDefaults();
+			applyCacheDefaults();
+			applyPoolDefaults();
 
 			ServiceRegistry serviceRegistry = new ServiceRegistryBuilder()
 					.applySettings(activeConfiguration.getProperties())
@@ -85,6 +143,175 @@ public class HibernateSessionFactory extends NeemClazz{
 		}
 	}
 
+	/**
+	 * Reads the config file, or applies the embedded database.
+	 */
+	private void configure() {
+		if (embeddedDatabase != null) {
+			embeddedDatabase.configure(activeConfiguration);
+		} else {
+			activeConfiguration.configure(configFilename);
+		}
+	}
+
+	/**
+	 * Enables JDBC statement batching unless the configuration already decides on it.
+	 * Versioned data is batched as well since all {@link nw.orm.core.NwormEntity} types are versioned.
+	 */
+	private void applyBatchDefaults() {
+		if (activeConfiguration.getProperty(Environment.STATEMENT_BATCH_SIZE) == null) {
+			activeConfiguration.setProperty(Environment.STATEMENT_BATCH_SIZE, String.valueOf(DEFAULT_JDBC_BATCH_SIZE));
+		}
+		if (activeConfiguration.getProperty(Environment.BATCH_VERSIONED_DATA) == null) {
+			activeConfiguration.setProperty(Environment.BATCH_VERSIONED_DATA, "true");
+		}
+	}
+
+	/**
+	 * Enables the second level and query caches with the bundled region factory when nworm.cache is true,
+	 * leaving any explicit hibernate cache settings in place.
+	 */
+	private void applyCacheDefaults() {
+		if (!Boolean.parseBoolean(activeConfiguration.getProperty(NWORM_CACHE))) {
+			return;
+		}
+		if (activeConfiguration.getProperty(Environment.USE_SECOND_LEVEL_CACHE) == null) {
+			activeConfiguration.setProperty(Environment.USE_SECOND_LEVEL_CACHE, "true");
+		}
+		if (activeConfiguration.getProperty(Environment.USE_QUERY_CACHE) == null) {
+			activeConfiguration.setProperty(Environment.USE_QUERY_CACHE, "true");
+		}
+		if (activeConfiguration.getProperty(Environment.CACHE_REGION_FACTORY) == null) {
+			activeConfiguration.setProperty(Environment.CACHE_REGION_FACTORY, NwormRegionFactory.class.getName());
+		}
+	}
+
+	/**
+	 * Puts a {@link MeteredConnectionProvider} in front of the pool chosen with nworm.pool, or of the pool hibernate
+	 * would choose. Data source configurations and nworm.pool.metrics=false are left alone.
+	 */
+	private void applyPoolDefaults() {
+		String pool = activeConfiguration.getProperty(NWORM_POOL);
+		String provider = activeConfiguration.getProperty(Environment.CONNECTION_PROVIDER);
+		if ("false".equalsIgnoreCase(activeConfiguration.getProperty(NWORM_POOL_METRICS))
+				|| activeConfiguration.getProperty(Environment.DATASOURCE) != null
+				|| MeteredConnectionProvider.class.getName().equals(provider)) {
+			return;
+		}
+		String delegate;
+		if ("hikari".equalsIgnoreCase(pool)) {
+			delegate = HIKARI_PROVIDER;
+		} else if ("c3p0".equalsIgnoreCase(pool)) {
+			delegate = C3P0_PROVIDER;
+		} else if ("hibernate".equalsIgnoreCase(pool)) {
+			delegate = DRIVER_MANAGER_PROVIDER;
+		} else if (pool != null) {
+			delegate = pool;
+		} else if (provider != null) {
+			delegate = provider;
+		} else if (isC3p0Configured()) {
+			// like hibernate, fall back to the driver manager when hibernate-c3p0 is missing
+			delegate = isClassPresent(C3P0_PROVIDER) ? C3P0_PROVIDER : DRIVER_MANAGER_PROVIDER;
+		} else {
+			return;
+		}
+		activeConfiguration.setProperty(Environment.CONNECTION_PROVIDER, MeteredConnectionProvider.class.getName());
+		activeConfiguration.setProperty(MeteredConnectionProvider.DELEGATE, delegate);
+	}
+
+	/**
+	 * Checks whether any hibernate.c3p0 property is set.
+	 *
+	 * @return true if c3p0 is configured
+	 */
+	private boolean isC3p0Configured() {
+		for (Object key : activeConfiguration.getProperties().keySet()) {
+			if (key.toString().startsWith("hibernate.c3p0.")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether a class can be loaded.
+	 *
+	 * @param name the class name
+	 * @return true if the class is on the class path
+	 */
+	private static boolean isClassPresent(String name) {
+		try {
+			Class.forName(name, false, HibernateSessionFactory.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the metrics of the connection pool.
+	 *
+	 * @return the metrics, null unless the pool is metered, see {@link #NWORM_POOL}
+	 */
+	public PoolMetrics getPoolMetrics() {
+		ConnectionProvider provider = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry().getService(ConnectionProvider.class);
+		if (provider instanceof MeteredConnectionProvider) {
+			return ((MeteredConnectionProvider) provider).getPoolMetrics();
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the statistics of the second level cache regions.
+	 *
+	 * @return the region statistics, empty unless the session factory uses {@link NwormRegionFactory}
+	 */
+	public List<CacheStatistics> getCacheStatistics() {
+		RegionFactory regionFactory = ((SessionFactoryImplementor) sessionFactory).getSettings().getRegionFactory();
+		if (regionFactory instanceof NwormRegionFactory) {
+			return ((NwormRegionFactory) regionFactory).getStatistics();
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Gets the maximum size of the connection pool the session factory was built with.
+	 *
+	 * @return the maximum number of pooled connections, 0 if unknown
+	 */
+	public int getConnectionPoolSize() {
+		String size = activeConfiguration.getProperty(Environment.C3P0_MAX_SIZE);
+		if (size == null) {
+			size = activeConfiguration.getProperty(HikariConnectionProvider.HIKARI_PREFIX + "maximumPoolSize");
+		}
+		if (size == null) {
+			size = activeConfiguration.getProperty(Environment.POOL_SIZE);
+		}
+		try {
+			return size == null ? 0 : Integer.parseInt(size.trim());
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid connection pool size: " + size);
+			return 0;
+		}
+	}
+
+	/**
+	 * Gets the JDBC batch size the session factory was built with.
+	 *
+	 * @return the JDBC batch size, 0 if batching is disabled
+	 */
+	public int getJdbcBatchSize() {
+		String size = activeConfiguration.getProperty(Environment.STATEMENT_BATCH_SIZE);
+		try {
+			return size == null ? 0 : Integer.parseInt(size.trim());
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid " + Environment.STATEMENT_BATCH_SIZE + ": " + size);
+			return 0;
+		}
+	}
+
 	/**
 	 * Closes the session factory.
 	 *
@@ -109,6 +336,33 @@ public class HibernateSessionFactory extends NeemClazz{
 		return sessionFactory;
 	}
 
+	/**
+	 * Gets the entity metadata registry built for the session factory.
+	 *
+	 * @return the metadata registry
+	 */
+	public EntityMetadataRegistry getMetadataRegistry() {
+		return metadataRegistry;
+	}
+
+	/**
+	 * Gets the interceptor the session factory was built with.
+	 *
+	 * @return the interceptor, null if none
+	 */
+	public Interceptor getInterceptor() {
+		return interceptor;
+	}
+
+	/**
+	 * Gets the embedded database the session factory was built for.
+	 *
+	 * @return the database, null if built from a config file
+	 */
+	public EmbeddedDatabase getEmbeddedDatabase() {
+		return embeddedDatabase;
+	}
+
 	/**
 	 * Gets the active configuration.
 	 *
@@ -127,7 +381,7 @@ public class HibernateSessionFactory extends NeemClazz{
 			if(interceptor != null){
 				activeConfiguration.setInterceptor(interceptor);
 			}
-			activeConfiguration.configure(configFilename);
+			configure();
 			if (hibernateProps != null) {
 				hibernateProps.remove("config.name");
 				activeConfiguration.addProperties(hibernateProps);
@@ -1,5 +1,9 @@
 package nw.orm.core.session;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
@@ -7,6 +11,8 @@ import org.hibernate.SessionFactory;
 import org.hibernate.StatelessSession;
 
 import nw.commons.NeemClazz;
+import nw.orm.core.metrics.NwormMetrics;
+import nw.orm.core.metrics.StatisticsSnapshot;
 
 /**
  * An entry point for manipulating hibernate sessions and session factory.
@@ -35,6 +41,12 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 	 */
 	private boolean useTransactions = true;
 
+	/** The unit of work bound to the current thread, see {@link #bindSession()}. */
+	private final ThreadLocal<BoundSession> boundSession = new ThreadLocal<BoundSession>();
+
+	/** Counts the sessions opened and closed. */
+	private NwormMetrics metrics = new NwormMetrics("sessions");
+
 	/**
 	 * Instantiates a new hibernate session service.
 	 *
@@ -49,6 +61,10 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 	 */
 	@Override
 	public Session getManagedSession() {
+		BoundSession bound = boundSession.get();
+		if(bound != null){
+			return bound.session;
+		}
 		if(useCurrentSession){
 			return getCurrentSession();
 		}
@@ -62,6 +78,7 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 	public Session getRawSession() {
 		SessionFactory sf = conf.getSessionFactory();
 		Session sxn = sf.openSession();
+		metrics.sessionOpened();
 		sxn.setFlushMode(flushMode);
 		beginTransaction(sxn);
 		return sxn;
@@ -84,8 +101,12 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 	 */
 	@Override
 	public void closeSession(Session sxn) {
+		if (isBound(sxn)) {
+			return;
+		}
 		if ((sxn != null) && (!this.useCurrentSession)){
 			sxn.close();
+			metrics.sessionClosed();
 		}
 	}
 
@@ -95,6 +116,11 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 	@Override
 	public void commit(Session sxn) throws HibernateException{
 		logger.trace("Commit in progress ");
+		if (isBound(sxn)) {
+			// the unit of work commits once, flushing keeps later queries in it consistent
+			sxn.flush();
+			return;
+		}
 		if(useTransactions()){
 			sxn.getTransaction().commit();
 		}
@@ -106,6 +132,10 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 	@Override
 	public void rollback(Session sxn) throws HibernateException{
 		logger.trace("Rollback in progress ");
+		if (isBound(sxn)) {
+			boundSession.get().rollbackOnly = true;
+			return;
+		}
 		if(useTransactions()){
 			sxn.getTransaction().rollback();
 		}
@@ -118,6 +148,7 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 	public StatelessSession getStatelessSession() {
 		SessionFactory sf = conf.getSessionFactory();
 		StatelessSession ss = sf.openStatelessSession();
+		metrics.sessionOpened();
 		if(useTransactions()){
 			ss.beginTransaction();
 		}
@@ -132,6 +163,176 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 		return conf.getSessionFactory();
 	}
 
+	/**
+	 * Closes a session opened by {@link #getRawSession()}, whatever the current session setting.
+	 *
+	 * @param sxn the session
+	 */
+	public void closeRawSession(Session sxn) {
+		sxn.close();
+		metrics.sessionClosed();
+	}
+
+	/**
+	 * Closes a session opened by {@link #getStatelessSession()}.
+	 *
+	 * @param ss the stateless session
+	 */
+	public void closeStatelessSession(StatelessSession ss) {
+		ss.close();
+		metrics.sessionClosed();
+	}
+
+	/**
+	 * Starts or stops collecting hibernate statistics on the session factory. Collecting them has a small cost on
+	 * every operation, so they are off unless hibernate.generate_statistics is set.
+	 *
+	 * @param enabled true to collect statistics
+	 */
+	public void setStatisticsEnabled(boolean enabled) {
+		conf.getSessionFactory().getStatistics().setStatisticsEnabled(enabled);
+	}
+
+	/**
+	 * Checks if hibernate statistics are collected.
+	 *
+	 * @return true, if enabled
+	 */
+	public boolean isStatisticsEnabled() {
+		return conf.getSessionFactory().getStatistics().isStatisticsEnabled();
+	}
+
+	/**
+	 * Takes a snapshot of the hibernate statistics of the session factory.
+	 *
+	 * @return the snapshot, counting activity while statistics were enabled
+	 */
+	public StatisticsSnapshot getStatisticsSnapshot() {
+		return StatisticsSnapshot.of(conf.getSessionFactory().getStatistics());
+	}
+
+	/**
+	 * Resets the hibernate statistics of the session factory. Snapshots taken before can not be compared
+	 * with later ones.
+	 */
+	public void clearStatistics() {
+		conf.getSessionFactory().getStatistics().clear();
+	}
+
+	/**
+	 * Sets the metrics counting the sessions opened and closed.
+	 *
+	 * @param metrics the metrics
+	 */
+	public void setMetrics(NwormMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Binds a session and transaction to the current thread, all managed sessions requested by the thread
+	 * return it until {@link #unbindSession()}. Commits, rollbacks and closes of the bound session are deferred
+	 * to the unbinding, a rollback only marks the unit of work for rollback.
+	 *
+	 * @return true if a new session was bound, false if the thread already had one
+	 */
+	public boolean bindSession() {
+		if (boundSession.get() != null) {
+			return false;
+		}
+		boundSession.set(new BoundSession(getRawSession()));
+		return true;
+	}
+
+	/**
+	 * Commits or, when marked for rollback, rolls back the bound transaction, then closes and unbinds its session.
+	 *
+	 * @return true if the transaction was committed
+	 * @throws HibernateException if the commit fails, the transaction is rolled back
+	 */
+	public boolean unbindSession() throws HibernateException {
+		BoundSession bound = boundSession.get();
+		if (bound == null) {
+			throw new IllegalStateException("No session is bound to the current thread");
+		}
+		boundSession.remove();
+		Session sxn = bound.session;
+		try {
+			if (bound.rollbackOnly) {
+				rollback(sxn);
+				return false;
+			}
+			if (useTransactions()) {
+				sxn.getTransaction().commit();
+			} else {
+				sxn.flush();
+			}
+			return true;
+		} catch (HibernateException e) {
+			if (useTransactions() && sxn.getTransaction().isActive()) {
+				sxn.getTransaction().rollback();
+			}
+			throw e;
+		} finally {
+			sxn.close();
+			metrics.sessionClosed();
+		}
+	}
+
+	/**
+	 * Marks the bound unit of work for rollback.
+	 */
+	public void setRollbackOnly() {
+		BoundSession bound = boundSession.get();
+		if (bound != null) {
+			bound.rollbackOnly = true;
+		}
+	}
+
+	/**
+	 * Records a class written by the bound unit of work. Does nothing when no session is bound.
+	 *
+	 * @param clazz the written class, null for writes that may touch any class
+	 */
+	public void recordWrite(Class<?> clazz) {
+		BoundSession bound = boundSession.get();
+		if (bound != null) {
+			bound.written.add(clazz);
+		}
+	}
+
+	/**
+	 * Gets the classes written so far by the bound unit of work.
+	 *
+	 * @return the written classes, null standing for any class, empty when no session is bound
+	 */
+	public Set<Class<?>> getWrittenClasses() {
+		BoundSession bound = boundSession.get();
+		if (bound == null) {
+			return Collections.emptySet();
+		}
+		return new LinkedHashSet<Class<?>>(bound.written);
+	}
+
+	/**
+	 * Checks if a session is bound to the current thread.
+	 *
+	 * @return true, if a session is bound
+	 */
+	public boolean isSessionBound() {
+		return boundSession.get() != null;
+	}
+
+	/**
+	 * Checks if a session is the one bound to the current thread.
+	 *
+	 * @param sxn the session
+	 * @return true, if bound
+	 */
+	public boolean isBound(Session sxn) {
+		BoundSession bound = boundSession.get();
+		return bound != null && bound.session == sxn;
+	}
+
 	/**
 	 * Begin transaction.
 	 *
@@ -180,4 +381,29 @@ public class HibernateSessionService extends NeemClazz implements IHibernateSess
 		return useTransactions;
 	}
 
+	/**
+	 * A session bound to a thread for a unit of work.
+	 */
+	private static final class BoundSession {
+
+		/** The session. */
+		private final Session session;
+
+		/** Whether the unit of work must roll back. */
+		private boolean rollbackOnly;
+
+		/** The classes written by the unit of work. */
+		private final Set<Class<?>> written = new LinkedHashSet<Class<?>>();
+
+		/**
+		 * Instantiates a new bound session.
+		 *
+		 * @param session the session
+		 */
+		private BoundSession(Session session) {
+			this.session = session;
+		}
+
+	}
+
 }
@@ -0,0 +1,72 @@
+package nw.orm.bench;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import nw.orm.bench.model.BenchItem;
+import nw.orm.core.bulk.BulkInsertOptions;
+import nw.orm.core.service.Nworm;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * An embedded H2 database seeded with {@link #rows} items, created afresh for every trial.
+ *
+ * @author Ogwara O. Rowland
+ */
+@State(Scope.Benchmark)
+public class BenchDatabase {
+
+	/** The hibernate configuration of the embedded database. */
+	public static final String CONFIG = "bench.cfg.xml";
+
+	/** Number of items in the table. */
+	@Param({ "1000", "10000", "100000" })
+	public int rows;
+
+	/** The service. */
+	public Nworm nworm;
+
+	/** Id of the first item, items have consecutive ids. */
+	public long firstId;
+
+	/**
+	 * Recreates the schema and seeds it.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		// a new session factory drops and creates the schema
+		nworm = Nworm.getInstance(CONFIG, true);
+		List<BenchItem> items = new ArrayList<BenchItem>(rows);
+		for (int i = 0; i < rows; i++) {
+			items.add(BenchItem.create(i));
+		}
+		List<Serializable> ids = nworm.createBulk(items, new BulkInsertOptions()).getIds();
+		firstId = ((Long) ids.get(0)).longValue();
+	}
+
+	/**
+	 * Closes the session factory.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		nworm.closeFactory();
+	}
+
+	/**
+	 * Gets the id of the n-th seeded item.
+	 *
+	 * @param n the item number, wraps around
+	 * @return the id
+	 */
+	public Long idOf(long n) {
+		return Long.valueOf(firstId + (n % rows));
+	}
+
+}
@@ -0,0 +1,58 @@
+package nw.orm.bench;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count and writes the results of each run as JSON, jmh-t&lt;threads&gt;.json
+ * in the results directory. Usage:
+ * <pre>
+ * java -jar target/benchmarks.jar [results directory] [thread counts, comma separated] [jmh options]
+ * </pre>
+ * The defaults are target/jmh and 1,4,16. Further arguments are regular JMH options, for instance a benchmark
+ * name pattern or -p rows=1000 to restrict the data sizes.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the arguments
+	 * @throws RunnerException if a benchmark fails
+	 * @throws CommandLineOptionException if the jmh options are invalid
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		File dir = new File(args.length > 0 ? args[0] : "target/jmh");
+		String threads = args.length > 1 ? args[1] : "1,4,16";
+		String[] jmhArgs = new String[Math.max(0, args.length - 2)];
+		System.arraycopy(args, Math.min(2, args.length), jmhArgs, 0, jmhArgs.length);
+		CommandLineOptions cmd = new CommandLineOptions(jmhArgs);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IllegalArgumentException("can not create " + dir);
+		}
+		for (String t : threads.split(",")) {
+			int count = Integer.parseInt(t.trim());
+			OptionsBuilder builder = new OptionsBuilder();
+			builder.parent(cmd);
+			if (cmd.getIncludes().isEmpty()) {
+				builder.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+			}
+			Options options = builder
+					.threads(count)
+					.resultFormat(ResultFormatType.JSON)
+					.result(new File(dir, "jmh-t" + count + ".json").getPath())
+					.build();
+			new Runner(options).run();
+		}
+	}
+
+}
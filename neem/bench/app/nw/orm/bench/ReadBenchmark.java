@@ -0,0 +1,122 @@
+package nw.orm.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import nw.orm.bench.model.BenchItem;
+import nw.orm.bench.model.BenchItemView;
+import nw.orm.core.query.QueryModifier;
+import nw.orm.core.query.QueryParameter;
+import nw.orm.core.query.SQLModifier;
+
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read paths of the service: lookups by id, criteria with a query modifier, hql and the result transformer.
+ *
+ * @author Ogwara O. Rowland
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+
+	/** Rows per page of list reads. */
+	public static final int PAGE_SIZE = 50;
+
+	/**
+	 * Per thread random numbers.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		/** The random. */
+		private final Random random = new Random(42);
+
+		/**
+		 * Picks a random number below a bound.
+		 *
+		 * @param bound the bound
+		 * @return the number
+		 */
+		public int next(int bound) {
+			return random.nextInt(bound);
+		}
+	}
+
+	/**
+	 * Loads an item by id.
+	 *
+	 * @param db the database
+	 * @param cursor the cursor
+	 * @return the item
+	 */
+	@Benchmark
+	public BenchItem getById(BenchDatabase db, Cursor cursor) {
+		return db.nworm.getById(BenchItem.class, db.idOf(cursor.next(db.rows)));
+	}
+
+	/**
+	 * Loads a page of items of a category by criteria, ordered by score.
+	 *
+	 * @param db the database
+	 * @param cursor the cursor
+	 * @return the items
+	 */
+	@Benchmark
+	public List<BenchItem> getListByCriteria(BenchDatabase db, Cursor cursor) {
+		QueryModifier qm = new QueryModifier(BenchItem.class);
+		qm.addOrderBy(Order.desc("score"));
+		qm.setPaginated(0, PAGE_SIZE);
+		return db.nworm.getListByCriteria(BenchItem.class, qm, Restrictions.eq("category", cursor.next(BenchItem.CATEGORIES)));
+	}
+
+	/**
+	 * Loads a page of items of a category by hql.
+	 *
+	 * @param db the database
+	 * @param cursor the cursor
+	 * @return the items
+	 */
+	@Benchmark
+	public List<BenchItem> getListByHQL(BenchDatabase db, Cursor cursor) {
+		SQLModifier mod = new SQLModifier();
+		mod.setPaginated(0, PAGE_SIZE);
+		return db.nworm.getListByHQL(BenchItem.class, "FROM BenchItem b WHERE b.category = :category ORDER BY b.score DESC", mod,
+				QueryParameter.create("category", Integer.valueOf(cursor.next(BenchItem.CATEGORIES))));
+	}
+
+	/**
+	 * Loads a page of item projections of a category, filled through the result transformer.
+	 *
+	 * @param db the database
+	 * @param cursor the cursor
+	 * @return the projections
+	 */
+	@Benchmark
+	public List<BenchItemView> transformResult(BenchDatabase db, Cursor cursor) {
+		QueryModifier qm = new QueryModifier(BenchItem.class);
+		qm.addProjection(Projections.property("name").as("name"));
+		qm.addProjection(Projections.property("category").as("category"));
+		qm.addProjection(Projections.property("score").as("score"));
+		qm.transformResult(true);
+		qm.addOrderBy(Order.desc("score"));
+		qm.setPaginated(0, PAGE_SIZE);
+		return db.nworm.getListByCriteria(BenchItemView.class, qm, Restrictions.eq("category", cursor.next(BenchItem.CATEGORIES)));
+	}
+
+}
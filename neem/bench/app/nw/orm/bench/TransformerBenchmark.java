@@ -0,0 +1,115 @@
+package nw.orm.bench;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import nw.orm.bench.model.BenchItemView;
+import nw.orm.core.query.BeanResultTransformer;
+
+import org.hibernate.transform.ResultTransformer;
+import org.hibernate.transform.Transformers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Result transformers alone, without a database: a result set of projection tuples turned into
+ * {@link BenchItemView} instances by hibernate's aliasToBean and by the nworm transformer. Numeric columns are
+ * handed over as the wider types some drivers return so coercion is part of the measurement.
+ *
+ * @author Ogwara O. Rowland
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformerBenchmark {
+
+	/** Rows per transformed result set. */
+	public static final int ROWS = 1000;
+
+	/**
+	 * The tuples of a result set.
+	 */
+	@State(Scope.Benchmark)
+	public static class Rows {
+
+		/** The aliases. */
+		final String[] aliases = { "name", "category", "score" };
+
+		/** Tuples with exactly typed values. */
+		final Object[][] exact = new Object[ROWS][];
+
+		/** Tuples with values of wider numeric types. */
+		final Object[][] widened = new Object[ROWS][];
+
+		/**
+		 * Fills the tuples.
+		 */
+		@Setup
+		public void setUp() {
+			for (int i = 0; i < ROWS; i++) {
+				exact[i] = new Object[] { "item-" + i, Integer.valueOf(i % 16), Long.valueOf(i) };
+				widened[i] = new Object[] { "item-" + i, BigDecimal.valueOf(i % 16), BigInteger.valueOf(i) };
+			}
+		}
+	}
+
+	/**
+	 * Transforms a result set with a transformer.
+	 *
+	 * @param transformer the transformer
+	 * @param tuples the tuples
+	 * @param aliases the aliases
+	 * @param bh the blackhole
+	 */
+	private static void transform(ResultTransformer transformer, Object[][] tuples, String[] aliases, Blackhole bh) {
+		for (Object[] tuple : tuples) {
+			bh.consume(transformer.transformTuple(tuple, aliases));
+		}
+	}
+
+	/**
+	 * Hibernate's aliasToBean, created per query as the service used to.
+	 *
+	 * @param rows the rows
+	 * @param bh the blackhole
+	 */
+	@Benchmark
+	public void aliasToBean(Rows rows, Blackhole bh) {
+		transform(Transformers.aliasToBean(BenchItemView.class), rows.exact, rows.aliases, bh);
+	}
+
+	/**
+	 * The cached nworm transformer.
+	 *
+	 * @param rows the rows
+	 * @param bh the blackhole
+	 */
+	@Benchmark
+	public void beanResultTransformer(Rows rows, Blackhole bh) {
+		transform(BeanResultTransformer.of(BenchItemView.class), rows.exact, rows.aliases, bh);
+	}
+
+	/**
+	 * The cached nworm transformer, coercing numeric columns.
+	 *
+	 * @param rows the rows
+	 * @param bh the blackhole
+	 */
+	@Benchmark
+	public void beanResultTransformerCoercing(Rows rows, Blackhole bh) {
+		transform(BeanResultTransformer.of(BenchItemView.class), rows.widened, rows.aliases, bh);
+	}
+
+}
@@ -0,0 +1,146 @@
+package nw.orm.bench;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nw.orm.bench.model.BenchItem;
+import nw.orm.core.query.QueryParameter;
+
+import org.hibernate.criterion.Restrictions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Bulk write paths of the service. Each thread writes its own slice of the seeded items, so concurrent updates
+ * never collide on versions; inserted items accumulate over the trial.
+ *
+ * @author Ogwara O. Rowland
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+	/**
+	 * The batch of items written by one invocation, prepared outside the measurement.
+	 */
+	@State(Scope.Thread)
+	public static class Batch {
+
+		/** Items per bulk call. */
+		@Param({ "100", "1000" })
+		public int batchSize;
+
+		/** First item number of this thread's slice. */
+		private long sliceStart;
+
+		/** Items in this thread's slice. */
+		private long sliceSize;
+
+		/** Next batch within the slice. */
+		private long next;
+
+		/** New items for inserts. */
+		public List<BenchItem> created;
+
+		/** Loaded items for updates. */
+		public List<BenchItem> loaded;
+
+		/** Ids for soft deletes. */
+		public List<Serializable> ids;
+
+		/**
+		 * Assigns the thread its slice of the seeded items.
+		 *
+		 * @param db the database
+		 * @param thread the thread params
+		 */
+		@Setup(Level.Trial)
+		public void slice(BenchDatabase db, ThreadParams thread) {
+			sliceSize = Math.max(1, db.rows / thread.getThreadCount());
+			sliceStart = sliceSize * thread.getThreadIndex();
+		}
+
+		/**
+		 * Prepares the next batch.
+		 *
+		 * @param db the database
+		 */
+		@Setup(Level.Invocation)
+		public void prepare(BenchDatabase db) {
+			int size = (int) Math.min(batchSize, sliceSize);
+			long first = sliceStart + (next % sliceSize / size) * size;
+			next += size;
+			Long from = db.idOf(first);
+			Long to = Long.valueOf(from.longValue() + size - 1);
+
+			created = new ArrayList<BenchItem>(size);
+			for (int i = 0; i < size; i++) {
+				created.add(BenchItem.create(first + i));
+			}
+			// undo soft deletes of an earlier pass over the same items
+			db.nworm.executeHQLUpdate("UPDATE BenchItem SET deleted = false WHERE pk BETWEEN :from AND :to",
+					QueryParameter.create("from", from), QueryParameter.create("to", to));
+			loaded = db.nworm.getListByCriteria(BenchItem.class, Restrictions.between("pk", from, to));
+			for (BenchItem item : loaded) {
+				item.setScore(item.getScore() + 1);
+			}
+			ids = new ArrayList<Serializable>(size);
+			for (long id = from.longValue(); id <= to.longValue(); id++) {
+				ids.add(Long.valueOf(id));
+			}
+		}
+	}
+
+	/**
+	 * Inserts a batch of new items.
+	 *
+	 * @param db the database
+	 * @param batch the batch
+	 * @return the ids
+	 */
+	@Benchmark
+	public List<Serializable> createBulk(BenchDatabase db, Batch batch) {
+		return db.nworm.createBulk(batch.created);
+	}
+
+	/**
+	 * Updates a batch of loaded items.
+	 *
+	 * @param db the database
+	 * @param batch the batch
+	 * @return true, if successful
+	 */
+	@Benchmark
+	public boolean updateBulk(BenchDatabase db, Batch batch) {
+		return db.nworm.updateBulk(batch.loaded);
+	}
+
+	/**
+	 * Soft deletes a batch of items by id.
+	 *
+	 * @param db the database
+	 * @param batch the batch
+	 * @return true, if successful
+	 */
+	@Benchmark
+	public boolean bulkSoftDelete(BenchDatabase db, Batch batch) {
+		return db.nworm.bulkSoftDelete(BenchItem.class, batch.ids);
+	}
+
+}
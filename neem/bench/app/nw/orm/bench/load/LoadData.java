@@ -0,0 +1,135 @@
+package nw.orm.bench.load;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import nw.orm.bench.model.BenchItem;
+import nw.orm.core.bulk.BulkInsertOptions;
+import nw.orm.core.service.Nworm;
+import nw.orm.entity.geo.City;
+import nw.orm.entity.geo.Country;
+import nw.orm.entity.geo.Region;
+
+/**
+ * The rows a load test runs against: items with consecutive ids and a country, region and city tree.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class LoadData {
+
+	/** Number of rows updated by the hot row operations, small so that workers contend for them. */
+	public static final int HOT_ROWS = 8;
+
+	/** Regions per country. */
+	private static final int REGIONS_PER_COUNTRY = 5;
+
+	/** Cities per region. */
+	private static final int CITIES_PER_REGION = 20;
+
+	/** Number of seeded items. */
+	private final int rows;
+
+	/** Id of the first item. */
+	private final long firstId;
+
+	/** Names of the seeded countries. */
+	private final List<String> countries = new ArrayList<String>();
+
+	/** Ids of the seeded cities. */
+	private final List<Serializable> cityIds = new ArrayList<Serializable>();
+
+	/**
+	 * Seeds the database.
+	 *
+	 * @param nworm the service, with an empty schema
+	 * @param rows the number of items
+	 * @param countryCount the number of countries
+	 */
+	public LoadData(Nworm nworm, int rows, int countryCount) {
+		this.rows = rows;
+		List<BenchItem> items = new ArrayList<BenchItem>(rows);
+		for (int i = 0; i < rows; i++) {
+			items.add(BenchItem.create(i));
+		}
+		this.firstId = ((Long) nworm.createBulk(items, new BulkInsertOptions()).getIds().get(0)).longValue();
+
+		for (int c = 0; c < countryCount; c++) {
+			Country country = new Country();
+			country.setName("Country " + c);
+			country.setIsoAlpha2(code(c, 2));
+			country.setIsoAlpha3(code(c, 3));
+			country.setPhoneCode(String.valueOf(c + 1));
+			nworm.create(country);
+			countries.add(country.getName());
+			for (int r = 0; r < REGIONS_PER_COUNTRY; r++) {
+				Region region = new Region();
+				region.setName(country.getName() + " region " + r);
+				region.setCountry(country);
+				nworm.create(region);
+				List<City> cities = new ArrayList<City>();
+				for (int t = 0; t < CITIES_PER_REGION; t++) {
+					City city = new City();
+					city.setName(region.getName() + " city " + t);
+					city.setRegion(region);
+					cities.add(city);
+				}
+				cityIds.addAll(nworm.createBulk(cities));
+			}
+		}
+	}
+
+	/**
+	 * Builds a country code.
+	 *
+	 * @param n the country number
+	 * @param length the code length
+	 * @return the code
+	 */
+	private static String code(int n, int length) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('A' + n % 26));
+			n /= 26;
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the number of seeded items.
+	 *
+	 * @return the rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Gets the id of the n-th seeded item.
+	 *
+	 * @param n the item number, wraps around
+	 * @return the id
+	 */
+	public Long itemId(long n) {
+		return Long.valueOf(firstId + (n % rows));
+	}
+
+	/**
+	 * Gets the names of the seeded countries.
+	 *
+	 * @return the names
+	 */
+	public List<String> getCountries() {
+		return countries;
+	}
+
+	/**
+	 * Gets the ids of the seeded cities.
+	 *
+	 * @return the ids
+	 */
+	public List<Serializable> getCityIds() {
+		return cityIds;
+	}
+
+}
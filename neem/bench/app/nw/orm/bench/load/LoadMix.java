@@ -0,0 +1,99 @@
+package nw.orm.bench.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A weighted mix of operations, each call picks an operation with a probability proportional to its weight.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class LoadMix {
+
+	/** The default mix, mostly reads with some writes and bulk writes. */
+	public static final String DEFAULT = "getById=40,criteria=15,hql=10,geo=10,getCity=5,create=8,update=7,hotUpdate=2,bulkCreate=2,bulkSoftDelete=1";
+
+	/** The operations. */
+	private final List<LoadOperation> operations = new ArrayList<LoadOperation>();
+
+	/** The running sum of the weights, parallel to the operations. */
+	private final List<Integer> cumulative = new ArrayList<Integer>();
+
+	/** The sum of the weights. */
+	private int total;
+
+	/**
+	 * Parses a mix such as {@code getById=80,update=20}, see {@link LoadOperations} for the names.
+	 *
+	 * @param spec the mix
+	 * @return the mix
+	 * @throws IllegalArgumentException if the mix names an unknown operation or a weight is not a positive number
+	 */
+	public static LoadMix parse(String spec) {
+		LoadMix mix = new LoadMix();
+		for (String entry : spec.split(",")) {
+			String[] parts = entry.trim().split("=");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Expected name=weight, got " + entry);
+			}
+			mix.add(LoadOperations.get(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+		}
+		return mix;
+	}
+
+	/**
+	 * Adds an operation.
+	 *
+	 * @param operation the operation
+	 * @param weight the weight
+	 * @return this mix
+	 */
+	public LoadMix add(LoadOperation operation, int weight) {
+		if (weight <= 0) {
+			throw new IllegalArgumentException("Weight of " + operation.getName() + " must be positive");
+		}
+		total += weight;
+		operations.add(operation);
+		cumulative.add(Integer.valueOf(total));
+		return this;
+	}
+
+	/**
+	 * Picks an operation.
+	 *
+	 * @param random the random numbers of the calling worker
+	 * @return the operation
+	 */
+	public LoadOperation pick(Random random) {
+		int n = random.nextInt(total);
+		for (int i = 0; i < operations.size(); i++) {
+			if (n < cumulative.get(i).intValue()) {
+				return operations.get(i);
+			}
+		}
+		throw new IllegalStateException("Empty mix");
+	}
+
+	/**
+	 * Gets the operations.
+	 *
+	 * @return the operations, in the order they were added
+	 */
+	public List<LoadOperation> getOperations() {
+		return Collections.unmodifiableList(operations);
+	}
+
+	/**
+	 * Gets the share of calls going to an operation.
+	 *
+	 * @param index the index of the operation
+	 * @return the share, between 0 and 1
+	 */
+	public double getShare(int index) {
+		int previous = index == 0 ? 0 : cumulative.get(index - 1).intValue();
+		return (double) (cumulative.get(index).intValue() - previous) / total;
+	}
+
+}
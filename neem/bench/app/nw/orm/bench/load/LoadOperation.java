@@ -0,0 +1,30 @@
+package nw.orm.bench.load;
+
+import java.util.Random;
+
+import nw.orm.core.service.Nworm;
+
+/**
+ * One kind of call made by the load test workers.
+ *
+ * @author Ogwara O. Rowland
+ */
+public interface LoadOperation {
+
+	/**
+	 * Gets the name used in mixes and reports.
+	 *
+	 * @return the name
+	 */
+	public String getName();
+
+	/**
+	 * Makes one call.
+	 *
+	 * @param nworm the service
+	 * @param data the seeded data
+	 * @param random the random numbers of the calling worker
+	 */
+	public void execute(Nworm nworm, LoadData data, Random random);
+
+}
@@ -0,0 +1,191 @@
+package nw.orm.bench.load;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import nw.orm.bench.model.BenchItem;
+import nw.orm.core.query.QueryAlias;
+import nw.orm.core.query.QueryModifier;
+import nw.orm.core.query.QueryParameter;
+import nw.orm.core.query.SQLModifier;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.service.NwormHibernateService;
+import nw.orm.core.service.TransactionCallback;
+import nw.orm.entity.geo.City;
+
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+
+/**
+ * The operations a load mix can be made of, by name.
+ *
+ * @author Ogwara O. Rowland
+ */
+public final class LoadOperations {
+
+	/** Rows read by the page operations. */
+	public static final int PAGE_SIZE = 50;
+
+	/** Rows written by the bulk operations. */
+	public static final int BATCH_SIZE = 100;
+
+	/** The operations by name. */
+	private static final Map<String, LoadOperation> OPERATIONS = new LinkedHashMap<String, LoadOperation>();
+
+	static {
+		register(new NamedOperation("getById") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				nworm.getById(BenchItem.class, data.itemId(random.nextInt(data.getRows())));
+			}
+		});
+		register(new NamedOperation("criteria") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				QueryModifier qm = new QueryModifier(BenchItem.class);
+				qm.addOrderBy(Order.desc("score"));
+				qm.setPaginated(0, PAGE_SIZE);
+				nworm.getListByCriteria(BenchItem.class, qm, Restrictions.eq("category", random.nextInt(BenchItem.CATEGORIES)));
+			}
+		});
+		register(new NamedOperation("hql") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				SQLModifier mod = new SQLModifier();
+				mod.setPaginated(0, PAGE_SIZE);
+				nworm.getListByHQL(BenchItem.class, "FROM BenchItem b WHERE b.category = :category ORDER BY b.score DESC", mod,
+						QueryParameter.create("category", Integer.valueOf(random.nextInt(BenchItem.CATEGORIES))));
+			}
+		});
+		register(new NamedOperation("geo") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				List<String> countries = data.getCountries();
+				QueryModifier qm = new QueryModifier(City.class);
+				qm.addAlias(new QueryAlias("region", "r"));
+				qm.addAlias(new QueryAlias("r.country", "c"));
+				qm.addOrderBy(Order.asc("name"));
+				qm.setPaginated(0, PAGE_SIZE);
+				nworm.getListByCriteria(City.class, qm, Restrictions.eq("c.name", countries.get(random.nextInt(countries.size()))));
+			}
+		});
+		register(new NamedOperation("getCity") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				List<Serializable> ids = data.getCityIds();
+				nworm.getById(City.class, ids.get(random.nextInt(ids.size())));
+			}
+		});
+		register(new NamedOperation("create") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				nworm.create(BenchItem.create(random.nextInt()));
+			}
+		});
+		register(new NamedOperation("update") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				BenchItem item = nworm.getById(BenchItem.class, data.itemId(random.nextInt(data.getRows())));
+				item.setScore(item.getScore() + 1);
+				nworm.update(item);
+			}
+		});
+		register(new NamedOperation("hotUpdate") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				// a few rows locked for update by every worker, to reproduce lock contention
+				final Long id = data.itemId(random.nextInt(LoadData.HOT_ROWS));
+				nworm.executeInTransaction(new TransactionCallback<Boolean>() {
+					@Override
+					public Boolean execute(NwormHibernateService service) throws Exception {
+						BenchItem item = service.getById(BenchItem.class, id, true);
+						item.setScore(item.getScore() + 1);
+						return Boolean.valueOf(service.update(item));
+					}
+				});
+			}
+		});
+		register(new NamedOperation("bulkCreate") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				List<BenchItem> items = new ArrayList<BenchItem>(BATCH_SIZE);
+				for (int i = 0; i < BATCH_SIZE; i++) {
+					items.add(BenchItem.create(random.nextInt()));
+				}
+				nworm.createBulk(items);
+			}
+		});
+		register(new NamedOperation("bulkSoftDelete") {
+			@Override
+			public void execute(Nworm nworm, LoadData data, Random random) {
+				int first = random.nextInt(data.getRows());
+				List<Serializable> ids = new ArrayList<Serializable>(BATCH_SIZE);
+				for (int i = 0; i < BATCH_SIZE; i++) {
+					ids.add(data.itemId(first + i));
+				}
+				nworm.bulkSoftDelete(BenchItem.class, ids);
+			}
+		});
+	}
+
+	/**
+	 * Not instantiated.
+	 */
+	private LoadOperations() {
+	}
+
+	/**
+	 * Registers an operation, replacing any operation of the same name.
+	 *
+	 * @param operation the operation
+	 */
+	public static synchronized void register(LoadOperation operation) {
+		OPERATIONS.put(operation.getName(), operation);
+	}
+
+	/**
+	 * Gets an operation by name.
+	 *
+	 * @param name the name
+	 * @return the operation
+	 * @throws IllegalArgumentException if no operation has the name
+	 */
+	public static synchronized LoadOperation get(String name) {
+		LoadOperation operation = OPERATIONS.get(name);
+		if (operation == null) {
+			throw new IllegalArgumentException("Unknown operation " + name + ", expected one of " + OPERATIONS.keySet());
+		}
+		return operation;
+	}
+
+	/**
+	 * An operation with a fixed name.
+	 */
+	private abstract static class NamedOperation implements LoadOperation {
+
+		/** The name. */
+		private final String name;
+
+		/**
+		 * Creates an operation.
+		 *
+		 * @param name the name
+		 */
+		NamedOperation(String name) {
+			this.name = name;
+		}
+
+		/* (non-Javadoc)
+		 * @see nw.orm.bench.load.LoadOperation#getName()
+		 */
+		@Override
+		public String getName() {
+			return name;
+		}
+	}
+
+}
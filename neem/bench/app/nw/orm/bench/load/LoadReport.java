@@ -0,0 +1,345 @@
+package nw.orm.bench.load;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nw.orm.core.metrics.LatencyHistogram;
+
+/**
+ * The measurements of the steady phase of a {@link LoadTest}: latency percentiles, throughput and errors per
+ * operation, and how many sessions the service held.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class LoadReport {
+
+	/** The reported percentiles. */
+	private static final double[] PERCENTILES = { 0.50, 0.95, 0.99, 0.999 };
+
+	/** The names of the reported percentiles in JSON. */
+	private static final String[] LABELS = { "p50", "p95", "p99", "p999" };
+
+	/** The number of worker threads. */
+	private final int threads;
+
+	/** The results by operation name, in mix order. */
+	private final Map<String, OperationResult> results = new LinkedHashMap<String, OperationResult>();
+
+	/** The length of the steady phase, in milliseconds. */
+	private long elapsedMillis;
+
+	/** Sessions opened during the steady phase. */
+	private long sessionsOpened;
+
+	/** The most sessions seen open at once. */
+	private long maxOpenSessions;
+
+	/**
+	 * Creates an empty report.
+	 *
+	 * @param threads the number of worker threads
+	 * @param mix the mix
+	 */
+	LoadReport(int threads, LoadMix mix) {
+		this.threads = threads;
+		for (LoadOperation operation : mix.getOperations()) {
+			results.put(operation.getName(), new OperationResult(operation.getName()));
+		}
+	}
+
+	/**
+	 * Records a call.
+	 *
+	 * @param operation the operation name
+	 * @param micros the latency in microseconds
+	 * @param failure the failure, null if the call succeeded
+	 */
+	void record(String operation, long micros, Throwable failure) {
+		OperationResult result = results.get(operation);
+		result.latencies.record(micros);
+		if (failure != null) {
+			result.error(failure);
+		}
+	}
+
+	/**
+	 * Ends the steady phase.
+	 *
+	 * @param elapsedMillis the length of the phase, in milliseconds
+	 * @param sessionsOpened sessions opened during the phase
+	 * @param maxOpenSessions the most sessions seen open at once
+	 */
+	void finish(long elapsedMillis, long sessionsOpened, long maxOpenSessions) {
+		this.elapsedMillis = elapsedMillis;
+		this.sessionsOpened = sessionsOpened;
+		this.maxOpenSessions = maxOpenSessions;
+	}
+
+	/**
+	 * Gets the number of worker threads.
+	 *
+	 * @return the threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Gets the length of the steady phase.
+	 *
+	 * @return the length, in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Gets the sessions opened during the steady phase.
+	 *
+	 * @return the sessions
+	 */
+	public long getSessionsOpened() {
+		return sessionsOpened;
+	}
+
+	/**
+	 * Gets the most sessions seen open at once during the steady phase, sampled so short peaks may be missed.
+	 *
+	 * @return the sessions
+	 */
+	public long getMaxOpenSessions() {
+		return maxOpenSessions;
+	}
+
+	/**
+	 * Gets the results of every operation.
+	 *
+	 * @return the results, in mix order
+	 */
+	public List<OperationResult> getResults() {
+		return Collections.unmodifiableList(new ArrayList<OperationResult>(results.values()));
+	}
+
+	/**
+	 * Gets the result of an operation.
+	 *
+	 * @param operation the operation name
+	 * @return the result, null if the operation is not in the mix
+	 */
+	public OperationResult getResult(String operation) {
+		return results.get(operation);
+	}
+
+	/**
+	 * Gets the calls per second of all operations.
+	 *
+	 * @return the throughput
+	 */
+	public double getThroughput() {
+		long calls = 0;
+		for (OperationResult result : results.values()) {
+			calls += result.getCalls();
+		}
+		return perSecond(calls);
+	}
+
+	/**
+	 * Converts a count over the steady phase to a rate.
+	 *
+	 * @param count the count
+	 * @return the count per second
+	 */
+	private double perSecond(long count) {
+		return elapsedMillis == 0 ? 0 : count * 1000.0 / elapsedMillis;
+	}
+
+	/**
+	 * Writes the report as JSON.
+	 *
+	 * @param out the writer
+	 * @throws IOException if writing fails
+	 */
+	public void writeJson(Writer out) throws IOException {
+		out.write("{\n");
+		out.write("  \"threads\": " + threads + ",\n");
+		out.write("  \"elapsedMillis\": " + elapsedMillis + ",\n");
+		out.write("  \"throughput\": " + format(getThroughput()) + ",\n");
+		out.write("  \"sessionsOpened\": " + sessionsOpened + ",\n");
+		out.write("  \"maxOpenSessions\": " + maxOpenSessions + ",\n");
+		out.write("  \"operations\": [");
+		String separator = "\n";
+		for (OperationResult result : results.values()) {
+			out.write(separator);
+			separator = ",\n";
+			out.write("    { \"name\": \"" + result.name + "\", \"calls\": " + result.getCalls() + ", \"errors\": " + result.getErrors()
+					+ ", \"throughput\": " + format(result.getThroughput()) + ", \"meanMillis\": " + format(result.latencies.getMean() / 1000.0));
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				out.write(", \"" + LABELS[i] + "Millis\": " + format(result.getPercentileMillis(PERCENTILES[i])));
+			}
+			out.write(", \"maxMillis\": " + format(result.latencies.getMax() / 1000.0) + ", \"errorTypes\": {");
+			String typeSeparator = "";
+			for (Map.Entry<String, AtomicLong> e : result.getErrorTypes().entrySet()) {
+				out.write(typeSeparator + "\"" + e.getKey() + "\": " + e.getValue().get());
+				typeSeparator = ", ";
+			}
+			out.write("} }");
+		}
+		out.write("\n  ]\n}\n");
+		out.flush();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d threads, %.1f s, %.1f calls/s, %d sessions opened, at most %d open%n", threads, elapsedMillis / 1000.0,
+				getThroughput(), sessionsOpened, maxOpenSessions));
+		sb.append(String.format("%-16s %10s %8s %10s %9s %9s %9s %9s %9s%n", "operation", "calls", "errors", "calls/s", "p50 ms", "p95 ms",
+				"p99 ms", "p99.9 ms", "max ms"));
+		for (OperationResult result : results.values()) {
+			sb.append(String.format("%-16s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", result.name, result.getCalls(), result.getErrors(),
+					result.getThroughput(), result.getPercentileMillis(0.50), result.getPercentileMillis(0.95), result.getPercentileMillis(0.99),
+					result.getPercentileMillis(0.999), result.latencies.getMax() / 1000.0));
+			for (Map.Entry<String, AtomicLong> e : result.getErrorTypes().entrySet()) {
+				sb.append(String.format("  %8d x %s%n", e.getValue().get(), e.getKey()));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Formats a number for JSON.
+	 *
+	 * @param value the value
+	 * @return the value with three decimals
+	 */
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	/**
+	 * The measurements of one operation.
+	 */
+	public class OperationResult {
+
+		/** The operation name. */
+		private final String name;
+
+		/** The latencies, in microseconds, of failed calls too. */
+		private final LatencyHistogram latencies = new LatencyHistogram();
+
+		/** The failed calls. */
+		private final AtomicLong errors = new AtomicLong();
+
+		/** The failed calls by root cause class. */
+		private final Map<String, AtomicLong> errorTypes = new TreeMap<String, AtomicLong>();
+
+		/**
+		 * Creates an empty result.
+		 *
+		 * @param name the operation name
+		 */
+		OperationResult(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Counts a failed call under the class of its root cause, so pool timeouts and lock timeouts show apart.
+		 *
+		 * @param failure the failure
+		 */
+		private void error(Throwable failure) {
+			errors.incrementAndGet();
+			Throwable root = failure;
+			while (root.getCause() != null && root.getCause() != root) {
+				root = root.getCause();
+			}
+			String type = root.getClass().getName();
+			synchronized (errorTypes) {
+				AtomicLong count = errorTypes.get(type);
+				if (count == null) {
+					count = new AtomicLong();
+					errorTypes.put(type, count);
+				}
+				count.incrementAndGet();
+			}
+		}
+
+		/**
+		 * Gets the operation name.
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the calls, failed ones included.
+		 *
+		 * @return the calls
+		 */
+		public long getCalls() {
+			return latencies.getCount();
+		}
+
+		/**
+		 * Gets the failed calls.
+		 *
+		 * @return the errors
+		 */
+		public long getErrors() {
+			return errors.get();
+		}
+
+		/**
+		 * Gets the failed calls by root cause class.
+		 *
+		 * @return a copy of the counts
+		 */
+		public Map<String, AtomicLong> getErrorTypes() {
+			synchronized (errorTypes) {
+				return new TreeMap<String, AtomicLong>(errorTypes);
+			}
+		}
+
+		/**
+		 * Gets the calls per second.
+		 *
+		 * @return the throughput
+		 */
+		public double getThroughput() {
+			return perSecond(getCalls());
+		}
+
+		/**
+		 * Gets a latency percentile.
+		 *
+		 * @param quantile the quantile, 0.99 for the 99th percentile
+		 * @return the latency, in milliseconds
+		 */
+		public double getPercentileMillis(double quantile) {
+			return latencies.getValueAt(quantile) / 1000.0;
+		}
+
+		/**
+		 * Gets the latencies.
+		 *
+		 * @return the histogram, in microseconds
+		 */
+		public LatencyHistogram getLatencies() {
+			return latencies;
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+package nw.orm.bench.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import nw.orm.core.metrics.NwormMetrics;
+import nw.orm.core.service.Nworm;
+
+/**
+ * Runs a mix of operations from several worker threads, first for a warm-up phase whose calls are not measured, then
+ * for a steady phase whose calls are recorded per operation. Every worker calls back to back, there is no think time,
+ * so a pool or lock bottleneck shows as queueing in the latency percentiles.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class LoadTest {
+
+	/** How often the open sessions are sampled during the steady phase, in milliseconds. */
+	private static final long SAMPLE_MILLIS = 50;
+
+	/** The service. */
+	private final Nworm nworm;
+
+	/** The seeded data. */
+	private final LoadData data;
+
+	/** The mix. */
+	private final LoadMix mix;
+
+	/** The number of worker threads. */
+	private int threads = 4;
+
+	/** The warm-up phase, in milliseconds. */
+	private long warmupMillis = 10000;
+
+	/** The steady phase, in milliseconds. */
+	private long durationMillis = 30000;
+
+	/** The seed of the worker random numbers, each worker adds its number. */
+	private long seed = 42;
+
+	/** True while calls are measured. */
+	private volatile boolean measuring;
+
+	/** True once the workers must stop. */
+	private volatile boolean stopped;
+
+	/**
+	 * Creates a load test.
+	 *
+	 * @param nworm the service
+	 * @param data the seeded data
+	 * @param mix the mix
+	 */
+	public LoadTest(Nworm nworm, LoadData data, LoadMix mix) {
+		if (mix.getOperations().isEmpty()) {
+			throw new IllegalArgumentException("Empty mix");
+		}
+		this.nworm = nworm;
+		this.data = data;
+		this.mix = mix;
+	}
+
+	/**
+	 * Runs the test, blocking for the warm-up and steady phases.
+	 *
+	 * @return the measurements of the steady phase
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public LoadReport run() throws InterruptedException {
+		final LoadReport report = new LoadReport(threads, mix);
+		final CountDownLatch ready = new CountDownLatch(threads);
+		measuring = false;
+		stopped = false;
+		List<Thread> workers = new ArrayList<Thread>(threads);
+		for (int i = 0; i < threads; i++) {
+			final Random random = new Random(seed + i);
+			Thread worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					ready.countDown();
+					while (!stopped) {
+						call(report, random);
+					}
+				}
+			}, "nworm-load-" + i);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+		ready.await();
+		Thread.sleep(warmupMillis);
+
+		NwormMetrics metrics = nworm.getMetrics();
+		long sessionsOpened = metrics.getSessionsOpened();
+		long start = System.nanoTime();
+		measuring = true;
+		long end = System.currentTimeMillis() + durationMillis;
+		long maxOpenSessions = 0;
+		for (long now = System.currentTimeMillis(); now < end; now = System.currentTimeMillis()) {
+			maxOpenSessions = Math.max(maxOpenSessions, metrics.getOpenSessions());
+			Thread.sleep(Math.min(SAMPLE_MILLIS, end - now));
+		}
+		measuring = false;
+		long elapsed = System.nanoTime() - start;
+		stopped = true;
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		report.finish(elapsed / 1000000L, metrics.getSessionsOpened() - sessionsOpened, maxOpenSessions);
+		return report;
+	}
+
+	/**
+	 * Makes one call, recording it if the steady phase was on when it started.
+	 *
+	 * @param report the report
+	 * @param random the random numbers of the calling worker
+	 */
+	private void call(LoadReport report, Random random) {
+		LoadOperation operation = mix.pick(random);
+		boolean measured = measuring;
+		long start = System.nanoTime();
+		Throwable failure = null;
+		try {
+			operation.execute(nworm, data, random);
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		if (measured) {
+			report.record(operation.getName(), (System.nanoTime() - start) / 1000L, failure);
+		}
+	}
+
+	/**
+	 * Sets the number of worker threads.
+	 *
+	 * @param threads the threads
+	 * @return this test
+	 */
+	public LoadTest setThreads(int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Sets the warm-up phase.
+	 *
+	 * @param warmupMillis the phase, in milliseconds
+	 * @return this test
+	 */
+	public LoadTest setWarmupMillis(long warmupMillis) {
+		this.warmupMillis = warmupMillis;
+		return this;
+	}
+
+	/**
+	 * Sets the steady phase.
+	 *
+	 * @param durationMillis the phase, in milliseconds
+	 * @return this test
+	 */
+	public LoadTest setDurationMillis(long durationMillis) {
+		this.durationMillis = durationMillis;
+		return this;
+	}
+
+	/**
+	 * Sets the seed of the worker random numbers, runs with the same seed pick the same operations.
+	 *
+	 * @param seed the seed
+	 * @return this test
+	 */
+	public LoadTest setSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+}
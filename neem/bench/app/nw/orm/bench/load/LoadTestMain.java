@@ -0,0 +1,121 @@
+package nw.orm.bench.load;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Properties;
+
+import nw.orm.bench.BenchDatabase;
+import nw.orm.core.service.Nworm;
+
+/**
+ * Seeds the embedded database and runs a {@link LoadTest} against it. Usage:
+ * <pre>
+ * java -cp target/benchmarks.jar nw.orm.bench.load.LoadTestMain [options]
+ * </pre>
+ * Options:
+ * <pre>
+ * --threads N           worker threads, default 8
+ * --warmup S            warm-up phase in seconds, default 10
+ * --duration S          steady phase in seconds, default 30
+ * --mix SPEC            weighted operations, for instance getById=80,hotUpdate=20, default {@link LoadMix#DEFAULT}
+ * --rows N              seeded items, default 10000
+ * --countries N         seeded countries, each with 5 regions of 20 cities, default 20
+ * --pool N              c3p0 pool size, below the thread count to reproduce pool exhaustion
+ * --transactions B      whether nworm manages transactions, default true
+ * --current-session B   whether nworm uses the current session, default false
+ * --set KEY=VALUE       any other hibernate property, may be repeated
+ * --seed N              seed of the worker random numbers, default 42
+ * --out FILE            also writes the report as JSON
+ * </pre>
+ *
+ * @author Ogwara O. Rowland
+ */
+public class LoadTestMain {
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the arguments
+	 * @throws Exception if the test can not run
+	 */
+	public static void main(String[] args) throws Exception {
+		int threads = 8;
+		long warmup = 10;
+		long duration = 30;
+		String mix = LoadMix.DEFAULT;
+		int rows = 10000;
+		int countries = 20;
+		boolean transactions = true;
+		boolean currentSession = false;
+		long seed = 42;
+		File out = null;
+		Properties props = new Properties();
+		props.setProperty("config.name", "load");
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value of " + args[i]);
+			}
+			String name = args[i];
+			String value = args[i + 1];
+			if ("--threads".equals(name)) {
+				threads = Integer.parseInt(value);
+			} else if ("--warmup".equals(name)) {
+				warmup = Long.parseLong(value);
+			} else if ("--duration".equals(name)) {
+				duration = Long.parseLong(value);
+			} else if ("--mix".equals(name)) {
+				mix = value;
+			} else if ("--rows".equals(name)) {
+				rows = Integer.parseInt(value);
+			} else if ("--countries".equals(name)) {
+				countries = Integer.parseInt(value);
+			} else if ("--pool".equals(name)) {
+				props.setProperty("hibernate.c3p0.min_size", value);
+				props.setProperty("hibernate.c3p0.max_size", value);
+			} else if ("--transactions".equals(name)) {
+				transactions = Boolean.parseBoolean(value);
+			} else if ("--current-session".equals(name)) {
+				currentSession = Boolean.parseBoolean(value);
+			} else if ("--set".equals(name)) {
+				int eq = value.indexOf('=');
+				if (eq <= 0) {
+					throw new IllegalArgumentException("Expected KEY=VALUE, got " + value);
+				}
+				props.setProperty(value.substring(0, eq), value.substring(eq + 1));
+			} else if ("--seed".equals(name)) {
+				seed = Long.parseLong(value);
+			} else if ("--out".equals(name)) {
+				out = new File(value);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + name);
+			}
+		}
+
+		LoadMix loadMix = LoadMix.parse(mix);
+		Nworm nworm = Nworm.getInstance(BenchDatabase.CONFIG, props, true);
+		try {
+			LoadData data = new LoadData(nworm, rows, countries);
+			nworm.configureSessionManager(transactions, currentSession);
+			LoadReport report = new LoadTest(nworm, data, loadMix)
+					.setThreads(threads)
+					.setWarmupMillis(warmup * 1000)
+					.setDurationMillis(duration * 1000)
+					.setSeed(seed)
+					.run();
+			System.out.print(report);
+			if (out != null) {
+				Writer writer = new OutputStreamWriter(new FileOutputStream(out), "UTF-8");
+				try {
+					report.writeJson(writer);
+				} finally {
+					writer.close();
+				}
+			}
+		} finally {
+			nworm.closeFactory();
+		}
+	}
+
+}
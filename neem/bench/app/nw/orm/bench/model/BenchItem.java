@@ -0,0 +1,128 @@
+package nw.orm.bench.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import nw.orm.core.IEntity;
+
+/**
+ * The entity read and written by the benchmarks.
+ *
+ * @author Ogwara O. Rowland
+ */
+@Entity
+@Table(name = "BENCH_ITEM", indexes = { @Index(name = "IDX_BENCH_ITEM_CATEGORY", columnList = "CATEGORY"),
+		@Index(name = "IDX_BENCH_ITEM_SCORE", columnList = "SCORE") })
+public class BenchItem extends IEntity {
+
+	private static final long serialVersionUID = 2384019358247791326L;
+
+	/** Number of distinct categories. */
+	public static final int CATEGORIES = 100;
+
+	/** The name. */
+	@Column(name = "NAME", length = 128)
+	private String name;
+
+	/** The category, one of {@link #CATEGORIES}. */
+	@Column(name = "CATEGORY")
+	private int category;
+
+	/** The score. */
+	@Column(name = "SCORE")
+	private long score;
+
+	/** The description. */
+	@Column(name = "DESCRIPTION", length = 512)
+	private String description;
+
+	/**
+	 * Creates the n-th item.
+	 *
+	 * @param n the item number
+	 * @return the item
+	 */
+	public static BenchItem create(long n) {
+		BenchItem item = new BenchItem();
+		item.setName("item-" + n);
+		item.setCategory((int) (n % CATEGORIES));
+		item.setScore((n * 7919) % 1000003);
+		item.setDescription("benchmark item number " + n + " with a description of typical length");
+		return item;
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the name.
+	 *
+	 * @param name the new name
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the category.
+	 *
+	 * @return the category
+	 */
+	public int getCategory() {
+		return category;
+	}
+
+	/**
+	 * Sets the category.
+	 *
+	 * @param category the new category
+	 */
+	public void setCategory(int category) {
+		this.category = category;
+	}
+
+	/**
+	 * Gets the score.
+	 *
+	 * @return the score
+	 */
+	public long getScore() {
+		return score;
+	}
+
+	/**
+	 * Sets the score.
+	 *
+	 * @param score the new score
+	 */
+	public void setScore(long score) {
+		this.score = score;
+	}
+
+	/**
+	 * Gets the description.
+	 *
+	 * @return the description
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Sets the description.
+	 *
+	 * @param description the new description
+	 */
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+}
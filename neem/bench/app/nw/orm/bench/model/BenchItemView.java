@@ -0,0 +1,73 @@
+package nw.orm.bench.model;
+
+/**
+ * Unmapped projection of {@link BenchItem}, filled through the result transformer.
+ *
+ * @author Ogwara O. Rowland
+ */
+public class BenchItemView {
+
+	/** The name. */
+	private String name;
+
+	/** The category. */
+	private int category;
+
+	/** The score. */
+	private long score;
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the name.
+	 *
+	 * @param name the new name
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the category.
+	 *
+	 * @return the category
+	 */
+	public int getCategory() {
+		return category;
+	}
+
+	/**
+	 * Sets the category.
+	 *
+	 * @param category the new category
+	 */
+	public void setCategory(int category) {
+		this.category = category;
+	}
+
+	/**
+	 * Gets the score.
+	 *
+	 * @return the score
+	 */
+	public long getScore() {
+		return score;
+	}
+
+	/**
+	 * Sets the score.
+	 *
+	 * @param score the new score
+	 */
+	public void setScore(long score) {
+		this.score = score;
+	}
+
+}
@@ -0,0 +1,67 @@
+package nw.orm.test.async;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import nw.orm.core.async.AsyncNworm;
+import nw.orm.core.service.Nworm;
+import nw.orm.examples.model.Person;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class AsyncNwormTest {
+
+	private static Nworm rem;
+
+	@BeforeClass
+	public static void setUp() {
+		rem = Nworm.getInstance();
+	}
+
+	@Test
+	public void testFanOut() throws Exception {
+		AsyncNworm async = new AsyncNworm(rem);
+		Person p = new Person();
+		p.setAge(31);
+		Long pk = (Long) async.create(p).get();
+
+		Future<Person> byId = async.getById(Person.class, pk);
+		Future<List<Person>> all = async.getAll(Person.class);
+		assertEquals(31, byId.get().getAge());
+		assertFalse(all.get().isEmpty());
+		assertEquals(3, async.getCompletedCount());
+		assertTrue(async.shutdown(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRejectsWhenQueueIsFull() throws Exception {
+		AsyncNworm async = new AsyncNworm(rem, 1, 1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Callable<Boolean> blocked = new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws Exception {
+				return Boolean.valueOf(release.await(10, TimeUnit.SECONDS));
+			}
+		};
+		async.submit(blocked);
+		async.submit(blocked);
+		try {
+			async.submit(blocked);
+			fail("queue should be full");
+		} catch (RejectedExecutionException e) {
+			assertEquals(1, async.getRejectedCount());
+		} finally {
+			release.countDown();
+		}
+		assertTrue(async.shutdown(10, TimeUnit.SECONDS));
+	}
+
+}
@@ -0,0 +1,39 @@
+package nw.orm.test.cache;
+
+import static org.junit.Assert.*;
+
+import nw.orm.core.cache.LruCache;
+
+import org.junit.Test;
+
+public class LruCacheTest {
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		LruCache<String, Integer> cache = new LruCache<String, Integer>(2, 0);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		assertEquals(Integer.valueOf(1), cache.get("a"));
+		cache.put("c", 3);
+
+		assertNull(cache.get("b"));
+		assertEquals(Integer.valueOf(1), cache.get("a"));
+		assertEquals(Integer.valueOf(3), cache.get("c"));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testExpiresEntries() throws InterruptedException {
+		LruCache<String, Integer> cache = new LruCache<String, Integer>(10, 0);
+		cache.put("short", 1, 20);
+		cache.put("forever", 2);
+		Thread.sleep(40);
+
+		assertNull(cache.get("short"));
+		assertEquals(Integer.valueOf(2), cache.get("forever"));
+		assertEquals(1, cache.getExpirations());
+	}
+
+}
@@ -0,0 +1,110 @@
+package nw.orm.test.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+
+import nw.orm.core.cache.CacheStatistics;
+import nw.orm.core.cache.region.NwormRegionFactory;
+
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.junit.Test;
+
+public class NwormRegionFactoryTest {
+
+	@Test
+	public void testEntityRegionEvictsOnUpdate() {
+		NwormRegionFactory factory = new NwormRegionFactory();
+		factory.start(null, new Properties());
+		EntityRegion region = factory.buildEntityRegion("people", new Properties(), null);
+		EntityRegionAccessStrategy access = region.buildAccessStrategy(AccessType.NONSTRICT_READ_WRITE);
+
+		assertTrue(access.putFromLoad(1L, "one", 0, null));
+		assertEquals("one", access.get(1L, 0));
+		assertFalse(access.putFromLoad(1L, "uno", 0, null, true));
+
+		access.update(1L, "uno", null, null);
+		assertNull(access.get(1L, 0));
+
+		CacheStatistics stats = factory.getStatistics("people");
+		assertEquals(1, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		factory.stop();
+	}
+
+	@Test
+	public void testReadWriteRejectsStaleLoads() {
+		NwormRegionFactory factory = new NwormRegionFactory();
+		factory.start(null, new Properties());
+		EntityRegion region = factory.buildEntityRegion("accounts", new Properties(), null);
+		EntityRegionAccessStrategy access = region.buildAccessStrategy(AccessType.READ_WRITE);
+
+		long before = factory.nextTimestamp();
+		assertTrue(access.putFromLoad(1L, "old", before, null));
+		assertEquals("old", access.get(1L, factory.nextTimestamp()));
+
+		// a load started before the update must not put back what it read, during or after the change
+		long staleLoad = factory.nextTimestamp();
+		SoftLock lock = access.lockItem(1L, null);
+		assertNull(access.get(1L, factory.nextTimestamp()));
+		assertFalse(access.putFromLoad(1L, "old", staleLoad, null));
+		access.update(1L, "new", null, null);
+		access.unlockItem(1L, lock);
+		assertFalse(access.putFromLoad(1L, "old", staleLoad, null));
+		assertNull(access.get(1L, factory.nextTimestamp()));
+
+		long freshLoad = factory.nextTimestamp();
+		assertTrue(access.putFromLoad(1L, "new", freshLoad, null));
+		assertEquals("new", access.get(1L, factory.nextTimestamp()));
+		// transactions started before the load do not see it
+		assertNull(access.get(1L, staleLoad));
+
+		access.evictAll();
+		assertFalse(access.putFromLoad(1L, "new", freshLoad, null));
+		factory.stop();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReadOnlyRejectsUpdate() {
+		NwormRegionFactory factory = new NwormRegionFactory();
+		factory.start(null, new Properties());
+		EntityRegion region = factory.buildEntityRegion("countries", new Properties(), null);
+		EntityRegionAccessStrategy access = region.buildAccessStrategy(AccessType.READ_ONLY);
+		access.afterInsert(1L, "NG", null);
+		assertEquals("NG", access.get(1L, 0));
+		access.update(1L, "GH", null, null);
+	}
+
+	@Test
+	public void testRegionSettings() {
+		Properties props = new Properties();
+		props.setProperty(NwormRegionFactory.MAX_ENTRIES, "100");
+		props.setProperty(NwormRegionFactory.REGION_PREFIX + "lookups.max_entries", "2");
+		NwormRegionFactory factory = new NwormRegionFactory(props);
+		factory.start(null, props);
+		QueryResultsRegion region = factory.buildQueryResultsRegion("lookups", null);
+		region.put("a", 1);
+		region.put("b", 2);
+		region.put("c", 3);
+
+		assertEquals(2, region.getElementCountInMemory());
+		assertEquals(1, factory.getStatistics("lookups").getEvictions());
+		assertEquals(1, factory.getStatistics().size());
+	}
+
+	@Test
+	public void testTimestampsIncrease() {
+		NwormRegionFactory factory = new NwormRegionFactory();
+		long last = factory.nextTimestamp();
+		for (int i = 0; i < 10000; i++) {
+			long next = factory.nextTimestamp();
+			assertTrue(next > last);
+			last = next;
+		}
+	}
+
+}
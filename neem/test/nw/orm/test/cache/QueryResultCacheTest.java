@@ -0,0 +1,106 @@
+package nw.orm.test.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import nw.orm.core.cache.QueryResultCache;
+import nw.orm.core.cache.QueryResultCache.Key;
+
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.type.LongType;
+import org.hibernate.type.Type;
+import org.junit.Test;
+
+public class QueryResultCacheTest {
+
+	static class Animal {
+	}
+
+	static class Dog extends Animal {
+	}
+
+	static class Report {
+	}
+
+	@Test
+	public void testCachesOnlyEnabledClasses() {
+		QueryResultCache cache = new QueryResultCache();
+		assertNull(cache.key(Animal.class, true, "id", 1));
+
+		cache.enable(Animal.class, 60000);
+		Key key = cache.key(Animal.class, true, "id", 1);
+		assertSame(QueryResultCache.MISS, cache.get(key));
+		cache.put(key, null);
+		assertNull(cache.get(key));
+	}
+
+	@Test
+	public void testListsAreCopied() {
+		QueryResultCache cache = new QueryResultCache();
+		cache.enable(Animal.class, 60000);
+		List<String> names = new ArrayList<String>();
+		names.add("rex");
+		Key key = cache.key(Animal.class, true, "list");
+		cache.put(key, names);
+		names.add("fido");
+
+		@SuppressWarnings("unchecked")
+		List<String> cached = (List<String>) cache.get(key);
+		assertEquals(1, cached.size());
+		cached.clear();
+		assertEquals(1, ((List<?>) cache.get(key)).size());
+	}
+
+	@Test
+	public void testWritesInvalidateSuperClassesAndUnmapped() {
+		QueryResultCache cache = new QueryResultCache();
+		cache.enable(Animal.class, 60000);
+		cache.enable(Report.class, 60000);
+		Key animals = cache.key(Animal.class, true, "list");
+		Key report = cache.key(Report.class, false, "sql");
+		cache.put(animals, "animals");
+		cache.put(report, "report");
+
+		cache.invalidate(Dog.class);
+		assertSame(QueryResultCache.MISS, cache.get(animals));
+		assertSame(QueryResultCache.MISS, cache.get(report));
+	}
+
+	@Test
+	public void testDropsResultsReadBeforeAWrite() {
+		QueryResultCache cache = new QueryResultCache();
+		cache.enable(Animal.class, 60000);
+		Key key = cache.key(Animal.class, true, "id", 1);
+		cache.invalidate(Animal.class);
+		cache.put(key, "stale");
+		assertSame(QueryResultCache.MISS, cache.get(key));
+	}
+
+
+	@Test
+	public void testKeysDescribeCriteriaCompletely() {
+		// these pairs print the same strings but select different rows
+		assertFalse(QueryResultCache.describe(Restrictions.like("name", "a%"))
+				.equals(QueryResultCache.describe(Restrictions.ilike("name", "a%"))));
+		assertFalse(QueryResultCache.describe(Restrictions.eq("name", "a"))
+				.equals(QueryResultCache.describe(Restrictions.eq("name", "a").ignoreCase())));
+		assertFalse(QueryResultCache.describe(Order.asc("name"))
+				.equals(QueryResultCache.describe(Order.asc("name").ignoreCase())));
+		assertFalse(QueryResultCache.describe(Restrictions.eq("born", new Date(1000)))
+				.equals(QueryResultCache.describe(Restrictions.eq("born", new Date(1001)))));
+		Type[] types = new Type[] { LongType.INSTANCE };
+		assertFalse(QueryResultCache.describe(Restrictions.sqlRestriction("age = ?", new Object[] { 1L }, types))
+				.equals(QueryResultCache.describe(Restrictions.sqlRestriction("age = ?", new Object[] { 2L }, types))));
+		assertEquals(QueryResultCache.describe(Restrictions.eq("name", "a")), QueryResultCache.describe(Restrictions.eq("name", "a")));
+
+		// entities have no complete description, reads bound to them are not cached
+		QueryResultCache cache = new QueryResultCache();
+		cache.enable(Animal.class, 60000);
+		assertNull(cache.key(Animal.class, true, "list", Restrictions.eq("owner", new Dog())));
+	}
+
+}
@@ -0,0 +1,103 @@
+package nw.orm.test.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import nw.orm.core.annotations.NwormProcessor;
+import nw.orm.core.metadata.EntityAccessor;
+import nw.orm.core.metadata.EntityIndex;
+import nw.orm.examples.model.Person;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EntityIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReflectiveFallback() {
+		// the library is built without annotation processing, so its test entities are not indexed
+		assertFalse(EntityIndex.getInstance().isIndexed(Person.class));
+		EntityAccessor accessor = EntityIndex.accessor(Person.class);
+		assertSame(accessor, EntityIndex.accessor(Person.class));
+		assertEquals("pk", accessor.getIdPropertyName());
+		assertTrue(accessor.isSoftDeletable());
+
+		Person p = new Person();
+		p.setPk(5L);
+		p.setFullName("Index Person");
+		assertEquals("PERSON", p.getTableName());
+		assertEquals(Long.valueOf(5L), accessor.getId(p));
+		assertTrue(p.toString().contains("fullName: Index Person"));
+	}
+
+	@Test
+	public void testProcessorGeneratesIndex() throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeNotNull(compiler);
+
+		File src = new File(folder.newFolder("src"), "Shop.java");
+		Writer w = new FileWriter(src);
+		try {
+			w.write("package demo;\n"
+					+ "@javax.persistence.Entity @javax.persistence.Table(name = \"SHOP\")\n"
+					+ "public class Shop extends nw.orm.core.IEntity {\n"
+					+ "  private String name;\n"
+					+ "  private boolean open;\n"
+					+ "  public String getName() { return name; }\n"
+					+ "  public void setName(String name) { this.name = name; }\n"
+					+ "  public boolean isOpen() { return open; }\n"
+					+ "}\n");
+		} finally {
+			w.close();
+		}
+		File out = folder.newFolder("classes");
+		StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null);
+		Iterable<? extends JavaFileObject> units = files.getJavaFileObjects(src);
+		CompilationTask task = compiler.getTask(null, files, null,
+				Arrays.asList("-d", out.getPath(), "-s", out.getPath(), "-classpath", System.getProperty("java.class.path")), null, units);
+		task.setProcessors(Arrays.asList(new NwormProcessor()));
+		assertTrue(task.call());
+		files.close();
+		assertTrue(new File(out, EntityIndex.RESOURCE).isFile());
+
+		URLClassLoader loader = new URLClassLoader(new URL[] { out.toURI().toURL() }, getClass().getClassLoader());
+		EntityIndex index = new EntityIndex(loader);
+		Class<?> shop = loader.loadClass("demo.Shop");
+		assertTrue(index.isIndexed(shop));
+		// the shared lookup finds the index of the entity's own loader, not only of the library's
+		assertSame(EntityIndex.getInstance(loader), EntityIndex.getInstance(loader));
+		assertFalse(EntityIndex.getInstance(getClass().getClassLoader()).isIndexed(shop));
+		assertEquals("demo.Shop" + NwormProcessor.SUFFIX, EntityIndex.accessor(shop).getClass().getName());
+
+		EntityAccessor accessor = index.getAccessor(shop);
+		assertEquals("demo.Shop" + NwormProcessor.SUFFIX, accessor.getClass().getName());
+		assertEquals("SHOP", accessor.getTableName());
+		assertEquals("pk", accessor.getIdPropertyName());
+		assertTrue(accessor.isSoftDeletable());
+		assertEquals(Arrays.asList("name", "open"), Arrays.asList(accessor.getFieldNames()));
+
+		Object entity = shop.newInstance();
+		shop.getMethod("setName", String.class).invoke(entity, "Corner");
+		assertEquals("Corner", accessor.getValue(entity, 0));
+		assertEquals(Boolean.FALSE, accessor.getValue(entity, 1));
+		assertNull(accessor.getId(entity));
+	}
+
+}
@@ -0,0 +1,60 @@
+package nw.orm.test.interceptor;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import nw.orm.core.interceptor.NwormInterceptor;
+import nw.orm.core.interceptor.StatementRecord;
+import nw.orm.core.metrics.Operation;
+import nw.orm.core.query.QueryModifier;
+import nw.orm.core.service.Nworm;
+import nw.orm.examples.model.Person;
+
+import org.junit.Test;
+
+public class NwormInterceptorTest {
+
+	@Test
+	public void testRedactsLiterals() {
+		assertEquals("select * from t1 where name = ? and age > ? and id = ?",
+				NwormInterceptor.redact("select * from t1 where name = 'O''Neil' and age > 42 and id = ?"));
+	}
+
+	@Test
+	public void testKeepsSlowestStatements() throws InterruptedException {
+		NwormInterceptor interceptor = new NwormInterceptor();
+		interceptor.setCapacity(2);
+		for (int i = 0; i < 3; i++) {
+			interceptor.operationStarted(Operation.HQL, Person.class);
+			interceptor.onPrepareStatement("select " + i);
+			Thread.sleep(5 * (i + 1));
+			interceptor.operationFinished(Operation.HQL, Person.class, i, false);
+		}
+		List<StatementRecord> slowest = interceptor.getSlowestStatements();
+		assertEquals(2, slowest.size());
+		assertEquals("select ?", slowest.get(0).getSql());
+		assertEquals(2, slowest.get(0).getRows());
+		assertEquals(1, slowest.get(1).getRows());
+		assertEquals("HQL Person", slowest.get(0).getCaller());
+	}
+
+	@Test
+	public void testIgnoresStatementsOutsideCalls() {
+		NwormInterceptor interceptor = new NwormInterceptor();
+		interceptor.onPrepareStatement("select 1");
+		assertTrue(interceptor.getSlowestStatements().isEmpty());
+	}
+
+	@Test
+	public void testServiceStatementsAreTimed() {
+		Nworm rem = Nworm.getInstance();
+		rem.getInterceptor().clearSlowestStatements();
+		// paged queries bypass the result cache
+		rem.getPageByCriteria(Person.class, new QueryModifier(Person.class));
+		List<StatementRecord> slowest = rem.getInterceptor().getSlowestStatements();
+		assertFalse(slowest.isEmpty());
+		assertEquals("CRITERIA Person", slowest.get(0).getCaller());
+	}
+
+}
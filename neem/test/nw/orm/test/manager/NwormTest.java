@@ -2,15 +2,31 @@ package nw.orm.test.manager;
 
 import static org.junit.Assert.*;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
 import javax.naming.OperationNotSupportedException;
 
+import nw.orm.core.bulk.BulkInsertOptions;
+import nw.orm.core.bulk.BulkInsertResult;
+import nw.orm.core.exception.NwormQueryException;
+import nw.orm.core.metadata.EntityMetadata;
+import nw.orm.core.metadata.EntityMetadataRegistry;
+import nw.orm.core.query.CompiledQuery;
+import nw.orm.core.query.KeysetCursor;
+import nw.orm.core.query.KeysetPage;
+import nw.orm.core.query.Page;
 import nw.orm.core.query.QueryModifier;
 import nw.orm.core.query.QueryParameter;
+import nw.orm.core.query.RowCallback;
+import nw.orm.core.query.ScrollIterator;
 import nw.orm.core.query.SQLModifier;
 import nw.orm.core.service.Nworm;
+import nw.orm.core.service.NwormHibernateService;
+import nw.orm.core.service.NwormImpl;
+import nw.orm.core.service.TransactionCallback;
 import nw.orm.entity.geo.City;
 import nw.orm.entity.geo.Country;
 import nw.orm.entity.geo.Region;
@@ -19,9 +35,12 @@ import nw.orm.examples.model.enums.Sex;
 import nw.orm.examples.pojo.PersonPojo;
 import nw.orm.examples.pojo.TestPox;
 
+import org.hibernate.CacheMode;
 import org.hibernate.criterion.Example;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.Type;
 import org.junit.BeforeClass;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
@@ -102,6 +121,18 @@ public class NwormTest {
 		assertFalse(rem.isClassMapped(PersonPojo.class));
 	}
 
+	@Test
+	public void testEntityMetadata() {
+		EntityMetadataRegistry registry = rem.getMetadataRegistry();
+		assertNotNull(registry);
+		EntityMetadata md = registry.getMetadata(Person.class);
+		assertTrue(md.isMapped());
+		assertTrue(md.isSoftDeletable());
+		assertEquals(Long.class, md.getIdType());
+		assertEquals("PERSON", md.getTableName().toUpperCase());
+		assertFalse(registry.isMapped(PersonPojo.class));
+	}
+
 	@Test
 	public void testGetById() {
 		Person bid = rem.getById(Person.class, personPk);
@@ -166,6 +197,179 @@ public class NwormTest {
 		assertTrue(!bs.isEmpty());
 	}
 
+	@Test
+	public void testCreateBulkChunked() {
+		List<Person> people = new ArrayList<Person>();
+		for (int i = 0; i < 25; i++) {
+			Person p = new Person();
+			p.setAge(40);
+			p.setFullName("Bulk Person " + i);
+			people.add(p);
+		}
+		BulkInsertResult result = rem.createBulk(people, new BulkInsertOptions(5, 10, 1));
+		assertEquals(25, result.getIds().size());
+		assertEquals(3, result.getChunks().size());
+		assertEquals(25, result.getCommittedCount());
+		assertTrue(result.getChunks().get(2).isCommitted());
+	}
+
+	@Test
+	public void testCreateBulkInUnitOfWork() {
+		BulkInsertResult result = rem.executeInTransaction(new TransactionCallback<BulkInsertResult>() {
+
+			@Override
+			public BulkInsertResult execute(NwormHibernateService service) {
+				List<Person> people = new ArrayList<Person>();
+				for (int i = 0; i < 6; i++) {
+					Person p = new Person();
+					p.setAge(42);
+					p.setFullName("Bound Bulk Person " + i);
+					people.add(p);
+				}
+				BulkInsertResult inserted = service.createBulk(people, new BulkInsertOptions(5, 10, 1));
+				// nothing commits before the unit of work does
+				assertEquals(CacheMode.NORMAL, rem.getSessionService().getManagedSession().getCacheMode());
+				return inserted;
+			}
+		});
+		assertEquals(1, result.getChunks().size());
+		for (BulkInsertResult.ChunkStat chunk : result.getChunks()) {
+			assertFalse(chunk.isCommitted());
+		}
+		assertEquals(0, result.getCommittedCount());
+	}
+
+	@Test
+	public void testSoftDeleteAndRemoveByIds() {
+		List<Person> people = new ArrayList<Person>();
+		for (int i = 0; i < 5; i++) {
+			Person p = new Person();
+			p.setAge(41);
+			p.setFullName("Purge Person " + i);
+			people.add(p);
+		}
+		List<Serializable> ids = rem.createBulk(people);
+		rem.setInListChunkSize(2);
+		assertEquals(5, rem.softDeleteByIds(Person.class, ids));
+		assertEquals(0, rem.softDeleteByIds(Person.class, ids));
+		assertNull(rem.getByCriteria(Person.class, Restrictions.idEq(ids.get(0))));
+		assertEquals(5, rem.removeByIds(Person.class, ids));
+		rem.setInListChunkSize(NwormImpl.DEFAULT_IN_LIST_CHUNK_SIZE);
+	}
+
+	@Test
+	public void testScrollAndStream() {
+		ScrollIterator<Person> it = rem.scrollByHQL(Person.class, "FROM Person p WHERE p.age = :age", 2, QueryParameter.create("age", 223));
+		int rows = 0;
+		try {
+			while (it.hasNext()) {
+				assertEquals(223, it.next().getAge());
+				rows += 1;
+			}
+		} finally {
+			it.close();
+		}
+		assertTrue(rows > 0);
+
+		final List<Person> seen = new ArrayList<Person>();
+		long streamed = rem.streamByCriteria(Person.class, new QueryModifier(Person.class), 2, new RowCallback<Person>() {
+
+			@Override
+			public boolean processRow(Person row) {
+				seen.add(row);
+				return seen.size() < 1;
+			}
+		}, Restrictions.eq("age", 223));
+		assertEquals(1, streamed);
+		assertEquals(1, seen.size());
+	}
+
+	@Test
+	public void testKeysetPagination() {
+		QueryModifier qm = new QueryModifier(Person.class);
+		qm.setKeysetPaginated(KeysetCursor.first(true, "pk"), 1);
+		KeysetPage<Person> first = rem.getKeysetPageByCriteria(Person.class, qm);
+		assertEquals(1, first.getItems().size());
+		if (first.hasNext()) {
+			qm.setKeysetPaginated(first.getNext(), 1);
+			KeysetPage<Person> second = rem.getKeysetPageByHQL(Person.class, "FROM Person p", "p", qm);
+			assertTrue(second.getItems().get(0).getPk() > first.getItems().get(0).getPk());
+		}
+	}
+
+	@Test
+	public void testKeysetPaginationOverDisjunction() {
+		for (int i = 0; i < 2; i++) {
+			Person p = new Person();
+			p.setAge(346 + i);
+			rem.create(p);
+		}
+		String hql = "FROM Person p WHERE p.age = :a OR p.age = :b";
+		QueryParameter a = QueryParameter.create("a", 346);
+		QueryParameter b = QueryParameter.create("b", 347);
+		QueryModifier qm = new QueryModifier(Person.class);
+		qm.setKeysetPaginated(KeysetCursor.first(true, "pk"), 1);
+		List<Long> seen = new ArrayList<Long>();
+		KeysetPage<Person> page = rem.getKeysetPageByHQL(Person.class, hql, "p", qm, a, b);
+		while (true) {
+			for (Person p : page.getItems()) {
+				// the seek must apply to both branches, a repeated row would loop forever
+				assertFalse(seen.contains(p.getPk()));
+				seen.add(p.getPk());
+			}
+			if (!page.hasNext()) {
+				break;
+			}
+			qm.setKeysetPaginated(page.getNext(), 1);
+			page = rem.getKeysetPageByHQL(Person.class, hql, "p", qm, a, b);
+		}
+		assertEquals(rem.getListByHQL(Person.class, hql, a, b).size(), seen.size());
+	}
+
+	@Test
+	public void testGetPageByCriteria() {
+		QueryModifier qm = new QueryModifier(Person.class);
+		qm.setPaginated(0, 1);
+		qm.setTotalCountCacheTtl(60000);
+		Page<Person> page = rem.getPageByCriteria(Person.class, qm, Restrictions.eq("age", 223));
+		assertEquals(1, page.getItems().size());
+		assertTrue(page.getTotal() >= 1);
+
+		Page<Person> again = rem.getPageByCriteria(Person.class, qm, Restrictions.eq("age", 223));
+		assertEquals(page.getTotal(), again.getTotal());
+	}
+
+	@Test
+	public void testPageTotalsKeepSqlRestrictionValues() {
+		for (int i = 0; i < 2; i++) {
+			Person p = new Person();
+			p.setAge(344);
+			rem.create(p);
+		}
+		Person p = new Person();
+		p.setAge(345);
+		rem.create(p);
+		QueryModifier qm = new QueryModifier(Person.class);
+		qm.setPaginated(0, 1);
+		qm.setTotalCountCacheTtl(60000);
+		Type[] types = new Type[] { IntegerType.INSTANCE };
+		long twice = rem.getPageByCriteria(Person.class, qm, Restrictions.sqlRestriction("{alias}.age = ?", new Object[] { 344 }, types)).getTotal();
+		long once = rem.getPageByCriteria(Person.class, qm, Restrictions.sqlRestriction("{alias}.age = ?", new Object[] { 345 }, types)).getTotal();
+		// the sql prints the same for both values, the cached total of the first must not answer the second
+		assertTrue(twice > once);
+	}
+
+	@Test
+	public void testCompiledHQL() {
+		CompiledQuery<Person> byAge = rem.compileHQL(Person.class, "FROM Person p WHERE p.age = :age");
+		assertSame(byAge, rem.compileHQL(Person.class, "FROM Person p WHERE p.age = :age"));
+		assertEquals(1, byAge.getParameterCount());
+		assertTrue(!rem.getListByHQL(byAge, 223).isEmpty());
+
+		CompiledQuery<Person> byPk = rem.compileHQL(Person.class, "FROM Person p WHERE p.pk = :pk");
+		assertEquals(personPk, rem.getByHQL(byPk, personPk).getPk());
+	}
+
 //	@Test
 	public void testGetByExample() {
 		Country c = new Country();
@@ -214,6 +418,147 @@ public class NwormTest {
 //		fail("Not yet implemented");
 //	}
 //
+	@Test
+	public void testResultCache() {
+		NwormImpl impl = (NwormImpl) rem;
+		impl.getResultCache().enable(Person.class, 60000);
+		try {
+			Person first = rem.getById(Person.class, personPk);
+			assertSame(first, rem.getById(Person.class, personPk));
+
+			first.setAge(223);
+			rem.update(first);
+			Person fresh = rem.getById(Person.class, personPk);
+			assertNotSame(first, fresh);
+			assertEquals(223, fresh.getAge());
+		} finally {
+			impl.getResultCache().disable(Person.class);
+		}
+	}
+
+	@Test
+	public void testToggleLeavesCachedInstances() {
+		Person p = new Person();
+		p.setAge(338);
+		Long pk = (Long) rem.create(p);
+		NwormImpl impl = (NwormImpl) rem;
+		impl.getResultCache().enable(Person.class, 60000);
+		try {
+			Person cached = rem.getByCriteria(Person.class, Restrictions.idEq(pk));
+			assertTrue(rem.toggleActive(Person.class, pk));
+			// the instance handed out earlier is untouched, the next read sees the change
+			assertTrue(cached.isActive());
+			assertFalse(rem.getByCriteria(Person.class, Restrictions.idEq(pk)).isActive());
+
+			assertTrue(rem.softDelete(Person.class, pk));
+			assertFalse(cached.isDeleted());
+			assertNull(rem.getByCriteria(Person.class, Restrictions.idEq(pk)));
+		} finally {
+			impl.getResultCache().disable(Person.class);
+		}
+	}
+
+	@Test
+	public void testResultCacheKeysetPages() {
+		for (int i = 0; i < 3; i++) {
+			Person p = new Person();
+			p.setAge(337);
+			rem.create(p);
+		}
+		NwormImpl impl = (NwormImpl) rem;
+		impl.getResultCache().enable(Person.class, 60000);
+		try {
+			KeysetCursor cursor = KeysetCursor.first(true, "pk");
+			QueryModifier qm = new QueryModifier(Person.class);
+			qm.setKeysetPaginated(cursor, 1);
+			Person first = rem.getByCriteria(Person.class, qm, Restrictions.eq("age", 337));
+			qm.setKeysetPaginated(cursor.after(first.getPk()), 1);
+			Person second = rem.getByCriteria(Person.class, qm, Restrictions.eq("age", 337));
+			assertTrue(second.getPk() > first.getPk());
+			qm.setKeysetPaginated(cursor.after(first.getPk()), 2);
+			assertEquals(2, rem.getListByCriteria(Person.class, qm, Restrictions.eq("age", 337)).size());
+		} finally {
+			impl.getResultCache().disable(Person.class);
+		}
+	}
+
+	@Test
+	public void testExecuteInTransaction() {
+		final Long[] pks = new Long[2];
+		int count = rem.executeInTransaction(new TransactionCallback<Integer>() {
+
+			@Override
+			public Integer execute(NwormHibernateService service) {
+				Person p = new Person();
+				p.setAge(41);
+				pks[0] = (Long) service.create(p);
+				Person q = new Person();
+				q.setAge(41);
+				pks[1] = (Long) service.create(q);
+				assertTrue(rem.getSessionService().isSessionBound());
+				return service.getListByCriteria(Person.class, Restrictions.in("pk", pks)).size();
+			}
+		});
+		assertEquals(2, count);
+		assertFalse(rem.getSessionService().isSessionBound());
+		assertNotNull(rem.getById(Person.class, pks[1]));
+	}
+
+	@Test
+	public void testExecuteInTransactionRollsBack() {
+		final Long[] pk = new Long[1];
+		try {
+			rem.executeInTransaction(new TransactionCallback<Void>() {
+
+				@Override
+				public Void execute(NwormHibernateService service) throws Exception {
+					Person p = new Person();
+					p.setAge(42);
+					pk[0] = (Long) service.create(p);
+					throw new Exception("abort");
+				}
+			});
+			fail("unit of work should fail");
+		} catch (NwormQueryException e) {
+			assertEquals("abort", e.getCause().getMessage());
+		}
+		assertNull(rem.getById(Person.class, pk[0]));
+	}
+
+	@Test
+	public void testResultCacheAfterUnitOfWork() throws Exception {
+		Person p = new Person();
+		p.setAge(43);
+		final Long pk = (Long) rem.create(p);
+		NwormImpl impl = (NwormImpl) rem;
+		impl.getResultCache().enable(Person.class, 60000);
+		try {
+			rem.executeInTransaction(new TransactionCallback<Void>() {
+
+				@Override
+				public Void execute(NwormHibernateService service) throws Exception {
+					Person q = service.getById(Person.class, pk);
+					q.setAge(44);
+					service.update(q);
+					// another thread caches the committed row between the flush and the commit
+					Thread reader = new Thread(new Runnable() {
+
+						@Override
+						public void run() {
+							rem.getById(Person.class, pk);
+						}
+					});
+					reader.start();
+					reader.join();
+					return null;
+				}
+			});
+			assertEquals(44, rem.getById(Person.class, pk).getAge());
+		} finally {
+			impl.getResultCache().disable(Person.class);
+		}
+	}
+
 //	@Test
 //	public void testCreate() {
 //		fail("Not yet implemented");
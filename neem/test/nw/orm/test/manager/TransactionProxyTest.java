@@ -0,0 +1,78 @@
+package nw.orm.test.manager;
+
+import static org.junit.Assert.*;
+
+import nw.orm.core.annotations.NwormTransaction;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.service.TransactionProxyFactory;
+import nw.orm.examples.model.Person;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TransactionProxyTest {
+
+	public interface PersonRegistry {
+
+		Long register(int age);
+
+		Long registerAndFail(int age) throws Exception;
+	}
+
+	public static class PersonRegistryImpl implements PersonRegistry {
+
+		private final Nworm nworm;
+
+		private Long last;
+
+		public PersonRegistryImpl(Nworm nworm) {
+			this.nworm = nworm;
+		}
+
+		@Override
+		@NwormTransaction
+		public Long register(int age) {
+			Person p = new Person();
+			p.setAge(age);
+			Long pk = (Long) nworm.create(p);
+			assertTrue(nworm.getSessionService().isSessionBound());
+			return pk;
+		}
+
+		@Override
+		@NwormTransaction
+		public Long registerAndFail(int age) throws Exception {
+			last = register(age);
+			throw new Exception("rejected");
+		}
+	}
+
+	private static Nworm rem;
+
+	@BeforeClass
+	public static void setUp() {
+		rem = Nworm.getInstance();
+	}
+
+	@Test
+	public void testAnnotatedMethodRunsInTransaction() {
+		PersonRegistry registry = TransactionProxyFactory.create(PersonRegistry.class, new PersonRegistryImpl(rem));
+		Long pk = registry.register(51);
+		assertFalse(rem.getSessionService().isSessionBound());
+		assertEquals(51, rem.getById(Person.class, pk).getAge());
+	}
+
+	@Test
+	public void testExceptionRollsBack() {
+		PersonRegistryImpl impl = new PersonRegistryImpl(rem);
+		PersonRegistry registry = TransactionProxyFactory.create(PersonRegistry.class, impl);
+		try {
+			registry.registerAndFail(52);
+			fail("exception expected");
+		} catch (Exception e) {
+			assertEquals("rejected", e.getMessage());
+		}
+		assertNull(rem.getById(Person.class, impl.last));
+	}
+
+}
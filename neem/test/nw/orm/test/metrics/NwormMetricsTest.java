@@ -0,0 +1,94 @@
+package nw.orm.test.metrics;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.ObjectName;
+
+import nw.orm.core.metrics.LatencyHistogram;
+import nw.orm.core.metrics.NwormMetrics;
+import nw.orm.core.metrics.NwormMetrics.Timer;
+import nw.orm.core.metrics.Operation;
+import nw.orm.core.metrics.OperationMetrics;
+import nw.orm.core.service.Nworm;
+import nw.orm.examples.model.Person;
+
+import org.junit.Test;
+
+public class NwormMetricsTest {
+
+	@Test
+	public void testHistogramPercentiles() {
+		LatencyHistogram h = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			h.record(i);
+		}
+		assertEquals(1000, h.getCount());
+		assertEquals(1000, h.getMax());
+		assertEquals(500.5, h.getMean(), 0.001);
+		assertEquals(500, h.getValueAt(0.50), 500 * 0.07);
+		assertEquals(990, h.getValueAt(0.99), 990 * 0.07);
+		assertEquals(1000, h.getValueAt(1.0));
+
+		h.reset();
+		assertEquals(0, h.getValueAt(0.99));
+	}
+
+	@Test
+	public void testTimerCountsRowsAndErrors() {
+		NwormMetrics metrics = new NwormMetrics("test");
+		Timer timer = metrics.start(Operation.CRITERIA, Person.class);
+		timer.done(Arrays.asList("a", "b"));
+		timer.stop();
+		metrics.start(Operation.CRITERIA, Person.class).stop();
+
+		OperationMetrics om = metrics.get(Operation.CRITERIA, Person.class);
+		assertEquals(2, om.getCalls());
+		assertEquals(1, om.getErrors());
+		assertEquals(2, om.getRows());
+
+		metrics.setEnabled(false);
+		metrics.start(Operation.CRITERIA, Person.class).stop();
+		assertEquals(2, om.getCalls());
+	}
+
+	@Test
+	public void testNumbersAreNotRowCounts() {
+		NwormMetrics metrics = new NwormMetrics("numbers");
+		// a scalar read returns one row whatever its value
+		Timer timer = metrics.start(Operation.HQL, Person.class);
+		timer.done(Long.valueOf(123456));
+		timer.stop();
+		assertEquals(1, metrics.get(Operation.HQL, Person.class).getRows());
+
+		timer = metrics.start(Operation.CREATE, Person.class);
+		assertEquals(Long.valueOf(123456), timer.done(Long.valueOf(123456), 1));
+		timer.stop();
+		timer = metrics.start(Operation.CREATE, Person.class);
+		timer.done(Long.valueOf(123457), 1);
+		timer.stop();
+		assertEquals(2, metrics.get(Operation.CREATE, Person.class).getRows());
+	}
+
+	@Test
+	public void testServiceMetricsOverJmx() throws Exception {
+		Nworm rem = Nworm.getInstance();
+		Person p = new Person();
+		p.setAge(81);
+		Long pk = (Long) rem.create(p);
+		rem.getById(Person.class, pk);
+
+		NwormMetrics metrics = rem.getMetrics();
+		assertTrue(metrics.get(Operation.GET_BY_ID, Person.class).getCalls() >= 1);
+		assertTrue(metrics.get(Operation.CREATE, Person.class).getRows() >= 1);
+		assertTrue(metrics.getSessionsOpened() >= 2);
+
+		ObjectName on = new ObjectName(NwormMetrics.JMX_DOMAIN + ":type=OperationMetrics,config=" + ObjectName.quote(metrics.getName())
+				+ ",operation=GET_BY_ID,entity=" + ObjectName.quote(Person.class.getName()));
+		Long calls = (Long) ManagementFactory.getPlatformMBeanServer().getAttribute(on, "Calls");
+		assertTrue(calls.longValue() >= 1);
+	}
+
+}
@@ -0,0 +1,37 @@
+package nw.orm.test.metrics;
+
+import static org.junit.Assert.*;
+
+import nw.orm.core.metrics.StatisticsSnapshot;
+import nw.orm.core.metrics.StatisticsSnapshot.Counter;
+import nw.orm.core.service.Nworm;
+import nw.orm.examples.model.Person;
+
+import org.junit.Test;
+
+public class StatisticsSnapshotTest {
+
+	@Test
+	public void testDeltaCoversWindow() {
+		Nworm rem = Nworm.getInstance();
+		rem.getSessionService().setStatisticsEnabled(true);
+		try {
+			StatisticsSnapshot before = rem.getStatisticsSnapshot();
+			Person p = new Person();
+			p.setAge(91);
+			rem.create(p);
+			rem.create(new Person());
+			StatisticsSnapshot after = rem.getStatisticsSnapshot();
+
+			StatisticsSnapshot window = after.since(before);
+			assertEquals(2, window.getEntityInsertCount());
+			assertEquals(2, window.getEntities().get(Person.class.getName()).getInserts());
+			assertTrue(window.getTransactionCount() >= 2);
+			assertEquals(0, window.get(Counter.ENTITY_DELETES));
+			assertEquals(before.getTakenAt(), window.getWindowStart());
+		} finally {
+			rem.getSessionService().setStatisticsEnabled(false);
+		}
+	}
+
+}
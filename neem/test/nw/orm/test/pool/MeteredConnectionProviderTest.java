@@ -0,0 +1,114 @@
+package nw.orm.test.pool;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+
+import nw.orm.core.pool.MeteredConnectionProvider;
+import nw.orm.core.pool.PoolMetrics;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MeteredConnectionProviderTest {
+
+	/** Hands out connection stubs, or times out when told to. */
+	public static class StubProvider implements ConnectionProvider {
+
+		private static final long serialVersionUID = 1L;
+
+		static volatile boolean exhausted;
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			if (exhausted) {
+				throw new SQLTimeoutException("Timeout after 30000ms of waiting for a connection.");
+			}
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					return null;
+				}
+			});
+		}
+
+		@Override
+		public void closeConnection(Connection conn) {
+		}
+
+		@Override
+		public boolean supportsAggressiveRelease() {
+			return false;
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public boolean isUnwrappableAs(Class unwrapType) {
+			return false;
+		}
+
+		@Override
+		public <T> T unwrap(Class<T> unwrapType) {
+			return null;
+		}
+	}
+
+	private MeteredConnectionProvider provider;
+
+	@Before
+	public void setUp() {
+		StubProvider.exhausted = false;
+		Map<String, Object> settings = new HashMap<String, Object>();
+		settings.put(MeteredConnectionProvider.DELEGATE, StubProvider.class.getName());
+		provider = new MeteredConnectionProvider();
+		provider.configure(settings);
+	}
+
+	@Test
+	public void testCountsActiveConnections() throws SQLException {
+		Connection a = provider.getConnection();
+		Connection b = provider.getConnection();
+		PoolMetrics metrics = provider.getPoolMetrics();
+		assertEquals(2, metrics.getActiveConnections());
+		assertEquals(0, metrics.getPendingConnections());
+		assertEquals(StubProvider.class.getName(), metrics.getProvider());
+		assertEquals(-1, metrics.getIdleConnections());
+
+		provider.closeConnection(a);
+		provider.closeConnection(b);
+		assertEquals(0, metrics.getActiveConnections());
+		assertEquals(2, metrics.getAcquired());
+		assertEquals(2, metrics.getAcquireTimes().getCount());
+	}
+
+	@Test
+	public void testCountsTimeouts() {
+		StubProvider.exhausted = true;
+		try {
+			provider.getConnection();
+			fail("expected a timeout");
+		} catch (SQLException e) {
+			// expected
+		}
+		PoolMetrics metrics = provider.getPoolMetrics();
+		assertEquals(1, metrics.getTimeouts());
+		assertEquals(1, metrics.getFailures());
+		assertEquals(0, metrics.getActiveConnections());
+		assertEquals(0, metrics.getPendingConnections());
+	}
+
+	@Test
+	public void testUnwrapsToItself() {
+		assertSame(provider, provider.unwrap(ConnectionProvider.class));
+		assertSame(provider, provider.unwrap(MeteredConnectionProvider.class));
+	}
+
+}
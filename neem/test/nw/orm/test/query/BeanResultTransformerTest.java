@@ -0,0 +1,97 @@
+package nw.orm.test.query;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import nw.orm.core.query.BeanResultTransformer;
+
+import org.hibernate.PropertyNotFoundException;
+import org.junit.Test;
+
+public class BeanResultTransformerTest {
+
+	public enum Kind {
+		SMALL, LARGE
+	}
+
+	public static class Row {
+
+		private String fullName;
+
+		private int age;
+
+		private BigDecimal balance;
+
+		private boolean active;
+
+		public void setFullName(String fullName) {
+			this.fullName = fullName;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+	}
+
+	public static class Summary {
+
+		private final String name;
+
+		private final long total;
+
+		private final Kind kind;
+
+		public Summary(String name, long total, Kind kind) {
+			this.name = name;
+			this.total = total;
+			this.kind = kind;
+		}
+	}
+
+	@Test
+	public void testSetsPropertiesWithCoercion() {
+		String[] aliases = { "FULL_NAME", "age", "balance", "ACTIVE" };
+		Row row = (Row) BeanResultTransformer.of(Row.class).transformTuple(
+				new Object[] { "Ada", new BigDecimal("36"), BigInteger.TEN, Integer.valueOf(1) }, aliases);
+		assertEquals("Ada", row.fullName);
+		assertEquals(36, row.age);
+		assertEquals(new BigDecimal(10), row.balance);
+		assertTrue(row.active);
+
+		row = (Row) BeanResultTransformer.of(Row.class).transformTuple(new Object[] { "Bob", null, null, null }, aliases);
+		assertEquals(0, row.age);
+		assertNull(row.balance);
+	}
+
+	@Test
+	public void testBuildsThroughConstructor() {
+		String[] aliases = { "name", "total", "kind" };
+		Summary s = (Summary) BeanResultTransformer.of(Summary.class).transformTuple(
+				new Object[] { "north", Integer.valueOf(12), "LARGE" }, aliases);
+		assertEquals("north", s.name);
+		assertEquals(12L, s.total);
+		assertSame(Kind.LARGE, s.kind);
+
+		s = (Summary) BeanResultTransformer.of(Summary.class).transformTuple(new Object[] { "south", null, Integer.valueOf(0) }, aliases);
+		assertEquals(0L, s.total);
+		assertSame(Kind.SMALL, s.kind);
+	}
+
+	@Test
+	public void testSharedPerClass() {
+		assertSame(BeanResultTransformer.of(Row.class), BeanResultTransformer.of(Row.class));
+		assertNotSame(BeanResultTransformer.of(Row.class), BeanResultTransformer.of(Summary.class));
+	}
+
+	@Test(expected = PropertyNotFoundException.class)
+	public void testUnknownAlias() {
+		BeanResultTransformer.of(Row.class).transformTuple(new Object[] { "x" }, new String[] { "missing" });
+	}
+
+}
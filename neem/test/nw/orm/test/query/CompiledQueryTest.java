@@ -0,0 +1,19 @@
+package nw.orm.test.query;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import nw.orm.core.query.CompiledQuery;
+
+import org.junit.Test;
+
+public class CompiledQueryTest {
+
+	@Test
+	public void testScanParameterNames() {
+		String hql = "FROM Person p WHERE p.age > :age AND p.fullName = ':ignored' AND (p.age < :max OR p.age = :age)";
+		assertEquals(Arrays.asList("age", "max"), CompiledQuery.scanParameterNames(hql));
+	}
+
+}
@@ -0,0 +1,111 @@
+package nw.orm.test.query;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import nw.orm.core.metrics.StatisticsSnapshot;
+import nw.orm.core.query.FetchPlan;
+import nw.orm.core.query.Page;
+import nw.orm.core.query.QueryAlias;
+import nw.orm.core.query.QueryModifier;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.session.EmbeddedDatabase;
+import nw.orm.entity.geo.City;
+import nw.orm.entity.geo.Country;
+import nw.orm.entity.geo.Region;
+
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class FetchPlanTest {
+
+	private static final int COUNTRIES = 20;
+
+	private static Nworm db;
+
+	@BeforeClass
+	public static void setUp() {
+		db = Nworm.getInstance(EmbeddedDatabase.h2("fetch_plan_test").addAnnotatedClasses(Country.class, Region.class, City.class));
+		for (int i = 0; i < COUNTRIES; i++) {
+			Country c = new Country();
+			c.setName("Country " + i);
+			c.setIsoAlpha2("C" + i);
+			c.setIsoAlpha3("CC" + i);
+			c.setPhoneCode(String.valueOf(i));
+			db.create(c);
+			for (int r = 0; r < 3; r++) {
+				Region region = new Region();
+				region.setName(c.getName() + " region " + r);
+				region.setCountry(c);
+				db.create(region);
+				for (int t = 0; t < 2; t++) {
+					City city = new City();
+					city.setName(region.getName() + " city " + t);
+					city.setRegion(region);
+					db.create(city);
+				}
+			}
+		}
+		FetchPlan.define(Country.class, "withCities").batch("regions.cities");
+		FetchPlan.define(City.class, "withCountry").join("region.country");
+		db.getSessionService().setStatisticsEnabled(true);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		FetchPlan.undefine(Country.class, "withCities");
+		FetchPlan.undefine(City.class, "withCountry");
+		db.closeFactory();
+	}
+
+	@Test
+	public void testLoadsCollectionsInBoundedQueries() {
+		QueryModifier qm = new QueryModifier(Country.class);
+		qm.setFetchPlan("withCities");
+		qm.addOrderBy(Order.asc("name"));
+		StatisticsSnapshot before = db.getStatisticsSnapshot();
+		List<Country> countries = db.getListByCriteria(Country.class, qm);
+		StatisticsSnapshot window = db.getStatisticsSnapshot().since(before);
+
+		assertEquals(COUNTRIES, countries.size());
+		for (Country c : countries) {
+			assertEquals(3, c.getRegions().size());
+			for (Region r : c.getRegions()) {
+				assertEquals(2, r.getCities().size());
+			}
+		}
+		// one query per level, whatever the number of countries
+		assertTrue(window.getQueryExecutionCount() <= 3);
+	}
+
+	@Test
+	public void testJoinsSingleValuedPaths() {
+		QueryModifier qm = new QueryModifier(City.class);
+		qm.setFetchPlan("withCountry");
+		qm.setPaginated(0, 5);
+		List<City> cities = db.getListByCriteria(City.class, qm, Restrictions.like("name", "Country 1 %"));
+		assertEquals(5, cities.size());
+		for (City c : cities) {
+			assertTrue(c.getRegion().getCountry().getName().startsWith("Country 1"));
+		}
+	}
+
+	@Test
+	public void testPageTotalCountsRootsOnce() {
+		QueryModifier qm = new QueryModifier(Country.class);
+		qm.addAlias(new QueryAlias("regions", "r"));
+		qm.setPaginated(0, 5);
+		Page<Country> page = db.getPageByCriteria(Country.class, qm, Restrictions.like("r.name", "Country%"));
+		assertEquals(COUNTRIES, page.getTotal());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownPlan() {
+		new QueryModifier(Country.class).setFetchPlan("missing");
+	}
+
+}
@@ -0,0 +1,66 @@
+package nw.orm.test.query;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import nw.orm.core.query.MultiGetResult;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.session.EmbeddedDatabase;
+import nw.orm.entity.geo.City;
+import nw.orm.entity.geo.Country;
+import nw.orm.entity.geo.Region;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class MultiGetTest {
+
+	private static Nworm db;
+
+	private static List<Serializable> pks = new ArrayList<Serializable>();
+
+	@BeforeClass
+	public static void setUp() {
+		db = Nworm.getInstance(EmbeddedDatabase.h2("multiget_test").addAnnotatedClasses(Country.class, Region.class, City.class));
+		db.setInListChunkSize(2);
+		for (int i = 0; i < 5; i++) {
+			Country c = new Country();
+			c.setName("Country " + i);
+			c.setIsoAlpha2("C" + i);
+			c.setIsoAlpha3("CC" + i);
+			c.setPhoneCode(String.valueOf(i));
+			pks.add(db.create(c));
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		db.closeFactory();
+	}
+
+	@Test
+	public void testLoadsInRequestOrderAcrossChunks() {
+		List<Serializable> ids = Arrays.asList(pks.get(4), pks.get(0), Long.valueOf(-1), pks.get(2), pks.get(0), null);
+		MultiGetResult<Country> result = db.getByIds(Country.class, ids);
+		assertEquals(3, result.getFound().size());
+		assertEquals("Country 4", result.getList().get(0).getName());
+		assertEquals("Country 0", result.getList().get(1).getName());
+		assertEquals("Country 2", result.get(pks.get(2)).getName());
+		assertEquals(Arrays.asList((Serializable) Long.valueOf(-1)), result.getMissing());
+		assertFalse(result.isComplete());
+	}
+
+	@Test
+	public void testSoftDeletedAreMissing() {
+		db.softDeleteByIds(Country.class, Arrays.asList(pks.get(3)));
+		MultiGetResult<Country> result = db.getByIds(Country.class, Arrays.asList(pks.get(1), pks.get(3)));
+		assertNotNull(result.get(pks.get(1)));
+		assertEquals(Arrays.asList(pks.get(3)), result.getMissing());
+	}
+
+}
@@ -0,0 +1,99 @@
+package nw.orm.test.query;
+
+import static org.junit.Assert.*;
+
+import nw.orm.core.query.RowCallback;
+import nw.orm.core.query.ScrollIterator;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.service.NwormHibernateService;
+import nw.orm.core.service.TransactionCallback;
+import nw.orm.core.session.EmbeddedDatabase;
+import nw.orm.entity.geo.City;
+import nw.orm.entity.geo.Country;
+import nw.orm.entity.geo.Region;
+
+import org.hibernate.criterion.Restrictions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ScrollIteratorTest {
+
+	private static final int COUNTRIES = 5;
+
+	private static Nworm db;
+
+	@BeforeClass
+	public static void setUp() {
+		db = Nworm.getInstance(EmbeddedDatabase.h2("scroll_test").addAnnotatedClasses(Country.class, Region.class, City.class));
+		for (int i = 0; i < COUNTRIES; i++) {
+			Country c = new Country();
+			c.setName("Country " + i);
+			c.setIsoAlpha2("C" + i);
+			c.setIsoAlpha3("CC" + i);
+			c.setPhoneCode(String.valueOf(i));
+			db.create(c);
+			Region region = new Region();
+			region.setName(c.getName() + " region");
+			region.setCountry(c);
+			db.create(region);
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		db.closeFactory();
+	}
+
+	@Test
+	public void testRowsStayAttachedAcrossClears() {
+		// the session is cleared after every row, lazy collections must still load on the row just returned
+		ScrollIterator<Country> it = db.scrollByHQL(Country.class, "FROM Country c ORDER BY c.name", 1);
+		int rows = 0;
+		try {
+			while (it.hasNext()) {
+				Country c = it.next();
+				assertEquals(1, c.getRegions().size());
+				rows += 1;
+			}
+		} finally {
+			it.close();
+		}
+		assertEquals(COUNTRIES, rows);
+	}
+
+	@Test
+	public void testStreamKeepsPendingChangesOfUnitOfWork() {
+		final int[] seen = new int[1];
+		db.executeInTransaction(new TransactionCallback<Void>() {
+
+			@Override
+			public Void execute(NwormHibernateService service) {
+				Country first = service.getByCriteria(Country.class, Restrictions.eq("name", "Country 0"));
+				first.setPhoneCode("990");
+				service.update(first);
+				Country second = service.getByCriteria(Country.class, Restrictions.eq("name", "Country 1"));
+				second.setPhoneCode("991");
+				service.streamByHQL(Country.class, "FROM Country c", 1, new RowCallback<Country>() {
+
+					@Override
+					public boolean processRow(Country row) {
+						if (row.getPhoneCode().startsWith("99")) {
+							seen[0] += 1;
+						}
+						return true;
+					}
+				});
+				// rows loaded after the stream stay writable
+				Country third = service.getByCriteria(Country.class, Restrictions.eq("name", "Country 2"));
+				third.setPhoneCode("992");
+				return null;
+			}
+		});
+		assertEquals(2, seen[0]);
+		assertEquals("990", db.getByCriteria(Country.class, Restrictions.eq("name", "Country 0")).getPhoneCode());
+		assertEquals("991", db.getByCriteria(Country.class, Restrictions.eq("name", "Country 1")).getPhoneCode());
+		assertEquals("992", db.getByCriteria(Country.class, Restrictions.eq("name", "Country 2")).getPhoneCode());
+	}
+
+}
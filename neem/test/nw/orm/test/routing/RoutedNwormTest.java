@@ -0,0 +1,104 @@
+package nw.orm.test.routing;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nw.orm.core.query.ScrollIterator;
+import nw.orm.core.routing.RoutedNworm;
+import nw.orm.core.routing.RoutedNworm.ReplicaPolicy;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.service.NwormHibernateService;
+import nw.orm.core.service.NwormImpl;
+import nw.orm.core.service.TransactionCallback;
+import nw.orm.examples.model.Person;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RoutedNwormTest {
+
+	private static Nworm rem;
+
+	private static Long personPk;
+
+	@BeforeClass
+	public static void setUp() {
+		rem = Nworm.getInstance();
+		Person p = new Person();
+		p.setAge(61);
+		personPk = (Long) rem.create(p);
+	}
+
+	private RoutedNworm routed() {
+		// the same database stands in for the primary and both replicas
+		List<NwormImpl> replicas = new ArrayList<NwormImpl>();
+		replicas.add(rem);
+		replicas.add(rem);
+		return new RoutedNworm(rem, replicas);
+	}
+
+	@Test
+	public void testRoundRobinReads() {
+		RoutedNworm db = routed();
+		for (int i = 0; i < 4; i++) {
+			assertNotNull(db.getById(Person.class, personPk));
+		}
+		assertEquals(2, db.getReplicaReadCount(0));
+		assertEquals(2, db.getReplicaReadCount(1));
+		assertEquals(0, db.getPrimaryReadCount());
+	}
+
+	@Test
+	public void testLeastBusyReads() {
+		RoutedNworm db = routed();
+		db.setPolicy(ReplicaPolicy.LEAST_BUSY);
+		db.getAll(Person.class);
+		db.getAll(Person.class);
+		assertEquals(2, db.getReplicaReadCount(0) + db.getReplicaReadCount(1));
+	}
+
+	@Test
+	public void testOpenScrollKeepsReplicaBusy() {
+		RoutedNworm db = routed();
+		db.setPolicy(ReplicaPolicy.LEAST_BUSY);
+		ScrollIterator<Person> it = db.scrollAll(Person.class, 10);
+		int scrolled = db.getReplicaReadCount(0) == 1 ? 0 : 1;
+		try {
+			// the open cursor holds its replica, reads go to the other one
+			db.getAll(Person.class);
+			db.getAll(Person.class);
+			assertEquals(1, db.getReplicaReadCount(scrolled));
+			assertEquals(2, db.getReplicaReadCount(1 - scrolled));
+		} finally {
+			it.close();
+		}
+	}
+
+	@Test
+	public void testReadYourWrites() {
+		RoutedNworm db = routed();
+		db.setStickyMillis(60000);
+		Person p = new Person();
+		p.setAge(62);
+		Long pk = (Long) db.create(p);
+		assertNotNull(db.getById(Person.class, pk));
+		assertEquals(1, db.getPrimaryReadCount());
+	}
+
+	@Test
+	public void testUnitOfWorkReadsFromPrimary() {
+		final RoutedNworm db = routed();
+		db.executeInTransaction(new TransactionCallback<Void>() {
+
+			@Override
+			public Void execute(NwormHibernateService service) {
+				service.getById(Person.class, personPk);
+				return null;
+			}
+		});
+		assertEquals(1, db.getPrimaryReadCount());
+	}
+
+}
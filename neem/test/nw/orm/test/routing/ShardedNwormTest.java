@@ -0,0 +1,152 @@
+package nw.orm.test.routing;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nw.orm.core.exception.NwormQueryException;
+import nw.orm.core.query.QueryAlias;
+import nw.orm.core.query.QueryModifier;
+import nw.orm.core.query.RowCallback;
+import nw.orm.core.query.SQLModifier;
+import nw.orm.core.routing.PropertyShardResolver;
+import nw.orm.core.routing.ShardedNworm;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.service.NwormImpl;
+import nw.orm.entity.geo.Country;
+import nw.orm.entity.geo.Region;
+import nw.orm.examples.model.Person;
+
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ShardedNwormTest {
+
+	private static Nworm rem;
+
+	private static Long personPk;
+
+	@BeforeClass
+	public static void setUp() {
+		rem = Nworm.getInstance();
+		Person p = new Person();
+		p.setAge(71);
+		p.setFullName("Sharded Person");
+		personPk = (Long) rem.create(p);
+	}
+
+	private ShardedNworm sharded() {
+		// the same database stands in for both shards, so every row is seen twice
+		List<NwormImpl> shards = new ArrayList<NwormImpl>();
+		shards.add(rem);
+		shards.add(rem);
+		return new ShardedNworm(shards, new PropertyShardResolver("age"));
+	}
+
+	@Test
+	public void testRoutesByShardKey() {
+		ShardedNworm db = sharded();
+		assertSame(db.shard(Integer.valueOf(2)), db.getShards().get(0));
+		assertSame(db.shard(Integer.valueOf(3)), db.getShards().get(1));
+		Person p = new Person();
+		p.setAge(72);
+		Long pk = (Long) db.create(p);
+		assertNotNull(db.getById(Person.class, pk));
+	}
+
+	@Test
+	public void testMergesOrderedPages() {
+		ShardedNworm db = sharded();
+		QueryModifier qm = new QueryModifier(Person.class);
+		qm.addOrderBy(Order.desc("age"));
+		qm.setPaginated(0, 4);
+		List<Person> people = db.getListByCriteria(Person.class, qm);
+		assertTrue(people.size() <= 4);
+		for (int i = 1; i < people.size(); i++) {
+			assertTrue(people.get(i - 1).getAge() >= people.get(i).getAge());
+		}
+		// each row comes back from both shards and sorts next to its twin
+		assertEquals(people.get(0).getAge(), people.get(1).getAge());
+	}
+
+	@Test
+	public void testCutsHqlPages() {
+		for (int i = 0; i < 3; i++) {
+			Person p = new Person();
+			p.setAge(73);
+			rem.create(p);
+		}
+		String hql = "FROM Person p WHERE p.age = 73 ORDER BY p.pk";
+		List<Person> all = rem.getListByHQL(Person.class, hql);
+		SQLModifier modifier = new SQLModifier(Person.class);
+		modifier.setPaginated(1, 2);
+		// both shards are the same database, the page is cut from the rows of the first one
+		List<Person> page = sharded().getListByHQL(Person.class, hql, modifier);
+		assertEquals(2, page.size());
+		assertEquals(all.get(1).getPk(), page.get(0).getPk());
+		assertEquals(all.get(2).getPk(), page.get(1).getPk());
+	}
+
+	@Test
+	public void testOrdersByAliasedProperty() {
+		createRegion();
+		ShardedNworm db = sharded();
+		QueryModifier qm = new QueryModifier(Region.class);
+		qm.addAlias(new QueryAlias("country", "c"));
+		qm.addOrderBy(Order.asc("c.name"));
+		List<Region> regions = db.getListByCriteria(Region.class, qm);
+		assertTrue(regions.size() >= 2);
+		for (int i = 1; i < regions.size(); i++) {
+			assertTrue(regions.get(i - 1).getCountry().getName().compareTo(regions.get(i).getCountry().getName()) <= 0);
+		}
+	}
+
+	@Test(expected = NwormQueryException.class)
+	public void testOrderThroughCollectionFails() {
+		createRegion();
+		QueryModifier qm = new QueryModifier(Country.class);
+		qm.addAlias(new QueryAlias("regions", "r"));
+		qm.addOrderBy(Order.asc("r.name"));
+		sharded().getListByCriteria(Country.class, qm);
+	}
+
+	private void createRegion() {
+		Country c = new Country();
+		c.setName("Sharded " + System.nanoTime());
+		c.setIsoAlpha2("SH");
+		c.setIsoAlpha3("SHD");
+		c.setPhoneCode("0");
+		Region r = new Region();
+		r.setName(c.getName() + " region");
+		r.setCountry(c);
+		c.addRegion(r);
+		rem.create(c);
+	}
+
+	@Test(expected = NwormQueryException.class)
+	public void testUniqueAcrossShards() {
+		sharded().getByCriteria(Person.class, Restrictions.idEq(personPk));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testNoPagedStreamsAcrossShards() {
+		QueryModifier qm = new QueryModifier(Person.class);
+		qm.setPaginated(0, 2);
+		sharded().streamByCriteria(Person.class, qm, 10, new RowCallback<Person>() {
+
+			@Override
+			public boolean processRow(Person row) {
+				return true;
+			}
+		});
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testNoTransactionsAcrossShards() {
+		sharded().getSessionService();
+	}
+
+}
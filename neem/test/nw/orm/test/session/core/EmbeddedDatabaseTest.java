@@ -0,0 +1,64 @@
+package nw.orm.test.session.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import nw.orm.core.bulk.BulkInsertOptions;
+import nw.orm.core.service.Nworm;
+import nw.orm.core.session.EmbeddedDatabase;
+import nw.orm.entity.geo.City;
+import nw.orm.entity.geo.Country;
+import nw.orm.entity.geo.Region;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class EmbeddedDatabaseTest {
+
+	private static EmbeddedDatabase database;
+
+	private static Nworm db;
+
+	@BeforeClass
+	public static void setUp() {
+		database = EmbeddedDatabase.h2("embedded_test")
+				.addAnnotatedClasses(Country.class, Region.class, City.class)
+				.setPoolSize(4)
+				.setBatchSize(20);
+		db = Nworm.getInstance(database);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		db.closeFactory();
+	}
+
+	private static Country country(String name, String code) {
+		Country c = new Country();
+		c.setName(name);
+		c.setIsoAlpha2(code);
+		c.setIsoAlpha3(code + "X");
+		c.setPhoneCode("234");
+		return c;
+	}
+
+	@Test
+	public void testBuildsWithoutXml() {
+		assertEquals("jdbc:h2:mem:embedded_test;DB_CLOSE_DELAY=-1", database.getUrl());
+		assertEquals(4, db.getConnectionPoolSize());
+		assertSame(db, Nworm.getInstance(database));
+
+		Long pk = (Long) db.create(country("Nigeria", "NG"));
+		assertEquals("Nigeria", db.getById(Country.class, pk).getName());
+	}
+
+	@Test
+	public void testBulkInsertAndPoolMetrics() {
+		db.createBulk(Arrays.asList(country("Ghana", "GH"), country("Togo", "TG"), country("Benin", "BJ")), new BulkInsertOptions());
+		assertNotNull(db.getMetrics().getPoolMetrics());
+		assertTrue(db.getMetrics().getPoolMetrics().getAcquired() > 0);
+	}
+
+}